@@ -0,0 +1,148 @@
+package com.example.session_demo.config;
+
+import com.example.session_demo.util.TokenDigestUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded cache of already-verified access tokens, keyed by the token's keyed digest, so a
+ * client re-sending the same bearer token skips signature verification and claim decoding.
+ *
+ * An entry never outlives the token's own expiry (and is additionally capped by a maximum
+ * TTL). Entries can be evicted per token or per provider when sessions are revoked.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class JwtAuthenticationCache {
+
+    private final TokenDigestUtil tokenDigestUtil;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${security.jwt-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${security.jwt-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${security.jwt-cache.max-ttl-ms:300000}") // 5 minutes in milliseconds
+    private long maxTtlMs;
+
+    private final Map<String, CachedAuthentication> entries = new ConcurrentHashMap<>();
+
+    private Counter hitCounter;
+    private Counter missCounter;
+
+    @PostConstruct
+    void init() {
+        hitCounter = Counter.builder("auth.jwt.cache.hits")
+            .description("Requests authenticated from the verified-token cache")
+            .register(meterRegistry);
+        missCounter = Counter.builder("auth.jwt.cache.misses")
+            .description("Requests that required full token verification")
+            .register(meterRegistry);
+        Gauge.builder("auth.jwt.cache.size", entries, Map::size)
+            .description("Verified tokens currently cached")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Look up the authentication built for this exact token, or null if it is not cached
+     */
+    public UsernamePasswordAuthenticationToken get(String token) {
+        if (!enabled) {
+            return null;
+        }
+        String key = tokenDigestUtil.digest(token);
+        CachedAuthentication cached = entries.get(key);
+        if (cached == null) {
+            missCounter.increment();
+            return null;
+        }
+        if (cached.isExpired(System.currentTimeMillis())) {
+            entries.remove(key, cached);
+            missCounter.increment();
+            return null;
+        }
+        hitCounter.increment();
+        return cached.authentication();
+    }
+
+    /**
+     * Cache the authentication for a token until the earlier of its expiry and the maximum TTL
+     */
+    public void put(String token, UsernamePasswordAuthenticationToken authentication, UUID providerUuid,
+                    Instant tokenExpiresAt) {
+        if (!enabled || tokenExpiresAt == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long expiresAt = Math.min(tokenExpiresAt.toEpochMilli(), now + maxTtlMs);
+        if (expiresAt <= now) {
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            makeRoom(now);
+        }
+        entries.put(tokenDigestUtil.digest(token), new CachedAuthentication(authentication, providerUuid, expiresAt));
+    }
+
+    /**
+     * Revocation hook: forget a single token
+     */
+    public void evict(String token) {
+        entries.remove(tokenDigestUtil.digest(token));
+    }
+
+    /**
+     * Revocation hook: forget every cached token belonging to a provider
+     */
+    public void evictProvider(UUID providerUuid) {
+        entries.values().removeIf(cached -> providerUuid.equals(cached.providerUuid()));
+        log.debug("Evicted cached access tokens for provider: {}", providerUuid);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @Scheduled(fixedRateString = "${security.jwt-cache.cleanup-interval:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(cached -> cached.isExpired(now));
+    }
+
+    private void makeRoom(long now) {
+        entries.values().removeIf(cached -> cached.isExpired(now));
+
+        // Still full: drop an arbitrary tenth of the entries rather than growing without bound
+        int toRemove = entries.size() - maxSize + Math.max(1, maxSize / 10);
+        Iterator<CachedAuthentication> iterator = entries.values().iterator();
+        while (toRemove > 0 && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            toRemove--;
+        }
+    }
+
+    private record CachedAuthentication(UsernamePasswordAuthenticationToken authentication, UUID providerUuid,
+                                        long expiresAtMillis) {
+        boolean isExpired(long now) {
+            return now >= expiresAtMillis;
+        }
+    }
+}
@@ -1,7 +1,7 @@
 package com.example.session_demo.config;
 
 import com.example.session_demo.util.JwtUtil;
-import io.jsonwebtoken.Claims;
+import com.example.session_demo.util.VerifiedToken;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -12,19 +12,34 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.Collections;
-import java.util.UUID;
 
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
     private final JwtUtil jwtUtil;
+    private final JwtAuthenticationCache authenticationCache;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // permitAll routes never need the token parsed
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (String pattern : SecurityConfig.PUBLIC_ENDPOINTS) {
+            if (PATH_MATCHER.match(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -33,24 +48,27 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String token = extractTokenFromRequest(request);
             
-            if (StringUtils.hasText(token) && jwtUtil.validateToken(token)) {
-                Claims claims = jwtUtil.extractAllClaims(token);
-                
-                String email = claims.getSubject();
-                String uuid = claims.get("uuid", String.class);
-                String role = claims.get("role", String.class);
-                
-                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                    email,
-                    null,
-                    Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role))
-                );
-                
-                // Add provider UUID as a custom attribute
-                authentication.setDetails(UUID.fromString(uuid));
+            if (StringUtils.hasText(token)) {
+                UsernamePasswordAuthenticationToken authentication = authenticationCache.get(token);
+
+                if (authentication == null) {
+                    // Single parse: signature, expiry and claims are all checked here
+                    VerifiedToken verifiedToken = jwtUtil.verify(token);
+
+                    authentication = new UsernamePasswordAuthenticationToken(
+                        verifiedToken.getEmail(),
+                        null,
+                        Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + verifiedToken.getRole()))
+                    );
+
+                    // Add provider UUID as a custom attribute
+                    authentication.setDetails(verifiedToken.getUuid());
+
+                    authenticationCache.put(token, authentication, verifiedToken.getUuid(), verifiedToken.getExpiresAt());
+                }
                 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
-                log.debug("JWT authentication successful for user: {}", email);
+                log.debug("JWT authentication successful for user: {}", authentication.getName());
             }
         } catch (Exception e) {
             log.warn("JWT authentication failed: {}", e.getMessage());
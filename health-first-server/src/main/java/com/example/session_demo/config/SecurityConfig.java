@@ -16,6 +16,49 @@ import org.springframework.web.cors.CorsConfigurationSource;
 @RequiredArgsConstructor
 public class SecurityConfig {
 
+    /**
+     * Endpoints reachable without a token. JwtAuthenticationFilter skips these entirely.
+     */
+    public static final String[] PUBLIC_ENDPOINTS = {
+        // Public endpoints - provider registration and verification
+        "/api/v1/provider/register",
+        "/api/v1/provider/login",
+        "/api/v1/provider/verify-email",
+        "/api/v1/provider/rate-limit-status",
+
+        // Authentication endpoints
+        "/api/v1/auth/login",
+
+        // Patient public endpoints
+        "/api/v1/patient/register",
+        "/api/v1/patient/verify-email",
+        "/api/v1/patient/verify-phone",
+        "/api/v1/patient/resend-verification",
+        "/api/v1/patient/check-email",
+        "/api/v1/patient/check-phone",
+
+        // Swagger/OpenAPI endpoints
+        "/swagger-ui/**",
+        "/swagger-ui.html",
+        "/v3/api-docs/**",
+        "/api-docs/**",
+
+        // Health check endpoints
+        "/actuator/health"
+    };
+
+    /**
+     * Roles (the JWT role claim) allowed to query and export patient audit logs. Provider tokens
+     * carry neither. Decrypted action details additionally require {@link #AUDIT_DETAILS_ROLE}.
+     */
+    public static final String[] AUDIT_LOG_ROLES = {"ADMIN", "AUDITOR"};
+    public static final String AUDIT_DETAILS_ROLE = "AUDITOR";
+
+    /**
+     * Role required for operational endpoints under /api/v1/admin, such as partitioning tables
+     */
+    public static final String ADMIN_ROLE = "ADMIN";
+
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
     private final CorsConfigurationSource corsConfigurationSource;
 
@@ -23,36 +66,18 @@ public class SecurityConfig {
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
             .csrf(AbstractHttpConfigurer::disable)
-            .cors(cors -> cors.configurationSource(corsConfigurationSource())) // Enable CORS with custom configuration
+            .cors(cors -> cors.configurationSource(corsConfigurationSource)) // Enable CORS with custom configuration
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
             .authorizeHttpRequests(authz -> authz
-                // Public endpoints - provider registration and verification
-                .requestMatchers("/api/v1/provider/register").permitAll()
-                .requestMatchers("/api/v1/provider/login").permitAll()
-                .requestMatchers("/api/v1/provider/verify-email").permitAll()
-                .requestMatchers("/api/v1/provider/rate-limit-status").permitAll()
-                
-                // Authentication endpoints
-                .requestMatchers("/api/v1/auth/login").permitAll()
+                // Public endpoints (see PUBLIC_ENDPOINTS)
+                .requestMatchers(PUBLIC_ENDPOINTS).permitAll()
 
-                // Patient public endpoints
-                .requestMatchers("/api/v1/patient/register").permitAll()
-                .requestMatchers("/api/v1/patient/verify-email").permitAll()
-                .requestMatchers("/api/v1/patient/verify-phone").permitAll()
-                .requestMatchers("/api/v1/patient/resend-verification").permitAll()
-                .requestMatchers("/api/v1/patient/check-email").permitAll()
-                .requestMatchers("/api/v1/patient/check-phone").permitAll()
+                // Patient audit trails are restricted to administrators and auditors
+                .requestMatchers("/api/v1/audit-logs/**").hasAnyRole(AUDIT_LOG_ROLES)
 
-                
-                // Swagger/OpenAPI endpoints
-                .requestMatchers("/swagger-ui/**").permitAll()
-                .requestMatchers("/swagger-ui.html").permitAll()
-                .requestMatchers("/v3/api-docs/**").permitAll()
-                .requestMatchers("/api-docs/**").permitAll()
-                
-                // Health check endpoints
-                .requestMatchers("/actuator/health").permitAll()
+                // Operational endpoints are for administrators only
+                .requestMatchers("/api/v1/admin/**").hasRole(ADMIN_ROLE)
                 
                 // All other endpoints require authentication
                 .anyRequest().authenticated()
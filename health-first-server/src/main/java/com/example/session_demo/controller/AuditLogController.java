@@ -0,0 +1,121 @@
+package com.example.session_demo.controller;
+
+import com.example.session_demo.config.SecurityConfig;
+import com.example.session_demo.dto.ApiResponse;
+import com.example.session_demo.dto.AuditLogFilterDTO;
+import com.example.session_demo.dto.AuditLogPageDTO;
+import com.example.session_demo.entity.PatientAuditLog;
+import com.example.session_demo.service.AuditLogQueryService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1/audit-logs")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Audit Logs", description = "Patient audit log queries and export")
+public class AuditLogController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final AuditLogQueryService auditLogQueryService;
+
+    @GetMapping
+    @SecurityRequirement(name = "OAuth2Auth")
+    @Operation(
+        summary = "Query patient audit logs",
+        description = "Filtered audit logs, newest first. Pass nextCursor from the response as cursor to get the next page"
+    )
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Page retrieved"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid cursor"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Not an administrator or auditor, or details requested without the auditor role")
+    })
+    public ResponseEntity<ApiResponse<AuditLogPageDTO>> getAuditLogs(
+            @Parameter(description = "Patient UUID") @RequestParam(required = false) UUID patientUuid,
+            @Parameter(description = "Action type") @RequestParam(required = false) PatientAuditLog.ActionType actionType,
+            @Parameter(description = "Outcome") @RequestParam(required = false) Boolean success,
+            @Parameter(description = "Client IP address") @RequestParam(required = false) String ipAddress,
+            @Parameter(description = "Only events that did (or did not) touch sensitive data") @RequestParam(required = false) Boolean sensitive,
+            @Parameter(description = "From (inclusive), ISO date-time") @RequestParam(required = false)
+                @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "To (exclusive), ISO date-time") @RequestParam(required = false)
+                @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Cursor from the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (capped)") @RequestParam(required = false) Integer size,
+            @Parameter(description = "Include decrypted action details (auditors only)") @RequestParam(defaultValue = "false") boolean includeDetails,
+            Authentication authentication) {
+
+        if (includeDetails && !canReadDetails(authentication)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .body(ApiResponse.error("Action details require the auditor role", "FORBIDDEN"));
+        }
+
+        AuditLogFilterDTO filter = new AuditLogFilterDTO(patientUuid, actionType, success, ipAddress, sensitive, from, to);
+        try {
+            AuditLogPageDTO page = auditLogQueryService.findPage(filter, cursor, size, includeDetails);
+            return ResponseEntity.ok(ApiResponse.success("Audit logs retrieved successfully", page));
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ApiResponse.error(e.getMessage(), "INVALID_CURSOR"));
+
+        } catch (Exception e) {
+            log.error("Error retrieving audit logs: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error("Failed to retrieve audit logs", "INTERNAL_ERROR"));
+        }
+    }
+
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    @SecurityRequirement(name = "OAuth2Auth")
+    @Operation(
+        summary = "Export patient audit logs",
+        description = "Streams every matching audit log as newline-delimited JSON, newest first"
+    )
+    public ResponseEntity<StreamingResponseBody> exportAuditLogs(
+            @RequestParam(required = false) UUID patientUuid,
+            @RequestParam(required = false) PatientAuditLog.ActionType actionType,
+            @RequestParam(required = false) Boolean success,
+            @RequestParam(required = false) String ipAddress,
+            @RequestParam(required = false) Boolean sensitive,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "false") boolean includeDetails,
+            Authentication authentication) {
+
+        if (includeDetails && !canReadDetails(authentication)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        AuditLogFilterDTO filter = new AuditLogFilterDTO(patientUuid, actionType, success, ipAddress, sensitive, from, to);
+        StreamingResponseBody body = out -> {
+            long exported = auditLogQueryService.export(filter, includeDetails, out);
+            log.info("Exported {} audit logs for {} (details: {})", exported, authentication.getName(), includeDetails);
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    // Metadata access is enforced in SecurityConfig; decrypted PHI needs the narrower role
+    private static boolean canReadDetails(Authentication authentication) {
+        return authentication != null && authentication.getAuthorities().stream()
+            .anyMatch(authority -> ("ROLE_" + SecurityConfig.AUDIT_DETAILS_ROLE).equals(authority.getAuthority()));
+    }
+}
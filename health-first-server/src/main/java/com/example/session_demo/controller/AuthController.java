@@ -4,6 +4,7 @@ import com.example.session_demo.dto.ApiResponse;
 import com.example.session_demo.dto.LoginRequestDTO;
 import com.example.session_demo.dto.LoginResponseDTO;
 import com.example.session_demo.service.AuthService;
+import com.example.session_demo.service.PasswordHashingService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -11,6 +12,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -88,6 +90,19 @@ public class AuthController {
 
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
 
+        } catch (PasswordHashingService.HashingCapacityException e) {
+            log.warn("Password hashing pool saturated: {}", e.getMessage());
+
+            ApiResponse<LoginResponseDTO> response = ApiResponse.<LoginResponseDTO>builder()
+                .success(false)
+                .message(e.getMessage())
+                .errorCode("SERVICE_BUSY")
+                .build();
+
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(response);
+
         } catch (Exception e) {
             log.error("Unexpected error during login: {}", e.getMessage(), e);
             
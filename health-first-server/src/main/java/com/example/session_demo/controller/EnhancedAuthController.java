@@ -1,11 +1,14 @@
 package com.example.session_demo.controller;
 
+import com.example.session_demo.dto.ActiveSessionDTO;
 import com.example.session_demo.dto.ApiResponse;
 import com.example.session_demo.dto.EnhancedLoginRequestDTO;
 import com.example.session_demo.dto.EnhancedLoginResponseDTO;
 import com.example.session_demo.dto.TokenRefreshRequestDTO;
 import com.example.session_demo.dto.TokenRefreshResponseDTO;
 import com.example.session_demo.service.EnhancedAuthService;
+import com.example.session_demo.service.PasswordHashingService;
+import com.example.session_demo.service.SessionRegistryService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -13,8 +16,10 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.annotation.*;
@@ -22,6 +27,7 @@ import org.springframework.web.bind.annotation.*;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/v1/provider")
@@ -31,6 +37,7 @@ import java.util.Map;
 public class EnhancedAuthController {
 
     private final EnhancedAuthService enhancedAuthService;
+    private final SessionRegistryService sessionRegistryService;
 
     @PostMapping("/login")
     @Operation(
@@ -99,6 +106,19 @@ public class EnhancedAuthController {
 
             return ResponseEntity.status(status).body(response);
 
+        } catch (PasswordHashingService.HashingCapacityException e) {
+            log.warn("Password hashing pool saturated: {}", e.getMessage());
+
+            ApiResponse<EnhancedLoginResponseDTO> response = ApiResponse.<EnhancedLoginResponseDTO>builder()
+                .success(false)
+                .message(e.getMessage())
+                .errorCode("SERVICE_BUSY")
+                .build();
+
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(response);
+
         } catch (Exception e) {
             log.error("Unexpected error during login: {}", e.getMessage(), e);
             
@@ -261,6 +281,51 @@ public class EnhancedAuthController {
         }
     }
 
+    @GetMapping("/sessions")
+    @Operation(
+        summary = "List active sessions",
+        description = "List the devices on which the authenticated provider currently has an active session"
+    )
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Active sessions retrieved"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public ResponseEntity<ApiResponse<List<ActiveSessionDTO>>> listActiveSessions(Authentication authentication) {
+
+        if (authentication == null || !(authentication.getDetails() instanceof UUID providerUuid)) {
+            ApiResponse<List<ActiveSessionDTO>> response = ApiResponse.<List<ActiveSessionDTO>>builder()
+                .success(false)
+                .message("Authentication required")
+                .errorCode("UNAUTHORIZED")
+                .build();
+
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        }
+
+        try {
+            List<ActiveSessionDTO> sessions = sessionRegistryService.listActiveSessions(providerUuid);
+
+            ApiResponse<List<ActiveSessionDTO>> response = ApiResponse.<List<ActiveSessionDTO>>builder()
+                .success(true)
+                .message("Active sessions retrieved successfully")
+                .data(sessions)
+                .build();
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            log.error("Error listing active sessions: {}", e.getMessage(), e);
+            
+            ApiResponse<List<ActiveSessionDTO>> response = ApiResponse.<List<ActiveSessionDTO>>builder()
+                .success(false)
+                .message("Failed to retrieve active sessions")
+                .errorCode("INTERNAL_ERROR")
+                .build();
+
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
     // Helper methods
 
     private String getClientIpAddress(HttpServletRequest request) {
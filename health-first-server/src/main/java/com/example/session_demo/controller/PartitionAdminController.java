@@ -0,0 +1,62 @@
+package com.example.session_demo.controller;
+
+import com.example.session_demo.dto.ApiResponse;
+import com.example.session_demo.service.PartitionMaintenanceService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/admin/partitions")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Partition Administration", description = "One-off conversion of audit tables to monthly partitions")
+public class PartitionAdminController {
+
+    private final PartitionMaintenanceService partitionMaintenanceService;
+
+    @PostMapping("/{table}")
+    @SecurityRequirement(name = "OAuth2Auth")
+    @Operation(
+        summary = "Partition an audit table",
+        description = "Converts patient_audit_logs or login_attempts into a table partitioned by month, in place. " +
+                     "Holds an exclusive lock on the table while it runs, so schedule it for a quiet time"
+    )
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Table partitioned, or already was"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Table cannot be partitioned"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Not an administrator"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "409", description = "Not running on PostgreSQL")
+    })
+    public ResponseEntity<ApiResponse<Boolean>> convertToPartitioned(
+            @Parameter(description = "patient_audit_logs or login_attempts") @PathVariable String table,
+            Authentication authentication) {
+
+        try {
+            log.info("Partitioning of {} requested by {}", table, authentication.getName());
+            boolean converted = partitionMaintenanceService.convertToPartitioned(table);
+            return ResponseEntity.ok(ApiResponse.success(
+                converted ? "Table partitioned successfully" : "Table is already partitioned", converted));
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage(), "INVALID_TABLE"));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ApiResponse.error(e.getMessage(), "UNSUPPORTED_DATABASE"));
+        } catch (Exception e) {
+            log.error("Error partitioning {}: {}", table, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error("Failed to partition table", "INTERNAL_ERROR"));
+        }
+    }
+}
@@ -6,6 +6,7 @@ import com.example.session_demo.dto.PatientRegistrationResponseDTO;
 import com.example.session_demo.dto.VerificationRequestDTO;
 import com.example.session_demo.dto.VerificationResponseDTO;
 import com.example.session_demo.service.PatientService;
+import com.example.session_demo.service.PasswordHashingService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -14,6 +15,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -137,6 +139,19 @@ public class PatientController {
             log.info("Patient registration successful for email: {}", registrationRequest.getEmail());
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
             
+        } catch (PasswordHashingService.HashingCapacityException e) {
+            log.warn("Password hashing pool saturated: {}", e.getMessage());
+
+            ApiResponse<PatientRegistrationResponseDTO> response = ApiResponse.<PatientRegistrationResponseDTO>builder()
+                .success(false)
+                .message(e.getMessage())
+                .errorCode("SERVICE_BUSY")
+                .build();
+
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(response);
+
         } catch (Exception e) {
             log.error("Patient registration failed", e);
             ApiResponse<PatientRegistrationResponseDTO> response = ApiResponse.error(
@@ -330,7 +345,7 @@ public class PatientController {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
             }
             
-            boolean exists = patientService.existsByEmail(email.toLowerCase().trim());
+            boolean exists = patientService.isEmailTaken(email.toLowerCase().trim());
             Map<String, Boolean> result = Map.of("exists", exists);
             
             ApiResponse<Map<String, Boolean>> response = ApiResponse.success(
@@ -373,7 +388,7 @@ public class PatientController {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
             }
             
-            boolean exists = patientService.existsByPhoneNumber(phone.trim());
+            boolean exists = patientService.isPhoneNumberTaken(phone.trim());
             Map<String, Boolean> result = Map.of("exists", exists);
             
             ApiResponse<Map<String, Boolean>> response = ApiResponse.success(
@@ -3,9 +3,12 @@ package com.example.session_demo.controller;
 import com.example.session_demo.dto.ApiResponse;
 import com.example.session_demo.dto.ProviderRegisterDTO;
 import com.example.session_demo.dto.ProviderResponseDTO;
+import com.example.session_demo.dto.ProviderSuggestionDTO;
 import com.example.session_demo.dto.ProviderUpdateDTO;
+import com.example.session_demo.enums.ProviderSpecialization;
 import com.example.session_demo.enums.VerificationStatus;
 import com.example.session_demo.service.ProviderService;
+import com.example.session_demo.service.PasswordHashingService;
 import com.example.session_demo.service.RateLimitingService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -18,6 +21,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -66,14 +70,12 @@ public class ProviderController {
         log.info("Provider registration attempt from IP: {}", ipAddress);
 
         try {
-            // Check rate limiting
-            if (rateLimitingService.isRateLimited(ipAddress)) {
-                int remainingAttempts = rateLimitingService.getRemainingAttempts(ipAddress);
-                long timeUntilReset = rateLimitingService.getTimeUntilReset(ipAddress);
-                
+            // Check and count the attempt against the rate limit in one call
+            RateLimitingService.RateLimitResult rateLimit = rateLimitingService.tryAcquire(ipAddress);
+            if (!rateLimit.allowed()) {
                 Map<String, Object> errorData = new HashMap<>();
-                errorData.put("remainingAttempts", remainingAttempts);
-                errorData.put("timeUntilResetMs", timeUntilReset);
+                errorData.put("remainingAttempts", rateLimit.remaining());
+                errorData.put("timeUntilResetMs", rateLimit.resetAfterMs());
                 errorData.put("message", "Too many registration attempts. Please try again later.");
 
                 ApiResponse<Map<String, Object>> response = ApiResponse.<Map<String, Object>>builder()
@@ -83,12 +85,11 @@ public class ProviderController {
                     .data(errorData)
                     .build();
 
-                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(response);
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf((rateLimit.retryAfterMs() + 999) / 1000))
+                    .body(response);
             }
 
-            // Increment rate limit counter
-            rateLimitingService.incrementRequestCount(ipAddress);
-
             // Check for validation errors
             if (bindingResult.hasErrors()) {
                 Map<String, List<String>> errors = new HashMap<>();
@@ -148,6 +149,19 @@ public class ProviderController {
 
             return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
 
+        } catch (PasswordHashingService.HashingCapacityException e) {
+            log.warn("Password hashing pool saturated: {}", e.getMessage());
+
+            ApiResponse<Map<String, Object>> response = ApiResponse.<Map<String, Object>>builder()
+                .success(false)
+                .message(e.getMessage())
+                .errorCode("SERVICE_BUSY")
+                .build();
+
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(response);
+
         } catch (Exception e) {
             log.error("Unexpected error during provider registration: {}", e.getMessage(), e);
             
@@ -224,12 +238,14 @@ public class ProviderController {
     public ResponseEntity<ApiResponse<Map<String, Object>>> getRateLimitStatus(HttpServletRequest request) {
         String ipAddress = getClientIpAddress(request);
         
+        RateLimitingService.RateLimitResult rateLimit = rateLimitingService.getStatus(ipAddress);
+
         Map<String, Object> statusData = new HashMap<>();
         statusData.put("ipAddress", ipAddress);
-        statusData.put("isRateLimited", rateLimitingService.isRateLimited(ipAddress));
-        statusData.put("remainingAttempts", rateLimitingService.getRemainingAttempts(ipAddress));
-        statusData.put("currentCount", rateLimitingService.getCurrentRequestCount(ipAddress));
-        statusData.put("timeUntilResetMs", rateLimitingService.getTimeUntilReset(ipAddress));
+        statusData.put("isRateLimited", !rateLimit.allowed());
+        statusData.put("remainingAttempts", rateLimit.remaining());
+        statusData.put("currentCount", rateLimit.currentCount());
+        statusData.put("timeUntilResetMs", rateLimit.resetAfterMs());
 
         ApiResponse<Map<String, Object>> response = ApiResponse.<Map<String, Object>>builder()
             .success(true)
@@ -454,18 +470,30 @@ public class ProviderController {
     @SecurityRequirement(name = "OAuth2Auth")
     @Operation(
         summary = "Search providers",
-        description = "Search healthcare providers by name or email"
+        description = "Search healthcare providers by name or email, best matches first, with optional filters and pagination"
     )
-    public ResponseEntity<ApiResponse<List<ProviderResponseDTO>>> searchProviders(
-            @Parameter(description = "Search term") @RequestParam String q) {
+    public ResponseEntity<ApiResponse<Map<String, Object>>> searchProviders(
+            @Parameter(description = "Search terms; every term must match") @RequestParam String q,
+            @Parameter(description = "Specialization filter") @RequestParam(required = false) ProviderSpecialization specialization,
+            @Parameter(description = "Verification status filter") @RequestParam(required = false) VerificationStatus verificationStatus,
+            @Parameter(description = "Page number (0-based)") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Page size (max 100)") @RequestParam(defaultValue = "10") int size) {
 
         try {
-            List<ProviderResponseDTO> providers = providerService.searchProviders(q);
+            Pageable pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), 100));
+            Page<ProviderResponseDTO> providersPage = providerService.searchProviders(q, specialization, verificationStatus, pageable);
 
-            ApiResponse<List<ProviderResponseDTO>> response = ApiResponse.<List<ProviderResponseDTO>>builder()
+            Map<String, Object> responseData = new HashMap<>();
+            responseData.put("providers", providersPage.getContent());
+            responseData.put("currentPage", providersPage.getNumber());
+            responseData.put("totalPages", providersPage.getTotalPages());
+            responseData.put("totalElements", providersPage.getTotalElements());
+            responseData.put("pageSize", providersPage.getSize());
+
+            ApiResponse<Map<String, Object>> response = ApiResponse.<Map<String, Object>>builder()
                 .success(true)
                 .message("Search completed successfully")
-                .data(providers)
+                .data(responseData)
                 .build();
 
             return ResponseEntity.ok(response);
@@ -473,7 +501,7 @@ public class ProviderController {
         } catch (Exception e) {
             log.error("Error searching providers with term '{}': {}", q, e.getMessage(), e);
             
-            ApiResponse<List<ProviderResponseDTO>> response = ApiResponse.<List<ProviderResponseDTO>>builder()
+            ApiResponse<Map<String, Object>> response = ApiResponse.<Map<String, Object>>builder()
                 .success(false)
                 .message("Search failed")
                 .errorCode("INTERNAL_ERROR")
@@ -483,6 +511,40 @@ public class ProviderController {
         }
     }
 
+    @GetMapping("/autocomplete")
+    @SecurityRequirement(name = "OAuth2Auth")
+    @Operation(
+        summary = "Autocomplete providers",
+        description = "Suggest active providers whose name, email or license number starts with the typed prefix, verified providers first"
+    )
+    public ResponseEntity<ApiResponse<List<ProviderSuggestionDTO>>> autocompleteProviders(
+            @Parameter(description = "Typed prefix") @RequestParam String q,
+            @Parameter(description = "Maximum suggestions (capped at provider.autocomplete.max-results)") @RequestParam(defaultValue = "10") int limit) {
+
+        try {
+            List<ProviderSuggestionDTO> suggestions = providerService.autocompleteProviders(q, Math.max(limit, 1));
+
+            ApiResponse<List<ProviderSuggestionDTO>> response = ApiResponse.<List<ProviderSuggestionDTO>>builder()
+                .success(true)
+                .message("Suggestions retrieved successfully")
+                .data(suggestions)
+                .build();
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            log.error("Error autocompleting providers with prefix '{}': {}", q, e.getMessage(), e);
+
+            ApiResponse<List<ProviderSuggestionDTO>> response = ApiResponse.<List<ProviderSuggestionDTO>>builder()
+                .success(false)
+                .message("Autocomplete failed")
+                .errorCode("INTERNAL_ERROR")
+                .build();
+
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
     @PutMapping("/{id}/status")
     @SecurityRequirement(name = "OAuth2Auth")
     @Operation(
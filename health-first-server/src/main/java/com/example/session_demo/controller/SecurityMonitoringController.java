@@ -0,0 +1,57 @@
+package com.example.session_demo.controller;
+
+import com.example.session_demo.dto.ApiResponse;
+import com.example.session_demo.dto.SuspiciousActivityDTO;
+import com.example.session_demo.service.CredentialStuffingDetector;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/security")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Security Monitoring", description = "Login abuse detection")
+public class SecurityMonitoringController {
+
+    private static final int MAX_LIMIT = 1000;
+
+    private final CredentialStuffingDetector credentialStuffingDetector;
+
+    @GetMapping("/suspicious-activity")
+    @SecurityRequirement(name = "OAuth2Auth")
+    @Operation(
+        summary = "Suspicious login activity",
+        description = "Identifiers failing from many IP addresses and IP addresses failing against many identifiers " +
+                     "in the current detection window, most widespread first"
+    )
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Suspicious activity retrieved")
+    })
+    public ResponseEntity<ApiResponse<List<SuspiciousActivityDTO>>> getSuspiciousActivity(
+            @Parameter(description = "IDENTIFIER or IP_ADDRESS; both when omitted") @RequestParam(required = false) SuspiciousActivityDTO.Type type,
+            @Parameter(description = "Maximum entries (capped)") @RequestParam(defaultValue = "100") int limit) {
+
+        try {
+            List<SuspiciousActivityDTO> activity = credentialStuffingDetector.getSuspiciousActivity(type, Math.min(limit, MAX_LIMIT));
+            return ResponseEntity.ok(ApiResponse.success("Suspicious activity retrieved successfully", activity));
+
+        } catch (Exception e) {
+            log.error("Error retrieving suspicious activity: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error("Failed to retrieve suspicious activity", "INTERNAL_ERROR"));
+        }
+    }
+}
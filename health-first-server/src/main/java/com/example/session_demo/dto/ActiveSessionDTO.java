@@ -0,0 +1,22 @@
+package com.example.session_demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ActiveSessionDTO {
+
+    private String sessionId; // Prefix of the refresh token digest, never the token itself
+    private String deviceInfo;
+    private String ipAddress;
+    private String userAgent;
+    private LocalDateTime createdAt;
+    private LocalDateTime expiresAt;
+}
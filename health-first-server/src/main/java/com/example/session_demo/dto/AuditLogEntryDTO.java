@@ -0,0 +1,32 @@
+package com.example.session_demo.dto;
+
+import com.example.session_demo.entity.PatientAuditLog;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AuditLogEntryDTO {
+
+    private UUID uuid;
+    private UUID patientUuid;
+    private PatientAuditLog.ActionType actionType;
+    private Boolean success;
+    private String failureReason;
+    private Boolean sensitiveDataAccessed;
+    private String ipAddress;
+    private String userAgent;
+    private String actorType;
+    private String actorId;
+    private LocalDateTime createdAt;
+    private String details; // decrypted action details, only when requested
+}
@@ -0,0 +1,28 @@
+package com.example.session_demo.dto;
+
+import com.example.session_demo.entity.PatientAuditLog;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Audit log query filters; null fields are not applied
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AuditLogFilterDTO {
+
+    private UUID patientUuid;
+    private PatientAuditLog.ActionType actionType;
+    private Boolean success;
+    private String ipAddress;
+    private Boolean sensitiveDataAccessed;
+    private LocalDateTime from; // inclusive
+    private LocalDateTime to;   // exclusive
+}
@@ -0,0 +1,18 @@
+package com.example.session_demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AuditLogPageDTO {
+
+    private List<AuditLogEntryDTO> entries;
+    private String nextCursor; // pass back to get the next page; null on the last page
+}
@@ -0,0 +1,24 @@
+package com.example.session_demo.dto;
+
+import com.example.session_demo.enums.ProviderSpecialization;
+import com.example.session_demo.enums.VerificationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProviderSuggestionDTO {
+
+    private UUID uuid;
+    private String firstName;
+    private String lastName;
+    private ProviderSpecialization specialization;
+    private String licenseNumber;
+    private VerificationStatus verificationStatus;
+}
@@ -0,0 +1,27 @@
+package com.example.session_demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SuspiciousActivityDTO {
+
+    public enum Type {
+        IDENTIFIER, // one identifier failing from many IP addresses
+        IP_ADDRESS  // one IP address failing against many identifiers
+    }
+
+    private Type type;
+    private String key;
+    private long distinctCount; // estimated distinct IP addresses (or identifiers) in the window
+    private long failedAttempts; // estimated failed attempts in the window
+    private LocalDateTime firstFlaggedAt;
+    private LocalDateTime lastSeenAt;
+}
@@ -0,0 +1,51 @@
+package com.example.session_demo.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Number of patient audit events per minute for one action type, outcome and sensitive flag.
+ * Incremented by the audit writer in the same transaction as the events themselves.
+ */
+@Entity
+@Table(name = "audit_event_rollups", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_audit_rollup_key", columnNames = {"bucket_start", "action_type", "success", "sensitive_data_accessed"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditEventRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "action_type", nullable = false)
+    private PatientAuditLog.ActionType actionType;
+
+    @Column(name = "success", nullable = false)
+    private Boolean success;
+
+    @Column(name = "sensitive_data_accessed", nullable = false)
+    private Boolean sensitiveDataAccessed;
+
+    @Column(name = "event_count", nullable = false)
+    private Long eventCount;
+
+    public AuditEventRollup(LocalDateTime bucketStart, PatientAuditLog.ActionType actionType, Boolean success,
+                            Boolean sensitiveDataAccessed, Long eventCount) {
+        this.bucketStart = bucketStart;
+        this.actionType = actionType;
+        this.success = success;
+        this.sensitiveDataAccessed = sensitiveDataAccessed;
+        this.eventCount = eventCount;
+    }
+}
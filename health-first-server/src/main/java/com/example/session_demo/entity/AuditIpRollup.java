@@ -0,0 +1,40 @@
+package com.example.session_demo.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Number of patient audit events per minute from one IP address
+ */
+@Entity
+@Table(name = "audit_ip_rollups", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_audit_ip_rollup_key", columnNames = {"ip_address", "bucket_start"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditIpRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "ip_address", nullable = false)
+    private String ipAddress;
+
+    @Column(name = "event_count", nullable = false)
+    private Long eventCount;
+
+    public AuditIpRollup(LocalDateTime bucketStart, String ipAddress, Long eventCount) {
+        this.bucketStart = bucketStart;
+        this.ipAddress = ipAddress;
+        this.eventCount = eventCount;
+    }
+}
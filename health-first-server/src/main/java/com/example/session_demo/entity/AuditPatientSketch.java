@@ -0,0 +1,27 @@
+package com.example.session_demo.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * HyperLogLog sketch of the patients whose sensitive data was accessed in one hour
+ * (see util.HyperLogLog); merged across hours to count distinct patients over a range
+ */
+@Entity
+@Table(name = "audit_patient_sketches")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditPatientSketch {
+
+    @Id
+    @Column(name = "bucket_start")
+    private LocalDateTime bucketStart;
+
+    @Column(name = "sketch", nullable = false, columnDefinition = "bytea")
+    private byte[] sketch;
+}
@@ -21,7 +21,7 @@ public class InsuranceInfo {
 
     // This field will be encrypted by the service layer
     @Size(max = 500, message = "Policy number must not exceed 500 characters (encrypted)")
-    @Column(name = "insurance_policy_number_encrypted")
+    @Column(name = "insurance_policy_number_encrypted", length = 500)
     private String policyNumberEncrypted;
 
     @Size(max = 100, message = "Group number must not exceed 100 characters")
@@ -30,7 +30,7 @@ public class InsuranceInfo {
 
     // This field will be encrypted by the service layer
     @Size(max = 500, message = "Member ID must not exceed 500 characters (encrypted)")
-    @Column(name = "insurance_member_id_encrypted")
+    @Column(name = "insurance_member_id_encrypted", length = 500)
     private String memberIdEncrypted;
 
     @Column(name = "insurance_effective_date")
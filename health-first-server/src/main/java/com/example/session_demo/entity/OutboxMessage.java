@@ -0,0 +1,97 @@
+package com.example.session_demo.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Email or SMS waiting to be delivered. Rows are written in the same transaction as the change
+ * that triggers them and delivered by NotificationOutboxService after commit.
+ */
+@Entity
+@Table(name = "notification_outbox", indexes = {
+    @Index(name = "idx_outbox_status_next_attempt", columnList = "status, next_attempt_at"),
+    @Index(name = "idx_outbox_created", columnList = "created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "message_type", nullable = false)
+    private MessageType messageType;
+
+    @Column(name = "recipient", nullable = false)
+    private String recipient;
+
+    @Column(name = "recipient_name")
+    private String recipientName;
+
+    // Encrypted token or code; cleared once the message is delivered or dead
+    @JsonIgnore
+    @Column(name = "payload_encrypted", length = 1000)
+    private String payloadEncrypted;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private Status status = Status.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    // A PROCESSING row whose lease has passed was abandoned by its worker and is claimed again
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    public enum Status {
+        PENDING,
+        PROCESSING,
+        SENT,
+        DEAD
+    }
+
+    public enum Channel {
+        EMAIL,
+        SMS
+    }
+
+    public enum MessageType {
+        PROVIDER_VERIFICATION_EMAIL(Channel.EMAIL),
+        PROVIDER_WELCOME_EMAIL(Channel.EMAIL),
+        PATIENT_VERIFICATION_EMAIL(Channel.EMAIL),
+        PATIENT_VERIFICATION_SMS(Channel.SMS);
+
+        private final Channel channel;
+
+        MessageType(Channel channel) {
+            this.channel = channel;
+        }
+
+        public Channel getChannel() {
+            return channel;
+        }
+    }
+}
@@ -81,20 +81,17 @@ public class Patient {
     @Embedded
     private EmergencyContact emergencyContact;
 
-    // Medical history stored as encrypted JSON array
-    @Lob
-    @Column(name = "medical_history_encrypted", columnDefinition = "TEXT")
-    private String medicalHistoryEncrypted;
+    // Medical history stored as encrypted JSON array, in the binary format (see EncryptionService.encryptBinary)
+    @Column(name = "medical_history_encrypted", columnDefinition = "bytea")
+    private byte[] medicalHistoryEncrypted;
 
     // Allergies stored as encrypted JSON array
-    @Lob
-    @Column(name = "allergies_encrypted", columnDefinition = "TEXT")
-    private String allergiesEncrypted;
+    @Column(name = "allergies_encrypted", columnDefinition = "bytea")
+    private byte[] allergiesEncrypted;
 
     // Current medications stored as encrypted JSON array
-    @Lob
-    @Column(name = "current_medications_encrypted", columnDefinition = "TEXT")
-    private String currentMedicationsEncrypted;
+    @Column(name = "current_medications_encrypted", columnDefinition = "bytea")
+    private byte[] currentMedicationsEncrypted;
 
     @Embedded
     private InsuranceInfo insuranceInfo;
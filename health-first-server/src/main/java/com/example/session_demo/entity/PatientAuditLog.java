@@ -5,16 +5,15 @@ import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
 @Table(name = "patient_audit_logs", indexes = {
-    @Index(name = "idx_audit_patient", columnList = "patient_id"),
+    @Index(name = "idx_audit_patient", columnList = "patient_id, created_at"),
     @Index(name = "idx_audit_action", columnList = "action_type"),
-    @Index(name = "idx_audit_created", columnList = "created_at"),
+    @Index(name = "idx_audit_created", columnList = "created_at, id"), // keyset order of AuditLogQueryService
     @Index(name = "idx_audit_sensitive", columnList = "sensitive_data_accessed"),
     @Index(name = "idx_audit_success", columnList = "success"),
     @Index(name = "idx_audit_ip", columnList = "ip_address")
@@ -24,8 +23,10 @@ import java.util.UUID;
 @AllArgsConstructor
 public class PatientAuditLog {
 
+    // Sequence ids fetched 50 at a time let Hibernate batch the inserts; IDENTITY disables batching
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "patient_audit_logs_seq")
+    @SequenceGenerator(name = "patient_audit_logs_seq", sequenceName = "patient_audit_logs_seq", allocationSize = 50)
     private Long id;
 
     @Column(columnDefinition = "UUID", unique = true, nullable = false)
@@ -41,10 +42,9 @@ public class PatientAuditLog {
     @Column(name = "action_type", nullable = false)
     private ActionType actionType;
 
-    // Encrypted JSON containing action details
-    @Lob
-    @Column(name = "action_details_encrypted", columnDefinition = "TEXT")
-    private String actionDetailsEncrypted;
+    // Encrypted action details in the binary format (see EncryptionService.encryptBinary)
+    @Column(name = "action_details_encrypted", columnDefinition = "bytea")
+    private byte[] actionDetailsEncrypted;
 
     @Column(name = "ip_address")
     private String ipAddress;
@@ -84,7 +84,7 @@ public class PatientAuditLog {
     @Column(name = "processing_time_ms")
     private Long processingTimeMs;
 
-    @CreationTimestamp
+    // Time of the event, not of the insert; audit rows are written behind the request
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -214,7 +214,10 @@ public class PatientAuditLog {
         if (uuid == null) {
             uuid = UUID.randomUUID();
         }
-        
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+
         // Auto-set sensitive data flag based on action type
         if (actionType != null && actionType.involvesSensitiveData()) {
             sensitiveDataAccessed = true;
@@ -22,7 +22,8 @@ import jakarta.persistence.PrePersist;
 @Table(name = "providers", indexes = {
     @Index(name = "idx_provider_email", columnList = "email"),
     @Index(name = "idx_provider_phone", columnList = "phone_number"),
-    @Index(name = "idx_provider_license", columnList = "license_number")
+    @Index(name = "idx_provider_license", columnList = "license_number"),
+    @Index(name = "idx_provider_updated_at", columnList = "updated_at")
 })
 @Data
 @NoArgsConstructor
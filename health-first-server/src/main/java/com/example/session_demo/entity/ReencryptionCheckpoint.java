@@ -0,0 +1,50 @@
+package com.example.session_demo.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of the re-encryption job for one table. Saved in the same transaction as each chunk,
+ * so a restarted job resumes after the last committed row.
+ */
+@Entity
+@Table(name = "reencryption_checkpoints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReencryptionCheckpoint {
+
+    @Id
+    @Column(name = "table_name", length = 64)
+    private String tableName;
+
+    // Master key the pass moves rows to; a different active key starts a new pass
+    @Column(name = "target_key_id", nullable = false, length = 32)
+    private String targetKeyId;
+
+    @Column(name = "last_id", nullable = false)
+    private Long lastId = 0L;
+
+    @Column(name = "rows_scanned", nullable = false)
+    private Long rowsScanned = 0L;
+
+    @Column(name = "rows_reencrypted", nullable = false)
+    private Long rowsReencrypted = 0L;
+
+    @Column(name = "completed", nullable = false)
+    private Boolean completed = false;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public ReencryptionCheckpoint(String tableName, String targetKeyId) {
+        this.tableName = tableName;
+        this.targetKeyId = targetKeyId;
+    }
+}
@@ -34,7 +34,8 @@ public class RefreshToken {
     @JoinColumn(name = "provider_id", nullable = false)
     private Provider provider;
 
-    @Column(name = "token_hash", nullable = false, unique = true)
+    // Hex encoded HMAC-SHA-256 of the refresh token (see TokenDigestUtil)
+    @Column(name = "token_hash", nullable = false, unique = true, length = 64)
     private String tokenHash;
 
     @Column(name = "expires_at", nullable = false)
@@ -19,7 +19,8 @@ import java.util.UUID;
     @Index(name = "idx_verification_type", columnList = "token_type"),
     @Index(name = "idx_verification_expires", columnList = "expires_at"),
     @Index(name = "idx_verification_used", columnList = "is_used"),
-    @Index(name = "idx_verification_active", columnList = "is_used, expires_at")
+    @Index(name = "idx_verification_active", columnList = "is_used, expires_at"),
+    @Index(name = "idx_verification_lookup_digest", columnList = "lookup_digest")
 })
 @Data
 @NoArgsConstructor
@@ -43,10 +44,16 @@ public class VerificationToken {
     @Column(name = "token_type", nullable = false)
     private TokenType tokenType;
 
+    // Salted SHA-256 verifier of the token, checked after the lookup
     @JsonIgnore
     @Column(name = "token_hash", nullable = false)
     private String tokenHash;
 
+    // Hex encoded HMAC-SHA-256 of link tokens (see TokenDigestUtil); null for OTP codes
+    @JsonIgnore
+    @Column(name = "lookup_digest", unique = true, length = 64)
+    private String lookupDigest;
+
     // For OTP codes, this stores the encrypted value
     @JsonIgnore
     @Column(name = "token_value_encrypted")
@@ -0,0 +1,44 @@
+package com.example.session_demo.repository;
+
+import com.example.session_demo.entity.AuditEventRollup;
+import com.example.session_demo.entity.PatientAuditLog;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface AuditEventRollupRepository extends JpaRepository<AuditEventRollup, Long> {
+
+    /**
+     * Add to an existing bucket; returns 0 when the bucket does not exist yet
+     */
+    @Modifying
+    @Query("UPDATE AuditEventRollup r SET r.eventCount = r.eventCount + :count WHERE r.bucketStart = :bucketStart " +
+           "AND r.actionType = :actionType AND r.success = :success AND r.sensitiveDataAccessed = :sensitive")
+    int increment(@Param("bucketStart") LocalDateTime bucketStart,
+                  @Param("actionType") PatientAuditLog.ActionType actionType,
+                  @Param("success") Boolean success,
+                  @Param("sensitive") Boolean sensitive,
+                  @Param("count") long count);
+
+    @Query("SELECT COALESCE(SUM(r.eventCount), 0) FROM AuditEventRollup r WHERE " +
+           "r.actionType = :actionType AND r.bucketStart >= :since")
+    long sumByActionTypeSince(@Param("actionType") PatientAuditLog.ActionType actionType,
+                              @Param("since") LocalDateTime since);
+
+    @Query("SELECT COALESCE(SUM(r.eventCount), 0) FROM AuditEventRollup r WHERE " +
+           "r.sensitiveDataAccessed = true AND r.bucketStart >= :since")
+    long sumSensitiveDataAccessSince(@Param("since") LocalDateTime since);
+
+    @Query("SELECT COALESCE(SUM(r.eventCount), 0) FROM AuditEventRollup r WHERE " +
+           "r.success = false AND r.bucketStart >= :since")
+    long sumFailedSince(@Param("since") LocalDateTime since);
+
+    @Modifying
+    @Query("DELETE FROM AuditEventRollup r WHERE r.bucketStart < :cutoff")
+    int deleteBefore(@Param("cutoff") LocalDateTime cutoff);
+}
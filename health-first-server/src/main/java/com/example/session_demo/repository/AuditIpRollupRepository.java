@@ -0,0 +1,32 @@
+package com.example.session_demo.repository;
+
+import com.example.session_demo.entity.AuditIpRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface AuditIpRollupRepository extends JpaRepository<AuditIpRollup, Long> {
+
+    /**
+     * Add to an existing bucket; returns 0 when the bucket does not exist yet
+     */
+    @Modifying
+    @Query("UPDATE AuditIpRollup r SET r.eventCount = r.eventCount + :count WHERE " +
+           "r.ipAddress = :ipAddress AND r.bucketStart = :bucketStart")
+    int increment(@Param("bucketStart") LocalDateTime bucketStart,
+                  @Param("ipAddress") String ipAddress,
+                  @Param("count") long count);
+
+    @Query("SELECT COALESCE(SUM(r.eventCount), 0) FROM AuditIpRollup r WHERE " +
+           "r.ipAddress = :ipAddress AND r.bucketStart >= :since")
+    long sumByIpAddressSince(@Param("ipAddress") String ipAddress, @Param("since") LocalDateTime since);
+
+    @Modifying
+    @Query("DELETE FROM AuditIpRollup r WHERE r.bucketStart < :cutoff")
+    int deleteBefore(@Param("cutoff") LocalDateTime cutoff);
+}
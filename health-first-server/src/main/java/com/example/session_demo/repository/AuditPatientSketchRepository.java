@@ -0,0 +1,29 @@
+package com.example.session_demo.repository;
+
+import com.example.session_demo.entity.AuditPatientSketch;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AuditPatientSketchRepository extends JpaRepository<AuditPatientSketch, LocalDateTime> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM AuditPatientSketch s WHERE s.bucketStart = :bucketStart")
+    Optional<AuditPatientSketch> findForUpdate(@Param("bucketStart") LocalDateTime bucketStart);
+
+    @Query("SELECT s.sketch FROM AuditPatientSketch s WHERE s.bucketStart >= :since")
+    List<byte[]> findSketchesSince(@Param("since") LocalDateTime since);
+
+    @Modifying
+    @Query("DELETE FROM AuditPatientSketch s WHERE s.bucketStart < :cutoff")
+    int deleteBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -4,6 +4,7 @@ import com.example.session_demo.entity.LoginAttempt;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -45,12 +46,6 @@ public interface LoginAttemptRepository extends JpaRepository<LoginAttempt, UUID
     @Query("SELECT la FROM LoginAttempt la WHERE la.provider.uuid = :providerUuid ORDER BY la.createdAt DESC")
     Page<LoginAttempt> findByProviderUuid(@Param("providerUuid") UUID providerUuid, Pageable pageable);
 
-    /**
-     * Find suspicious activity (multiple failed attempts from different IPs)
-     */
-    @Query("SELECT la.identifier, COUNT(DISTINCT la.ipAddress) as ipCount FROM LoginAttempt la WHERE la.attemptType IN ('FAILED', 'LOCKED') AND la.createdAt > :since GROUP BY la.identifier HAVING COUNT(DISTINCT la.ipAddress) > 2")
-    List<Object[]> findSuspiciousActivity(@Param("since") LocalDateTime since);
-
     /**
      * Get last successful login for a provider
      */
@@ -60,6 +55,7 @@ public interface LoginAttemptRepository extends JpaRepository<LoginAttempt, UUID
     /**
      * Clean up old login attempts (older than specified date)
      */
+    @Modifying
     @Query("DELETE FROM LoginAttempt la WHERE la.createdAt < :before")
-    void deleteOldAttempts(@Param("before") LocalDateTime before);
+    int deleteOldAttempts(@Param("before") LocalDateTime before);
 } 
\ No newline at end of file
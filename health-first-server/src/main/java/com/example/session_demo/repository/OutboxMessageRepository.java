@@ -0,0 +1,63 @@
+package com.example.session_demo.repository;
+
+import com.example.session_demo.entity.OutboxMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    /**
+     * Messages due for delivery: pending ones whose retry time has come, and in-flight ones whose
+     * worker lease has run out
+     */
+    @Query("SELECT m.id FROM OutboxMessage m WHERE " +
+           "(m.status = com.example.session_demo.entity.OutboxMessage.Status.PENDING AND m.nextAttemptAt <= :now) OR " +
+           "(m.status = com.example.session_demo.entity.OutboxMessage.Status.PROCESSING AND m.leaseExpiresAt < :now) " +
+           "ORDER BY m.nextAttemptAt")
+    List<Long> findDueIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Take a due message for delivery; returns 0 when another worker claimed it first
+     */
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET " +
+           "m.status = com.example.session_demo.entity.OutboxMessage.Status.PROCESSING, " +
+           "m.leaseExpiresAt = :leaseExpiresAt, m.attempts = m.attempts + 1 WHERE m.id = :id AND (" +
+           "(m.status = com.example.session_demo.entity.OutboxMessage.Status.PENDING AND m.nextAttemptAt <= :now) OR " +
+           "(m.status = com.example.session_demo.entity.OutboxMessage.Status.PROCESSING AND m.leaseExpiresAt < :now))")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt);
+
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET " +
+           "m.status = com.example.session_demo.entity.OutboxMessage.Status.SENT, m.sentAt = :sentAt, " +
+           "m.payloadEncrypted = null, m.leaseExpiresAt = null, m.lastError = null WHERE m.id = :id")
+    int markSent(@Param("id") Long id, @Param("sentAt") LocalDateTime sentAt);
+
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET " +
+           "m.status = com.example.session_demo.entity.OutboxMessage.Status.PENDING, m.nextAttemptAt = :nextAttemptAt, " +
+           "m.leaseExpiresAt = null, m.lastError = :lastError WHERE m.id = :id")
+    int reschedule(@Param("id") Long id, @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                   @Param("lastError") String lastError);
+
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET " +
+           "m.status = com.example.session_demo.entity.OutboxMessage.Status.DEAD, m.payloadEncrypted = null, " +
+           "m.leaseExpiresAt = null, m.lastError = :lastError WHERE m.id = :id")
+    int markDead(@Param("id") Long id, @Param("lastError") String lastError);
+
+    long countByStatus(OutboxMessage.Status status);
+
+    @Modifying
+    @Query("DELETE FROM OutboxMessage m WHERE " +
+           "m.status = com.example.session_demo.entity.OutboxMessage.Status.SENT AND m.sentAt < :cutoff")
+    int deleteSentBefore(@Param("cutoff") LocalDateTime cutoff);
+}
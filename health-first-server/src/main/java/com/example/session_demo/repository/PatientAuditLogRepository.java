@@ -2,7 +2,10 @@ package com.example.session_demo.repository;
 
 import com.example.session_demo.entity.Patient;
 import com.example.session_demo.entity.PatientAuditLog;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -93,7 +96,7 @@ public interface PatientAuditLogRepository extends JpaRepository<PatientAuditLog
     // Find by session ID
     List<PatientAuditLog> findBySessionId(String sessionId);
 
-    // Statistics queries
+    // Statistics queries; each is a range scan, dashboards read AuditCounterService instead
     @Query("SELECT COUNT(pal) FROM PatientAuditLog pal WHERE " +
            "pal.actionType = :actionType AND pal.createdAt >= :since")
     long countByActionTypeSince(@Param("actionType") PatientAuditLog.ActionType actionType, 
@@ -117,6 +120,30 @@ public interface PatientAuditLogRepository extends JpaRepository<PatientAuditLog
     long countByIpAddressSince(@Param("ipAddress") String ipAddress, 
                               @Param("since") LocalDateTime since);
 
+    // Exact counts for the part of a range not yet covered by a whole rollup bucket
+    @Query("SELECT COUNT(pal) FROM PatientAuditLog pal WHERE " +
+           "pal.actionType = :actionType AND pal.createdAt >= :from AND pal.createdAt < :to")
+    long countByActionTypeBetween(@Param("actionType") PatientAuditLog.ActionType actionType,
+                                  @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT COUNT(pal) FROM PatientAuditLog pal WHERE " +
+           "pal.sensitiveDataAccessed = true AND pal.createdAt >= :from AND pal.createdAt < :to")
+    long countSensitiveDataAccessBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT COUNT(pal) FROM PatientAuditLog pal WHERE " +
+           "pal.success = false AND pal.createdAt >= :from AND pal.createdAt < :to")
+    long countFailedAttemptsBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT COUNT(pal) FROM PatientAuditLog pal WHERE " +
+           "pal.ipAddress = :ipAddress AND pal.createdAt >= :from AND pal.createdAt < :to")
+    long countByIpAddressBetween(@Param("ipAddress") String ipAddress,
+                                 @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT DISTINCT pal.patient.id FROM PatientAuditLog pal WHERE " +
+           "pal.sensitiveDataAccessed = true AND pal.patient IS NOT NULL AND " +
+           "pal.createdAt >= :from AND pal.createdAt < :to")
+    List<Long> findSensitiveDataPatientIdsBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
     // HIPAA compliance queries
     @Query("SELECT pal FROM PatientAuditLog pal WHERE " +
            "pal.patient = :patient AND " +
@@ -176,4 +203,9 @@ public interface PatientAuditLogRepository extends JpaRepository<PatientAuditLog
            "pal.sensitiveDataAccessed = true AND " +
            "pal.createdAt >= :since")
     long countDistinctPatientsWithSensitiveDataAccessSince(@Param("since") LocalDateTime since);
-} 
\ No newline at end of file
+
+    // Keyset-paginated chunk for the re-encryption job; locks only the rows in the chunk
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT pal FROM PatientAuditLog pal WHERE pal.id > :afterId ORDER BY pal.id")
+    List<PatientAuditLog> findChunkForUpdate(@Param("afterId") Long afterId, Pageable pageable);
+}
@@ -1,7 +1,10 @@
 package com.example.session_demo.repository;
 
 import com.example.session_demo.entity.Patient;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -134,4 +137,9 @@ public interface PatientRepository extends JpaRepository<Patient, Long> {
            "p.phoneVerified = false AND " +
            "p.createdAt < :cutoffDate")
     int deleteUnverifiedInactivePatients(@Param("cutoffDate") LocalDateTime cutoffDate);
-} 
\ No newline at end of file
+
+    // Keyset-paginated chunk for the re-encryption job; locks only the rows in the chunk
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Patient p WHERE p.id > :afterId ORDER BY p.id")
+    List<Patient> findChunkForUpdate(@Param("afterId") Long afterId, Pageable pageable);
+}
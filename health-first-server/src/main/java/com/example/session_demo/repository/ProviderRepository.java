@@ -1,13 +1,17 @@
 package com.example.session_demo.repository;
 
 import com.example.session_demo.entity.Provider;
+import com.example.session_demo.enums.ProviderSpecialization;
 import com.example.session_demo.enums.VerificationStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -21,6 +25,11 @@ public interface ProviderRepository extends JpaRepository<Provider, UUID> {
     Optional<Provider> findByEmail(String email);
     Optional<Provider> findByUuid(UUID uuid);
 
+    /**
+     * Find providers by UUIDs
+     */
+    List<Provider> findByUuidIn(Collection<UUID> uuids);
+
     /**
      * Find provider by phone number
      */
@@ -79,4 +88,26 @@ public interface ProviderRepository extends JpaRepository<Provider, UUID> {
     @Query("SELECT p FROM Provider p WHERE p.createdAt BETWEEN :startDate AND :endDate")
     List<Provider> findProvidersCreatedBetween(@Param("startDate") LocalDateTime startDate, 
                                              @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * Search providers whose name or email contains the (lowercase) term, optionally filtered
+     */
+    @Query("SELECT p FROM Provider p WHERE (LOWER(p.firstName) LIKE CONCAT('%', :term, '%') " +
+           "OR LOWER(p.lastName) LIKE CONCAT('%', :term, '%') OR LOWER(p.email) LIKE CONCAT('%', :term, '%')) " +
+           "AND (:specialization IS NULL OR p.specialization = :specialization) " +
+           "AND (:verificationStatus IS NULL OR p.verificationStatus = :verificationStatus)")
+    Page<Provider> searchByTerm(@Param("term") String term,
+                                @Param("specialization") ProviderSpecialization specialization,
+                                @Param("verificationStatus") VerificationStatus verificationStatus,
+                                Pageable pageable);
+
+    /**
+     * Find active providers whose full name, last name, email or license number starts with the (lowercase) prefix
+     */
+    @Query("SELECT p FROM Provider p WHERE p.isActive = true " +
+           "AND (LOWER(CONCAT(p.firstName, ' ', p.lastName)) LIKE CONCAT(:prefix, '%') " +
+           "OR LOWER(p.lastName) LIKE CONCAT(:prefix, '%') OR LOWER(p.email) LIKE CONCAT(:prefix, '%') " +
+           "OR LOWER(p.licenseNumber) LIKE CONCAT(:prefix, '%')) " +
+           "ORDER BY p.lastName, p.firstName")
+    List<Provider> findActiveByPrefix(@Param("prefix") String prefix, Pageable pageable);
 } 
\ No newline at end of file
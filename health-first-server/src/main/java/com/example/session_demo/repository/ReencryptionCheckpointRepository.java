@@ -0,0 +1,9 @@
+package com.example.session_demo.repository;
+
+import com.example.session_demo.entity.ReencryptionCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReencryptionCheckpointRepository extends JpaRepository<ReencryptionCheckpoint, String> {
+}
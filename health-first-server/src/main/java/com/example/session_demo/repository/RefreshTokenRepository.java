@@ -8,6 +8,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -32,6 +33,18 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID
     @Query("SELECT COUNT(rt) FROM RefreshToken rt WHERE rt.provider.uuid = :providerUuid AND rt.isRevoked = false AND rt.expiresAt > :now")
     long countActiveSessionsByProviderUuid(@Param("providerUuid") UUID providerUuid, @Param("now") LocalDateTime now);
 
+    /**
+     * Those of the given token hashes that still belong to valid refresh tokens
+     */
+    @Query("SELECT rt.tokenHash FROM RefreshToken rt WHERE rt.tokenHash IN :tokenHashes AND rt.isRevoked = false AND rt.expiresAt > :now")
+    List<String> findValidTokenHashes(@Param("tokenHashes") Collection<String> tokenHashes, @Param("now") LocalDateTime now);
+
+    /**
+     * Providers that currently have at least one active session
+     */
+    @Query("SELECT DISTINCT rt.provider.uuid FROM RefreshToken rt WHERE rt.isRevoked = false AND rt.expiresAt > :now")
+    List<UUID> findProviderUuidsWithActiveSessions(@Param("now") LocalDateTime now);
+
     /**
      * Find expired tokens
      */
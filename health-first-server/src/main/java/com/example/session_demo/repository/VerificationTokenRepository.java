@@ -19,6 +19,7 @@ public interface VerificationTokenRepository extends JpaRepository<VerificationT
     // Find by unique identifiers
     Optional<VerificationToken> findByUuid(UUID uuid);
     Optional<VerificationToken> findByTokenHash(String tokenHash);
+    Optional<VerificationToken> findByLookupDigest(String lookupDigest);
 
     // Find by patient and token type
     Optional<VerificationToken> findByPatientAndTokenType(Patient patient, VerificationToken.TokenType tokenType);
@@ -0,0 +1,218 @@
+package com.example.session_demo.service;
+
+import com.example.session_demo.entity.AuditPatientSketch;
+import com.example.session_demo.entity.PatientAuditLog;
+import com.example.session_demo.repository.AuditEventRollupRepository;
+import com.example.session_demo.repository.AuditIpRollupRepository;
+import com.example.session_demo.repository.AuditPatientSketchRepository;
+import com.example.session_demo.repository.PatientAuditLogRepository;
+import com.example.session_demo.util.HyperLogLog;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Audit and security counters answered from rollups instead of scanning patient_audit_logs.
+ * The audit writer folds every batch into per-minute counts (action type x outcome x sensitive
+ * flag, and per IP address) and hourly HyperLogLog sketches of the patients whose sensitive data
+ * was accessed, in the same transaction as the insert, so the rollups never drift from the table.
+ *
+ * Writers on every node race to create each new bucket. The row is inserted under a savepoint,
+ * and a writer that loses to a concurrent insert rolls back just that statement and adds to the
+ * winner's row, so a lost race never aborts the audit batch it belongs to.
+ *
+ * A query sums the whole buckets in its range and counts the leading partial bucket exactly from
+ * the table, so results match the equivalent range scan (distinct patients within the sketch's
+ * error) while reading at most one bucket of raw rows.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AuditCounterService {
+
+    private final AuditEventRollupRepository eventRollupRepository;
+    private final AuditIpRollupRepository ipRollupRepository;
+    private final AuditPatientSketchRepository patientSketchRepository;
+    private final PatientAuditLogRepository auditLogRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    private static final String UNIQUE_VIOLATION = "23505"; // SQLSTATE on PostgreSQL and H2
+    private static final String INSERT_EVENT_ROLLUP = "INSERT INTO audit_event_rollups " +
+            "(bucket_start, action_type, success, sensitive_data_accessed, event_count) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_IP_ROLLUP =
+            "INSERT INTO audit_ip_rollups (bucket_start, ip_address, event_count) VALUES (?, ?, ?)";
+    private static final String INSERT_PATIENT_SKETCH =
+            "INSERT INTO audit_patient_sketches (bucket_start, sketch) VALUES (?, ?)";
+
+    private record EventKey(LocalDateTime bucketStart, PatientAuditLog.ActionType actionType,
+                            boolean success, boolean sensitive) {
+    }
+
+    private record IpKey(LocalDateTime bucketStart, String ipAddress) {
+    }
+
+    // Buckets are updated in a fixed order so concurrent writers cannot deadlock on them
+    private static final Comparator<EventKey> EVENT_ORDER = Comparator.comparing(EventKey::bucketStart)
+            .thenComparing(EventKey::actionType)
+            .thenComparing(EventKey::success)
+            .thenComparing(EventKey::sensitive);
+    private static final Comparator<IpKey> IP_ORDER = Comparator.comparing(IpKey::bucketStart)
+            .thenComparing(IpKey::ipAddress);
+
+    /**
+     * Fold written audit events into the rollups; runs in the transaction that inserted them
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void apply(List<PatientAuditLog> auditLogs) {
+        Map<EventKey, Long> events = new TreeMap<>(EVENT_ORDER);
+        Map<IpKey, Long> ips = new TreeMap<>(IP_ORDER);
+        Map<LocalDateTime, HyperLogLog> patients = new TreeMap<>();
+
+        for (PatientAuditLog auditLog : auditLogs) {
+            LocalDateTime minute = auditLog.getCreatedAt().truncatedTo(ChronoUnit.MINUTES);
+            boolean sensitive = Boolean.TRUE.equals(auditLog.getSensitiveDataAccessed());
+            events.merge(new EventKey(minute, auditLog.getActionType(), Boolean.TRUE.equals(auditLog.getSuccess()), sensitive),
+                    1L, Long::sum);
+            if (auditLog.getIpAddress() != null) {
+                ips.merge(new IpKey(minute, auditLog.getIpAddress()), 1L, Long::sum);
+            }
+            if (sensitive && auditLog.getPatient() != null) {
+                patients.computeIfAbsent(auditLog.getCreatedAt().truncatedTo(ChronoUnit.HOURS), hour -> new HyperLogLog())
+                        .offer(auditLog.getPatient().getId());
+            }
+        }
+
+        events.forEach((key, count) -> {
+            if (eventRollupRepository.increment(key.bucketStart(), key.actionType(), key.success(), key.sensitive(), count) == 0
+                    && !insertIfAbsent(INSERT_EVENT_ROLLUP, key.bucketStart(), key.actionType().name(), key.success(),
+                            key.sensitive(), count)) {
+                requireIncremented(eventRollupRepository.increment(key.bucketStart(), key.actionType(), key.success(),
+                        key.sensitive(), count), key);
+            }
+        });
+        ips.forEach((key, count) -> {
+            if (ipRollupRepository.increment(key.bucketStart(), key.ipAddress(), count) == 0
+                    && !insertIfAbsent(INSERT_IP_ROLLUP, key.bucketStart(), key.ipAddress(), count)) {
+                requireIncremented(ipRollupRepository.increment(key.bucketStart(), key.ipAddress(), count), key);
+            }
+        });
+        patients.forEach((hour, sketch) -> {
+            Optional<AuditPatientSketch> existing = patientSketchRepository.findForUpdate(hour);
+            if (existing.isEmpty() && insertIfAbsent(INSERT_PATIENT_SKETCH, hour, sketch.toByteArray())) {
+                return;
+            }
+            // Either found, or created by a concurrent writer since and visible now that its insert has committed
+            AuditPatientSketch stored = existing.or(() -> patientSketchRepository.findForUpdate(hour))
+                    .orElseThrow(() -> new IllegalStateException("Audit patient sketch vanished for " + hour));
+            HyperLogLog merged = HyperLogLog.fromByteArray(stored.getSketch());
+            merged.merge(sketch);
+            stored.setSketch(merged.toByteArray());
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public long countByActionTypeSince(PatientAuditLog.ActionType actionType, LocalDateTime since) {
+        LocalDateTime boundary = nextBucket(since, ChronoUnit.MINUTES);
+        long partial = boundary.equals(since) ? 0 : auditLogRepository.countByActionTypeBetween(actionType, since, boundary);
+        return partial + eventRollupRepository.sumByActionTypeSince(actionType, boundary);
+    }
+
+    @Transactional(readOnly = true)
+    public long countSensitiveDataAccessSince(LocalDateTime since) {
+        LocalDateTime boundary = nextBucket(since, ChronoUnit.MINUTES);
+        long partial = boundary.equals(since) ? 0 : auditLogRepository.countSensitiveDataAccessBetween(since, boundary);
+        return partial + eventRollupRepository.sumSensitiveDataAccessSince(boundary);
+    }
+
+    @Transactional(readOnly = true)
+    public long countFailedAttemptsSince(LocalDateTime since) {
+        LocalDateTime boundary = nextBucket(since, ChronoUnit.MINUTES);
+        long partial = boundary.equals(since) ? 0 : auditLogRepository.countFailedAttemptsBetween(since, boundary);
+        return partial + eventRollupRepository.sumFailedSince(boundary);
+    }
+
+    @Transactional(readOnly = true)
+    public long countByIpAddressSince(String ipAddress, LocalDateTime since) {
+        LocalDateTime boundary = nextBucket(since, ChronoUnit.MINUTES);
+        long partial = boundary.equals(since) ? 0 : auditLogRepository.countByIpAddressBetween(ipAddress, since, boundary);
+        return partial + ipRollupRepository.sumByIpAddressSince(ipAddress, boundary);
+    }
+
+    /**
+     * Estimated number of distinct patients whose sensitive data was accessed (about 1.6% error)
+     */
+    @Transactional(readOnly = true)
+    public long countDistinctPatientsWithSensitiveDataAccessSince(LocalDateTime since) {
+        LocalDateTime boundary = nextBucket(since, ChronoUnit.HOURS);
+        HyperLogLog union = new HyperLogLog();
+        for (byte[] sketch : patientSketchRepository.findSketchesSince(boundary)) {
+            union.merge(HyperLogLog.fromByteArray(sketch));
+        }
+        if (!boundary.equals(since)) {
+            auditLogRepository.findSensitiveDataPatientIdsBetween(since, boundary).forEach(union::offer);
+        }
+        return union.cardinality();
+    }
+
+    /**
+     * Drop rollups for buckets before the cutoff, alongside audit log retention
+     */
+    @Transactional
+    public void deleteBefore(LocalDateTime cutoff) {
+        int deleted = eventRollupRepository.deleteBefore(cutoff)
+                + ipRollupRepository.deleteBefore(cutoff)
+                + patientSketchRepository.deleteBefore(cutoff.truncatedTo(ChronoUnit.HOURS));
+        log.info("Deleted {} audit rollup rows before {}", deleted, cutoff);
+    }
+
+    /**
+     * Insert a new bucket row; false if a concurrent writer inserted it first. Runs on the
+     * transaction's connection under a savepoint, so the unique violation is confined to this
+     * statement instead of marking the whole audit batch for rollback.
+     */
+    private boolean insertIfAbsent(String sql, Object... args) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            Savepoint savepoint = connection.setSavepoint();
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (int i = 0; i < args.length; i++) {
+                    statement.setObject(i + 1, args[i]);
+                }
+                statement.executeUpdate();
+            } catch (SQLException e) {
+                connection.rollback(savepoint);
+                if (UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                    return false;
+                }
+                throw e;
+            }
+            connection.releaseSavepoint(savepoint);
+            return true;
+        }));
+    }
+
+    private static void requireIncremented(int updated, Object key) {
+        if (updated == 0) {
+            throw new IllegalStateException("Audit rollup bucket neither inserted nor found: " + key);
+        }
+    }
+
+    private static LocalDateTime nextBucket(LocalDateTime time, ChronoUnit unit) {
+        LocalDateTime start = time.truncatedTo(unit);
+        return start.equals(time) ? time : start.plus(1, unit);
+    }
+}
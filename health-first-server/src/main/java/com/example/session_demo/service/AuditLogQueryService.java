@@ -0,0 +1,234 @@
+package com.example.session_demo.service;
+
+import com.example.session_demo.dto.AuditLogEntryDTO;
+import com.example.session_demo.dto.AuditLogFilterDTO;
+import com.example.session_demo.dto.AuditLogPageDTO;
+import com.example.session_demo.entity.Patient;
+import com.example.session_demo.entity.PatientAuditLog;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Filtered reads of patient audit logs. Results are ordered newest first and paged with a keyset
+ * cursor on (created_at, id), so every page costs the same however deep the caller goes, and rows
+ * are read as projections rather than entities.
+ *
+ * The NDJSON export walks the same keyset one chunk at a time and writes each chunk before
+ * reading the next, so memory stays constant whatever the size of the result.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AuditLogQueryService {
+
+    private final EntityManager entityManager;
+    private final EncryptionService encryptionService;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+
+    @Value("${patient.audit.query.default-page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${patient.audit.query.max-page-size:500}")
+    private int maxPageSize;
+
+    @Value("${patient.audit.export.chunk-size:500}")
+    private int exportChunkSize;
+
+    private TransactionTemplate readOnlyTransaction;
+    private ObjectWriter lineWriter;
+
+    record Cursor(LocalDateTime createdAt, Long id) {
+    }
+
+    private record Chunk(List<AuditLogEntryDTO> entries, Cursor next) {
+    }
+
+    @PostConstruct
+    void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        // Flushed once per chunk rather than after every line
+        lineWriter = objectMapper.writerFor(AuditLogEntryDTO.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * One page of matching audit logs
+     *
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @param size   page size; defaults when null and is capped at the configured maximum
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    @Transactional(readOnly = true)
+    public AuditLogPageDTO findPage(AuditLogFilterDTO filter, String cursor, Integer size, boolean includeDetails) {
+        int limit = Math.max(1, Math.min(size != null ? size : defaultPageSize, maxPageSize));
+        Chunk chunk = fetch(filter, decodeCursor(cursor), limit, includeDetails);
+        return new AuditLogPageDTO(chunk.entries(), chunk.next() != null ? encodeCursor(chunk.next()) : null);
+    }
+
+    /**
+     * Write every matching audit log to the stream as newline-delimited JSON
+     *
+     * @return number of entries written
+     */
+    public long export(AuditLogFilterDTO filter, boolean includeDetails, OutputStream out) throws IOException {
+        long written = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            Cursor cursor = null;
+            do {
+                Cursor after = cursor;
+                // A short read-only transaction per chunk; nothing is held open while the client reads
+                Chunk chunk = readOnlyTransaction.execute(status -> fetch(filter, after, exportChunkSize, includeDetails));
+                for (AuditLogEntryDTO entry : chunk.entries()) {
+                    lineWriter.writeValue(generator, entry);
+                    generator.writeRaw('\n');
+                }
+                generator.flush();
+                written += chunk.entries().size();
+                cursor = chunk.next();
+            } while (cursor != null);
+        }
+        return written;
+    }
+
+    private Chunk fetch(AuditLogFilterDTO filter, Cursor after, int limit, boolean includeDetails) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<PatientAuditLog> auditLog = query.from(PatientAuditLog.class);
+        Join<PatientAuditLog, Patient> patient = auditLog.join("patient", JoinType.LEFT);
+        Path<LocalDateTime> createdAt = auditLog.get("createdAt");
+        Path<Long> id = auditLog.get("id");
+
+        List<Selection<?>> columns = new ArrayList<>(List.of(
+            id.alias("id"), createdAt.alias("createdAt"), auditLog.get("uuid").alias("uuid"),
+            patient.get("uuid").alias("patientUuid"), auditLog.get("actionType").alias("actionType"),
+            auditLog.get("success").alias("success"), auditLog.get("failureReason").alias("failureReason"),
+            auditLog.get("sensitiveDataAccessed").alias("sensitiveDataAccessed"),
+            auditLog.get("ipAddress").alias("ipAddress"), auditLog.get("userAgent").alias("userAgent"),
+            auditLog.get("actorType").alias("actorType"), auditLog.get("actorId").alias("actorId")));
+        if (includeDetails) {
+            columns.add(auditLog.get("actionDetailsEncrypted").alias("details"));
+        }
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.getPatientUuid() != null) {
+            predicates.add(cb.equal(patient.get("uuid"), filter.getPatientUuid()));
+        }
+        if (filter.getActionType() != null) {
+            predicates.add(cb.equal(auditLog.get("actionType"), filter.getActionType()));
+        }
+        if (filter.getSuccess() != null) {
+            predicates.add(cb.equal(auditLog.get("success"), filter.getSuccess()));
+        }
+        if (filter.getIpAddress() != null) {
+            predicates.add(cb.equal(auditLog.get("ipAddress"), filter.getIpAddress()));
+        }
+        if (filter.getSensitiveDataAccessed() != null) {
+            predicates.add(cb.equal(auditLog.get("sensitiveDataAccessed"), filter.getSensitiveDataAccessed()));
+        }
+        if (filter.getFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(createdAt, filter.getFrom()));
+        }
+        if (filter.getTo() != null) {
+            predicates.add(cb.lessThan(createdAt, filter.getTo()));
+        }
+        if (after != null) {
+            // Rows strictly after the cursor in (created_at DESC, id DESC) order
+            predicates.add(cb.or(
+                cb.lessThan(createdAt, after.createdAt()),
+                cb.and(cb.equal(createdAt, after.createdAt()), cb.lessThan(id, after.id()))));
+        }
+
+        query.multiselect(columns)
+            .where(predicates.toArray(Predicate[]::new))
+            .orderBy(cb.desc(createdAt), cb.desc(id));
+        List<Tuple> rows = entityManager.createQuery(query).setMaxResults(limit + 1).getResultList();
+
+        boolean hasMore = rows.size() > limit;
+        List<AuditLogEntryDTO> entries = new ArrayList<>(Math.min(rows.size(), limit));
+        for (Tuple row : rows.subList(0, Math.min(rows.size(), limit))) {
+            entries.add(toEntry(row, includeDetails));
+        }
+        Cursor next = null;
+        if (hasMore) {
+            Tuple last = rows.get(limit - 1);
+            next = new Cursor(last.get("createdAt", LocalDateTime.class), last.get("id", Long.class));
+        }
+        return new Chunk(entries, next);
+    }
+
+    private AuditLogEntryDTO toEntry(Tuple row, boolean includeDetails) {
+        AuditLogEntryDTO entry = AuditLogEntryDTO.builder()
+            .uuid(row.get("uuid", UUID.class))
+            .patientUuid(row.get("patientUuid", UUID.class))
+            .actionType(row.get("actionType", PatientAuditLog.ActionType.class))
+            .success(row.get("success", Boolean.class))
+            .failureReason(row.get("failureReason", String.class))
+            .sensitiveDataAccessed(row.get("sensitiveDataAccessed", Boolean.class))
+            .ipAddress(row.get("ipAddress", String.class))
+            .userAgent(row.get("userAgent", String.class))
+            .actorType(row.get("actorType", String.class))
+            .actorId(row.get("actorId", String.class))
+            .createdAt(row.get("createdAt", LocalDateTime.class))
+            .build();
+
+        byte[] details = includeDetails ? row.get("details", byte[].class) : null;
+        if (details != null) {
+            try {
+                entry.setDetails(encryptionService.decryptBinary(details));
+            } catch (Exception e) {
+                log.warn("Could not decrypt details of audit log {}: {}", entry.getUuid(), e.getMessage());
+            }
+        }
+        return entry;
+    }
+
+    static String encodeCursor(Cursor cursor) {
+        String value = cursor.createdAt() + "," + cursor.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Cursor decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int comma = value.lastIndexOf(',');
+            return new Cursor(LocalDateTime.parse(value.substring(0, comma)), Long.parseLong(value.substring(comma + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | StringIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -5,7 +5,6 @@ import com.example.session_demo.dto.LoginResponseDTO;
 import com.example.session_demo.entity.Provider;
 import com.example.session_demo.repository.ProviderRepository;
 import com.example.session_demo.util.JwtUtil;
-import com.example.session_demo.util.PasswordUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -21,7 +20,7 @@ public class AuthService {
 
     private final ProviderRepository providerRepository;
     private final JwtUtil jwtUtil;
-    private final PasswordUtil passwordUtil;
+    private final PasswordHashingService passwordHashingService;
 
     public LoginResponseDTO login(LoginRequestDTO loginRequest) {
         log.info("Login attempt for email: {}", loginRequest.getEmail());
@@ -49,7 +48,7 @@ public class AuthService {
         }
 
         // Verify password
-        if (!passwordUtil.verifyPassword(loginRequest.getPassword(), provider.getPasswordHash())) {
+        if (!passwordHashingService.verifyPassword(loginRequest.getPassword(), provider.getPasswordHash())) {
             log.warn("Login failed: Invalid password for email: {}", loginRequest.getEmail());
             throw new AuthenticationException("Invalid email or password");
         }
@@ -0,0 +1,323 @@
+package com.example.session_demo.service;
+
+import com.example.session_demo.dto.SuspiciousActivityDTO;
+import com.example.session_demo.util.CountMinSketch;
+import com.example.session_demo.util.HyperLogLog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming credential-stuffing detector fed with failed login attempts as they happen, replacing
+ * the GROUP BY identifier HAVING COUNT(DISTINCT ip_address) scan over login_attempts. It flags
+ * identifiers failing from more distinct IP addresses than allowed, and IP addresses failing
+ * against more distinct identifiers than allowed, within a sliding window.
+ *
+ * The window is split into slices. Per slice, failures are counted in a count-min sketch and each
+ * tracked key holds a small HyperLogLog of the IPs (or identifiers) seen with it. The tracked keys
+ * are bounded: when full, a new key only displaces the least recently seen one if it has at least
+ * as many failures, so keys with many failures (the heavy hitters) stay tracked under a flood of
+ * one-off attempts. Memory is therefore fixed by the configuration, not by traffic.
+ *
+ * A newly flagged key is logged and published as a {@link SuspiciousActivityDTO} application event.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CredentialStuffingDetector {
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${security.credential-stuffing.window-ms:900000}") // 15 minutes in milliseconds
+    private long windowMs;
+
+    @Value("${security.credential-stuffing.slices:5}")
+    private int sliceCount;
+
+    @Value("${security.credential-stuffing.identifier-ip-threshold:2}")
+    private long identifierIpThreshold;
+
+    @Value("${security.credential-stuffing.ip-identifier-threshold:10}")
+    private long ipIdentifierThreshold;
+
+    @Value("${security.credential-stuffing.max-tracked:10000}")
+    private int maxTracked;
+
+    @Value("${security.credential-stuffing.max-flagged:1000}")
+    private int maxFlagged;
+
+    @Value("${security.credential-stuffing.sketch-precision:7}")
+    private int sketchPrecision;
+
+    @Value("${security.credential-stuffing.count-min-depth:4}")
+    private int countMinDepth;
+
+    @Value("${security.credential-stuffing.count-min-width:2048}")
+    private int countMinWidth;
+
+    private record FlagKey(SuspiciousActivityDTO.Type type, String key) {
+    }
+
+    private Dimension identifiers;
+    private Dimension ipAddresses;
+    private final Map<FlagKey, SuspiciousActivityDTO> flagged = new HashMap<>();
+
+    private long sliceMs;
+    private long currentSlice = Long.MIN_VALUE;
+
+    private Counter identifierFlaggedCounter;
+    private Counter ipFlaggedCounter;
+
+    @PostConstruct
+    void init() {
+        if (sliceCount <= 0) {
+            throw new IllegalStateException("security.credential-stuffing.slices must be positive");
+        }
+        sliceMs = Math.max(1, windowMs / sliceCount);
+        identifiers = new Dimension();
+        ipAddresses = new Dimension();
+
+        Gauge.builder("auth.credential_stuffing.flagged", this, detector -> detector.getFlaggedCount())
+            .description("Identifiers and IP addresses currently flagged for credential stuffing")
+            .register(meterRegistry);
+        identifierFlaggedCounter = Counter.builder("auth.credential_stuffing.detections")
+            .tag("type", SuspiciousActivityDTO.Type.IDENTIFIER.name())
+            .description("Identifiers newly flagged for failing from many IP addresses")
+            .register(meterRegistry);
+        ipFlaggedCounter = Counter.builder("auth.credential_stuffing.detections")
+            .tag("type", SuspiciousActivityDTO.Type.IP_ADDRESS.name())
+            .description("IP addresses newly flagged for failing against many identifiers")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Feed a failed login attempt into the detector
+     */
+    public void recordFailure(String identifier, String ipAddress) {
+        recordFailure(identifier, ipAddress, System.currentTimeMillis());
+    }
+
+    /**
+     * Currently flagged identifiers and IP addresses, most distinct counterparts first
+     *
+     * @param type only this kind of key, or null for both
+     */
+    public List<SuspiciousActivityDTO> getSuspiciousActivity(SuspiciousActivityDTO.Type type, int limit) {
+        return getSuspiciousActivity(type, limit, System.currentTimeMillis());
+    }
+
+    void recordFailure(String identifier, String ipAddress, long nowMs) {
+        if (identifier == null || ipAddress == null) {
+            return;
+        }
+        long identifierHash = HyperLogLog.hash64(identifier);
+        long ipHash = HyperLogLog.hash64(ipAddress);
+
+        List<SuspiciousActivityDTO> detected = new ArrayList<>(2);
+        synchronized (this) {
+            advance(nowMs);
+            int slot = slot(currentSlice);
+            identifiers.record(identifier, identifierHash, ipHash, slot);
+            ipAddresses.record(ipAddress, ipHash, identifierHash, slot);
+            check(SuspiciousActivityDTO.Type.IDENTIFIER, identifier, identifierHash, identifiers, identifierIpThreshold, nowMs, detected);
+            check(SuspiciousActivityDTO.Type.IP_ADDRESS, ipAddress, ipHash, ipAddresses, ipIdentifierThreshold, nowMs, detected);
+        }
+
+        // Listeners run outside the lock so a slow one cannot stall the login path for everyone
+        for (SuspiciousActivityDTO activity : detected) {
+            log.warn("Possible credential stuffing: {} {} failed with {} distinct counterparts ({} failures) in the last {} ms",
+                activity.getType(), activity.getKey(), activity.getDistinctCount(), activity.getFailedAttempts(), windowMs);
+            (activity.getType() == SuspiciousActivityDTO.Type.IDENTIFIER ? identifierFlaggedCounter : ipFlaggedCounter).increment();
+            eventPublisher.publishEvent(activity);
+        }
+    }
+
+    synchronized List<SuspiciousActivityDTO> getSuspiciousActivity(SuspiciousActivityDTO.Type type, int limit, long nowMs) {
+        advance(nowMs);
+        return flagged.values().stream()
+            .filter(activity -> type == null || activity.getType() == type)
+            .sorted(Comparator.comparingLong(SuspiciousActivityDTO::getDistinctCount)
+                .thenComparingLong(SuspiciousActivityDTO::getFailedAttempts)
+                .reversed())
+            .limit(Math.max(0, limit))
+            .map(this::copy)
+            .toList();
+    }
+
+    synchronized int getFlaggedCount() {
+        return flagged.size();
+    }
+
+    private void check(SuspiciousActivityDTO.Type type, String key, long hash, Dimension dimension, long threshold,
+                       long nowMs, List<SuspiciousActivityDTO> detected) {
+        long distinct = dimension.distinct(key);
+        if (distinct <= threshold) {
+            return;
+        }
+        FlagKey flagKey = new FlagKey(type, key);
+        SuspiciousActivityDTO activity = flagged.get(flagKey);
+        LocalDateTime now = toDateTime(nowMs);
+        boolean newlyFlagged = false;
+        if (activity == null) {
+            if (flagged.size() >= maxFlagged && !evictWeakestFlagged(distinct)) {
+                return;
+            }
+            activity = SuspiciousActivityDTO.builder().type(type).key(key).firstFlaggedAt(now).build();
+            flagged.put(flagKey, activity);
+            newlyFlagged = true;
+        }
+        activity.setDistinctCount(distinct);
+        activity.setFailedAttempts(dimension.failures(hash));
+        activity.setLastSeenAt(now);
+        if (newlyFlagged) {
+            detected.add(copy(activity)); // published outside the lock, so not the live entry
+        }
+    }
+
+    // Keeps the most widespread activity when the flagged set is full
+    private boolean evictWeakestFlagged(long distinct) {
+        FlagKey weakest = null;
+        long weakestDistinct = Long.MAX_VALUE;
+        for (Map.Entry<FlagKey, SuspiciousActivityDTO> entry : flagged.entrySet()) {
+            if (entry.getValue().getDistinctCount() < weakestDistinct) {
+                weakest = entry.getKey();
+                weakestDistinct = entry.getValue().getDistinctCount();
+            }
+        }
+        if (weakest == null || weakestDistinct >= distinct) {
+            return false;
+        }
+        flagged.remove(weakest);
+        return true;
+    }
+
+    // Rotates to the slice containing nowMs, clearing the slices that left the window
+    private void advance(long nowMs) {
+        long slice = nowMs / sliceMs;
+        if (currentSlice == Long.MIN_VALUE) {
+            currentSlice = slice;
+        } else if (slice > currentSlice) {
+            long expired = Math.min(slice - currentSlice, sliceCount);
+            for (long i = 1; i <= expired; i++) {
+                int slot = slot(currentSlice + i);
+                identifiers.clear(slot);
+                ipAddresses.clear(slot);
+            }
+            currentSlice = slice;
+        }
+
+        LocalDateTime cutoff = toDateTime(nowMs - windowMs);
+        flagged.values().removeIf(activity -> activity.getLastSeenAt().isBefore(cutoff));
+    }
+
+    private int slot(long slice) {
+        return (int) Math.floorMod(slice, (long) sliceCount);
+    }
+
+    private SuspiciousActivityDTO copy(SuspiciousActivityDTO activity) {
+        return new SuspiciousActivityDTO(activity.getType(), activity.getKey(), activity.getDistinctCount(),
+            activity.getFailedAttempts(), activity.getFirstFlaggedAt(), activity.getLastSeenAt());
+    }
+
+    private static LocalDateTime toDateTime(long epochMs) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMs), ZoneId.systemDefault());
+    }
+
+    /**
+     * Failure counts and tracked distinct-counterpart sketches for one kind of key
+     */
+    private class Dimension {
+
+        private final CountMinSketch[] failures = new CountMinSketch[sliceCount];
+        // Access order, so the eldest entry is the least recently seen key
+        private final LinkedHashMap<String, HyperLogLog[]> tracked = new LinkedHashMap<>(16, 0.75f, true);
+
+        Dimension() {
+            for (int i = 0; i < sliceCount; i++) {
+                failures[i] = new CountMinSketch(countMinDepth, countMinWidth);
+            }
+        }
+
+        void record(String key, long keyHash, long counterpartHash, int slot) {
+            failures[slot].add(keyHash, 1);
+
+            HyperLogLog[] sketches = tracked.get(key);
+            if (sketches == null) {
+                if (tracked.size() >= maxTracked) {
+                    Iterator<Map.Entry<String, HyperLogLog[]>> eldest = tracked.entrySet().iterator();
+                    String eldestKey = eldest.next().getKey();
+                    // Heavy hitters stay: a key with fewer failures than the eldest is not admitted yet
+                    if (failures(keyHash) < failures(HyperLogLog.hash64(eldestKey))) {
+                        return;
+                    }
+                    eldest.remove();
+                }
+                sketches = new HyperLogLog[sliceCount];
+                tracked.put(key, sketches);
+            }
+            if (sketches[slot] == null) {
+                sketches[slot] = new HyperLogLog(sketchPrecision);
+            }
+            sketches[slot].offerHash(counterpartHash);
+        }
+
+        long failures(long keyHash) {
+            long total = 0;
+            for (CountMinSketch sketch : failures) {
+                total += sketch.estimate(keyHash);
+            }
+            return total;
+        }
+
+        long distinct(String key) {
+            HyperLogLog[] sketches = tracked.get(key);
+            if (sketches == null) {
+                return 0;
+            }
+            HyperLogLog union = new HyperLogLog(sketchPrecision);
+            for (HyperLogLog sketch : sketches) {
+                if (sketch != null) {
+                    union.merge(sketch);
+                }
+            }
+            return union.cardinality();
+        }
+
+        void clear(int slot) {
+            failures[slot].clear();
+            Iterator<HyperLogLog[]> iterator = tracked.values().iterator();
+            while (iterator.hasNext()) {
+                HyperLogLog[] sketches = iterator.next();
+                sketches[slot] = null;
+                boolean empty = true;
+                for (HyperLogLog sketch : sketches) {
+                    if (sketch != null) {
+                        empty = false;
+                        break;
+                    }
+                }
+                if (empty) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+}
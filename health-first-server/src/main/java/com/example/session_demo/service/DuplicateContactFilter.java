@@ -0,0 +1,194 @@
+package com.example.session_demo.service;
+
+import com.example.session_demo.util.BloomFilter;
+import com.example.session_demo.util.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.NumberParseException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * In-memory Bloom filter of the emails and phone numbers registered for patients, consulted before
+ * the existsBy queries behind the public check-email / check-phone endpoints. A negative answer
+ * lets those read-only checks skip the database for values that are plainly free.
+ *
+ * The filter is built by streaming its table once the application is ready and rebuilt on an
+ * interval, which also sheds values that have since been changed or deleted. Registrations are
+ * added as they happen, but only on the node that handled them: a value registered through another
+ * node reads as absent here until the next rebuild (registration.duplicate-filter.rebuild-interval-ms).
+ * A negative is therefore only "definitely absent" for this node's view, and must never stand in
+ * for the database check on a write path. Until the filter has been built every value is reported
+ * as possibly present.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DuplicateContactFilter {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final PhoneNumberUtil phoneNumberUtil;
+
+    @Value("${registration.duplicate-filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${registration.duplicate-filter.false-positive-probability:0.01}")
+    private double falsePositiveProbability;
+
+    @Value("${registration.duplicate-filter.min-expected-insertions:100000}")
+    private long minExpectedInsertions;
+
+    @Value("${registration.duplicate-filter.fetch-size:1000}")
+    private int fetchSize;
+
+    public enum Registry {
+        PATIENTS("patients");
+
+        private final String table;
+
+        Registry(String table) {
+            this.table = table;
+        }
+    }
+
+    private static final String EMAIL_PREFIX = "email:";
+    private static final String PHONE_PREFIX = "phone:";
+
+    private static class FilterState {
+        private volatile BloomFilter current; // null until the first build completes
+        private volatile BloomFilter building;
+    }
+
+    private final Map<Registry, FilterState> states = new EnumMap<>(Map.of(
+        Registry.PATIENTS, new FilterState()));
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuildAll();
+    }
+
+    @Scheduled(fixedDelayString = "${registration.duplicate-filter.rebuild-interval-ms:3600000}",
+               initialDelayString = "${registration.duplicate-filter.rebuild-interval-ms:3600000}")
+    public void rebuildAll() {
+        if (!enabled) {
+            return;
+        }
+        for (Registry registry : Registry.values()) {
+            try {
+                rebuild(registry);
+            } catch (Exception e) {
+                // The previous filter, if any, stays in use
+                log.error("Failed to build duplicate contact filter for {}: {}", registry.table, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * False only if no row in the registry had this email as of this node's last rebuild, or was
+     * registered through this node since
+     */
+    public boolean mightContainEmail(Registry registry, String email) {
+        BloomFilter filter = states.get(registry).current;
+        return filter == null || email == null || filter.mightContain(EMAIL_PREFIX + normalizeEmail(email));
+    }
+
+    /**
+     * False only if no row in the registry had this phone number as of this node's last rebuild, or
+     * was registered through this node since
+     */
+    public boolean mightContainPhone(Registry registry, String phoneNumber) {
+        BloomFilter filter = states.get(registry).current;
+        return filter == null || phoneNumber == null || filter.mightContain(PHONE_PREFIX + normalizePhone(phoneNumber));
+    }
+
+    /**
+     * Add a newly saved email and phone number. Within a transaction they are added again after
+     * commit, so a rebuild running concurrently cannot miss them.
+     */
+    public void record(Registry registry, String email, String phoneNumber) {
+        FilterState state = states.get(registry);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            add(state.current, email, phoneNumber); // visible to checks before commit too
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    addToFilters(state, email, phoneNumber);
+                }
+            });
+        } else {
+            addToFilters(state, email, phoneNumber);
+        }
+    }
+
+    void rebuild(Registry registry) {
+        FilterState state = states.get(registry);
+        long startedAt = System.currentTimeMillis();
+        Long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + registry.table, Long.class);
+        // Headroom for registrations until the next rebuild
+        BloomFilter next = new BloomFilter(Math.max(minExpectedInsertions, 2 * (rows == null ? 0 : rows)),
+            falsePositiveProbability);
+
+        // Registrations committed from here on are added to the new filter by record()
+        state.building = next;
+        try {
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            transactionTemplate.setReadOnly(true);
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement("SELECT email, phone_number FROM " + registry.table);
+                statement.setFetchSize(fetchSize); // stream rather than load the whole table
+                return statement;
+            }, (RowCallbackHandler) resultSet -> add(next, resultSet.getString(1), resultSet.getString(2))));
+            state.current = next;
+        } finally {
+            state.building = null;
+        }
+        log.info("Built duplicate contact filter for {} from {} rows in {} ms ({} KB)", registry.table, rows,
+            System.currentTimeMillis() - startedAt, next.memoryBytes() / 1024);
+    }
+
+    private void addToFilters(FilterState state, String email, String phoneNumber) {
+        // Building first: a rebuild that completes before the second read has already made its filter current
+        add(state.building, email, phoneNumber);
+        add(state.current, email, phoneNumber);
+    }
+
+    private void add(BloomFilter filter, String email, String phoneNumber) {
+        if (filter == null) {
+            return;
+        }
+        if (email != null) {
+            filter.put(EMAIL_PREFIX + normalizeEmail(email));
+        }
+        if (phoneNumber != null) {
+            filter.put(PHONE_PREFIX + normalizePhone(phoneNumber));
+        }
+    }
+
+    private static String normalizeEmail(String email) {
+        return email.toLowerCase().trim();
+    }
+
+    // E.164 where the number parses; equal stored values always normalize to the same key
+    private String normalizePhone(String phoneNumber) {
+        String trimmed = phoneNumber.trim();
+        try {
+            return phoneNumberUtil.normalizePhoneNumber(trimmed);
+        } catch (NumberParseException | IllegalArgumentException e) {
+            return trimmed;
+        }
+    }
+}
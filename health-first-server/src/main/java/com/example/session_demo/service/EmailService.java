@@ -74,7 +74,7 @@ public class EmailService {
             
         } catch (MessagingException | MailException e) {
             log.error("Failed to send welcome email to {}: {}", toEmail, e.getMessage());
-            // Don't throw exception for welcome email failures
+            throw new RuntimeException("Failed to send welcome email", e);
         }
     }
 
@@ -18,6 +18,21 @@ public interface EncryptionService {
      */
     String decrypt(String encryptedText);
     
+    /**
+     * Encrypt a string into the compact binary format used by bytea columns
+     */
+    byte[] encryptBinary(String plainText);
+
+    /**
+     * Decrypt a bytea value; text-format values copied into the column are read as well
+     */
+    String decryptBinary(byte[] encrypted);
+
+    /**
+     * Decrypt a bytea value holding a list of strings
+     */
+    List<String> decryptListBinary(byte[] encrypted);
+
     /**
      * Encrypt a list of strings (for medical history, allergies, etc.)
      */
@@ -27,6 +42,53 @@ public interface EncryptionService {
      * Decrypt a list of strings
      */
     List<String> decryptList(String encryptedText);
+
+    /**
+     * Encrypt all sensitive fields of one record in a single pass. Each field is a String or a
+     * List of Strings (stored as a JSON array, like encryptList); null or empty fields map to null.
+     */
+    List<String> encryptRecord(List<?> fields);
+
+    /**
+     * Same as encryptRecord, producing the binary format for bytea columns
+     */
+    List<byte[]> encryptRecordBinary(List<?> fields);
+
+    /**
+     * Encrypt many records; large batches are split across a fork-join pool
+     */
+    List<List<String>> encryptRecords(List<? extends List<?>> records);
+
+    /**
+     * Whether a value is still under an older master key, or predates envelope encryption
+     */
+    boolean needsReencryption(String encryptedText);
+
+    /**
+     * Bring a value under the active master key; values already under it are returned unchanged
+     */
+    String reencrypt(String encryptedText);
+
+    /**
+     * Whether a bytea value is under an older master key or still in text format
+     */
+    boolean needsReencryption(byte[] encrypted);
+
+    /**
+     * Bring a bytea value under the active master key and into the binary format
+     */
+    byte[] reencrypt(byte[] encrypted);
+
+    /**
+     * Re-encrypt many records field by field, each field a String or byte[] value; large batches
+     * are split across a fork-join pool. Fields that need no change are returned as the same instance.
+     */
+    List<List<Object>> reencryptRecords(List<? extends List<?>> records);
+
+    /**
+     * Id of the master key that wraps newly written data keys
+     */
+    String getActiveKeyId();
     
     /**
      * Generate a secure hash (one-way encryption)
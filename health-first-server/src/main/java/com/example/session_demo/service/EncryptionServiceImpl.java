@@ -3,6 +3,9 @@ package com.example.session_demo.service;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -13,13 +16,40 @@ import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.DrbgParameters;
+import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
-
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * AES-GCM field encryption with envelope keys. Every record gets a fresh data key, wrapped with the
+ * active master key and stored alongside the ciphertext as
+ * "keyId:" + Base64(wrap IV | wrapped data key | IV | ciphertext and tag).
+ *
+ * Rotating the master key only re-wraps data keys (see reencrypt). Values written before envelopes
+ * existed, Base64(IV | ciphertext and tag) under security.encryption.key, are still read.
+ *
+ * Large payloads bound for bytea columns use a binary form instead: version | flags | key id length |
+ * key id | wrap IV | wrapped data key | IV | ciphertext and tag, with no Base64 and with the
+ * plaintext deflated first when that makes it smaller. Version and flags are authenticated with the
+ * ciphertext. Text-format values copied into a bytea column are still read.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -42,8 +72,71 @@ public class EncryptionServiceImpl implements EncryptionService {
     @Value("${security.encryption.tag-length:16}")
     private int tagLength;
 
+    @Value("${security.encryption.bulk.parallelism:0}") // 0 = number of available processors
+    private int bulkParallelism;
+
+    @Value("${security.encryption.bulk.parallel-threshold:64}") // smaller batches run on the caller's thread
+    private int bulkParallelThreshold;
+
+    @Value("${security.encryption.compression-threshold:256}") // binary format only; smaller payloads are not deflated
+    private int compressionThreshold;
+
+    @Value("${security.encryption.master-keys:}") // id=secret pairs separated by commas
+    private String masterKeys;
+
+    @Value("${security.encryption.active-key-id:v1}")
+    private String activeKeyId;
+
     private static final String HASH_ALGORITHM = "SHA-256";
     private static final int SALT_LENGTH = 32;
+    private static final String DRBG_ALGORITHM = "DRBG";
+    private static final int DATA_KEY_LENGTH = 32;
+    private static final char KEY_ID_SEPARATOR = ':';
+    private static final Pattern KEY_ID_PATTERN = Pattern.compile("[A-Za-z0-9_-]{1,32}");
+    // Unless configured otherwise, v1 is security.encryption.key, so it stays readable after rotation
+    private static final String DEFAULT_KEY_ID = "v1";
+    private static final byte BINARY_FORMAT_VERSION = 1;
+    private static final byte FLAG_DEFLATED = 1;
+    private static final int BINARY_KEY_ID_OFFSET = 3; // version, flags, key id length
+
+    private SecretKeySpec legacyKeySpec;
+    private Map<String, SecretKeySpec> keyRing;
+    private SecretKeySpec activeKey;
+    private byte[] activeKeyAad;
+    private String activePrefix;
+    private int headerLength;
+    private SecureRandom secureRandom;
+    private ThreadLocal<Cipher> cipherPerThread;
+    private ThreadLocal<Deflater> deflaterPerThread;
+    private ThreadLocal<Inflater> inflaterPerThread;
+    private ObjectWriter listWriter;
+    private ForkJoinPool bulkPool;
+
+    @PostConstruct
+    void init() {
+        listWriter = objectMapper.writerFor(new TypeReference<List<String>>() {});
+        bulkPool = new ForkJoinPool(bulkParallelism > 0 ? bulkParallelism : Runtime.getRuntime().availableProcessors());
+        legacyKeySpec = new SecretKeySpec(deriveKeyBytes(encryptionKey), algorithm);
+        keyRing = loadKeyRing();
+        activeKey = keyRing.get(activeKeyId);
+        if (activeKey == null) {
+            throw new IllegalStateException("Active encryption key " + activeKeyId + " is not configured");
+        }
+        activeKeyAad = activeKeyId.getBytes(StandardCharsets.UTF_8);
+        activePrefix = activeKeyId + KEY_ID_SEPARATOR;
+        headerLength = ivLength + DATA_KEY_LENGTH + tagLength;
+        secureRandom = createSecureRandom();
+        // Cipher instances are not thread-safe but can be re-initialised with a fresh IV per call
+        cipherPerThread = ThreadLocal.withInitial(() -> {
+            try {
+                return Cipher.getInstance(transformation);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Unsupported cipher transformation: " + transformation, e);
+            }
+        });
+        deflaterPerThread = ThreadLocal.withInitial(Deflater::new);
+        inflaterPerThread = ThreadLocal.withInitial(Inflater::new);
+    }
 
     @Override
     public String encrypt(String plainText) {
@@ -52,28 +145,7 @@ public class EncryptionServiceImpl implements EncryptionService {
         }
 
         try {
-            // Generate a random IV for each encryption
-            SecureRandom secureRandom = new SecureRandom();
-            byte[] iv = new byte[ivLength];
-            secureRandom.nextBytes(iv);
-
-            // Create cipher
-            Cipher cipher = Cipher.getInstance(transformation);
-            SecretKeySpec keySpec = new SecretKeySpec(getKeyBytes(), algorithm);
-            GCMParameterSpec gcmSpec = new GCMParameterSpec(tagLength * 8, iv);
-            
-            cipher.init(Cipher.ENCRYPT_MODE, keySpec, gcmSpec);
-
-            // Encrypt the data
-            byte[] encryptedData = cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8));
-
-            // Combine IV and encrypted data
-            byte[] combined = new byte[iv.length + encryptedData.length];
-            System.arraycopy(iv, 0, combined, 0, iv.length);
-            System.arraycopy(encryptedData, 0, combined, iv.length, encryptedData.length);
-
-            // Return Base64 encoded result
-            return Base64.getEncoder().encodeToString(combined);
+            return encryptFields(List.of(plainText)).get(0);
 
         } catch (Exception e) {
             log.error("Encryption failed", e);
@@ -88,26 +160,57 @@ public class EncryptionServiceImpl implements EncryptionService {
         }
 
         try {
-            // Decode from Base64
-            byte[] combined = Base64.getDecoder().decode(encryptedText);
+            Cipher cipher = cipherPerThread.get();
+            int separator = encryptedText.indexOf(KEY_ID_SEPARATOR);
+            if (separator < 0) {
+                // Written before envelope encryption: IV and ciphertext under security.encryption.key
+                return toText(open(cipher, legacyKeySpec, Base64.getDecoder().decode(encryptedText), 0, null));
+            }
 
-            // Extract IV and encrypted data
-            byte[] iv = new byte[ivLength];
-            byte[] encryptedData = new byte[combined.length - ivLength];
-            System.arraycopy(combined, 0, iv, 0, ivLength);
-            System.arraycopy(combined, ivLength, encryptedData, 0, encryptedData.length);
+            // Decode from Base64; wrapped data key, IV and ciphertext are read in place
+            String keyId = encryptedText.substring(0, separator);
+            byte[] combined = Base64.getDecoder().decode(encryptedText.substring(separator + 1));
+            SecretKeySpec dataKey = unwrapDataKey(cipher, keyId, combined, 0);
+            return toText(open(cipher, dataKey, combined, headerLength, null));
 
-            // Create cipher
-            Cipher cipher = Cipher.getInstance(transformation);
-            SecretKeySpec keySpec = new SecretKeySpec(getKeyBytes(), algorithm);
-            GCMParameterSpec gcmSpec = new GCMParameterSpec(tagLength * 8, iv);
-            
-            cipher.init(Cipher.DECRYPT_MODE, keySpec, gcmSpec);
+        } catch (Exception e) {
+            log.error("Decryption failed", e);
+            throw new RuntimeException("Failed to decrypt data", e);
+        }
+    }
+
+    @Override
+    public byte[] encryptBinary(String plainText) {
+        if (plainText == null || plainText.isEmpty()) {
+            return null;
+        }
+
+        try {
+            return sealFields(List.of(plainText), true).get(0);
+
+        } catch (Exception e) {
+            log.error("Encryption failed", e);
+            throw new RuntimeException("Failed to encrypt data", e);
+        }
+    }
 
-            // Decrypt the data
-            byte[] decryptedData = cipher.doFinal(encryptedData);
+    @Override
+    public String decryptBinary(byte[] encrypted) {
+        if (encrypted == null || encrypted.length == 0) {
+            return null;
+        }
+        if (encrypted[0] != BINARY_FORMAT_VERSION) {
+            // Text-format value carried over when the column was converted to bytea
+            return decrypt(new String(encrypted, StandardCharsets.US_ASCII));
+        }
 
-            return new String(decryptedData, StandardCharsets.UTF_8);
+        try {
+            Cipher cipher = cipherPerThread.get();
+            int headerOffset = BINARY_KEY_ID_OFFSET + (encrypted[2] & 0xff);
+            String keyId = new String(encrypted, BINARY_KEY_ID_OFFSET, encrypted[2] & 0xff, StandardCharsets.US_ASCII);
+            SecretKeySpec dataKey = unwrapDataKey(cipher, keyId, encrypted, headerOffset);
+            ByteBuffer plain = open(cipher, dataKey, encrypted, headerOffset + headerLength, encrypted);
+            return toText((encrypted[1] & FLAG_DEFLATED) != 0 ? decompress(plain) : plain);
 
         } catch (Exception e) {
             log.error("Decryption failed", e);
@@ -115,6 +218,21 @@ public class EncryptionServiceImpl implements EncryptionService {
         }
     }
 
+    @Override
+    public List<String> decryptListBinary(byte[] encrypted) {
+        String jsonString = decryptBinary(encrypted);
+        if (jsonString == null) {
+            return null;
+        }
+
+        try {
+            return objectMapper.readValue(jsonString, new TypeReference<List<String>>() {});
+        } catch (JsonProcessingException e) {
+            log.error("Failed to deserialize decrypted list", e);
+            throw new RuntimeException("Failed to deserialize decrypted list", e);
+        }
+    }
+
     @Override
     public String encryptList(List<String> plainTextList) {
         if (plainTextList == null || plainTextList.isEmpty()) {
@@ -153,6 +271,149 @@ public class EncryptionServiceImpl implements EncryptionService {
         }
     }
 
+    @Override
+    public List<String> encryptRecord(List<?> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return List.of();
+        }
+
+        try {
+            return encryptFields(fields);
+
+        } catch (Exception e) {
+            log.error("Record encryption failed", e);
+            throw new RuntimeException("Failed to encrypt record", e);
+        }
+    }
+
+    @Override
+    public List<byte[]> encryptRecordBinary(List<?> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return List.of();
+        }
+
+        try {
+            return sealFields(fields, true);
+
+        } catch (Exception e) {
+            log.error("Record encryption failed", e);
+            throw new RuntimeException("Failed to encrypt record", e);
+        }
+    }
+
+    @Override
+    public List<List<String>> encryptRecords(List<? extends List<?>> records) {
+        return runBulk(records, this::encryptRecord);
+    }
+
+    @Override
+    public boolean needsReencryption(String encryptedText) {
+        return encryptedText != null && !encryptedText.isEmpty() && !encryptedText.startsWith(activePrefix);
+    }
+
+    @Override
+    public String reencrypt(String encryptedText) {
+        if (!needsReencryption(encryptedText)) {
+            return encryptedText;
+        }
+
+        int separator = encryptedText.indexOf(KEY_ID_SEPARATOR);
+        if (separator < 0) {
+            // No data key to re-wrap yet: move the value into an envelope
+            return encrypt(decrypt(encryptedText));
+        }
+
+        try {
+            // Only the data key is re-wrapped; IV and ciphertext are kept byte for byte
+            Cipher cipher = cipherPerThread.get();
+            String keyId = encryptedText.substring(0, separator);
+            byte[] combined = Base64.getDecoder().decode(encryptedText.substring(separator + 1));
+            byte[] dataKey = unwrapDataKey(cipher, keyId, combined, 0).getEncoded();
+            byte[] wrapIv = new byte[ivLength];
+            secureRandom.nextBytes(wrapIv);
+            try {
+                System.arraycopy(wrapDataKey(cipher, dataKey, 0, wrapIv, 0), 0, combined, 0, headerLength);
+            } finally {
+                Arrays.fill(dataKey, (byte) 0);
+            }
+            return activePrefix + Base64.getEncoder().encodeToString(combined);
+
+        } catch (Exception e) {
+            log.error("Re-encryption failed", e);
+            throw new RuntimeException("Failed to re-encrypt data", e);
+        }
+    }
+
+    @Override
+    public boolean needsReencryption(byte[] encrypted) {
+        if (encrypted == null || encrypted.length == 0) {
+            return false;
+        }
+        if (encrypted[0] != BINARY_FORMAT_VERSION) {
+            return true; // text format, moved to binary on re-encryption
+        }
+        return !Arrays.equals(encrypted, BINARY_KEY_ID_OFFSET, BINARY_KEY_ID_OFFSET + (encrypted[2] & 0xff),
+                activeKeyAad, 0, activeKeyAad.length);
+    }
+
+    @Override
+    public byte[] reencrypt(byte[] encrypted) {
+        if (!needsReencryption(encrypted)) {
+            return encrypted;
+        }
+        if (encrypted[0] != BINARY_FORMAT_VERSION) {
+            return encryptBinary(decryptBinary(encrypted));
+        }
+
+        try {
+            // Re-wrap the data key under the active key id; IV and ciphertext are kept byte for byte
+            Cipher cipher = cipherPerThread.get();
+            int keyIdLength = encrypted[2] & 0xff;
+            int headerOffset = BINARY_KEY_ID_OFFSET + keyIdLength;
+            String keyId = new String(encrypted, BINARY_KEY_ID_OFFSET, keyIdLength, StandardCharsets.US_ASCII);
+            byte[] dataKey = unwrapDataKey(cipher, keyId, encrypted, headerOffset).getEncoded();
+            byte[] wrapIv = new byte[ivLength];
+            secureRandom.nextBytes(wrapIv);
+
+            int bodyOffset = headerOffset + headerLength;
+            int newBodyOffset = BINARY_KEY_ID_OFFSET + activeKeyAad.length + headerLength;
+            byte[] rewrapped = new byte[newBodyOffset + encrypted.length - bodyOffset];
+            writePreamble(rewrapped, encrypted[1]);
+            try {
+                System.arraycopy(wrapDataKey(cipher, dataKey, 0, wrapIv, 0), 0, rewrapped,
+                        BINARY_KEY_ID_OFFSET + activeKeyAad.length, headerLength);
+            } finally {
+                Arrays.fill(dataKey, (byte) 0);
+            }
+            System.arraycopy(encrypted, bodyOffset, rewrapped, newBodyOffset, encrypted.length - bodyOffset);
+            return rewrapped;
+
+        } catch (Exception e) {
+            log.error("Re-encryption failed", e);
+            throw new RuntimeException("Failed to re-encrypt data", e);
+        }
+    }
+
+    @Override
+    public List<List<Object>> reencryptRecords(List<? extends List<?>> records) {
+        return runBulk(records, record -> {
+            List<Object> reencrypted = new ArrayList<>(record.size());
+            for (Object value : record) {
+                if (value instanceof byte[] binary) {
+                    reencrypted.add(reencrypt(binary));
+                } else {
+                    reencrypted.add(reencrypt((String) value));
+                }
+            }
+            return reencrypted;
+        });
+    }
+
+    @Override
+    public String getActiveKeyId() {
+        return activeKeyId;
+    }
+
     @Override
     public String generateHash(String plainText) {
         if (plainText == null || plainText.isEmpty()) {
@@ -161,7 +422,6 @@ public class EncryptionServiceImpl implements EncryptionService {
 
         try {
             // Generate a random salt
-            SecureRandom secureRandom = new SecureRandom();
             byte[] salt = new byte[SALT_LENGTH];
             secureRandom.nextBytes(salt);
 
@@ -213,21 +473,253 @@ public class EncryptionServiceImpl implements EncryptionService {
         }
     }
 
+    private List<String> encryptFields(List<?> fields) throws GeneralSecurityException, JsonProcessingException {
+        List<byte[]> sealed = sealFields(fields, false);
+        List<String> encrypted = new ArrayList<>(sealed.size());
+        for (byte[] value : sealed) {
+            encrypted.add(value != null ? activePrefix + Base64.getEncoder().encodeToString(value) : null);
+        }
+        return encrypted;
+    }
+
+    /**
+     * Encrypt the fields under one fresh data key. A single DRBG call supplies the data key, the
+     * wrap IV and every field IV, and one cipher serves the whole pass.
+     */
+    private List<byte[]> sealFields(List<?> fields, boolean binary) throws GeneralSecurityException, JsonProcessingException {
+        byte[] random = new byte[DATA_KEY_LENGTH + ivLength * (fields.size() + 1)];
+        secureRandom.nextBytes(random);
+        Cipher cipher = cipherPerThread.get();
+
+        try {
+            byte[] header = wrapDataKey(cipher, random, 0, random, DATA_KEY_LENGTH);
+            SecretKeySpec dataKey = new SecretKeySpec(random, 0, DATA_KEY_LENGTH, algorithm);
+
+            List<byte[]> encrypted = new ArrayList<>(fields.size());
+            for (int i = 0; i < fields.size(); i++) {
+                ByteBuffer input = toPlainBytes(fields.get(i));
+                if (input == null) {
+                    encrypted.add(null);
+                    continue;
+                }
+                int ivOffset = DATA_KEY_LENGTH + (i + 1) * ivLength;
+                if (!binary) {
+                    encrypted.add(seal(cipher, dataKey, header, input, random, ivOffset, null));
+                    continue;
+                }
+                ByteBuffer compressed = compress(input);
+                byte[] preamble = new byte[BINARY_KEY_ID_OFFSET + activeKeyAad.length];
+                writePreamble(preamble, compressed != null ? FLAG_DEFLATED : 0);
+                encrypted.add(seal(cipher, dataKey, header, compressed != null ? compressed : input, random, ivOffset, preamble));
+            }
+            return encrypted;
+        } finally {
+            Arrays.fill(random, 0, DATA_KEY_LENGTH, (byte) 0);
+        }
+    }
+
     /**
-     * Get the encryption key as bytes, ensuring it's the right length for AES-256
+     * Wrap a data key with the active master key; returns wrap IV | wrapped key and tag
      */
-    private byte[] getKeyBytes() {
+    private byte[] wrapDataKey(Cipher cipher, byte[] dataKey, int dataKeyOffset, byte[] ivs, int ivOffset)
+            throws GeneralSecurityException {
+        byte[] header = new byte[headerLength];
+        System.arraycopy(ivs, ivOffset, header, 0, ivLength);
+        cipher.init(Cipher.ENCRYPT_MODE, activeKey, new GCMParameterSpec(tagLength * 8, ivs, ivOffset, ivLength));
+        cipher.updateAAD(activeKeyAad); // binds the wrapped key to its key id
+        cipher.doFinal(dataKey, dataKeyOffset, DATA_KEY_LENGTH, header, ivLength);
+        return header;
+    }
+
+    private SecretKeySpec unwrapDataKey(Cipher cipher, String keyId, byte[] combined, int offset) throws GeneralSecurityException {
+        SecretKeySpec masterKey = keyRing.get(keyId);
+        if (masterKey == null) {
+            throw new GeneralSecurityException("Unknown encryption key id: " + keyId);
+        }
+        cipher.init(Cipher.DECRYPT_MODE, masterKey, new GCMParameterSpec(tagLength * 8, combined, offset, ivLength));
+        cipher.updateAAD(keyId.getBytes(StandardCharsets.UTF_8));
+        byte[] dataKey = cipher.doFinal(combined, offset + ivLength, DATA_KEY_LENGTH + tagLength);
+        try {
+            return new SecretKeySpec(dataKey, algorithm);
+        } finally {
+            Arrays.fill(dataKey, (byte) 0);
+        }
+    }
+
+    /**
+     * Encrypt with the given data key and IV, writing preamble, header, IV, ciphertext and tag into
+     * one buffer. A binary preamble's version and flags are authenticated as additional data.
+     */
+    private byte[] seal(Cipher cipher, SecretKeySpec dataKey, byte[] header, ByteBuffer input, byte[] ivs, int ivOffset,
+                        byte[] preamble) throws GeneralSecurityException {
+        cipher.init(Cipher.ENCRYPT_MODE, dataKey, new GCMParameterSpec(tagLength * 8, ivs, ivOffset, ivLength));
+        int preambleLength = 0;
+        if (preamble != null) {
+            cipher.updateAAD(preamble, 0, 2);
+            preambleLength = preamble.length;
+        }
+
+        int prefixLength = preambleLength + headerLength + ivLength;
+        byte[] combined = new byte[prefixLength + cipher.getOutputSize(input.remaining())];
+        if (preamble != null) {
+            System.arraycopy(preamble, 0, combined, 0, preambleLength);
+        }
+        System.arraycopy(header, 0, combined, preambleLength, headerLength);
+        System.arraycopy(ivs, ivOffset, combined, preambleLength + headerLength, ivLength);
+        ByteBuffer output = ByteBuffer.wrap(combined, prefixLength, combined.length - prefixLength);
+        int written = cipher.doFinal(input, output);
+
+        return written == combined.length - prefixLength ? combined : Arrays.copyOf(combined, prefixLength + written);
+    }
+
+    /**
+     * Decrypt IV | ciphertext and tag starting at offset, reading the buffer in place
+     *
+     * @param preamble binary value whose version and flags were authenticated, or null for text format
+     */
+    private ByteBuffer open(Cipher cipher, SecretKeySpec key, byte[] combined, int offset, byte[] preamble)
+            throws GeneralSecurityException {
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(tagLength * 8, combined, offset, ivLength));
+        if (preamble != null) {
+            cipher.updateAAD(preamble, 0, 2);
+        }
+
+        ByteBuffer input = ByteBuffer.wrap(combined, offset + ivLength, combined.length - offset - ivLength);
+        byte[] decryptedData = new byte[cipher.getOutputSize(input.remaining())];
+        int length = cipher.doFinal(input, ByteBuffer.wrap(decryptedData));
+        return ByteBuffer.wrap(decryptedData, 0, length);
+    }
+
+    private void writePreamble(byte[] target, byte flags) {
+        target[0] = BINARY_FORMAT_VERSION;
+        target[1] = flags;
+        target[2] = (byte) activeKeyAad.length;
+        System.arraycopy(activeKeyAad, 0, target, BINARY_KEY_ID_OFFSET, activeKeyAad.length);
+    }
+
+    /**
+     * Deflate payloads at or above the threshold; null when that would not make them smaller
+     */
+    private ByteBuffer compress(ByteBuffer input) {
+        int length = input.remaining();
+        if (length < compressionThreshold) {
+            return null;
+        }
+
+        Deflater deflater = deflaterPerThread.get();
+        deflater.reset();
+        deflater.setInput(input.duplicate());
+        deflater.finish();
+        byte[] compressed = new byte[length];
+        int size = deflater.deflate(compressed);
+        return deflater.finished() && size < length ? ByteBuffer.wrap(compressed, 0, size) : null;
+    }
+
+    private ByteBuffer decompress(ByteBuffer input) throws DataFormatException {
+        Inflater inflater = inflaterPerThread.get();
+        inflater.reset();
+        inflater.setInput(input);
+
+        byte[] output = new byte[Math.max(256, input.remaining() * 4)];
+        int length = 0;
+        while (!inflater.finished()) {
+            if (length == output.length) {
+                output = Arrays.copyOf(output, output.length * 2);
+            }
+            int inflated = inflater.inflate(output, length, output.length - length);
+            if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                throw new DataFormatException("Truncated compressed payload");
+            }
+            length += inflated;
+        }
+        return ByteBuffer.wrap(output, 0, length);
+    }
+
+    private static String toText(ByteBuffer plain) {
+        return new String(plain.array(), plain.arrayOffset() + plain.position(), plain.remaining(), StandardCharsets.UTF_8);
+    }
+
+    private <T, R> List<R> runBulk(List<T> items, Function<T, R> operation) {
+        if (items == null || items.isEmpty()) {
+            return List.of();
+        }
+        if (items.size() < bulkParallelThreshold) {
+            return items.stream().map(operation).toList();
+        }
+
+        // A parallel stream started from inside the pool runs on the pool, not the common pool
+        try {
+            return bulkPool.submit(() -> items.parallelStream().map(operation).toList()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted during bulk encryption", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Bulk encryption failed", e.getCause());
+        }
+    }
+
+    private ByteBuffer toPlainBytes(Object field) throws JsonProcessingException {
+        if (field instanceof String text) {
+            return text.isEmpty() ? null : StandardCharsets.UTF_8.encode(text);
+        }
+        if (field instanceof List<?> list) {
+            // Serialized straight to UTF-8 bytes, skipping the intermediate JSON string
+            return list.isEmpty() ? null : ByteBuffer.wrap(listWriter.writeValueAsBytes(list));
+        }
+        if (field == null) {
+            return null;
+        }
+        throw new IllegalArgumentException("Unsupported field type: " + field.getClass().getName());
+    }
+
+    /**
+     * Master keys by id from security.encryption.master-keys, plus v1 for security.encryption.key
+     */
+    private Map<String, SecretKeySpec> loadKeyRing() {
+        Map<String, SecretKeySpec> ring = new HashMap<>();
+        if (masterKeys != null && !masterKeys.isBlank()) {
+            for (String entry : masterKeys.split(",")) {
+                int separator = entry.indexOf('=');
+                String keyId = separator > 0 ? entry.substring(0, separator).trim() : "";
+                if (!KEY_ID_PATTERN.matcher(keyId).matches()) {
+                    throw new IllegalStateException("Master keys must be configured as id=secret pairs with ids of letters, digits, '-' or '_'");
+                }
+                ring.put(keyId, new SecretKeySpec(deriveKeyBytes(entry.substring(separator + 1).trim()), algorithm));
+            }
+        }
+        ring.putIfAbsent(DEFAULT_KEY_ID, legacyKeySpec);
+        return Map.copyOf(ring);
+    }
+
+    /**
+     * Derive key bytes from a configured secret, ensuring it's the right length for AES-256
+     */
+    private byte[] deriveKeyBytes(String secret) {
         try {
             // Use SHA-256 to ensure we have a 256-bit key
             MessageDigest md = MessageDigest.getInstance(HASH_ALGORITHM);
-            return md.digest(encryptionKey.getBytes(StandardCharsets.UTF_8));
+            return md.digest(secret.getBytes(StandardCharsets.UTF_8));
         } catch (NoSuchAlgorithmException e) {
             throw new RuntimeException("Failed to generate encryption key", e);
         }
     }
 
     /**
-     * Generate a new AES key (for key rotation)
+     * Shared DRBG for IVs and salts. It is seeded once from the platform entropy source and never
+     * blocks afterwards, unlike creating a new SecureRandom for every call.
+     */
+    private SecureRandom createSecureRandom() {
+        try {
+            return SecureRandom.getInstance(DRBG_ALGORITHM,
+                    DrbgParameters.instantiation(256, DrbgParameters.Capability.RESEED_ONLY, null));
+        } catch (NoSuchAlgorithmException e) {
+            log.warn("DRBG not available, falling back to the default SecureRandom");
+            return new SecureRandom();
+        }
+    }
+
+    /**
+     * Generate a new random master key secret (for security.encryption.master-keys)
      */
     public String generateNewKey() {
         try {
@@ -239,4 +731,9 @@ public class EncryptionServiceImpl implements EncryptionService {
             throw new RuntimeException("Failed to generate new encryption key", e);
         }
     }
-} 
\ No newline at end of file
+
+    @PreDestroy
+    void shutdown() {
+        bulkPool.shutdown();
+    }
+}
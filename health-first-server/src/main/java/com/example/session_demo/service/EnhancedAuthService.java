@@ -1,5 +1,6 @@
 package com.example.session_demo.service;
 
+import com.example.session_demo.config.JwtAuthenticationCache;
 import com.example.session_demo.dto.EnhancedLoginRequestDTO;
 import com.example.session_demo.dto.EnhancedLoginResponseDTO;
 import com.example.session_demo.dto.TokenRefreshRequestDTO;
@@ -8,11 +9,11 @@ import com.example.session_demo.entity.LoginAttempt;
 import com.example.session_demo.entity.Provider;
 import com.example.session_demo.entity.RefreshToken;
 import com.example.session_demo.enums.VerificationStatus;
-import com.example.session_demo.repository.LoginAttemptRepository;
 import com.example.session_demo.repository.ProviderRepository;
 import com.example.session_demo.repository.RefreshTokenRepository;
 import com.example.session_demo.util.EnhancedJwtUtil;
-import com.example.session_demo.util.PasswordUtil;
+import com.example.session_demo.util.TokenDigestUtil;
+import com.example.session_demo.util.VerifiedToken;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -30,9 +31,14 @@ public class EnhancedAuthService {
 
     private final ProviderRepository providerRepository;
     private final RefreshTokenRepository refreshTokenRepository;
-    private final LoginAttemptRepository loginAttemptRepository;
+    private final LoginAttemptRecorder loginAttemptRecorder;
     private final EnhancedJwtUtil enhancedJwtUtil;
-    private final PasswordUtil passwordUtil;
+    private final PasswordHashingService passwordHashingService;
+    private final TokenDigestUtil tokenDigestUtil;
+    private final LoginFailureCounterService loginFailureCounterService;
+    private final CredentialStuffingDetector credentialStuffingDetector;
+    private final JwtAuthenticationCache jwtAuthenticationCache;
+    private final SessionRegistryService sessionRegistryService;
 
     @Value("${security.max-login-attempts:5}")
     private int maxLoginAttempts;
@@ -43,9 +49,6 @@ public class EnhancedAuthService {
     @Value("${security.max-concurrent-sessions:5}")
     private int maxConcurrentSessions;
 
-    @Value("${security.rate-limit-window:900000}") // 15 minutes in milliseconds
-    private long rateLimitWindow;
-
     @Value("${security.rate-limit-max-attempts:5}")
     private int rateLimitMaxAttempts;
 
@@ -77,7 +80,7 @@ public class EnhancedAuthService {
         checkAccountLockout(provider, loginRequest.getIdentifier(), ipAddress, userAgent);
 
         // 6. Password verification
-        if (!passwordUtil.verifyPassword(loginRequest.getPassword(), provider.getPasswordHash())) {
+        if (!passwordHashingService.verifyPassword(loginRequest.getPassword(), provider.getPasswordHash())) {
             handleFailedLogin(provider, loginRequest.getIdentifier(), ipAddress, userAgent);
             throw new AuthenticationException("Invalid identifier or password");
         }
@@ -104,7 +107,7 @@ public class EnhancedAuthService {
         // 9. Store refresh token
         RefreshToken refreshTokenEntity = new RefreshToken();
         refreshTokenEntity.setProvider(provider);
-        refreshTokenEntity.setTokenHash(passwordUtil.hashPassword(refreshToken)); // Hash the refresh token
+        refreshTokenEntity.setTokenHash(tokenDigestUtil.digest(refreshToken)); // Keyed digest for indexed lookup
         refreshTokenEntity.setExpiresAt(LocalDateTime.now().plusSeconds(
             enhancedJwtUtil.getRefreshTokenExpiration(loginRequest.getRememberMe()) / 1000
         ));
@@ -112,6 +115,7 @@ public class EnhancedAuthService {
         refreshTokenEntity.setIpAddress(ipAddress);
         refreshTokenEntity.setUserAgent(userAgent);
         refreshTokenRepository.save(refreshTokenEntity);
+        sessionRegistryService.registerSession(provider.getUuid(), refreshTokenEntity);
 
         // 10. Update provider login statistics
         updateProviderLoginStats(provider);
@@ -129,18 +133,18 @@ public class EnhancedAuthService {
         log.info("Token refresh attempt from IP: {}", ipAddress);
 
         try {
-            // 1. Validate refresh token
-            if (!enhancedJwtUtil.isRefreshToken(refreshRequest.getRefreshToken())) {
+            // 1. Validate refresh token (signature is checked and claims decoded once)
+            VerifiedToken verifiedToken = enhancedJwtUtil.verify(refreshRequest.getRefreshToken());
+            if (!verifiedToken.isRefreshToken()) {
                 throw new AuthenticationException("Invalid refresh token");
             }
 
-            if (!enhancedJwtUtil.validateToken(refreshRequest.getRefreshToken())) {
+            if (verifiedToken.isExpired()) {
                 throw new AuthenticationException("Refresh token expired or invalid");
             }
 
             // 2. Extract provider info from token
-            UUID providerUuid = enhancedJwtUtil.extractUuid(refreshRequest.getRefreshToken());
-            String email = enhancedJwtUtil.extractEmail(refreshRequest.getRefreshToken());
+            UUID providerUuid = verifiedToken.getUuid();
 
             // 3. Find provider
             Optional<Provider> providerOpt = providerRepository.findByUuid(providerUuid);
@@ -150,11 +154,13 @@ public class EnhancedAuthService {
 
             Provider provider = providerOpt.get();
 
-            // 4. Verify refresh token in database
-            String tokenHash = passwordUtil.hashPassword(refreshRequest.getRefreshToken());
+            // 4. Verify refresh token in database (single indexed lookup on the keyed digest)
+            String tokenHash = tokenDigestUtil.digest(refreshRequest.getRefreshToken());
             Optional<RefreshToken> refreshTokenOpt = refreshTokenRepository.findByTokenHash(tokenHash);
             
-            if (refreshTokenOpt.isEmpty() || !refreshTokenOpt.get().isValid()) {
+            if (refreshTokenOpt.isEmpty()
+                    || !tokenDigestUtil.matches(refreshRequest.getRefreshToken(), refreshTokenOpt.get().getTokenHash())
+                    || !refreshTokenOpt.get().isValid()) {
                 throw new AuthenticationException("Refresh token not found or revoked");
             }
 
@@ -183,10 +189,11 @@ public class EnhancedAuthService {
 
             // 7. Revoke old refresh token and store new one
             refreshTokenRepository.revokeTokenByHash(tokenHash);
+            sessionRegistryService.removeSession(provider.getUuid(), tokenHash);
             
             RefreshToken newRefreshTokenEntity = new RefreshToken();
             newRefreshTokenEntity.setProvider(provider);
-            newRefreshTokenEntity.setTokenHash(passwordUtil.hashPassword(newRefreshToken));
+            newRefreshTokenEntity.setTokenHash(tokenDigestUtil.digest(newRefreshToken));
             newRefreshTokenEntity.setExpiresAt(LocalDateTime.now().plusSeconds(
                 enhancedJwtUtil.getRefreshTokenExpiration(false) / 1000
             ));
@@ -194,6 +201,7 @@ public class EnhancedAuthService {
             newRefreshTokenEntity.setIpAddress(ipAddress);
             newRefreshTokenEntity.setUserAgent(refreshTokenEntity.getUserAgent());
             refreshTokenRepository.save(newRefreshTokenEntity);
+            sessionRegistryService.registerSession(provider.getUuid(), newRefreshTokenEntity);
 
             log.info("Token refresh successful for provider: {}", provider.getUuid());
 
@@ -216,9 +224,11 @@ public class EnhancedAuthService {
         log.info("Logout attempt from IP: {}", ipAddress);
 
         try {
-            if (enhancedJwtUtil.isRefreshToken(refreshToken) && enhancedJwtUtil.validateToken(refreshToken)) {
-                String tokenHash = passwordUtil.hashPassword(refreshToken);
+            VerifiedToken verifiedToken = enhancedJwtUtil.verify(refreshToken);
+            if (verifiedToken.isRefreshToken() && !verifiedToken.isExpired()) {
+                String tokenHash = tokenDigestUtil.digest(refreshToken);
                 refreshTokenRepository.revokeTokenByHash(tokenHash);
+                sessionRegistryService.removeSession(verifiedToken.getUuid(), tokenHash);
                 log.info("Token revoked successfully");
             }
         } catch (Exception e) {
@@ -230,6 +240,8 @@ public class EnhancedAuthService {
     public void logoutAll(UUID providerUuid) {
         log.info("Logout all sessions for provider: {}", providerUuid);
         refreshTokenRepository.revokeAllTokensByProviderUuid(providerUuid);
+        jwtAuthenticationCache.evictProvider(providerUuid);
+        sessionRegistryService.removeAllSessions(providerUuid);
     }
 
     // Private helper methods
@@ -244,10 +256,8 @@ public class EnhancedAuthService {
     }
 
     private void checkRateLimiting(String identifier, String ipAddress) {
-        LocalDateTime since = LocalDateTime.now().minusSeconds(rateLimitWindow / 1000);
-        
-        long attemptsByIdentifier = loginAttemptRepository.countFailedAttemptsByIdentifier(identifier, since);
-        long attemptsByIp = loginAttemptRepository.countFailedAttemptsByIp(ipAddress, since);
+        long attemptsByIdentifier = loginFailureCounterService.countFailuresByIdentifier(identifier);
+        long attemptsByIp = loginFailureCounterService.countFailuresByIp(ipAddress);
         
         if (attemptsByIdentifier >= rateLimitMaxAttempts) {
             log.warn("Rate limit exceeded for identifier: {}", identifier);
@@ -308,8 +318,7 @@ public class EnhancedAuthService {
     }
 
     private void checkConcurrentSessions(Provider provider) {
-        long activeSessions = refreshTokenRepository.countActiveSessionsByProviderUuid(
-            provider.getUuid(), LocalDateTime.now());
+        long activeSessions = sessionRegistryService.countActiveSessions(provider.getUuid());
         
         if (activeSessions >= maxConcurrentSessions) {
             log.warn("Too many concurrent sessions for provider: {}", provider.getUuid());
@@ -322,8 +331,8 @@ public class EnhancedAuthService {
         provider.setLoginCount(provider.getLoginCount() + 1);
         provider.setFailedLoginAttempts(0); // Reset failed attempts on successful login
         provider.setLockedUntil(null); // Remove lockout
-        provider.setConcurrentSessions((int) refreshTokenRepository.countActiveSessionsByProviderUuid(
-            provider.getUuid(), LocalDateTime.now()) + 1);
+        // The session issued by this login is registered after commit, hence the + 1
+        provider.setConcurrentSessions((int) sessionRegistryService.countActiveSessions(provider.getUuid()) + 1);
         providerRepository.save(provider);
     }
 
@@ -334,7 +343,7 @@ public class EnhancedAuthService {
         loginAttempt.setIpAddress(ipAddress);
         loginAttempt.setUserAgent(userAgent);
         loginAttempt.setAttemptType(LoginAttempt.AttemptType.SUCCESS);
-        loginAttemptRepository.save(loginAttempt);
+        loginAttemptRecorder.record(loginAttempt);
     }
 
     private void logFailedAttempt(Provider provider, String identifier, String ipAddress, String userAgent, 
@@ -346,7 +355,13 @@ public class EnhancedAuthService {
         loginAttempt.setUserAgent(userAgent);
         loginAttempt.setAttemptType(attemptType);
         loginAttempt.setFailureReason(failureReason.name());
-        loginAttemptRepository.save(loginAttempt);
+        loginAttemptRecorder.record(loginAttempt);
+
+        // Only FAILED and LOCKED attempts count towards the rate limit
+        if (attemptType == LoginAttempt.AttemptType.FAILED || attemptType == LoginAttempt.AttemptType.LOCKED) {
+            loginFailureCounterService.recordFailure(identifier, ipAddress);
+            credentialStuffingDetector.recordFailure(identifier, ipAddress);
+        }
     }
 
     private EnhancedLoginResponseDTO buildLoginResponse(String accessToken, String refreshToken, Provider provider, boolean rememberMe) {
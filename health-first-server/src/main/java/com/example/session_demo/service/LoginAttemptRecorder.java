@@ -0,0 +1,219 @@
+package com.example.session_demo.service;
+
+import com.example.session_demo.entity.LoginAttempt;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind recorder for login attempts. Attempts are queued in memory and inserted by a
+ * single background writer in JDBC batches, flushed when a batch fills up or when the flush
+ * interval elapses, so login requests no longer wait on the login_attempts INSERT.
+ *
+ * The queue is bounded: when it is full new attempts are dropped and counted rather than
+ * blocking the login path. Pending attempts are flushed on shutdown.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LoginAttemptRecorder {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO login_attempts (id, provider_id, identifier, ip_address, user_agent, attempt_type, failure_reason, created_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${security.login-attempts.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${security.login-attempts.batch-size:200}")
+    private int batchSize;
+
+    @Value("${security.login-attempts.flush-interval-ms:500}")
+    private long flushIntervalMs;
+
+    @Value("${security.login-attempts.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMs;
+
+    private BlockingQueue<PendingAttempt> queue;
+    private Thread writer;
+    private volatile boolean running;
+
+    private Counter recordedCounter;
+    private Counter droppedCounter;
+    private Counter failedCounter;
+    private Timer flushTimer;
+    private Timer lagTimer;
+
+    @PostConstruct
+    void init() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        Gauge.builder("auth.login.attempts.queue.size", queue, BlockingQueue::size)
+            .description("Login attempts waiting to be written")
+            .register(meterRegistry);
+        Gauge.builder("auth.login.attempts.queue.lag", this, recorder -> recorder.getOldestPendingAgeMs())
+            .description("Age in milliseconds of the oldest login attempt waiting to be written")
+            .baseUnit("milliseconds")
+            .register(meterRegistry);
+        recordedCounter = Counter.builder("auth.login.attempts.written")
+            .description("Login attempts written to the database")
+            .register(meterRegistry);
+        droppedCounter = Counter.builder("auth.login.attempts.dropped")
+            .description("Login attempts dropped because the queue was full or the recorder was stopped")
+            .register(meterRegistry);
+        failedCounter = Counter.builder("auth.login.attempts.failed")
+            .description("Login attempts lost because their batch insert failed")
+            .register(meterRegistry);
+        flushTimer = Timer.builder("auth.login.attempts.flush")
+            .description("Time spent writing one batch of login attempts")
+            .register(meterRegistry);
+        lagTimer = Timer.builder("auth.login.attempts.write.lag")
+            .description("Time between an attempt being queued and being written")
+            .register(meterRegistry);
+
+        running = true;
+        writer = new Thread(this::runWriter, "login-attempt-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Login attempt recorder started with queue capacity {} and batch size {}", queueCapacity, batchSize);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        running = false; // the writer notices within one flush interval
+        try {
+            writer.join(shutdownTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Anything the writer did not get to is flushed on the calling thread
+        List<PendingAttempt> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        while (!remaining.isEmpty()) {
+            List<PendingAttempt> batch = remaining.subList(0, Math.min(batchSize, remaining.size()));
+            writeBatch(new ArrayList<>(batch));
+            batch.clear();
+        }
+        log.info("Login attempt recorder stopped");
+    }
+
+    /**
+     * Queue a login attempt for writing. Never blocks; returns false if the attempt was dropped.
+     */
+    public boolean record(LoginAttempt attempt) {
+        if (attempt.getId() == null) {
+            attempt.setId(UUID.randomUUID());
+        }
+        if (attempt.getCreatedAt() == null) {
+            attempt.setCreatedAt(LocalDateTime.now());
+        }
+
+        if (!running || !queue.offer(new PendingAttempt(attempt, System.nanoTime()))) {
+            droppedCounter.increment();
+            log.warn("Login attempt queue full or stopped, dropping {} attempt for identifier: {}",
+                attempt.getAttemptType(), attempt.getIdentifier());
+            return false;
+        }
+        return true;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    double getOldestPendingAgeMs() {
+        PendingAttempt oldest = queue.peek();
+        return oldest == null ? 0 : (System.nanoTime() - oldest.enqueuedAtNanos()) / 1_000_000.0;
+    }
+
+    private void runWriter() {
+        List<PendingAttempt> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                PendingAttempt first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Keep collecting until the batch is full or the flush interval has passed
+                long flushDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remainingNanos = flushDeadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remainingNanos <= 0) {
+                        break;
+                    }
+                    PendingAttempt next = queue.poll(remainingNanos, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+
+            if (!batch.isEmpty()) {
+                writeBatch(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<PendingAttempt> batch) {
+        try {
+            flushTimer.record(() -> jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, pending) -> {
+                LoginAttempt attempt = pending.attempt();
+                ps.setObject(1, attempt.getId());
+                if (attempt.getProvider() != null && attempt.getProvider().getId() != null) {
+                    ps.setLong(2, attempt.getProvider().getId());
+                } else {
+                    ps.setNull(2, Types.BIGINT);
+                }
+                ps.setString(3, attempt.getIdentifier());
+                ps.setString(4, attempt.getIpAddress());
+                ps.setString(5, attempt.getUserAgent());
+                ps.setString(6, attempt.getAttemptType().name());
+                ps.setString(7, attempt.getFailureReason());
+                ps.setTimestamp(8, Timestamp.valueOf(attempt.getCreatedAt()));
+            }));
+
+            long now = System.nanoTime();
+            for (PendingAttempt pending : batch) {
+                lagTimer.record(now - pending.enqueuedAtNanos(), TimeUnit.NANOSECONDS);
+            }
+            recordedCounter.increment(batch.size());
+            log.debug("Wrote batch of {} login attempts", batch.size());
+        } catch (Exception e) {
+            failedCounter.increment(batch.size());
+            log.error("Failed to write batch of {} login attempts: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    private record PendingAttempt(LoginAttempt attempt, long enqueuedAtNanos) {
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.session_demo.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sliding-window counters of failed login attempts, keyed by identifier and by IP address.
+ * The window is split into fixed time buckets so recording a failure and answering a rate
+ * check are both O(buckets) in memory, with no query against login_attempts.
+ *
+ * When Redis backing is enabled the buckets are mirrored as expiring Redis counters so all
+ * nodes see the same totals; if Redis is unavailable the local counters are used instead.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LoginFailureCounterService {
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    @Value("${security.rate-limit-window:900000}") // 15 minutes in milliseconds
+    private long windowMs;
+
+    @Value("${security.login-failure-counter.buckets:15}")
+    private int bucketCount;
+
+    @Value("${security.login-failure-counter.redis-enabled:false}")
+    private boolean redisEnabled;
+
+    private static final String IDENTIFIER_PREFIX = "login_failures:identifier:";
+    private static final String IP_PREFIX = "login_failures:ip:";
+
+    private final Map<String, SlidingWindowCounter> identifierCounters = new ConcurrentHashMap<>();
+    private final Map<String, SlidingWindowCounter> ipCounters = new ConcurrentHashMap<>();
+
+    private long bucketMs;
+
+    @PostConstruct
+    void init() {
+        if (bucketCount <= 0) {
+            throw new IllegalStateException("security.login-failure-counter.buckets must be positive");
+        }
+        bucketMs = Math.max(1, windowMs / bucketCount);
+    }
+
+    /**
+     * Record a failed login attempt for the identifier and the IP address
+     */
+    public void recordFailure(String identifier, String ipAddress) {
+        recordFailure(identifier, ipAddress, System.currentTimeMillis());
+    }
+
+    /**
+     * Number of failed attempts for the identifier within the window
+     */
+    public long countFailuresByIdentifier(String identifier) {
+        return count(identifierCounters, IDENTIFIER_PREFIX, identifier, System.currentTimeMillis());
+    }
+
+    /**
+     * Number of failed attempts from the IP address within the window
+     */
+    public long countFailuresByIp(String ipAddress) {
+        return count(ipCounters, IP_PREFIX, ipAddress, System.currentTimeMillis());
+    }
+
+    void recordFailure(String identifier, String ipAddress, long nowMs) {
+        increment(identifierCounters, IDENTIFIER_PREFIX, identifier, nowMs);
+        increment(ipCounters, IP_PREFIX, ipAddress, nowMs);
+    }
+
+    long countFailuresByIdentifier(String identifier, long nowMs) {
+        return count(identifierCounters, IDENTIFIER_PREFIX, identifier, nowMs);
+    }
+
+    long countFailuresByIp(String ipAddress, long nowMs) {
+        return count(ipCounters, IP_PREFIX, ipAddress, nowMs);
+    }
+
+    /**
+     * Drop counters whose buckets have all fallen out of the window
+     */
+    @Scheduled(fixedRateString = "${security.login-failure-counter.cleanup-interval:60000}")
+    public void evictExpiredCounters() {
+        long nowMs = System.currentTimeMillis();
+        int before = identifierCounters.size() + ipCounters.size();
+        identifierCounters.values().removeIf(counter -> counter.isExpired(nowMs));
+        ipCounters.values().removeIf(counter -> counter.isExpired(nowMs));
+        int evicted = before - identifierCounters.size() - ipCounters.size();
+        if (evicted > 0) {
+            log.debug("Evicted {} expired login failure counters", evicted);
+        }
+    }
+
+    private void increment(Map<String, SlidingWindowCounter> counters, String prefix, String key, long nowMs) {
+        if (key == null) {
+            return;
+        }
+        counters.computeIfAbsent(key, k -> new SlidingWindowCounter(bucketCount, bucketMs)).increment(nowMs);
+
+        if (redisEnabled) {
+            try {
+                String bucketKey = prefix + key + ":" + (nowMs / bucketMs);
+                Long value = redisTemplate.opsForValue().increment(bucketKey);
+                if (value != null && value == 1L) {
+                    redisTemplate.expire(bucketKey, Duration.ofMillis(windowMs + bucketMs));
+                }
+            } catch (Exception e) {
+                log.error("Error recording login failure in Redis for {}: {}", key, e.getMessage());
+            }
+        }
+    }
+
+    private long count(Map<String, SlidingWindowCounter> counters, String prefix, String key, long nowMs) {
+        if (key == null) {
+            return 0;
+        }
+        if (redisEnabled) {
+            try {
+                return countFromRedis(prefix, key, nowMs);
+            } catch (Exception e) {
+                log.error("Error reading login failures from Redis for {}: {}", key, e.getMessage());
+                // Fall back to this node's view
+            }
+        }
+        SlidingWindowCounter counter = counters.get(key);
+        return counter != null ? counter.sum(nowMs) : 0;
+    }
+
+    private long countFromRedis(String prefix, String key, long nowMs) {
+        long currentBucket = nowMs / bucketMs;
+        List<String> keys = new ArrayList<>(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            keys.add(prefix + key + ":" + (currentBucket - i));
+        }
+        List<Object> values = redisTemplate.opsForValue().multiGet(keys);
+        if (values == null) {
+            throw new IllegalStateException("No reply from Redis");
+        }
+        long total = 0;
+        for (Object value : values) {
+            if (value != null) {
+                total += Long.parseLong(value.toString());
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Fixed ring of time buckets; a slot is reused once its bucket has left the window
+     */
+    static class SlidingWindowCounter {
+        private final long bucketMs;
+        private final long[] bucketIds;
+        private final int[] counts;
+
+        SlidingWindowCounter(int bucketCount, long bucketMs) {
+            this.bucketMs = bucketMs;
+            this.bucketIds = new long[bucketCount];
+            this.counts = new int[bucketCount];
+        }
+
+        synchronized void increment(long nowMs) {
+            long bucketId = nowMs / bucketMs;
+            int slot = (int) Math.floorMod(bucketId, (long) counts.length);
+            if (bucketIds[slot] != bucketId) {
+                bucketIds[slot] = bucketId;
+                counts[slot] = 0;
+            }
+            counts[slot]++;
+        }
+
+        synchronized long sum(long nowMs) {
+            long oldestBucket = nowMs / bucketMs - counts.length + 1;
+            long total = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (bucketIds[i] >= oldestBucket) {
+                    total += counts[i];
+                }
+            }
+            return total;
+        }
+
+        synchronized boolean isExpired(long nowMs) {
+            return sum(nowMs) == 0;
+        }
+    }
+}
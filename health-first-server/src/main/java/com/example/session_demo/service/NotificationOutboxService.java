@@ -0,0 +1,279 @@
+package com.example.session_demo.service;
+
+import com.example.session_demo.entity.OutboxMessage;
+import com.example.session_demo.repository.OutboxMessageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transactional outbox for emails and SMS. Callers enqueue a message inside their own transaction,
+ * so it is stored if and only if the triggering change commits, and no database connection is
+ * held while talking to SMTP or the SMS gateway.
+ *
+ * After commit the message is handed to a worker pool; a poller picks up anything the pool could
+ * not take, retries that are due and messages abandoned by a crashed worker. Failed deliveries are
+ * retried with exponential backoff and jitter; after the last attempt the message is marked DEAD.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationOutboxService {
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final EmailService emailService;
+    private final SmsService smsService;
+    private final EncryptionService encryptionService;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${notifications.outbox.workers:4}")
+    private int workers;
+
+    @Value("${notifications.outbox.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${notifications.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${notifications.outbox.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${notifications.outbox.initial-backoff-ms:5000}")
+    private long initialBackoffMs;
+
+    @Value("${notifications.outbox.max-backoff-ms:900000}") // 15 minutes
+    private long maxBackoffMs;
+
+    @Value("${notifications.outbox.lease-ms:60000}") // must exceed the SMTP timeouts
+    private long leaseMs;
+
+    @Value("${notifications.outbox.retention-days:7}")
+    private int retentionDays;
+
+    @Value("${notifications.outbox.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMs;
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private ThreadPoolExecutor executor;
+    private TransactionTemplate transactionTemplate;
+    private final AtomicLong pendingMessages = new AtomicLong();
+
+    private Counter deferredCounter;
+    private Timer lagTimer;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        // A full queue only defers work: the message stays PENDING and the poller retries it
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "notification-outbox-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, pool) -> deferredCounter.increment());
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        Gauge.builder("notifications.outbox.pending", pendingMessages, AtomicLong::get)
+            .description("Messages waiting for delivery, as of the last poll")
+            .register(meterRegistry);
+        Gauge.builder("notifications.outbox.queue.size", executor, pool -> pool.getQueue().size())
+            .description("Deliveries queued for the worker pool")
+            .register(meterRegistry);
+        deferredCounter = Counter.builder("notifications.outbox.deferred")
+            .description("Deliveries left to the poller because the worker queue was full")
+            .register(meterRegistry);
+        lagTimer = Timer.builder("notifications.outbox.lag")
+            .description("Time from enqueue to successful delivery")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Store a message for delivery once the current transaction commits
+     *
+     * @param payload verification token or code; stored encrypted until delivered
+     */
+    @Transactional
+    public void enqueue(OutboxMessage.MessageType messageType, String recipient, String recipientName, String payload) {
+        OutboxMessage message = new OutboxMessage();
+        message.setMessageType(messageType);
+        message.setRecipient(recipient);
+        message.setRecipientName(recipientName);
+        message.setPayloadEncrypted(payload != null ? encryptionService.encrypt(payload) : null);
+        message.setNextAttemptAt(LocalDateTime.now());
+        Long id = outboxMessageRepository.save(message).getId();
+        counter("notifications.outbox.enqueued", messageType).increment();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    executor.execute(() -> deliver(id));
+                }
+            });
+        } else {
+            executor.execute(() -> deliver(id));
+        }
+    }
+
+    /**
+     * Hand due messages to the worker pool: retries, deferred deliveries and expired leases
+     */
+    @Scheduled(fixedDelayString = "${notifications.outbox.poll-interval-ms:1000}")
+    public void dispatchDueMessages() {
+        try {
+            int capacity = executor.getQueue().remainingCapacity();
+            if (capacity > 0) {
+                List<Long> dueIds = outboxMessageRepository.findDueIds(LocalDateTime.now(),
+                        PageRequest.of(0, Math.min(batchSize, capacity)));
+                for (Long id : dueIds) {
+                    executor.execute(() -> deliver(id));
+                }
+            }
+            pendingMessages.set(outboxMessageRepository.countByStatus(OutboxMessage.Status.PENDING));
+        } catch (Exception e) {
+            log.error("Error dispatching outbox messages: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Delete delivered messages once they are past the retention period; DEAD ones are kept
+     */
+    @Scheduled(cron = "${notifications.outbox.cleanup-cron:0 30 3 * * *}")
+    @Transactional
+    public void purgeSentMessages() {
+        int deleted = outboxMessageRepository.deleteSentBefore(LocalDateTime.now().minusDays(retentionDays));
+        if (deleted > 0) {
+            log.info("Purged {} delivered outbox messages", deleted);
+        }
+    }
+
+    void deliver(Long id) {
+        OutboxMessage message = transactionTemplate.execute(status -> claim(id));
+        if (message == null) {
+            return; // delivered, rescheduled or claimed by another worker meanwhile
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            send(message);
+            sample.stop(timer("notifications.outbox.delivery", message.getMessageType()));
+            transactionTemplate.executeWithoutResult(status ->
+                    outboxMessageRepository.markSent(id, LocalDateTime.now()));
+            counter("notifications.outbox.sent", message.getMessageType()).increment();
+            lagTimer.record(Duration.between(message.getCreatedAt(), LocalDateTime.now()));
+
+        } catch (Exception e) {
+            sample.stop(timer("notifications.outbox.delivery", message.getMessageType()));
+            recordFailure(message, e);
+        }
+    }
+
+    long backoffMs(int attempts) {
+        long exponential = initialBackoffMs << Math.min(attempts - 1, 20);
+        long capped = Math.min(maxBackoffMs, exponential);
+        // Equal jitter: spread retries so a recovering SMTP server is not hit all at once
+        return capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1);
+    }
+
+    private OutboxMessage claim(Long id) {
+        LocalDateTime now = LocalDateTime.now();
+        if (outboxMessageRepository.claim(id, now, now.plus(Duration.ofMillis(leaseMs))) == 0) {
+            return null;
+        }
+        return outboxMessageRepository.findById(id).orElse(null);
+    }
+
+    private void send(OutboxMessage message) {
+        String payload = message.getPayloadEncrypted() != null
+                ? encryptionService.decrypt(message.getPayloadEncrypted())
+                : null;
+        switch (message.getMessageType()) {
+            case PROVIDER_VERIFICATION_EMAIL ->
+                emailService.sendVerificationEmail(message.getRecipient(), message.getRecipientName(), payload);
+            case PROVIDER_WELCOME_EMAIL ->
+                emailService.sendWelcomeEmail(message.getRecipient(), message.getRecipientName());
+            case PATIENT_VERIFICATION_EMAIL ->
+                emailService.sendPatientVerificationEmail(message.getRecipient(), message.getRecipientName(), payload);
+            case PATIENT_VERIFICATION_SMS ->
+                smsService.sendVerificationCode(message.getRecipient(), payload);
+        }
+    }
+
+    private void recordFailure(OutboxMessage message, Exception e) {
+        String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        if (error.length() > MAX_ERROR_LENGTH) {
+            error = error.substring(0, MAX_ERROR_LENGTH);
+        }
+        String lastError = error;
+
+        try {
+            if (message.getAttempts() >= maxAttempts) {
+                transactionTemplate.executeWithoutResult(status ->
+                        outboxMessageRepository.markDead(message.getId(), lastError));
+                counter("notifications.outbox.dead", message.getMessageType()).increment();
+                log.error("Giving up on {} message {} after {} attempts: {}",
+                        message.getMessageType(), message.getId(), message.getAttempts(), lastError);
+            } else {
+                LocalDateTime nextAttemptAt = LocalDateTime.now().plus(Duration.ofMillis(backoffMs(message.getAttempts())));
+                transactionTemplate.executeWithoutResult(status ->
+                        outboxMessageRepository.reschedule(message.getId(), nextAttemptAt, lastError));
+                counter("notifications.outbox.retried", message.getMessageType()).increment();
+                log.warn("Delivery of {} message {} failed (attempt {}), retrying at {}: {}",
+                        message.getMessageType(), message.getId(), message.getAttempts(), nextAttemptAt, lastError);
+            }
+        } catch (Exception updateError) {
+            // The lease runs out and the poller picks the message up again
+            log.error("Error recording delivery failure for outbox message {}: {}", message.getId(), updateError.getMessage());
+        }
+    }
+
+    private Counter counter(String name, OutboxMessage.MessageType messageType) {
+        return meterRegistry.counter(name, "channel", messageType.getChannel().name(), "type", messageType.name());
+    }
+
+    private Timer timer(String name, OutboxMessage.MessageType messageType) {
+        return meterRegistry.timer(name, "channel", messageType.getChannel().name(), "type", messageType.name());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(shutdownTimeoutMs, TimeUnit.MILLISECONDS)) {
+                log.warn("Outbox workers still busy at shutdown; unfinished messages will be retried after their lease");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.example.session_demo.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Monthly range partitioning by created_at for the append-only audit tables on PostgreSQL.
+ * Retention drops (or detaches) whole partitions instead of deleting rows, and queries that
+ * filter on created_at only touch the partitions in range.
+ *
+ * A plain table created by Hibernate is turned into a partitioned one in place by
+ * {@link #convertToPartitioned}, an explicit operator step (POST /api/v1/admin/partitions/{table})
+ * rather than something done on startup, since it holds an exclusive lock on the table while the
+ * new primary key index is built. The existing table becomes the _hist partition for everything
+ * before next month, so no rows are copied; because its lower bound is MINVALUE, retention deletes
+ * its expired rows in batches until the whole partition has aged out and can be dropped. Upcoming
+ * partitions are created ahead of time by a daily job. Until a table is converted, and on other
+ * databases, retention here is a no-op and callers fall back to deleting rows.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PartitionMaintenanceService {
+
+    public static final String PATIENT_AUDIT_LOGS = "patient_audit_logs";
+    public static final String LOGIN_ATTEMPTS = "login_attempts";
+
+    static final List<String> PARTITIONED_TABLES = List.of(PATIENT_AUDIT_LOGS, LOGIN_ATTEMPTS);
+
+    private static final String PARTITION_KEY = "created_at";
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('([^']+)'\\)");
+    private static final String UNBOUNDED_BELOW = "FROM (MINVALUE)";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("'_p'yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${database.partitioning.enabled:true}")
+    private boolean enabled;
+
+    @Value("${database.partitioning.premake-months:3}")
+    private int premakeMonths;
+
+    @Value("${database.partitioning.retention-action:drop}") // drop | detach
+    private String retentionAction;
+
+    @Value("${database.partitioning.history-delete-batch-size:10000}")
+    private int historyDeleteBatchSize;
+
+    @Value("${database.partitioning.conversion-lock-timeout:5s}") // give up rather than queue traffic behind the lock
+    private String conversionLockTimeout;
+
+    private volatile boolean postgres;
+
+    private record Partition(String name, LocalDateTime upperBound, boolean unboundedBelow) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        postgres = enabled && Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName())));
+        if (postgres) {
+            maintainPartitions();
+        }
+    }
+
+    /**
+     * Create the partitions for the coming months of every table that has been partitioned
+     */
+    @Scheduled(cron = "${database.partitioning.maintenance-cron:0 15 1 * * *}")
+    public void maintainPartitions() {
+        if (!postgres) {
+            return;
+        }
+        for (String table : PARTITIONED_TABLES) {
+            try {
+                inNewTransaction(() -> {
+                    if (isPartitioned(table)) {
+                        createUpcomingPartitions(table, LocalDate.now());
+                    } else {
+                        log.info("{} is not partitioned; retention deletes rows until it is converted", table);
+                    }
+                });
+            } catch (Exception e) {
+                log.error("Partition maintenance for {} failed: {}", table, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Turn a plain table into a partitioned one in place and create its upcoming partitions. Takes
+     * an exclusive lock on the table until done, so run it at a quiet time; if the lock cannot be
+     * had within the configured timeout nothing changes and it can simply be retried.
+     *
+     * @return false when the table was already partitioned
+     */
+    public boolean convertToPartitioned(String table) {
+        if (!PARTITIONED_TABLES.contains(table)) {
+            throw new IllegalArgumentException("Table is not eligible for partitioning: " + table);
+        }
+        if (!postgres) {
+            throw new IllegalStateException("Partitioning is only available on PostgreSQL");
+        }
+        return inNewTransaction(() -> {
+            if (isPartitioned(table)) {
+                return false;
+            }
+            jdbcTemplate.execute("SET LOCAL lock_timeout = '" + conversionLockTimeout.replace("'", "") + "'");
+            partitionTable(table, LocalDate.now().withDayOfMonth(1).plusMonths(1));
+            createUpcomingPartitions(table, LocalDate.now());
+            return true;
+        });
+    }
+
+    /**
+     * Remove every partition whose rows are all older than the cutoff. Rows in the partition that
+     * straddles the cutoff are kept until the whole month has passed it. The _hist partition left
+     * by the conversion reaches back to MINVALUE, so its expired rows are deleted in batches until
+     * it can be dropped as a whole.
+     *
+     * @return false when the table is not partitioned and the caller has to delete rows instead
+     */
+    public boolean dropPartitionsBefore(String table, LocalDateTime cutoff) {
+        if (!postgres || !isPartitioned(table)) {
+            return false;
+        }
+        boolean detach = "detach".equalsIgnoreCase(retentionAction);
+        List<Partition> history = new ArrayList<>();
+        inNewTransaction(() -> {
+            for (Partition partition : listPartitions(table)) {
+                if (partition.upperBound() == null) {
+                    continue;
+                }
+                if (partition.upperBound().isAfter(cutoff)) {
+                    if (partition.unboundedBelow()) {
+                        history.add(partition);
+                    }
+                    continue;
+                }
+                if (detach) {
+                    // Kept as a standalone table for archiving; it no longer shows up in queries
+                    jdbcTemplate.execute("ALTER TABLE " + table + " DETACH PARTITION " + partition.name());
+                } else {
+                    jdbcTemplate.execute("DROP TABLE " + partition.name());
+                }
+                log.info("{} partition {} of {} (rows before {})",
+                        detach ? "Detached" : "Dropped", partition.name(), table, partition.upperBound());
+            }
+        });
+        for (Partition partition : history) {
+            deleteRowsBefore(partition.name(), cutoff);
+        }
+        return true;
+    }
+
+    boolean isPartitioned(String table) {
+        List<String> kinds = jdbcTemplate.queryForList(
+                "SELECT relkind::text FROM pg_class WHERE oid = to_regclass(?)", String.class, table);
+        return kinds.contains("p");
+    }
+
+    void createUpcomingPartitions(String table, LocalDate today) {
+        LocalDate horizon = today.withDayOfMonth(1).plusMonths(premakeMonths + 1);
+        LocalDate start = listPartitions(table).stream()
+                .map(Partition::upperBound)
+                .filter(bound -> bound != null)
+                .max(LocalDateTime::compareTo)
+                .map(LocalDateTime::toLocalDate)
+                .orElse(today.withDayOfMonth(1));
+
+        while (start.isBefore(horizon)) {
+            LocalDate end = start.withDayOfMonth(1).plusMonths(1);
+            String partition = table + PARTITION_SUFFIX.format(start);
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partition + " PARTITION OF " + table +
+                    " FOR VALUES FROM ('" + start + "') TO ('" + end + "')");
+            log.info("Created partition {} for [{}, {})", partition, start, end);
+            start = end;
+        }
+    }
+
+    /**
+     * Delete a partition's rows older than the cutoff, one short transaction per batch so neither
+     * locks nor the undeleted backlog build up
+     */
+    void deleteRowsBefore(String partition, LocalDateTime cutoff) {
+        long deleted = 0;
+        int batch;
+        do {
+            batch = inNewTransaction(() -> jdbcTemplate.update("DELETE FROM " + partition + " WHERE ctid = ANY(ARRAY(" +
+                    "SELECT ctid FROM " + partition + " WHERE " + PARTITION_KEY + " < ? LIMIT ?))",
+                    cutoff, historyDeleteBatchSize));
+            deleted += batch;
+        } while (batch >= historyDeleteBatchSize);
+        if (deleted > 0) {
+            log.info("Deleted {} rows before {} from {}", deleted, cutoff, partition);
+        }
+    }
+
+    private List<Partition> listPartitions(String table) {
+        List<Partition> partitions = new ArrayList<>();
+        for (Map<String, Object> row : jdbcTemplate.queryForList(
+                "SELECT c.relname AS name, pg_get_expr(c.relpartbound, c.oid) AS bound " +
+                "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = to_regclass(?)", table)) {
+            String bound = (String) row.get("bound");
+            partitions.add(new Partition((String) row.get("name"), upperBound(bound),
+                    bound != null && bound.contains(UNBOUNDED_BELOW)));
+        }
+        return partitions;
+    }
+
+    /**
+     * Exclusive upper bound of a range partition, or null for MAXVALUE and DEFAULT partitions
+     */
+    static LocalDateTime upperBound(String boundExpression) {
+        Matcher matcher = UPPER_BOUND.matcher(boundExpression != null ? boundExpression : "");
+        if (!matcher.find()) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(matcher.group(1).replace(' ', 'T'));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Swap the plain table for a partitioned one with the same columns, constraints and indexes,
+     * and attach the old table as the partition for everything before firstMonth. Unique
+     * constraints gain created_at, as PostgreSQL requires the partition key in them.
+     */
+    private void partitionTable(String table, LocalDate firstMonth) {
+        String history = table + "_hist";
+        List<Map<String, Object>> constraints = jdbcTemplate.queryForList(
+                "SELECT conname, contype::text AS contype, pg_get_constraintdef(oid) AS def FROM pg_constraint " +
+                "WHERE conrelid = to_regclass(?) AND contype IN ('p', 'u', 'f')", table);
+        List<Map<String, Object>> indexes = jdbcTemplate.queryForList(
+                "SELECT indexname, indexdef FROM pg_indexes WHERE schemaname = current_schema() AND tablename = ? " +
+                "AND indexname NOT IN (SELECT conname FROM pg_constraint WHERE conrelid = to_regclass(?))", table, table);
+
+        // Index and constraint names are schema-wide, so the old ones move out of the way
+        jdbcTemplate.execute("ALTER TABLE " + table + " RENAME TO " + history);
+        for (Map<String, Object> constraint : constraints) {
+            if (!"f".equals(constraint.get("contype"))) {
+                jdbcTemplate.execute("ALTER TABLE " + history + " RENAME CONSTRAINT " + constraint.get("conname") +
+                        " TO " + constraint.get("conname") + "_hist");
+            }
+        }
+        for (Map<String, Object> index : indexes) {
+            jdbcTemplate.execute("ALTER INDEX " + index.get("indexname") + " RENAME TO " + index.get("indexname") + "_hist");
+        }
+
+        jdbcTemplate.execute("CREATE TABLE " + table + " (LIKE " + history +
+                " INCLUDING DEFAULTS INCLUDING CONSTRAINTS) PARTITION BY RANGE (" + PARTITION_KEY + ")");
+        for (Map<String, Object> constraint : constraints) {
+            String definition = (String) constraint.get("def");
+            if (!"f".equals(constraint.get("contype")) && !definition.contains(PARTITION_KEY)) {
+                int close = definition.lastIndexOf(')');
+                definition = definition.substring(0, close) + ", " + PARTITION_KEY + definition.substring(close);
+            }
+            jdbcTemplate.execute("ALTER TABLE " + table + " ADD CONSTRAINT " + constraint.get("conname") + " " + definition);
+        }
+        for (Map<String, Object> index : indexes) {
+            jdbcTemplate.execute(((String) index.get("indexdef"))
+                    .replaceFirst(" ON (\\S+\\.)?" + table + " ", " ON " + table + " "));
+        }
+
+        // Matching indexes on the old table are adopted rather than rebuilt
+        jdbcTemplate.execute("ALTER TABLE " + table + " ATTACH PARTITION " + history +
+                " FOR VALUES FROM (MINVALUE) TO ('" + firstMonth + "')");
+        log.info("Partitioned {} by month; existing rows are in {}", table, history);
+    }
+
+    /**
+     * Run in a transaction of its own, independent of any the caller holds, under the maintenance lock
+     */
+    private <T> T inNewTransaction(Supplier<T> action) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return transactionTemplate.execute(status -> {
+            lock();
+            return action.get();
+        });
+    }
+
+    private void inNewTransaction(Runnable action) {
+        inNewTransaction(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private void lock() {
+        // Nodes must not both partition a table, create the same partition or drop one another is using
+        jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(hashtext('partition-maintenance'))");
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.session_demo.service;
+
+import com.example.session_demo.util.PasswordUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs BCrypt hashing and verification on a dedicated, CPU-sized worker pool with a bounded
+ * queue, so a login storm cannot occupy every servlet thread. Callers that cannot be admitted
+ * (queue full) or that exceed their deadline get a {@link HashingCapacityException}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PasswordHashingService {
+
+    private final PasswordUtil passwordUtil;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${security.password-hashing.pool-size:0}") // 0 = number of available processors
+    private int poolSize;
+
+    @Value("${security.password-hashing.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${security.password-hashing.timeout-ms:5000}")
+    private long defaultTimeoutMs;
+
+    @Value("${security.password-hashing.retry-after-seconds:2}")
+    private long retryAfterSeconds;
+
+    private ThreadPoolExecutor executor;
+    private Timer waitTimer;
+    private Timer executionTimer;
+    private Counter rejectedCounter;
+    private Counter timeoutCounter;
+
+    @PostConstruct
+    void init() {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        executor = new ThreadPoolExecutor(
+            threads, threads,
+            0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            new HashingThreadFactory(),
+            new ThreadPoolExecutor.AbortPolicy()
+        );
+
+        Gauge.builder("auth.password.hashing.queue.size", executor, e -> e.getQueue().size())
+            .description("Password hashing tasks waiting for a worker")
+            .register(meterRegistry);
+        Gauge.builder("auth.password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+            .description("Password hashing tasks currently running")
+            .register(meterRegistry);
+        waitTimer = Timer.builder("auth.password.hashing.wait")
+            .description("Time a password hashing task spent queued before a worker picked it up")
+            .register(meterRegistry);
+        executionTimer = Timer.builder("auth.password.hashing.execution")
+            .description("Time spent computing BCrypt on a worker")
+            .register(meterRegistry);
+        rejectedCounter = Counter.builder("auth.password.hashing.rejected")
+            .description("Password hashing tasks rejected because the queue was full")
+            .register(meterRegistry);
+        timeoutCounter = Counter.builder("auth.password.hashing.timeouts")
+            .description("Password hashing tasks abandoned after the caller deadline")
+            .register(meterRegistry);
+
+        log.info("Password hashing pool started with {} threads and queue capacity {}", threads, queueCapacity);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(defaultTimeoutMs, TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Hash a password on the hashing pool using the default deadline
+     */
+    public String hashPassword(String plainPassword) {
+        return hashPassword(plainPassword, Duration.ofMillis(defaultTimeoutMs));
+    }
+
+    /**
+     * Hash a password on the hashing pool, giving up after the given deadline
+     */
+    public String hashPassword(String plainPassword, Duration deadline) {
+        if (plainPassword == null || plainPassword.isEmpty()) {
+            throw new IllegalArgumentException("Password cannot be null or empty");
+        }
+        return submit(() -> passwordUtil.hashPassword(plainPassword), deadline);
+    }
+
+    /**
+     * Verify a password on the hashing pool using the default deadline
+     */
+    public boolean verifyPassword(String plainPassword, String hashedPassword) {
+        return verifyPassword(plainPassword, hashedPassword, Duration.ofMillis(defaultTimeoutMs));
+    }
+
+    /**
+     * Verify a password on the hashing pool, giving up after the given deadline
+     */
+    public boolean verifyPassword(String plainPassword, String hashedPassword, Duration deadline) {
+        if (plainPassword == null || hashedPassword == null) {
+            return false;
+        }
+        return submit(() -> passwordUtil.verifyPassword(plainPassword, hashedPassword), deadline);
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    private <T> T submit(Callable<T> work, Duration deadline) {
+        long enqueuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                waitTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                return executionTimer.recordCallable(work);
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            log.warn("Password hashing queue full ({} waiting), rejecting request", executor.getQueue().size());
+            throw new HashingCapacityException("Authentication service is busy. Please retry shortly.", retryAfterSeconds);
+        }
+
+        try {
+            return future.get(deadline.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timeoutCounter.increment();
+            log.warn("Password hashing exceeded deadline of {} ms", deadline.toMillis());
+            throw new HashingCapacityException("Authentication service is busy. Please retry shortly.", retryAfterSeconds);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new HashingCapacityException("Password hashing was interrupted", retryAfterSeconds);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", cause);
+        }
+    }
+
+    private static class HashingThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "password-hashing-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    public static class HashingCapacityException extends RuntimeException {
+        private final long retryAfterSeconds;
+
+        public HashingCapacityException(String message, long retryAfterSeconds) {
+            super(message);
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
+}
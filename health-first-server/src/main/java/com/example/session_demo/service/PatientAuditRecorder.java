@@ -0,0 +1,324 @@
+package com.example.session_demo.service;
+
+import com.example.session_demo.entity.PatientAuditLog;
+import com.example.session_demo.repository.PatientAuditLogRepository;
+import com.example.session_demo.repository.PatientRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind recorder for patient audit events. Events are queued once the caller's transaction
+ * completes and a single background writer encrypts their details and inserts them in JDBC
+ * batches, so requests no longer pay for encryption and one INSERT per audit event. Each batch
+ * updates the AuditCounterService rollups in the same transaction.
+ *
+ * Events are never dropped: when the queue stays full for longer than the offer timeout, or the
+ * recorder is stopped, the event is written on the caller's thread instead. A batch that keeps
+ * failing is retried row by row so one bad event cannot take the others with it. Pending events
+ * are flushed on shutdown.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PatientAuditRecorder {
+
+    private final PatientAuditLogRepository auditLogRepository;
+    private final PatientRepository patientRepository;
+    private final EncryptionService encryptionService;
+    private final AuditCounterService auditCounterService;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${patient.audit.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${patient.audit.batch-size:100}") // keep in line with hibernate.jdbc.batch_size
+    private int batchSize;
+
+    @Value("${patient.audit.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${patient.audit.offer-timeout-ms:50}")
+    private long offerTimeoutMs;
+
+    @Value("${patient.audit.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${patient.audit.retry-backoff-ms:200}")
+    private long retryBackoffMs;
+
+    @Value("${patient.audit.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMs;
+
+    private BlockingQueue<PendingEvent> queue;
+    private TransactionTemplate transactionTemplate;
+    private Thread writer;
+    private volatile boolean running;
+
+    private Counter writtenCounter;
+    private Counter inlineCounter;
+    private Counter failedCounter;
+    private Timer flushTimer;
+    private Timer lagTimer;
+
+    @PostConstruct
+    void init() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        Gauge.builder("patient.audit.events.queue.size", queue, BlockingQueue::size)
+            .description("Patient audit events waiting to be written")
+            .register(meterRegistry);
+        Gauge.builder("patient.audit.events.queue.lag", this, recorder -> recorder.getOldestPendingAgeMs())
+            .description("Age in milliseconds of the oldest patient audit event waiting to be written")
+            .baseUnit("milliseconds")
+            .register(meterRegistry);
+        writtenCounter = Counter.builder("patient.audit.events.written")
+            .description("Patient audit events written to the database")
+            .register(meterRegistry);
+        inlineCounter = Counter.builder("patient.audit.events.inline")
+            .description("Patient audit events written on the caller's thread because the queue was full or stopped")
+            .register(meterRegistry);
+        failedCounter = Counter.builder("patient.audit.events.failed")
+            .description("Patient audit events that could not be written after all retries")
+            .register(meterRegistry);
+        flushTimer = Timer.builder("patient.audit.events.flush")
+            .description("Time spent writing one batch of patient audit events")
+            .register(meterRegistry);
+        lagTimer = Timer.builder("patient.audit.events.write.lag")
+            .description("Time between an audit event being queued and being written")
+            .register(meterRegistry);
+
+        running = true;
+        writer = new Thread(this::runWriter, "patient-audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Patient audit recorder started with queue capacity {} and batch size {}", queueCapacity, batchSize);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        running = false; // the writer notices within one flush interval
+        try {
+            writer.join(shutdownTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Anything the writer did not get to is flushed on the calling thread
+        List<PendingEvent> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        while (!remaining.isEmpty()) {
+            List<PendingEvent> batch = remaining.subList(0, Math.min(batchSize, remaining.size()));
+            writeBatch(new ArrayList<>(batch));
+            batch.clear();
+        }
+        log.info("Patient audit recorder stopped");
+    }
+
+    /**
+     * Record an audit event. Inside a transaction the event is queued when the transaction
+     * completes, whether it commits or rolls back, so failed operations are audited too.
+     *
+     * @param auditLog event without encrypted details; the patient link is kept only if committed
+     * @param details  plain action details, encrypted by the writer
+     */
+    public void record(PatientAuditLog auditLog, String details) {
+        if (auditLog.getUuid() == null) {
+            auditLog.setUuid(UUID.randomUUID());
+        }
+        if (auditLog.getCreatedAt() == null) {
+            auditLog.setCreatedAt(LocalDateTime.now());
+        }
+        Long patientId = auditLog.getPatient() != null ? auditLog.getPatient().getId() : null;
+        auditLog.setPatient(null); // the writer links the row by id in its own session
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    // A patient saved in a rolled-back transaction does not exist; actorId still names them
+                    enqueue(new PendingEvent(auditLog, status == STATUS_COMMITTED ? patientId : null,
+                            details, System.nanoTime()));
+                }
+            });
+        } else {
+            enqueue(new PendingEvent(auditLog, patientId, details, System.nanoTime()));
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    double getOldestPendingAgeMs() {
+        PendingEvent oldest = queue.peek();
+        return oldest == null ? 0 : (System.nanoTime() - oldest.enqueuedAtNanos()) / 1_000_000.0;
+    }
+
+    private void enqueue(PendingEvent event) {
+        try {
+            if (running && queue.offer(event, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Backpressure: the caller pays for its own write rather than losing the event
+        inlineCounter.increment();
+        log.warn("Patient audit queue full or stopped, writing {} event inline", event.auditLog().getActionType());
+        writeBatch(List.of(event));
+    }
+
+    private void runWriter() {
+        List<PendingEvent> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                PendingEvent first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Keep collecting until the batch is full or the flush interval has passed
+                long flushDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remainingNanos = flushDeadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remainingNanos <= 0) {
+                        break;
+                    }
+                    PendingEvent next = queue.poll(remainingNanos, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+
+            if (!batch.isEmpty()) {
+                writeBatch(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<PendingEvent> events) {
+        List<PendingEvent> batch = new ArrayList<>(events.size());
+        List<PatientAuditLog> auditLogs = new ArrayList<>(events.size());
+        for (PendingEvent event : events) {
+            try {
+                auditLogs.add(prepare(event));
+                batch.add(event);
+            } catch (Exception e) {
+                failedCounter.increment();
+                log.error("Failed to encrypt details of patient audit event {} ({}): {}",
+                        event.auditLog().getUuid(), event.auditLog().getActionType(), e.getMessage());
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        for (int attempt = 0; attempt <= maxRetries; attempt++) {
+            try {
+                flushTimer.record(() -> transactionTemplate.executeWithoutResult(status -> {
+                    for (int i = 0; i < batch.size(); i++) {
+                        link(auditLogs.get(i), batch.get(i));
+                    }
+                    auditLogRepository.saveAll(auditLogs);
+                    auditCounterService.apply(auditLogs);
+                }));
+                written(batch);
+                log.debug("Wrote batch of {} patient audit events", batch.size());
+                return;
+            } catch (Exception e) {
+                auditLogs.forEach(auditLog -> auditLog.setId(null)); // ids from the rolled-back batch are not reused
+                log.warn("Failed to write batch of {} patient audit events (attempt {}): {}",
+                        batch.size(), attempt + 1, e.getMessage());
+                if (attempt < maxRetries && !sleep(retryBackoffMs << attempt)) {
+                    break;
+                }
+            }
+        }
+
+        // Last resort: one row per transaction so a single bad event cannot take the batch with it
+        for (int i = 0; i < batch.size(); i++) {
+            PendingEvent event = batch.get(i);
+            PatientAuditLog auditLog = auditLogs.get(i);
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    link(auditLog, event);
+                    auditLogRepository.save(auditLog);
+                    auditCounterService.apply(List.of(auditLog));
+                });
+                written(List.of(event));
+            } catch (Exception e) {
+                failedCounter.increment();
+                log.error("Failed to write patient audit event {} ({}): {}",
+                        auditLog.getUuid(), auditLog.getActionType(), e.getMessage());
+            }
+        }
+    }
+
+    private PatientAuditLog prepare(PendingEvent event) {
+        PatientAuditLog auditLog = event.auditLog();
+        if (event.details() != null && auditLog.getActionDetailsEncrypted() == null) {
+            auditLog.setActionDetailsEncrypted(encryptionService.encryptBinary(event.details()));
+        }
+        return auditLog;
+    }
+
+    private void link(PatientAuditLog auditLog, PendingEvent event) {
+        if (event.patientId() != null) {
+            auditLog.setPatient(patientRepository.getReferenceById(event.patientId()));
+        }
+    }
+
+    private void written(List<PendingEvent> events) {
+        long now = System.nanoTime();
+        for (PendingEvent event : events) {
+            lagTimer.record(now - event.enqueuedAtNanos(), TimeUnit.NANOSECONDS);
+        }
+        writtenCounter.increment(events.size());
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private record PendingEvent(PatientAuditLog auditLog, Long patientId, String details, long enqueuedAtNanos) {
+    }
+}
@@ -50,4 +50,17 @@ public interface PatientService {
      * Check if phone number already exists
      */
     boolean existsByPhoneNumber(String phoneNumber);
+    
+    /**
+     * Check if email is taken, for the public availability check. Answers from this node's
+     * duplicate filter where it can, so a registration made on another node may not be seen
+     * until the filter is rebuilt; use existsByEmail wherever a duplicate must be rejected.
+     */
+    boolean isEmailTaken(String email);
+    
+    /**
+     * Check if phone number is taken, for the public availability check. Same staleness as
+     * isEmailTaken; use existsByPhoneNumber wherever a duplicate must be rejected.
+     */
+    boolean isPhoneNumberTaken(String phoneNumber);
 } 
\ No newline at end of file
@@ -5,17 +5,19 @@ import com.example.session_demo.dto.PatientRegistrationResponseDTO;
 import com.example.session_demo.dto.VerificationRequestDTO;
 import com.example.session_demo.dto.VerificationResponseDTO;
 import com.example.session_demo.entity.*;
-import com.example.session_demo.repository.PatientAuditLogRepository;
 import com.example.session_demo.repository.PatientRepository;
 import com.example.session_demo.repository.VerificationTokenRepository;
-import com.example.session_demo.util.PasswordUtil;
+import com.example.session_demo.util.TokenDigestUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.security.SecureRandom;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -27,11 +29,13 @@ public class PatientServiceImpl implements PatientService {
 
     private final PatientRepository patientRepository;
     private final VerificationTokenRepository verificationTokenRepository;
-    private final PatientAuditLogRepository auditLogRepository;
+    private final PatientAuditRecorder auditRecorder;
     private final EncryptionService encryptionService;
-    private final PasswordUtil passwordUtil;
-    private final EmailService emailService;
-    private final SmsService smsService;
+    private final PasswordHashingService passwordHashingService;
+    private final NotificationOutboxService notificationOutboxService;
+    private final TokenDigestUtil tokenDigestUtil;
+    private final PhoneOtpStore phoneOtpStore;
+    private final DuplicateContactFilter duplicateContactFilter;
 
     private static final int MINIMUM_AGE = 13; // COPPA compliance
     private static final SecureRandom secureRandom = new SecureRandom();
@@ -66,6 +70,7 @@ public class PatientServiceImpl implements PatientService {
             
             // Save patient
             patient = patientRepository.save(patient);
+            duplicateContactFilter.record(DuplicateContactFilter.Registry.PATIENTS, patient.getEmail(), patient.getPhoneNumber());
             log.info("Patient created with UUID: {}", patient.getUuid());
 
             // Log successful registration
@@ -97,9 +102,10 @@ public class PatientServiceImpl implements PatientService {
         log.info("Email verification attempt from IP: {}", ipAddress);
 
         try {
-            // Find verification token
-            String tokenHash = encryptionService.generateHash(token);
-            Optional<VerificationToken> tokenOpt = verificationTokenRepository.findByTokenHash(tokenHash);
+            // Find verification token with one probe of the unique lookup digest, then check the verifier
+            Optional<VerificationToken> tokenOpt = verificationTokenRepository.findByLookupDigest(tokenDigestUtil.digest(token))
+                .filter(candidate -> candidate.getTokenType() == VerificationToken.TokenType.EMAIL_VERIFICATION)
+                .filter(candidate -> encryptionService.verifyHash(token, candidate.getTokenHash()));
 
             if (tokenOpt.isEmpty()) {
                 logAuditEvent(null, PatientAuditLog.ActionType.EMAIL_VERIFICATION_COMPLETED, 
@@ -157,60 +163,98 @@ public class PatientServiceImpl implements PatientService {
 
             Patient patient = patientOpt.get();
 
-            // Find active phone verification token
-            Optional<VerificationToken> tokenOpt = verificationTokenRepository.findActiveTokenByPatientAndType(
-                patient, VerificationToken.TokenType.PHONE_VERIFICATION, LocalDateTime.now()
-            );
-
-            if (tokenOpt.isEmpty()) {
-                logAuditEvent(patient, PatientAuditLog.ActionType.PHONE_VERIFICATION_COMPLETED, 
-                             false, "No active verification token found", ipAddress, null);
-                throw new IllegalArgumentException("No active verification token found");
+            // Compare, count the attempt and consume the code in one Redis call
+            PhoneOtpStore.VerifyResult result = phoneOtpStore.verify(patient.getUuid(), request.getVerificationCode());
+            switch (result.outcome()) {
+                case INVALID -> {
+                    logAuditEvent(patient, PatientAuditLog.ActionType.PHONE_VERIFICATION_COMPLETED, 
+                                 false, "Invalid OTP code", ipAddress, null);
+                    return VerificationResponseDTO.failed(
+                        patient.getUuid(), 
+                        "phone", 
+                        result.remainingAttempts(),
+                        "Invalid verification code"
+                    );
+                }
+                case ATTEMPTS_EXCEEDED -> {
+                    logAuditEvent(patient, PatientAuditLog.ActionType.PHONE_VERIFICATION_COMPLETED, 
+                                 false, "No active verification token found", ipAddress, null);
+                    throw new IllegalArgumentException("No active verification token found");
+                }
+                case NOT_FOUND, UNAVAILABLE -> {
+                    return verifyPhoneFromDatabase(patient, request, ipAddress);
+                }
+                case VERIFIED -> {
+                    // The token row is kept for audit only
+                    verificationTokenRepository.markAllTokensAsUsedForPatientAndType(
+                        patient, VerificationToken.TokenType.PHONE_VERIFICATION
+                    );
+                }
             }
 
-            VerificationToken verificationToken = tokenOpt.get();
-
-            // Increment attempts
-            verificationToken.incrementAttempts();
-            verificationTokenRepository.save(verificationToken);
+            return completePhoneVerification(patient, ipAddress);
 
-            // Validate OTP code
-            String decryptedOtp = encryptionService.decrypt(verificationToken.getTokenValueEncrypted());
-            if (!request.getVerificationCode().equals(decryptedOtp)) {
-                logAuditEvent(patient, PatientAuditLog.ActionType.PHONE_VERIFICATION_COMPLETED, 
-                             false, "Invalid OTP code", ipAddress, null);
-                
-                return VerificationResponseDTO.failed(
-                    patient.getUuid(), 
-                    "phone", 
-                    verificationToken.getRemainingAttempts(),
-                    "Invalid verification code"
-                );
-            }
+        } catch (Exception e) {
+            log.error("Phone verification failed", e);
+            throw e;
+        }
+    }
 
-            // Mark phone as verified
-            patient.setPhoneVerified(true);
-            verificationToken.markAsUsed();
+    // Codes issued while Redis was unavailable are encrypted on the token row and checked here
+    private VerificationResponseDTO verifyPhoneFromDatabase(Patient patient, VerificationRequestDTO request, String ipAddress) {
+        // Find active phone verification token
+        Optional<VerificationToken> tokenOpt = verificationTokenRepository.findActiveTokenByPatientAndType(
+            patient, VerificationToken.TokenType.PHONE_VERIFICATION, LocalDateTime.now()
+        ).filter(candidate -> candidate.getTokenValueEncrypted() != null);
 
-            patientRepository.save(patient);
-            verificationTokenRepository.save(verificationToken);
-
-            // Log successful verification
+        if (tokenOpt.isEmpty()) {
             logAuditEvent(patient, PatientAuditLog.ActionType.PHONE_VERIFICATION_COMPLETED, 
-                         true, "Phone verification successful", ipAddress, null);
+                         false, "No active verification token found", ipAddress, null);
+            throw new IllegalArgumentException("No active verification token found");
+        }
 
-            log.info("Phone verified successfully for patient: {}", patient.getUuid());
+        VerificationToken verificationToken = tokenOpt.get();
 
-            return VerificationResponseDTO.verified(
+        // Increment attempts
+        verificationToken.incrementAttempts();
+        verificationTokenRepository.save(verificationToken);
+
+        // Validate OTP code
+        String decryptedOtp = encryptionService.decrypt(verificationToken.getTokenValueEncrypted());
+        if (!request.getVerificationCode().equals(decryptedOtp)) {
+            logAuditEvent(patient, PatientAuditLog.ActionType.PHONE_VERIFICATION_COMPLETED, 
+                         false, "Invalid OTP code", ipAddress, null);
+            
+            return VerificationResponseDTO.failed(
                 patient.getUuid(), 
                 "phone", 
-                patient.isFullyVerified()
+                verificationToken.getRemainingAttempts(),
+                "Invalid verification code"
             );
-
-        } catch (Exception e) {
-            log.error("Phone verification failed", e);
-            throw e;
         }
+
+        verificationToken.markAsUsed();
+        verificationTokenRepository.save(verificationToken);
+
+        return completePhoneVerification(patient, ipAddress);
+    }
+
+    private VerificationResponseDTO completePhoneVerification(Patient patient, String ipAddress) {
+        // Mark phone as verified
+        patient.setPhoneVerified(true);
+        patientRepository.save(patient);
+
+        // Log successful verification
+        logAuditEvent(patient, PatientAuditLog.ActionType.PHONE_VERIFICATION_COMPLETED, 
+                     true, "Phone verification successful", ipAddress, null);
+
+        log.info("Phone verified successfully for patient: {}", patient.getUuid());
+
+        return VerificationResponseDTO.verified(
+            patient.getUuid(), 
+            "phone", 
+            patient.isFullyVerified()
+        );
     }
 
     @Override
@@ -267,6 +311,23 @@ public class PatientServiceImpl implements PatientService {
         return patientRepository.existsByPhoneNumber(phoneNumber.trim());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public boolean isEmailTaken(String email) {
+        String normalizedEmail = email.toLowerCase().trim();
+        // Only emails the filter cannot rule out reach the database
+        return duplicateContactFilter.mightContainEmail(DuplicateContactFilter.Registry.PATIENTS, normalizedEmail)
+            && patientRepository.existsByEmail(normalizedEmail);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public boolean isPhoneNumberTaken(String phoneNumber) {
+        String trimmedPhone = phoneNumber.trim();
+        return duplicateContactFilter.mightContainPhone(DuplicateContactFilter.Registry.PATIENTS, trimmedPhone)
+            && patientRepository.existsByPhoneNumber(trimmedPhone);
+    }
+
     // Private helper methods
 
     private Patient createPatientFromRequest(PatientRegistrationRequestDTO request) {
@@ -282,7 +343,7 @@ public class PatientServiceImpl implements PatientService {
         patient.setPreferredLanguage(request.getPreferredLanguage());
 
         // Hash password
-        patient.setPasswordHash(passwordUtil.hashPassword(request.getPassword()));
+        patient.setPasswordHash(passwordHashingService.hashPassword(request.getPassword()));
         patient.setPasswordChangedAt(LocalDateTime.now());
 
         // Address
@@ -306,38 +367,30 @@ public class PatientServiceImpl implements PatientService {
             patient.setEmergencyContact(emergencyContact);
         }
 
-        // Encrypt and store medical data
-        if (request.getMedicalHistory() != null && !request.getMedicalHistory().isEmpty()) {
-            patient.setMedicalHistoryEncrypted(encryptionService.encryptList(request.getMedicalHistory()));
-        }
-
-        if (request.getAllergies() != null && !request.getAllergies().isEmpty()) {
-            patient.setAllergiesEncrypted(encryptionService.encryptList(request.getAllergies()));
-        }
-
-        if (request.getCurrentMedications() != null && !request.getCurrentMedications().isEmpty()) {
-            patient.setCurrentMedicationsEncrypted(encryptionService.encryptList(request.getCurrentMedications()));
-        }
+        // Encrypt medical data in one pass, in the binary format of its bytea columns
+        List<byte[]> encryptedMedical = encryptionService.encryptRecordBinary(Arrays.asList(
+            request.getMedicalHistory(),
+            request.getAllergies(),
+            request.getCurrentMedications()
+        ));
+        patient.setMedicalHistoryEncrypted(encryptedMedical.get(0));
+        patient.setAllergiesEncrypted(encryptedMedical.get(1));
+        patient.setCurrentMedicationsEncrypted(encryptedMedical.get(2));
 
         // Insurance information
-        if (request.getInsuranceInfo() != null) {
+        PatientRegistrationRequestDTO.InsuranceInfoDTO insuranceRequest = request.getInsuranceInfo();
+        if (insuranceRequest != null) {
+            List<String> encryptedInsurance = encryptionService.encryptRecord(Arrays.asList(
+                insuranceRequest.getPolicyNumber(),
+                insuranceRequest.getMemberId()
+            ));
             InsuranceInfo insuranceInfo = new InsuranceInfo();
-            insuranceInfo.setProvider(request.getInsuranceInfo().getProvider());
-            insuranceInfo.setGroupNumber(request.getInsuranceInfo().getGroupNumber());
-            insuranceInfo.setEffectiveDate(request.getInsuranceInfo().getEffectiveDate());
-            insuranceInfo.setExpiryDate(request.getInsuranceInfo().getExpiryDate());
-
-            // Encrypt sensitive insurance data
-            if (request.getInsuranceInfo().getPolicyNumber() != null) {
-                insuranceInfo.setPolicyNumberEncrypted(
-                    encryptionService.encrypt(request.getInsuranceInfo().getPolicyNumber())
-                );
-            }
-            if (request.getInsuranceInfo().getMemberId() != null) {
-                insuranceInfo.setMemberIdEncrypted(
-                    encryptionService.encrypt(request.getInsuranceInfo().getMemberId())
-                );
-            }
+            insuranceInfo.setProvider(insuranceRequest.getProvider());
+            insuranceInfo.setGroupNumber(insuranceRequest.getGroupNumber());
+            insuranceInfo.setEffectiveDate(insuranceRequest.getEffectiveDate());
+            insuranceInfo.setExpiryDate(insuranceRequest.getExpiryDate());
+            insuranceInfo.setPolicyNumberEncrypted(encryptedInsurance.get(0));
+            insuranceInfo.setMemberIdEncrypted(encryptedInsurance.get(1));
             patient.setInsuranceInfo(insuranceInfo);
         }
 
@@ -378,22 +431,22 @@ public class PatientServiceImpl implements PatientService {
             verificationToken.setPatient(patient);
             verificationToken.setTokenType(VerificationToken.TokenType.EMAIL_VERIFICATION);
             verificationToken.setTokenHash(tokenHash);
+            verificationToken.setLookupDigest(tokenDigestUtil.digest(token));
             verificationToken.setExpiresAt(VerificationToken.TokenType.EMAIL_VERIFICATION.getDefaultExpiryTime());
             verificationToken.setIpAddress(ipAddress);
             verificationToken.setUserAgent(userAgent);
 
             verificationTokenRepository.save(verificationToken);
 
-            // Send email
-            log.info("🔄 Attempting to send patient verification email to: {}", patient.getEmail());
-            emailService.sendPatientVerificationEmail(patient.getEmail(), patient.getFirstName(), token);
-            log.info("✅ Patient verification email call completed for: {}", patient.getEmail());
+            // Queue email; it is sent after commit, outside this transaction
+            notificationOutboxService.enqueue(OutboxMessage.MessageType.PATIENT_VERIFICATION_EMAIL,
+                patient.getEmail(), patient.getFirstName(), token);
 
-            // Log email sent
+            // Log email queued
             logAuditEvent(patient, PatientAuditLog.ActionType.EMAIL_VERIFICATION_SENT, 
-                         true, "Verification email sent", ipAddress, userAgent);
+                         true, "Verification email queued", ipAddress, userAgent);
 
-            log.info("Email verification sent to: {}", patient.getEmail());
+            log.info("Email verification queued for: {}", patient.getEmail());
 
         } catch (Exception e) {
             log.error("Failed to send email verification", e);
@@ -406,28 +459,33 @@ public class PatientServiceImpl implements PatientService {
         try {
             // Generate 6-digit OTP
             String otp = generateOtpCode();
-            String encryptedOtp = encryptionService.encrypt(otp);
 
-            // Create verification token entity
+            // Create verification token entity; it is an audit record unless Redis is unavailable
             VerificationToken verificationToken = new VerificationToken();
             verificationToken.setPatient(patient);
             verificationToken.setTokenType(VerificationToken.TokenType.PHONE_VERIFICATION);
-            verificationToken.setTokenHash(encryptionService.generateHash(otp)); // For lookup
-            verificationToken.setTokenValueEncrypted(encryptedOtp);
+            verificationToken.setTokenHash(encryptionService.generateHash(otp));
             verificationToken.setExpiresAt(VerificationToken.TokenType.PHONE_VERIFICATION.getDefaultExpiryTime());
             verificationToken.setIpAddress(ipAddress);
             verificationToken.setUserAgent(userAgent);
 
+            Duration ttl = Duration.ofMinutes(VerificationToken.TokenType.PHONE_VERIFICATION.getDefaultExpiryMinutes());
+            if (!phoneOtpStore.store(patient.getUuid(), otp, verificationToken.getMaxAttempts(), ttl)) {
+                // Keep the code on the row so it can still be verified from the database
+                verificationToken.setTokenValueEncrypted(encryptionService.encrypt(otp));
+            }
+
             verificationTokenRepository.save(verificationToken);
 
-            // Send SMS verification
-            smsService.sendVerificationCode(patient.getPhoneNumber(), otp);
+            // Queue SMS verification
+            notificationOutboxService.enqueue(OutboxMessage.MessageType.PATIENT_VERIFICATION_SMS,
+                patient.getPhoneNumber(), patient.getFirstName(), otp);
 
-            // Log SMS sent
+            // Log SMS queued
             logAuditEvent(patient, PatientAuditLog.ActionType.PHONE_VERIFICATION_SENT, 
-                         true, "Verification SMS sent", ipAddress, userAgent);
+                         true, "Verification SMS queued", ipAddress, userAgent);
 
-            log.info("SMS verification sent to: {}", patient.getPhoneNumber());
+            log.info("SMS verification queued for: {}", patient.getPhoneNumber());
 
         } catch (Exception e) {
             log.error("Failed to send SMS verification", e);
@@ -454,7 +512,7 @@ public class PatientServiceImpl implements PatientService {
     }
 
     private VerificationResponseDTO resendPhoneVerification(Patient patient, String ipAddress) {
-        // Invalidate existing phone tokens
+        // Invalidate existing phone tokens; a stored code is replaced by the new one
         verificationTokenRepository.markAllTokensAsUsedForPatientAndType(
             patient, VerificationToken.TokenType.PHONE_VERIFICATION
         );
@@ -493,12 +551,8 @@ public class PatientServiceImpl implements PatientService {
             auditLog.setActorType("PATIENT");
             auditLog.setActorId(patient != null ? patient.getUuid().toString() : null);
 
-            // Encrypt sensitive details
-            if (details != null) {
-                auditLog.setActionDetailsEncrypted(encryptionService.encrypt(details));
-            }
-
-            auditLogRepository.save(auditLog);
+            // Details are encrypted and the row written behind the request
+            auditRecorder.record(auditLog, details);
         } catch (Exception e) {
             log.error("Failed to log audit event", e);
         }
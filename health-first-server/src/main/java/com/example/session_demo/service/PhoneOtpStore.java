@@ -0,0 +1,135 @@
+package com.example.session_demo.service;
+
+import com.example.session_demo.util.TokenDigestUtil;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Phone verification codes held in Redis instead of verification_tokens. Each code is stored as a
+ * keyed digest (HMAC, see {@link TokenDigestUtil}) bound to the patient, with its attempt counter,
+ * under a key that expires with the code. Checking a code is one script call that compares the
+ * digest, counts the attempt and consumes the code atomically, so concurrent guesses cannot exceed
+ * the attempt limit and a verification costs a single round trip with no database writes.
+ *
+ * If Redis is unavailable {@link #store} returns false and {@link #verify} reports
+ * {@link Outcome#UNAVAILABLE}, so callers can fall back to the database.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PhoneOtpStore {
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final TokenDigestUtil tokenDigestUtil;
+
+    @Value("${patient.otp.redis-enabled:true}")
+    private boolean redisEnabled;
+
+    private static final String OTP_PREFIX = "otp:phone:";
+
+    private DefaultRedisScript<Long> storeScript;
+    private DefaultRedisScript<List> verifyScript;
+
+    public enum Outcome {
+        VERIFIED,
+        INVALID,
+        NOT_FOUND,
+        ATTEMPTS_EXCEEDED,
+        UNAVAILABLE
+    }
+
+    public record VerifyResult(Outcome outcome, int remainingAttempts) {
+    }
+
+    @PostConstruct
+    void init() {
+        storeScript = new DefaultRedisScript<>();
+        storeScript.setScriptSource(new ResourceScriptSource(new ClassPathResource("redis/otp-store.lua")));
+        storeScript.setResultType(Long.class);
+        verifyScript = new DefaultRedisScript<>();
+        verifyScript.setScriptSource(new ResourceScriptSource(new ClassPathResource("redis/otp-verify.lua")));
+        verifyScript.setResultType(List.class);
+    }
+
+    /**
+     * Store a code for the patient, replacing any earlier one. Returns false if Redis is unavailable.
+     */
+    public boolean store(UUID patientUuid, String code, int maxAttempts, Duration ttl) {
+        if (!redisEnabled) {
+            return false;
+        }
+        try {
+            redisTemplate.execute(storeScript, List.of(otpKey(patientUuid)),
+                digest(patientUuid, code), String.valueOf(maxAttempts), String.valueOf(ttl.toMillis()));
+            return true;
+
+        } catch (Exception e) {
+            log.error("Error storing phone OTP for patient {}: {}", patientUuid, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Check a submitted code; counts as an attempt, and consumes the code when it matches
+     */
+    public VerifyResult verify(UUID patientUuid, String code) {
+        if (!redisEnabled) {
+            return new VerifyResult(Outcome.UNAVAILABLE, 0);
+        }
+        try {
+            List<?> reply = redisTemplate.execute(verifyScript, List.of(otpKey(patientUuid)), digest(patientUuid, code));
+            if (reply == null || reply.size() < 2) {
+                throw new IllegalStateException("Unexpected OTP script reply: " + reply);
+            }
+            int remaining = (int) Math.max(0, toLong(reply.get(1)));
+            return switch ((int) toLong(reply.get(0))) {
+                case 1 -> new VerifyResult(Outcome.VERIFIED, remaining);
+                case 0 -> new VerifyResult(Outcome.INVALID, remaining);
+                case -2 -> new VerifyResult(Outcome.ATTEMPTS_EXCEEDED, 0);
+                default -> new VerifyResult(Outcome.NOT_FOUND, 0);
+            };
+
+        } catch (Exception e) {
+            log.error("Error verifying phone OTP for patient {}: {}", patientUuid, e.getMessage());
+            return new VerifyResult(Outcome.UNAVAILABLE, 0);
+        }
+    }
+
+    /**
+     * Drop any stored code for the patient
+     */
+    public void invalidate(UUID patientUuid) {
+        if (!redisEnabled) {
+            return;
+        }
+        try {
+            redisTemplate.delete(otpKey(patientUuid));
+        } catch (Exception e) {
+            log.error("Error invalidating phone OTP for patient {}: {}", patientUuid, e.getMessage());
+        }
+    }
+
+    // Binding the digest to the patient means a digest cannot be replayed against another key
+    private String digest(UUID patientUuid, String code) {
+        return tokenDigestUtil.digest(patientUuid + ":" + code);
+    }
+
+    private static String otpKey(UUID patientUuid) {
+        return OTP_PREFIX + patientUuid;
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number number ? number.longValue() : Long.parseLong(value.toString());
+    }
+}
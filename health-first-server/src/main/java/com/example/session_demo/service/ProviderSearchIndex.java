@@ -0,0 +1,481 @@
+package com.example.session_demo.service;
+
+import com.example.session_demo.dto.ProviderSuggestionDTO;
+import com.example.session_demo.entity.Provider;
+import com.example.session_demo.enums.ProviderSpecialization;
+import com.example.session_demo.enums.VerificationStatus;
+import com.example.session_demo.util.RadixTrie;
+import com.example.session_demo.util.TrigramIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory trigram index over provider names and emails backing the provider search endpoint,
+ * so a search touches only the providers sharing the rarest trigram of the query rather than
+ * loading the directory. Every whitespace-separated token of a query must match a field, as a
+ * substring, or as a prefix when shorter than three characters. Matches are ranked by how well
+ * the tokens match (whole field, then prefix, then substring) and then by name.
+ *
+ * Alongside it, a radix trie over the full names, last names, emails and license numbers of active
+ * providers answers autocomplete: each trie node caches its best suggestions (verified providers
+ * first, then by name), so a lookup is a walk down the typed prefix.
+ *
+ * The index is built by streaming the providers table once the application is ready. Changes made
+ * through this node are applied by {@link #index} and {@link #remove} after commit; changes made
+ * through other nodes are picked up by a sync that re-reads the rows whose updated_at falls in the
+ * last sync window, widened by an overlap for clock skew and late commits. Inserts and updates made
+ * elsewhere are therefore visible here within provider.search.sync-interval-ms (30 seconds by
+ * default). Hard deletes leave no row to sync and linger until the next full rebuild
+ * (provider.search.rebuild-interval-ms, an hour by default), which also reclaims the space left by
+ * replaced entries; search results are loaded from the database, so a deleted provider only skews
+ * the total there. Until the first build completes {@link #search} returns null and callers query
+ * the database instead.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProviderSearchIndex {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${provider.search.index-enabled:true}")
+    private boolean enabled;
+
+    @Value("${provider.search.fetch-size:1000}")
+    private int fetchSize;
+
+    @Value("${provider.search.max-result-window:10000}")
+    private int maxResultWindow;
+
+    @Value("${provider.autocomplete.max-results:10}")
+    private int maxSuggestions;
+
+    @Value("${provider.search.sync-overlap-ms:120000}")
+    private long syncOverlapMs;
+
+    private static final String SELECT_PROVIDERS =
+        "SELECT uuid, first_name, last_name, email, license_number, specialization, verification_status, is_active " +
+        "FROM providers";
+
+    public record Hits(List<UUID> uuids, long total) {
+    }
+
+    // The searchable fields of one provider, normalized, and its suggestion if it is active
+    private record Entry(UUID uuid, String firstName, String lastName, String email, String licenseNumber,
+                         ProviderSpecialization specialization, VerificationStatus verificationStatus,
+                         Suggestion suggestion) {
+
+        static Entry of(UUID uuid, String firstName, String lastName, String email, String licenseNumber,
+                        ProviderSpecialization specialization, VerificationStatus verificationStatus, boolean active) {
+            Suggestion suggestion = active
+                ? new Suggestion(uuid, firstName, lastName, specialization, licenseNumber, verificationStatus)
+                : null;
+            return new Entry(uuid, normalize(firstName), normalize(lastName), normalize(email), normalize(licenseNumber),
+                specialization, verificationStatus, suggestion);
+        }
+
+        List<String> prefixKeys() {
+            return List.of(firstName + " " + lastName, lastName, email, licenseNumber);
+        }
+    }
+
+    // As displayed
+    private record Suggestion(UUID uuid, String firstName, String lastName, ProviderSpecialization specialization,
+                              String licenseNumber, VerificationStatus verificationStatus) {
+    }
+
+    private static final Comparator<Suggestion> SUGGESTION_ORDER = Comparator
+        .comparing((Suggestion suggestion) -> suggestion.verificationStatus() != VerificationStatus.VERIFIED)
+        .thenComparing(Suggestion::lastName, String.CASE_INSENSITIVE_ORDER)
+        .thenComparing(Suggestion::firstName, String.CASE_INSENSITIVE_ORDER)
+        .thenComparing(Suggestion::uuid);
+
+    private static final Comparator<Scored> RANKING = Comparator
+        .comparingInt(Scored::score).reversed()
+        .thenComparing(scored -> scored.entry().lastName())
+        .thenComparing(scored -> scored.entry().firstName())
+        .thenComparing(scored -> scored.entry().uuid());
+
+    private record Scored(Entry entry, int score) {
+    }
+
+    private static class Index {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final TrigramIndex trigrams = new TrigramIndex();
+        private final RadixTrie<Suggestion> prefixes;
+        private final List<Entry> entries = new ArrayList<>(); // by document id; null once replaced or removed
+        private final Map<UUID, Integer> documents = new HashMap<>();
+        private Set<UUID> written = new HashSet<>(); // providers changed during the build; null once built
+
+        Index(int maxSuggestions) {
+            this.prefixes = new RadixTrie<>(maxSuggestions, SUGGESTION_ORDER);
+        }
+
+        void put(Entry entry) {
+            lock.writeLock().lock();
+            try {
+                markWritten(entry.uuid());
+                Integer document = documents.get(entry.uuid());
+                if (document != null && entry.equals(entries.get(document))) {
+                    return; // unchanged, e.g. read again by an overlapping sync
+                }
+                add(entry);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(UUID uuid) {
+            lock.writeLock().lock();
+            try {
+                markWritten(uuid);
+                retire(uuid);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        // A row read by the build is older than any change applied since the build began
+        void load(Entry entry) {
+            lock.writeLock().lock();
+            try {
+                if (!written.contains(entry.uuid())) {
+                    add(entry);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void finishBuild() {
+            lock.writeLock().lock();
+            try {
+                written = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void markWritten(UUID uuid) {
+            if (written != null) {
+                written.add(uuid);
+            }
+        }
+
+        private void add(Entry entry) {
+            retire(entry.uuid());
+            int document = entries.size();
+            entries.add(entry);
+            documents.put(entry.uuid(), document);
+            trigrams.add(document, entry.firstName(), entry.lastName(), entry.email());
+            if (entry.suggestion() != null) {
+                for (String key : entry.prefixKeys()) {
+                    prefixes.put(key, entry.suggestion());
+                }
+            }
+        }
+
+        private void retire(UUID uuid) {
+            Integer document = documents.remove(uuid);
+            if (document == null) {
+                return;
+            }
+            Entry retired = entries.set(document, null);
+            if (retired.suggestion() != null) {
+                for (String key : retired.prefixKeys()) {
+                    prefixes.remove(key, retired.suggestion());
+                }
+            }
+        }
+    }
+
+    private volatile Index current; // null until the first build completes
+    private volatile Index building;
+    private volatile LocalDateTime syncedUpTo; // changes made elsewhere before this are in current
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuildSafely();
+    }
+
+    @Scheduled(fixedDelayString = "${provider.search.rebuild-interval-ms:3600000}",
+               initialDelayString = "${provider.search.rebuild-interval-ms:3600000}")
+    public void rebuildSafely() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (Exception e) {
+            // The previous index, if any, stays in use
+            log.error("Failed to build provider search index: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${provider.search.sync-interval-ms:30000}",
+               initialDelayString = "${provider.search.sync-interval-ms:30000}")
+    public void syncSafely() {
+        if (!enabled || current == null || building != null) {
+            return;
+        }
+        try {
+            sync();
+        } catch (Exception e) {
+            // The next sync covers the same window again
+            log.warn("Failed to sync provider search index: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * One page of the providers matching the query and filters, best first, with the total number
+     * of matches. Null if the index is not built yet.
+     */
+    public Hits search(String query, ProviderSpecialization specialization, VerificationStatus verificationStatus,
+                       int page, int size) {
+        Index index = current;
+        if (index == null) {
+            return null;
+        }
+        List<String> tokens = tokenize(query);
+        long offset = (long) page * size;
+        if (tokens.isEmpty() || size <= 0) {
+            return new Hits(List.of(), 0);
+        }
+
+        // Only the best offset + size matches are kept, so deep pages are bounded by the window
+        int window = (int) Math.min(offset + size, maxResultWindow);
+        PriorityQueue<Scored> best = new PriorityQueue<>(window + 1, RANKING.reversed());
+        long total = 0;
+
+        index.lock.readLock().lock();
+        try {
+            for (int document : index.trigrams.candidates(tokens)) {
+                Entry entry = index.entries.get(document);
+                if (entry == null
+                        || (specialization != null && entry.specialization() != specialization)
+                        || (verificationStatus != null && entry.verificationStatus() != verificationStatus)) {
+                    continue;
+                }
+                int score = score(entry, tokens);
+                if (score == 0) {
+                    continue;
+                }
+                total++;
+                best.offer(new Scored(entry, score));
+                if (best.size() > window) {
+                    best.poll();
+                }
+            }
+        } finally {
+            index.lock.readLock().unlock();
+        }
+
+        List<Scored> ranked = new ArrayList<>(best);
+        ranked.sort(RANKING);
+        List<UUID> uuids = new ArrayList<>(size);
+        for (int i = (int) Math.min(offset, ranked.size()); i < ranked.size(); i++) {
+            uuids.add(ranked.get(i).entry().uuid());
+        }
+        return new Hits(uuids, total);
+    }
+
+    /**
+     * The best active providers whose full name, last name, email or license number starts with the
+     * prefix; at most the configured maximum. Null if the index is not built yet.
+     */
+    public List<ProviderSuggestionDTO> suggest(String prefix, int limit) {
+        Index index = current;
+        if (index == null) {
+            return null;
+        }
+        String normalized = normalize(prefix).replaceAll("\\s+", " ");
+        if (normalized.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        List<Suggestion> best;
+        index.lock.readLock().lock();
+        try {
+            best = index.prefixes.best(normalized, limit); // an immutable snapshot
+        } finally {
+            index.lock.readLock().unlock();
+        }
+        return best.stream()
+            .map(suggestion -> ProviderSuggestionDTO.builder()
+                .uuid(suggestion.uuid())
+                .firstName(suggestion.firstName())
+                .lastName(suggestion.lastName())
+                .specialization(suggestion.specialization())
+                .licenseNumber(suggestion.licenseNumber())
+                .verificationStatus(suggestion.verificationStatus())
+                .build())
+            .toList();
+    }
+
+    /**
+     * Add or replace a provider. Within a transaction this is applied after commit.
+     */
+    public void index(Provider provider) {
+        Entry entry = Entry.of(provider.getUuid(), provider.getFirstName(), provider.getLastName(), provider.getEmail(),
+            provider.getLicenseNumber(), provider.getSpecialization(), provider.getVerificationStatus(),
+            Boolean.TRUE.equals(provider.getIsActive()));
+        afterCommit(index -> index.put(entry));
+    }
+
+    /**
+     * Drop a provider. Within a transaction this is applied after commit.
+     */
+    public void remove(UUID uuid) {
+        afterCommit(index -> index.remove(uuid));
+    }
+
+    void rebuild() {
+        long startedAt = System.currentTimeMillis();
+        LocalDateTime snapshotTime = LocalDateTime.now();
+        Index next = new Index(maxSuggestions);
+
+        // Changes committed from here on are applied to the new index as well
+        building = next;
+        try {
+            streamProviders(SELECT_PROVIDERS, null, next::load);
+            next.finishBuild();
+            current = next;
+            syncedUpTo = snapshotTime;
+        } finally {
+            building = null;
+        }
+        log.info("Built provider search index of {} providers ({} trigrams) in {} ms", next.documents.size(),
+            next.trigrams.gramCount(), System.currentTimeMillis() - startedAt);
+    }
+
+    /**
+     * Re-read the providers changed since the last sync, so changes made through other nodes reach
+     * this one. Rows are applied as read; one read just before a newer local change is corrected by
+     * the next sync, whose window overlaps this one.
+     */
+    void sync() {
+        LocalDateTime syncTime = LocalDateTime.now();
+        LocalDateTime since = syncedUpTo.minusNanos(syncOverlapMs * 1_000_000);
+        int[] rows = {0};
+        streamProviders(SELECT_PROVIDERS + " WHERE updated_at > ?", since, entry -> {
+            rows[0]++;
+            apply(index -> index.put(entry));
+        });
+        syncedUpTo = syncTime;
+        log.debug("Synced {} providers changed since {} into the search index", rows[0], since);
+    }
+
+    private void streamProviders(String sql, LocalDateTime changedSince, Consumer<Entry> consumer) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            if (changedSince != null) {
+                statement.setTimestamp(1, Timestamp.valueOf(changedSince));
+            }
+            statement.setFetchSize(fetchSize); // stream rather than load the whole table
+            return statement;
+        }, (RowCallbackHandler) resultSet -> consumer.accept(Entry.of(
+            UUID.fromString(resultSet.getString(1)),
+            resultSet.getString(2),
+            resultSet.getString(3),
+            resultSet.getString(4),
+            resultSet.getString(5),
+            ProviderSpecialization.valueOf(resultSet.getString(6)),
+            VerificationStatus.valueOf(resultSet.getString(7)),
+            resultSet.getBoolean(8)))));
+    }
+
+    private void afterCommit(Consumer<Index> change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(change);
+                }
+            });
+        } else {
+            apply(change);
+        }
+    }
+
+    private void apply(Consumer<Index> change) {
+        // Building first: a build that completes before the second read has already made its index current
+        Index next = building;
+        if (next != null) {
+            change.accept(next);
+        }
+        Index index = current;
+        if (index != null && index != next) {
+            change.accept(index);
+        }
+    }
+
+    // Each token scores its best field: 3 for the whole field, 2 for a prefix, 1 for a substring
+    private static int score(Entry entry, List<String> tokens) {
+        int score = 0;
+        for (String token : tokens) {
+            int tokenScore = Math.max(fieldScore(entry.firstName(), token),
+                Math.max(fieldScore(entry.lastName(), token), fieldScore(entry.email(), token)));
+            if (tokenScore == 0) {
+                return 0;
+            }
+            score += tokenScore;
+        }
+        return score;
+    }
+
+    private static int fieldScore(String field, String token) {
+        if (field.equals(token)) {
+            return 3;
+        }
+        if (field.startsWith(token)) {
+            return 2;
+        }
+        return token.length() >= TrigramIndex.GRAM_LENGTH && field.contains(token) ? 1 : 0;
+    }
+
+    private static List<String> tokenize(String query) {
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+        Set<String> tokens = new LinkedHashSet<>(Arrays.asList(normalize(query).split("\\s+")));
+        tokens.remove("");
+        return Collections.unmodifiableList(new ArrayList<>(tokens));
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT).trim();
+    }
+}
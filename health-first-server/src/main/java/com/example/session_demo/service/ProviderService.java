@@ -2,9 +2,12 @@ package com.example.session_demo.service;
 
 import com.example.session_demo.dto.ProviderRegisterDTO;
 import com.example.session_demo.dto.ProviderResponseDTO;
+import com.example.session_demo.dto.ProviderSuggestionDTO;
 import com.example.session_demo.dto.ProviderUpdateDTO;
 import com.example.session_demo.entity.ClinicAddress;
+import com.example.session_demo.entity.OutboxMessage;
 import com.example.session_demo.entity.Provider;
+import com.example.session_demo.enums.ProviderSpecialization;
 import com.example.session_demo.enums.VerificationStatus;
 import com.example.session_demo.repository.ProviderRepository;
 import com.example.session_demo.util.PasswordUtil;
@@ -20,10 +23,16 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
 @Service
@@ -33,12 +42,17 @@ public class ProviderService {
 
     private final ProviderRepository providerRepository;
     private final PasswordUtil passwordUtil;
+    private final PasswordHashingService passwordHashingService;
     private final PhoneNumberUtil phoneNumberUtil;
-    private final EmailService emailService;
+    private final NotificationOutboxService notificationOutboxService;
+    private final ProviderSearchIndex providerSearchIndex;
 
     @Value("${security.email.verification.token.expiry:86400}") // 24 hours in seconds
     private long tokenExpirySeconds;
 
+    @Value("${provider.autocomplete.max-results:10}") // what the search index caches per prefix
+    private int maxSuggestions;
+
     /**
      * Register a new healthcare provider
      */
@@ -61,19 +75,16 @@ public class ProviderService {
         try {
             // Save provider to database
             Provider savedProvider = providerRepository.save(provider);
+            providerSearchIndex.index(savedProvider);
             log.info("Provider saved successfully with ID: {}", savedProvider.getId());
 
-            // Send verification email asynchronously
-            try {
-                emailService.sendVerificationEmail(
-                    savedProvider.getEmail(),
-                    savedProvider.getFirstName(),
-                    savedProvider.getEmailVerificationToken()
-                );
-            } catch (Exception e) {
-                log.error("Failed to send verification email for provider {}: {}", savedProvider.getId(), e.getMessage());
-                // Don't fail registration if email sending fails
-            }
+            // Queue the verification email; it is sent after commit, outside this transaction
+            notificationOutboxService.enqueue(
+                OutboxMessage.MessageType.PROVIDER_VERIFICATION_EMAIL,
+                savedProvider.getEmail(),
+                savedProvider.getFirstName(),
+                savedProvider.getEmailVerificationToken()
+            );
 
             // Convert to response DTO
             ProviderResponseDTO responseDTO = convertToResponseDTO(savedProvider);
@@ -118,12 +129,9 @@ public class ProviderService {
 
         providerRepository.save(provider);
 
-        // Send welcome email
-        try {
-            emailService.sendWelcomeEmail(provider.getEmail(), provider.getFirstName());
-        } catch (Exception e) {
-            log.error("Failed to send welcome email for provider {}: {}", provider.getId(), e.getMessage());
-        }
+        // Queue welcome email
+        notificationOutboxService.enqueue(OutboxMessage.MessageType.PROVIDER_WELCOME_EMAIL,
+            provider.getEmail(), provider.getFirstName(), null);
 
         log.info("Email verified successfully for provider: {}", provider.getEmail());
         return true;
@@ -182,6 +190,7 @@ public class ProviderService {
 
         try {
             Provider updatedProvider = providerRepository.save(provider);
+            providerSearchIndex.index(updatedProvider);
             log.info("Provider updated successfully: {}", uuid);
             return convertToResponseDTO(updatedProvider);
         } catch (DataIntegrityViolationException e) {
@@ -202,6 +211,7 @@ public class ProviderService {
 
         provider.setIsActive(false);
         providerRepository.save(provider);
+        providerSearchIndex.index(provider);
         
         log.info("Provider soft deleted successfully: {}", uuid);
     }
@@ -217,30 +227,67 @@ public class ProviderService {
             .orElseThrow(() -> new NotFoundException("Provider not found with UUID: " + uuid));
 
         providerRepository.delete(provider);
+        providerSearchIndex.remove(uuid);
         log.info("Provider permanently deleted: {}", uuid);
     }
 
     /**
-     * Search providers by various criteria
+     * Search providers by name or email, optionally filtered by specialization and verification status
      */
-    public List<ProviderResponseDTO> searchProviders(String searchTerm) {
+    public Page<ProviderResponseDTO> searchProviders(String searchTerm, ProviderSpecialization specialization,
+                                                     VerificationStatus verificationStatus, Pageable pageable) {
         log.info("Searching providers with term: {}", searchTerm);
         
         if (searchTerm == null || searchTerm.trim().isEmpty()) {
-            return List.of();
+            return Page.empty(pageable);
+        }
+
+        ProviderSearchIndex.Hits hits = providerSearchIndex.search(searchTerm, specialization, verificationStatus,
+            pageable.getPageNumber(), pageable.getPageSize());
+        if (hits == null) {
+            // Index not built yet
+            return providerRepository.searchByTerm(searchTerm.toLowerCase(Locale.ROOT).trim(), specialization, verificationStatus, pageable)
+                .map(this::convertToResponseDTO);
         }
 
-        String normalizedTerm = searchTerm.toLowerCase().trim();
-        List<Provider> providers = providerRepository.findAll()
+        // Load only the page, keeping the index's ranking
+        Map<UUID, Provider> providers = providerRepository.findByUuidIn(hits.uuids())
             .stream()
-            .filter(p -> p.getFirstName().toLowerCase().contains(normalizedTerm) ||
-                        p.getLastName().toLowerCase().contains(normalizedTerm) ||
-                        p.getEmail().toLowerCase().contains(normalizedTerm))
-            .toList();
-        
-        return providers.stream()
+            .collect(Collectors.toMap(Provider::getUuid, Function.identity()));
+        List<ProviderResponseDTO> content = hits.uuids().stream()
+            .map(providers::get)
+            .filter(Objects::nonNull)
             .map(this::convertToResponseDTO)
             .toList();
+        return new PageImpl<>(content, pageable, hits.total());
+    }
+
+    /**
+     * Suggest active providers whose name, email or license number starts with the prefix; at most
+     * provider.autocomplete.max-results, whether or not the search index is built yet
+     */
+    public List<ProviderSuggestionDTO> autocompleteProviders(String prefix, int limit) {
+        if (prefix == null || prefix.trim().isEmpty()) {
+            return List.of();
+        }
+        int cappedLimit = Math.min(limit, maxSuggestions);
+
+        List<ProviderSuggestionDTO> suggestions = providerSearchIndex.suggest(prefix, cappedLimit);
+        if (suggestions != null) {
+            return suggestions;
+        }
+        // Index not built yet
+        return providerRepository.findActiveByPrefix(prefix.toLowerCase(Locale.ROOT).trim(), PageRequest.of(0, cappedLimit))
+            .stream()
+            .map(provider -> ProviderSuggestionDTO.builder()
+                .uuid(provider.getUuid())
+                .firstName(provider.getFirstName())
+                .lastName(provider.getLastName())
+                .specialization(provider.getSpecialization())
+                .licenseNumber(provider.getLicenseNumber())
+                .verificationStatus(provider.getVerificationStatus())
+                .build())
+            .toList();
     }
 
     /**
@@ -255,6 +302,7 @@ public class ProviderService {
 
         provider.setIsActive(isActive);
         Provider updatedProvider = providerRepository.save(provider);
+        providerSearchIndex.index(updatedProvider);
         
         log.info("Provider status updated successfully: {}", uuid);
         return convertToResponseDTO(updatedProvider);
@@ -272,6 +320,7 @@ public class ProviderService {
 
         provider.setVerificationStatus(status);
         Provider updatedProvider = providerRepository.save(provider);
+        providerSearchIndex.index(updatedProvider);
         
         // TODO: Send notification email based on status
         // Note: Email methods need to be implemented in EmailService
@@ -350,7 +399,7 @@ public class ProviderService {
         }
 
         // Hash password
-        provider.setPasswordHash(passwordUtil.hashPassword(dto.getPassword()));
+        provider.setPasswordHash(passwordHashingService.hashPassword(dto.getPassword()));
 
         // Set clinic address
         ClinicAddress address = new ClinicAddress();
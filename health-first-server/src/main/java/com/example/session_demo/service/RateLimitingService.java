@@ -1,14 +1,31 @@
 package com.example.session_demo.service;
 
+import com.example.session_demo.util.IpRateLimitTable;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scripting.support.ResourceScriptSource;
 import org.springframework.stereotype.Service;
 
-import java.time.Duration;
-import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * Registration rate limiter backed by a GCRA script in Redis. Checking and consuming capacity is
+ * one atomic script call, so concurrent requests cannot lose updates and each request costs a
+ * single round trip. If Redis is unavailable requests are allowed.
+ *
+ * With the near-cache enabled requests are admitted from an in-process copy of the limiter state
+ * instead, so Redis is off the request path. Locally admitted requests are pushed to Redis and the
+ * shared state pulled back on a short interval. Between pushes each node only sees its own
+ * admissions, so the global limit can be exceeded by roughly the number of requests the other
+ * nodes admit per interval, plus the configured over-admission tolerance.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -22,93 +39,89 @@ public class RateLimitingService {
     @Value("${rate.limit.max.requests:5}") // 5 requests default
     private int maxRequests;
 
+    @Value("${rate.limit.near-cache.enabled:false}")
+    private boolean nearCacheEnabled;
+
+    @Value("${rate.limit.near-cache.over-admission:1}") // extra requests a node may admit before its view is synced
+    private int overAdmission;
+
+    @Value("${rate.limit.near-cache.max-entries:262144}") // clients tracked per node before eviction
+    private int nearCacheMaxEntries;
+
     private static final String RATE_LIMIT_PREFIX = "rate_limit:registration:";
+    private static final int SYNC_BATCH_SIZE = 100;
+
+    private IpRateLimitTable localTable;
+
+    private DefaultRedisScript<List> rateLimitScript;
+    private DefaultRedisScript<List> reconcileScript;
+    private long emissionIntervalMs;
+    private long burstMs;
+
+    @PostConstruct
+    void init() {
+        rateLimitScript = new DefaultRedisScript<>();
+        rateLimitScript.setScriptSource(new ResourceScriptSource(new ClassPathResource("redis/gcra-rate-limit.lua")));
+        rateLimitScript.setResultType(List.class);
+        reconcileScript = new DefaultRedisScript<>();
+        reconcileScript.setScriptSource(new ResourceScriptSource(new ClassPathResource("redis/gcra-reconcile.lua")));
+        reconcileScript.setResultType(List.class);
+
+        // Whole milliseconds keep the TAT stored in Redis an exact integer
+        emissionIntervalMs = Math.max(1, (windowSizeMs + maxRequests - 1) / maxRequests);
+        burstMs = emissionIntervalMs * maxRequests;
+
+        if (nearCacheEnabled) {
+            localTable = new IpRateLimitTable(nearCacheMaxEntries, emissionIntervalMs, burstMs,
+                    overAdmission * emissionIntervalMs);
+            log.info("Rate limit near-cache tracks up to {} clients in {} KB", nearCacheMaxEntries,
+                    localTable.memoryBytes() / 1024);
+        }
+    }
 
     /**
-     * Check if the IP address has exceeded the rate limit
+     * Consume one request for the IP address if capacity allows (one Redis call, or none with the
+     * near-cache enabled)
      */
-    public boolean isRateLimited(String ipAddress) {
-        try {
-            String key = RATE_LIMIT_PREFIX + ipAddress;
-            String countStr = (String) redisTemplate.opsForValue().get(key);
-            
-            if (countStr == null) {
-                return false; // No previous requests
-            }
-            
-            int currentCount = Integer.parseInt(countStr);
-            boolean isLimited = currentCount >= maxRequests;
-            
-            if (isLimited) {
-                log.warn("Rate limit exceeded for IP: {}. Current count: {}", ipAddress, currentCount);
-            }
-            
-            return isLimited;
-            
-        } catch (Exception e) {
-            log.error("Error checking rate limit for IP {}: {}", ipAddress, e.getMessage());
-            return false; // Allow request if Redis is unavailable
+    public RateLimitResult tryAcquire(String ipAddress) {
+        RateLimitResult result = nearCacheEnabled
+                ? acquireLocally(ipAddress, System.currentTimeMillis())
+                : execute(ipAddress, 1);
+        if (!result.allowed()) {
+            log.warn("Rate limit exceeded for IP: {}. Retry after {} ms", ipAddress, result.retryAfterMs());
         }
+        return result;
     }
 
     /**
-     * Increment the request count for an IP address
+     * Current limiter state for the IP address without consuming anything (one Redis call, or
+     * none with the near-cache enabled)
      */
-    public void incrementRequestCount(String ipAddress) {
-        try {
-            String key = RATE_LIMIT_PREFIX + ipAddress;
-            String countStr = (String) redisTemplate.opsForValue().get(key);
-            
-            if (countStr == null) {
-                // First request from this IP
-                redisTemplate.opsForValue().set(key, "1", Duration.ofMillis(windowSizeMs));
-                log.debug("First registration attempt from IP: {}", ipAddress);
-            } else {
-                // Increment existing count
-                int currentCount = Integer.parseInt(countStr);
-                redisTemplate.opsForValue().set(key, String.valueOf(currentCount + 1), Duration.ofMillis(windowSizeMs));
-                log.debug("Registration attempt {} from IP: {}", currentCount + 1, ipAddress);
-            }
-            
-        } catch (Exception e) {
-            log.error("Error incrementing request count for IP {}: {}", ipAddress, e.getMessage());
-        }
+    public RateLimitResult getStatus(String ipAddress) {
+        return nearCacheEnabled
+                ? statusLocally(ipAddress, System.currentTimeMillis())
+                : execute(ipAddress, 0);
+    }
+
+    /**
+     * Check if the IP address has exceeded the rate limit
+     */
+    public boolean isRateLimited(String ipAddress) {
+        return !getStatus(ipAddress).allowed();
     }
 
     /**
      * Get remaining attempts for an IP address
      */
     public int getRemainingAttempts(String ipAddress) {
-        try {
-            String key = RATE_LIMIT_PREFIX + ipAddress;
-            String countStr = (String) redisTemplate.opsForValue().get(key);
-            
-            if (countStr == null) {
-                return maxRequests;
-            }
-            
-            int currentCount = Integer.parseInt(countStr);
-            return Math.max(0, maxRequests - currentCount);
-            
-        } catch (Exception e) {
-            log.error("Error getting remaining attempts for IP {}: {}", ipAddress, e.getMessage());
-            return maxRequests; // Return max if Redis is unavailable
-        }
+        return getStatus(ipAddress).remaining();
     }
 
     /**
      * Get time until rate limit reset for an IP address
      */
     public long getTimeUntilReset(String ipAddress) {
-        try {
-            String key = RATE_LIMIT_PREFIX + ipAddress;
-            Long ttl = redisTemplate.getExpire(key, TimeUnit.MILLISECONDS);
-            return ttl != null && ttl > 0 ? ttl : 0;
-            
-        } catch (Exception e) {
-            log.error("Error getting TTL for IP {}: {}", ipAddress, e.getMessage());
-            return 0;
-        }
+        return getStatus(ipAddress).resetAfterMs();
     }
 
     /**
@@ -116,27 +129,123 @@ public class RateLimitingService {
      */
     public void resetRateLimit(String ipAddress) {
         try {
-            String key = RATE_LIMIT_PREFIX + ipAddress;
-            redisTemplate.delete(key);
+            if (localTable != null) {
+                localTable.remove(ipAddress);
+            }
+            redisTemplate.delete(rateLimitKey(ipAddress));
             log.info("Rate limit reset for IP: {}", ipAddress);
-            
+
         } catch (Exception e) {
             log.error("Error resetting rate limit for IP {}: {}", ipAddress, e.getMessage());
         }
     }
 
     /**
-     * Get current request count for an IP address
+     * Push locally admitted requests to Redis and pull back the shared state of every tracked IP
      */
-    public int getCurrentRequestCount(String ipAddress) {
+    @Scheduled(fixedDelayString = "${rate.limit.near-cache.sync-interval-ms:500}")
+    public void synchronizeNearCache() {
+        if (nearCacheEnabled) {
+            synchronizeNearCache(System.currentTimeMillis());
+        }
+    }
+
+    RateLimitResult acquireLocally(String ipAddress, long nowMs) {
+        long resetAfterMs = localTable.tryAcquire(ipAddress, nowMs);
+        if (resetAfterMs < 0) {
+            long retryAfterMs = -resetAfterMs;
+            return new RateLimitResult(false, maxRequests, 0, retryAfterMs,
+                    retryAfterMs + burstMs + overAdmission * emissionIntervalMs - emissionIntervalMs);
+        }
+        long remaining = Math.max(0, (burstMs - resetAfterMs) / emissionIntervalMs);
+        return new RateLimitResult(true, maxRequests, (int) Math.min(maxRequests, remaining), 0, resetAfterMs);
+    }
+
+    RateLimitResult statusLocally(String ipAddress, long nowMs) {
+        long resetAfterMs = localTable.resetAfter(ipAddress, nowMs);
+        long diff = burstMs - emissionIntervalMs - resetAfterMs;
+        if (diff < 0) {
+            return new RateLimitResult(false, maxRequests, 0, -diff, resetAfterMs);
+        }
+        return new RateLimitResult(true, maxRequests, (int) Math.min(maxRequests, diff / emissionIntervalMs + 1),
+                0, resetAfterMs);
+    }
+
+    void synchronizeNearCache(long nowMs) {
+        List<IpRateLimitTable.PendingEntry> entries = localTable.drainPending(nowMs);
+        for (int from = 0; from < entries.size(); from += SYNC_BATCH_SIZE) {
+            List<IpRateLimitTable.PendingEntry> batch =
+                    entries.subList(from, Math.min(from + SYNC_BATCH_SIZE, entries.size()));
+            if (!synchronizeBatch(batch)) {
+                // Redis is unavailable; keep the pending counts for the next round
+                entries.subList(from, entries.size()).forEach(localTable::restorePending);
+                return;
+            }
+        }
+    }
+
+    private boolean synchronizeBatch(List<IpRateLimitTable.PendingEntry> entries) {
+        List<String> keys = new ArrayList<>(entries.size());
+        List<Object> args = new ArrayList<>(entries.size() + 1);
+        args.add(String.valueOf(emissionIntervalMs));
+        for (IpRateLimitTable.PendingEntry entry : entries) {
+            keys.add(RATE_LIMIT_PREFIX + entry.address());
+            args.add(String.valueOf(entry.count()));
+        }
+
+        try {
+            List<?> reply = redisTemplate.execute(reconcileScript, keys, args.toArray());
+            if (reply == null || reply.size() != entries.size()) {
+                throw new IllegalStateException("Unexpected rate limit reconcile reply: " + reply);
+            }
+            long nowMs = System.currentTimeMillis();
+            for (int i = 0; i < entries.size(); i++) {
+                localTable.applyShared(entries.get(i), nowMs, toLong(reply.get(i)));
+            }
+            return true;
+
+        } catch (Exception e) {
+            log.error("Error synchronizing rate limit near-cache with Redis: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private RateLimitResult execute(String ipAddress, int cost) {
         try {
-            String key = RATE_LIMIT_PREFIX + ipAddress;
-            String countStr = (String) redisTemplate.opsForValue().get(key);
-            return countStr != null ? Integer.parseInt(countStr) : 0;
-            
+            List<?> reply = redisTemplate.execute(rateLimitScript, List.of(rateLimitKey(ipAddress)),
+                    String.valueOf(emissionIntervalMs), String.valueOf(burstMs), String.valueOf(cost));
+            if (reply == null || reply.size() < 4) {
+                throw new IllegalStateException("Unexpected rate limit script reply: " + reply);
+            }
+            return new RateLimitResult(
+                    toLong(reply.get(0)) == 1L,
+                    maxRequests,
+                    (int) Math.min(maxRequests, toLong(reply.get(1))),
+                    Math.max(0, toLong(reply.get(2))),
+                    Math.max(0, toLong(reply.get(3))));
+
         } catch (Exception e) {
-            log.error("Error getting current request count for IP {}: {}", ipAddress, e.getMessage());
-            return 0;
+            log.error("Error checking rate limit for IP {}: {}", ipAddress, e.getMessage());
+            return new RateLimitResult(true, maxRequests, maxRequests, 0, 0); // Allow request if Redis is unavailable
+        }
+    }
+
+    private static String rateLimitKey(String ipAddress) {
+        return RATE_LIMIT_PREFIX + IpRateLimitTable.canonicalize(ipAddress);
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number number ? number.longValue() : Long.parseLong(value.toString());
+    }
+
+    /**
+     * Outcome of a rate limit check: whether the request is allowed, how many more requests fit in
+     * the window, how long to wait before retrying when denied, and when the limiter fully resets
+     */
+    public record RateLimitResult(boolean allowed, int limit, int remaining, long retryAfterMs, long resetAfterMs) {
+
+        public int currentCount() {
+            return limit - remaining;
         }
     }
-} 
\ No newline at end of file
+}
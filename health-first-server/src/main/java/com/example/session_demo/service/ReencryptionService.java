@@ -0,0 +1,270 @@
+package com.example.session_demo.service;
+
+import com.example.session_demo.entity.InsuranceInfo;
+import com.example.session_demo.entity.Patient;
+import com.example.session_demo.entity.PatientAuditLog;
+import com.example.session_demo.entity.ReencryptionCheckpoint;
+import com.example.session_demo.repository.PatientAuditLogRepository;
+import com.example.session_demo.repository.PatientRepository;
+import com.example.session_demo.repository.ReencryptionCheckpointRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Online re-encryption after a master key rotation. Each table is walked in id order in short
+ * transactions that lock only the rows of one chunk, so the application keeps serving reads and
+ * writes. Values are re-wrapped in parallel and progress is checkpointed with every chunk.
+ *
+ * Between chunks the job pauses in proportion to the time the chunk took, and backs off further
+ * while the connection pool is under pressure.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReencryptionService {
+
+    static final String PATIENTS = "patients";
+    static final String PATIENT_AUDIT_LOGS = "patient_audit_logs";
+
+    private final PatientRepository patientRepository;
+    private final PatientAuditLogRepository auditLogRepository;
+    private final ReencryptionCheckpointRepository checkpointRepository;
+    private final EncryptionService encryptionService;
+    private final PlatformTransactionManager transactionManager;
+    private final DataSource dataSource;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${security.encryption.reencryption.enabled:false}")
+    private boolean enabled;
+
+    @Value("${security.encryption.reencryption.chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${security.encryption.reencryption.pause-factor:1.0}") // pause = chunk time x factor
+    private double pauseFactor;
+
+    @Value("${security.encryption.reencryption.max-pool-utilization:0.75}")
+    private double maxPoolUtilization;
+
+    @Value("${security.encryption.reencryption.max-backoff-ms:30000}")
+    private long maxBackoffMs;
+
+    private static final long MIN_BACKOFF_MS = 500;
+
+    private TransactionTemplate transactionTemplate;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile boolean stopping;
+    private long backoffMs;
+
+    private record ChunkResult(int scanned, int reencrypted, boolean hasMore) {
+    }
+
+    @FunctionalInterface
+    private interface ChunkProcessor {
+        ChunkResult process(ReencryptionCheckpoint checkpoint);
+    }
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${security.encryption.reencryption.poll-interval-ms:300000}")
+    public void runScheduled() {
+        if (enabled) {
+            run();
+        }
+    }
+
+    /**
+     * Move every table to the active master key, resuming from the last checkpoint
+     *
+     * @return false when a run is already in progress on this node
+     */
+    public boolean run() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            String targetKeyId = encryptionService.getActiveKeyId();
+            runTable(PATIENTS, targetKeyId, this::reencryptPatients);
+            runTable(PATIENT_AUDIT_LOGS, targetKeyId, this::reencryptAuditLogs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return true;
+        } catch (Exception e) {
+            log.error("Re-encryption run failed; it resumes from the last checkpoint: {}", e.getMessage());
+            return true;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public List<ReencryptionCheckpoint> getProgress() {
+        return checkpointRepository.findAll();
+    }
+
+    private void runTable(String tableName, String targetKeyId, ChunkProcessor processor) throws InterruptedException {
+        ReencryptionCheckpoint start = checkpointRepository.findById(tableName)
+                .filter(checkpoint -> targetKeyId.equals(checkpoint.getTargetKeyId()))
+                .orElseGet(() -> new ReencryptionCheckpoint(tableName, targetKeyId));
+        if (Boolean.TRUE.equals(start.getCompleted())) {
+            return;
+        }
+        log.info("Re-encrypting {} to key {} from id {}", tableName, targetKeyId, start.getLastId());
+
+        ReencryptionCheckpoint checkpoint = start;
+        boolean hasMore = true;
+        while (hasMore && !stopping) {
+            long started = System.nanoTime();
+            ReencryptionCheckpoint current = checkpoint;
+            ChunkResult result = transactionTemplate.execute(status -> {
+                ChunkResult chunk = processor.process(current);
+                current.setRowsScanned(current.getRowsScanned() + chunk.scanned());
+                current.setRowsReencrypted(current.getRowsReencrypted() + chunk.reencrypted());
+                current.setCompleted(!chunk.hasMore());
+                checkpointRepository.save(current);
+                return chunk;
+            });
+            meterRegistry.counter("encryption.reencryption.rows", "table", tableName).increment(result.reencrypted());
+            hasMore = result.hasMore();
+            checkpoint = current;
+            if (hasMore) {
+                throttle((System.nanoTime() - started) / 1_000_000);
+            }
+        }
+
+        if (!hasMore) {
+            log.info("Re-encryption of {} complete: {} rows scanned, {} re-encrypted",
+                    tableName, checkpoint.getRowsScanned(), checkpoint.getRowsReencrypted());
+        }
+    }
+
+    private ChunkResult reencryptPatients(ReencryptionCheckpoint checkpoint) {
+        List<Patient> patients = patientRepository.findChunkForUpdate(checkpoint.getLastId(), PageRequest.of(0, chunkSize));
+        List<List<Object>> current = patients.stream().map(this::patientFields).toList();
+        List<List<Object>> reencrypted = encryptionService.reencryptRecords(current);
+
+        int changed = 0;
+        for (int i = 0; i < patients.size(); i++) {
+            List<Object> fields = reencrypted.get(i);
+            if (unchanged(fields, current.get(i))) {
+                continue;
+            }
+            Patient patient = patients.get(i);
+            patient.setMedicalHistoryEncrypted((byte[]) fields.get(0));
+            patient.setAllergiesEncrypted((byte[]) fields.get(1));
+            patient.setCurrentMedicationsEncrypted((byte[]) fields.get(2));
+            InsuranceInfo insuranceInfo = patient.getInsuranceInfo();
+            if (insuranceInfo != null) {
+                insuranceInfo.setPolicyNumberEncrypted((String) fields.get(3));
+                insuranceInfo.setMemberIdEncrypted((String) fields.get(4));
+            }
+            changed++;
+        }
+
+        if (!patients.isEmpty()) {
+            checkpoint.setLastId(patients.get(patients.size() - 1).getId());
+        }
+        return new ChunkResult(patients.size(), changed, patients.size() == chunkSize);
+    }
+
+    private ChunkResult reencryptAuditLogs(ReencryptionCheckpoint checkpoint) {
+        List<PatientAuditLog> auditLogs = auditLogRepository.findChunkForUpdate(checkpoint.getLastId(), PageRequest.of(0, chunkSize));
+        List<List<Object>> current = auditLogs.stream()
+                .map(auditLog -> Arrays.<Object>asList(auditLog.getActionDetailsEncrypted()))
+                .toList();
+        List<List<Object>> reencrypted = encryptionService.reencryptRecords(current);
+
+        int changed = 0;
+        for (int i = 0; i < auditLogs.size(); i++) {
+            if (!unchanged(reencrypted.get(i), current.get(i))) {
+                auditLogs.get(i).setActionDetailsEncrypted((byte[]) reencrypted.get(i).get(0));
+                changed++;
+            }
+        }
+
+        if (!auditLogs.isEmpty()) {
+            checkpoint.setLastId(auditLogs.get(auditLogs.size() - 1).getId());
+        }
+        return new ChunkResult(auditLogs.size(), changed, auditLogs.size() == chunkSize);
+    }
+
+    private List<Object> patientFields(Patient patient) {
+        InsuranceInfo insuranceInfo = patient.getInsuranceInfo();
+        return Arrays.<Object>asList(
+            patient.getMedicalHistoryEncrypted(),
+            patient.getAllergiesEncrypted(),
+            patient.getCurrentMedicationsEncrypted(),
+            insuranceInfo != null ? insuranceInfo.getPolicyNumberEncrypted() : null,
+            insuranceInfo != null ? insuranceInfo.getMemberIdEncrypted() : null
+        );
+    }
+
+    // reencryptRecords returns the same instance for every field that needed no change
+    private static boolean unchanged(List<Object> reencrypted, List<Object> current) {
+        for (int i = 0; i < current.size(); i++) {
+            if (reencrypted.get(i) != current.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void throttle(long chunkMillis) throws InterruptedException {
+        long pauseMs = (long) (chunkMillis * pauseFactor);
+        if (databaseBusy()) {
+            backoffMs = Math.min(maxBackoffMs, Math.max(MIN_BACKOFF_MS, backoffMs * 2));
+            pauseMs = Math.max(pauseMs, backoffMs);
+            log.debug("Connection pool busy, re-encryption pausing for {} ms", pauseMs);
+        } else {
+            backoffMs = 0;
+        }
+        if (pauseMs > 0) {
+            Thread.sleep(pauseMs);
+        }
+    }
+
+    /**
+     * Requests waiting for a connection, or most connections in use, means the application needs
+     * the database more than the job does
+     */
+    boolean databaseBusy() {
+        try {
+            if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+                return false;
+            }
+            HikariPoolMXBean pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+            if (pool == null) {
+                return false;
+            }
+            return pool.getThreadsAwaitingConnection() > 0
+                    || pool.getActiveConnections() > maxPoolUtilization * pool.getTotalConnections();
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        stopping = true;
+    }
+}
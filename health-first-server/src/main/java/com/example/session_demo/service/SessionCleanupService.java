@@ -1,6 +1,7 @@
 package com.example.session_demo.service;
 
 import com.example.session_demo.repository.LoginAttemptRepository;
+import com.example.session_demo.repository.PatientAuditLogRepository;
 import com.example.session_demo.repository.RefreshTokenRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -18,10 +19,16 @@ public class SessionCleanupService {
 
     private final RefreshTokenRepository refreshTokenRepository;
     private final LoginAttemptRepository loginAttemptRepository;
+    private final PatientAuditLogRepository auditLogRepository;
+    private final PartitionMaintenanceService partitionMaintenanceService;
+    private final AuditCounterService auditCounterService;
 
     @Value("${session.cleanup.login-attempts-retention-days:90}")
     private int loginAttemptsRetentionDays;
 
+    @Value("${patient.audit.retention-days:2190}") // HIPAA: six years
+    private int auditLogsRetentionDays;
+
     @Value("${session.cleanup.refresh-tokens-retention-days:30}")
     private int refreshTokensRetentionDays;
 
@@ -58,7 +65,9 @@ public class SessionCleanupService {
             log.info("Starting cleanup of old login attempts");
             
             LocalDateTime cutoffDate = LocalDateTime.now().minusDays(loginAttemptsRetentionDays);
-            loginAttemptRepository.deleteOldAttempts(cutoffDate);
+            if (!partitionMaintenanceService.dropPartitionsBefore(PartitionMaintenanceService.LOGIN_ATTEMPTS, cutoffDate)) {
+                loginAttemptRepository.deleteOldAttempts(cutoffDate);
+            }
             
             log.info("Cleanup completed. Deleted login attempts older than {} days", loginAttemptsRetentionDays);
             
@@ -67,6 +76,29 @@ public class SessionCleanupService {
         }
     }
 
+    /**
+     * Remove patient audit logs past the retention period
+     * Runs daily at 2:30 AM
+     */
+    @Scheduled(cron = "0 30 2 * * ?") // Daily at 2:30 AM
+    @Transactional
+    public void cleanupOldAuditLogs() {
+        try {
+            log.info("Starting cleanup of old patient audit logs");
+
+            LocalDateTime cutoffDate = LocalDateTime.now().minusDays(auditLogsRetentionDays);
+            if (!partitionMaintenanceService.dropPartitionsBefore(PartitionMaintenanceService.PATIENT_AUDIT_LOGS, cutoffDate)) {
+                auditLogRepository.deleteOldAuditLogs(cutoffDate);
+            }
+            auditCounterService.deleteBefore(cutoffDate);
+
+            log.info("Cleanup completed. Deleted patient audit logs older than {} days", auditLogsRetentionDays);
+
+        } catch (Exception e) {
+            log.error("Error during patient audit logs cleanup: {}", e.getMessage(), e);
+        }
+    }
+
     /**
      * Clean up old refresh tokens for security maintenance
      * Runs daily at 3 AM
@@ -95,6 +127,7 @@ public class SessionCleanupService {
         log.info("Performing manual cleanup");
         cleanupExpiredRefreshTokens();
         cleanupOldLoginAttempts();
+        cleanupOldAuditLogs();
         cleanupOldRefreshTokens();
         log.info("Manual cleanup completed");
     }
@@ -0,0 +1,295 @@
+package com.example.session_demo.service;
+
+import com.example.session_demo.dto.ActiveSessionDTO;
+import com.example.session_demo.entity.RefreshToken;
+import com.example.session_demo.repository.RefreshTokenRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Registry of active provider sessions held in Redis: one sorted set per provider whose members
+ * are refresh token digests scored by expiry time, plus a hash with the device details for each
+ * member. Adding, removing and counting sessions are O(log n) Redis calls; expired members are
+ * pruned lazily when a provider's sessions are counted or listed.
+ *
+ * refresh_tokens stays the source of truth. Registry writes made inside a transaction are applied
+ * after commit, a scheduled job rebuilds the registry from the table, and reads fall back to the
+ * table whenever Redis is unavailable. A provider whose key is missing (never seeded, expired or
+ * flushed) is read from the table and re-seeded, so an empty Redis never reads as zero sessions.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SessionRegistryService {
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final ObjectMapper objectMapper;
+
+    private static final String SESSIONS_PREFIX = "sessions:provider:";
+    private static final String DEVICES_SUFFIX = ":devices";
+    private static final int SESSION_ID_LENGTH = 16;
+
+    @Value("${session.registry.key-ttl-slack-ms:3600000}") // keep keys 1 hour past the last expiry
+    private long keyTtlSlackMs;
+
+    /**
+     * Register a newly issued refresh token as an active session
+     */
+    public void registerSession(UUID providerUuid, RefreshToken refreshToken) {
+        long expiresAt = toEpochMillis(refreshToken.getExpiresAt());
+        ActiveSessionDTO session = ActiveSessionDTO.builder()
+                .sessionId(sessionId(refreshToken.getTokenHash()))
+                .deviceInfo(refreshToken.getDeviceInfo())
+                .ipAddress(refreshToken.getIpAddress())
+                .userAgent(refreshToken.getUserAgent())
+                .createdAt(refreshToken.getCreatedAt() != null ? refreshToken.getCreatedAt() : LocalDateTime.now())
+                .expiresAt(refreshToken.getExpiresAt())
+                .build();
+
+        afterCommit(() -> {
+            try {
+                String key = sessionsKey(providerUuid);
+                redisTemplate.opsForZSet().add(key, refreshToken.getTokenHash(), expiresAt);
+                redisTemplate.opsForHash().put(key + DEVICES_SUFFIX, refreshToken.getTokenHash(),
+                        objectMapper.writeValueAsString(session));
+                extendKeyTtl(key, expiresAt);
+            } catch (Exception e) {
+                log.error("Error registering session for provider {}: {}", providerUuid, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Remove a single session, e.g. on logout or refresh token rotation
+     */
+    public void removeSession(UUID providerUuid, String tokenHash) {
+        afterCommit(() -> {
+            try {
+                String key = sessionsKey(providerUuid);
+                redisTemplate.opsForZSet().remove(key, tokenHash);
+                redisTemplate.opsForHash().delete(key + DEVICES_SUFFIX, tokenHash);
+            } catch (Exception e) {
+                log.error("Error removing session for provider {}: {}", providerUuid, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Remove every session of a provider
+     */
+    public void removeAllSessions(UUID providerUuid) {
+        afterCommit(() -> {
+            try {
+                String key = sessionsKey(providerUuid);
+                redisTemplate.delete(List.of(key, key + DEVICES_SUFFIX));
+            } catch (Exception e) {
+                log.error("Error removing sessions for provider {}: {}", providerUuid, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Number of unexpired sessions for a provider
+     */
+    public long countActiveSessions(UUID providerUuid) {
+        try {
+            String key = sessionsKey(providerUuid);
+            if (!Boolean.TRUE.equals(redisTemplate.hasKey(key))) {
+                return reseed(providerUuid).size();
+            }
+            pruneExpired(key);
+            Long count = redisTemplate.opsForZSet().zCard(key);
+            return count != null ? count : 0;
+        } catch (Exception e) {
+            log.error("Error counting sessions in Redis for provider {}: {}", providerUuid, e.getMessage());
+            return refreshTokenRepository.countActiveSessionsByProviderUuid(providerUuid, LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Active sessions of a provider, most recently created first
+     */
+    public List<ActiveSessionDTO> listActiveSessions(UUID providerUuid) {
+        try {
+            String key = sessionsKey(providerUuid);
+            if (!Boolean.TRUE.equals(redisTemplate.hasKey(key))) {
+                return toSessions(reseed(providerUuid));
+            }
+            pruneExpired(key);
+            Set<Object> members = redisTemplate.opsForZSet()
+                    .rangeByScore(key, System.currentTimeMillis(), Double.POSITIVE_INFINITY);
+            if (members == null || members.isEmpty()) {
+                return List.of();
+            }
+
+            List<Object> details = redisTemplate.opsForHash().multiGet(key + DEVICES_SUFFIX, members);
+            List<ActiveSessionDTO> sessions = new ArrayList<>(details.size());
+            for (Object detail : details) {
+                if (detail != null) {
+                    sessions.add(objectMapper.readValue(detail.toString(), ActiveSessionDTO.class));
+                }
+            }
+            sessions.sort(Comparator.comparing(ActiveSessionDTO::getCreatedAt,
+                    Comparator.nullsLast(Comparator.reverseOrder())));
+            return sessions;
+        } catch (Exception e) {
+            log.error("Error listing sessions in Redis for provider {}: {}", providerUuid, e.getMessage());
+            return toSessions(refreshTokenRepository.findValidTokensByProviderUuid(providerUuid, LocalDateTime.now()));
+        }
+    }
+
+    /**
+     * Rebuild the registry from refresh_tokens for every provider that has active sessions. Each
+     * provider is read in its own short transaction rather than one spanning the whole walk.
+     */
+    @Scheduled(fixedRateString = "${session.registry.reconcile-interval:3600000}")
+    public void reconcile() {
+        List<UUID> providerUuids;
+        try {
+            providerUuids = refreshTokenRepository.findProviderUuidsWithActiveSessions(LocalDateTime.now());
+        } catch (Exception e) {
+            log.error("Error reconciling session registry: {}", e.getMessage(), e);
+            return;
+        }
+
+        int failed = 0;
+        for (UUID providerUuid : providerUuids) {
+            try {
+                reconcileProvider(providerUuid,
+                        refreshTokenRepository.findValidTokensByProviderUuid(providerUuid, LocalDateTime.now()));
+            } catch (Exception e) {
+                failed++;
+                log.error("Error reconciling sessions for provider {}: {}", providerUuid, e.getMessage());
+            }
+        }
+        log.info("Session registry reconciled for {} providers ({} failed)", providerUuids.size() - failed, failed);
+    }
+
+    void reconcileProvider(UUID providerUuid, Collection<RefreshToken> validTokens) throws Exception {
+        String key = sessionsKey(providerUuid);
+        Set<String> validHashes = validTokens.stream().map(RefreshToken::getTokenHash).collect(Collectors.toSet());
+
+        // Drop members the table no longer considers active (revoked, expired or deleted). A member
+        // missing from the snapshot may have been registered after it was read, so each candidate is
+        // checked against the table again: anything in Redis by now was committed before it was added.
+        Set<Object> members = redisTemplate.opsForZSet().range(key, 0, -1);
+        if (members != null) {
+            List<String> candidates = members.stream()
+                    .map(Object::toString)
+                    .filter(member -> !validHashes.contains(member))
+                    .toList();
+            if (!candidates.isEmpty()) {
+                Set<String> stillValid = new HashSet<>(
+                        refreshTokenRepository.findValidTokenHashes(candidates, LocalDateTime.now()));
+                Object[] stale = candidates.stream().filter(member -> !stillValid.contains(member)).toArray();
+                if (stale.length > 0) {
+                    redisTemplate.opsForZSet().remove(key, stale);
+                    redisTemplate.opsForHash().delete(key + DEVICES_SUFFIX, stale);
+                }
+            }
+        }
+
+        // Re-adding is idempotent, so sessions registered concurrently are never lost
+        long latestExpiry = 0;
+        for (RefreshToken token : validTokens) {
+            long expiresAt = toEpochMillis(token.getExpiresAt());
+            redisTemplate.opsForZSet().add(key, token.getTokenHash(), expiresAt);
+            redisTemplate.opsForHash().put(key + DEVICES_SUFFIX, token.getTokenHash(),
+                    objectMapper.writeValueAsString(toSession(token)));
+            latestExpiry = Math.max(latestExpiry, expiresAt);
+        }
+        if (latestExpiry > 0) {
+            extendKeyTtl(key, latestExpiry);
+        }
+    }
+
+    // Reads a provider's sessions from the table and writes them back to Redis
+    private List<RefreshToken> reseed(UUID providerUuid) throws Exception {
+        List<RefreshToken> validTokens = refreshTokenRepository.findValidTokensByProviderUuid(providerUuid, LocalDateTime.now());
+        reconcileProvider(providerUuid, validTokens);
+        return validTokens;
+    }
+
+    private List<ActiveSessionDTO> toSessions(List<RefreshToken> tokens) {
+        return tokens.stream()
+                .sorted(Comparator.comparing(RefreshToken::getCreatedAt,
+                        Comparator.nullsLast(Comparator.reverseOrder())))
+                .map(this::toSession)
+                .toList();
+    }
+
+    private void pruneExpired(String key) {
+        long now = System.currentTimeMillis();
+        Set<Object> expired = redisTemplate.opsForZSet().rangeByScore(key, Double.NEGATIVE_INFINITY, now);
+        if (expired != null && !expired.isEmpty()) {
+            redisTemplate.opsForZSet().removeRangeByScore(key, Double.NEGATIVE_INFINITY, now);
+            redisTemplate.opsForHash().delete(key + DEVICES_SUFFIX, expired.toArray());
+        }
+    }
+
+    private void extendKeyTtl(String key, long expiresAtMillis) {
+        Long currentTtl = redisTemplate.getExpire(key);
+        long wantedTtlMs = expiresAtMillis - System.currentTimeMillis() + keyTtlSlackMs;
+        // Only ever push the expiry further out; the key must outlive its longest session
+        if (currentTtl == null || currentTtl < 0 || currentTtl * 1000 < wantedTtlMs) {
+            redisTemplate.expire(key, Duration.ofMillis(wantedTtlMs));
+            redisTemplate.expire(key + DEVICES_SUFFIX, Duration.ofMillis(wantedTtlMs));
+        }
+    }
+
+    private ActiveSessionDTO toSession(RefreshToken token) {
+        return ActiveSessionDTO.builder()
+                .sessionId(sessionId(token.getTokenHash()))
+                .deviceInfo(token.getDeviceInfo())
+                .ipAddress(token.getIpAddress())
+                .userAgent(token.getUserAgent())
+                .createdAt(token.getCreatedAt())
+                .expiresAt(token.getExpiresAt())
+                .build();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static String sessionsKey(UUID providerUuid) {
+        return SESSIONS_PREFIX + providerUuid;
+    }
+
+    private static String sessionId(String tokenHash) {
+        return tokenHash.length() > SESSION_ID_LENGTH ? tokenHash.substring(0, SESSION_ID_LENGTH) : tokenHash;
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.session_demo.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over strings. {@link #mightContain} never returns false for an added string and
+ * returns true for an absent one with about the configured false-positive probability, as long as
+ * no more than the expected number of strings are added. Strings cannot be removed.
+ *
+ * Safe for concurrent use: bits are only ever set, with atomic updates.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    public BloomFilter(long expectedInsertions, double falsePositiveProbability) {
+        if (expectedInsertions <= 0 || falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("Expected insertions must be positive and the probability between 0 and 1");
+        }
+        // Optimal sizing: m = -n ln p / (ln 2)^2 bits and k = m / n ln 2 hashes
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+        long wordCount = Math.max(1, (bits + 63) / 64);
+        if (wordCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Bloom filter too large");
+        }
+        this.words = new AtomicLongArray((int) wordCount);
+        this.bitCount = wordCount * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+    }
+
+    public void put(String value) {
+        long hash = HyperLogLog.hash64(value);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = bitIndex(hash, i);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = words.get(word);
+            while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+                current = words.get(word);
+            }
+        }
+    }
+
+    public boolean mightContain(String value) {
+        long hash = HyperLogLog.hash64(value);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = bitIndex(hash, i);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long memoryBytes() {
+        return bitCount / 8;
+    }
+
+    // Double hashing (Kirsch-Mitzenmacher): the two halves of the hash derive all k positions
+    private long bitIndex(long hash, int i) {
+        long h1 = hash & 0xffffffffL;
+        long h2 = (hash >>> 32) | 1;
+        return Math.floorMod(h1 + i * h2, bitCount);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.session_demo.util;
+
+import java.util.Arrays;
+
+/**
+ * Count-min sketch: approximate per-key counts in fixed memory. Each key is counted in one cell
+ * of every row and its estimate is the smallest of those cells, so an estimate is never below
+ * the true count and exceeds it by at most 2N / width (N = total added) with probability
+ * 1 - 2^-depth.
+ *
+ * Keys are given by their 64-bit hash, e.g. {@link HyperLogLog#hash64(String)}. Not thread-safe;
+ * callers synchronize or confine a sketch to one thread.
+ */
+public class CountMinSketch {
+
+    private final int depth;
+    private final int width;
+    private final long[] counts;
+
+    public CountMinSketch(int depth, int width) {
+        if (depth <= 0 || width <= 0) {
+            throw new IllegalArgumentException("Depth and width must be positive");
+        }
+        this.depth = depth;
+        this.width = width;
+        this.counts = new long[depth * width];
+    }
+
+    public void add(long hash, long count) {
+        for (int row = 0; row < depth; row++) {
+            counts[row * width + column(hash, row)] += count;
+        }
+    }
+
+    public long estimate(long hash) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counts[row * width + column(hash, row)]);
+        }
+        return min;
+    }
+
+    public void clear() {
+        Arrays.fill(counts, 0);
+    }
+
+    // Double hashing: the two halves of the hash give every row its own column
+    private int column(long hash, int row) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        return Math.floorMod(h1 + row * h2, width);
+    }
+}
@@ -0,0 +1,509 @@
+package com.example.session_demo.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-process GCRA limiter state keyed by client IP address, held in primitive arrays.
+ *
+ * Addresses are parsed straight from the request string into a 128-bit key (IPv6 as two longs,
+ * IPv4 as its int in the IPv4-mapped ::ffff:0:0/96 range), so a check allocates nothing: no key
+ * string, no boxed counter, no per-client object. Entries live in open-addressing tables split
+ * into segments with one lock each. The entry count is capped up front; when a segment is full an
+ * idle entry, or else one not used since the clock hand last passed it, is evicted.
+ *
+ * Each entry holds the theoretical arrival time (TAT) and the number of admissions not yet pushed
+ * to the shared limiter, which is all the near-cache in RateLimitingService needs.
+ */
+public final class IpRateLimitTable {
+
+    private static final int SEGMENT_BITS = 4;
+    private static final int SEGMENTS = 1 << SEGMENT_BITS;
+    private static final long HASHED_KEY_HIGH = -1L; // ff00::/8 is multicast, never a client address
+
+    private static final byte EMPTY = 0;
+    private static final byte USED = 1;
+    private static final byte REFERENCED = 2;
+
+    // [0] high, [1] low, [2..9] IPv6 groups while parsing
+    private static final ThreadLocal<long[]> KEY_SCRATCH = ThreadLocal.withInitial(() -> new long[10]);
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final long emissionIntervalMs;
+    private final long burstMs;
+    private final long toleranceMs;
+
+    public IpRateLimitTable(int maxEntries, long emissionIntervalMs, long burstMs, long toleranceMs) {
+        if (maxEntries < SEGMENTS) {
+            throw new IllegalArgumentException("maxEntries must be at least " + SEGMENTS);
+        }
+        int segmentMaxSize = (maxEntries + SEGMENTS - 1) / SEGMENTS;
+        // Keep the load factor at or below 0.75 so probe sequences stay short
+        int capacity = Integer.highestOneBit(segmentMaxSize * 4 / 3) << 1;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(capacity, segmentMaxSize);
+        }
+        this.emissionIntervalMs = emissionIntervalMs;
+        this.burstMs = burstMs;
+        this.toleranceMs = toleranceMs;
+    }
+
+    /**
+     * Admit one request from the address if capacity allows.
+     *
+     * @return time until the limiter fully resets (zero or more) when admitted, or minus the time
+     *         to wait before retrying when rejected
+     */
+    public long tryAcquire(String ipAddress, long nowMs) {
+        long[] key = key(ipAddress);
+        return tryAcquire(key[0], key[1], nowMs);
+    }
+
+    /**
+     * Time until the limiter for the address fully resets; zero when it is idle or unknown
+     */
+    public long resetAfter(String ipAddress, long nowMs) {
+        long[] key = key(ipAddress);
+        long hash = hash(key[0], key[1]);
+        Segment segment = segmentFor(hash);
+        synchronized (segment) {
+            int slot = segment.find(key[0], key[1], hash);
+            return slot >= 0 ? Math.max(0, segment.tat[slot] - nowMs) : 0;
+        }
+    }
+
+    public void remove(String ipAddress) {
+        long[] key = key(ipAddress);
+        long hash = hash(key[0], key[1]);
+        Segment segment = segmentFor(hash);
+        synchronized (segment) {
+            int slot = segment.find(key[0], key[1], hash);
+            if (slot >= 0) {
+                segment.delete(slot);
+            }
+        }
+    }
+
+    /**
+     * Drop idle entries, then take the pending admission count of every remaining entry
+     */
+    public List<PendingEntry> drainPending(long nowMs) {
+        List<PendingEntry> drained = new ArrayList<>();
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                int slot = 0;
+                while (slot < segment.flags.length) {
+                    if (segment.flags[slot] == EMPTY) {
+                        slot++;
+                    } else if (segment.pending[slot] == 0 && segment.tat[slot] <= nowMs) {
+                        segment.delete(slot); // a later entry may shift into this slot, so look again
+                    } else {
+                        drained.add(new PendingEntry(segment.keyHigh[slot], segment.keyLow[slot], segment.pending[slot]));
+                        segment.pending[slot] = 0;
+                        slot++;
+                    }
+                }
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * Put back admissions drained for a push that did not reach the shared limiter
+     */
+    public void restorePending(PendingEntry entry) {
+        long hash = hash(entry.keyHigh(), entry.keyLow());
+        Segment segment = segmentFor(hash);
+        synchronized (segment) {
+            int slot = segment.find(entry.keyHigh(), entry.keyLow(), hash);
+            if (slot >= 0) {
+                segment.pending[slot] += entry.count();
+            }
+        }
+    }
+
+    /**
+     * Adopt the shared limiter state; admissions made here since the drain are not in it yet
+     */
+    public void applyShared(PendingEntry entry, long nowMs, long resetAfterMs) {
+        long hash = hash(entry.keyHigh(), entry.keyLow());
+        Segment segment = segmentFor(hash);
+        synchronized (segment) {
+            int slot = segment.find(entry.keyHigh(), entry.keyLow(), hash);
+            if (slot >= 0) {
+                segment.tat[slot] = nowMs + resetAfterMs + segment.pending[slot] * emissionIntervalMs;
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Approximate heap used by the tables, fixed at construction
+     */
+    public long memoryBytes() {
+        long slots = (long) segments[0].flags.length * SEGMENTS;
+        return slots * (Long.BYTES * 3 + Integer.BYTES + 1);
+    }
+
+    /**
+     * Canonical text form of an address (compressed lowercase IPv6, dotted IPv4), so the same
+     * client always maps to the same shared limiter key
+     */
+    public static String canonicalize(String ipAddress) {
+        long[] key = key(ipAddress);
+        return toAddress(key[0], key[1]);
+    }
+
+    public static String toAddress(long keyHigh, long keyLow) {
+        if (keyHigh == 0 && (keyLow >>> 32) == 0xFFFFL) {
+            return ((keyLow >>> 24) & 0xFF) + "." + ((keyLow >>> 16) & 0xFF) + "."
+                    + ((keyLow >>> 8) & 0xFF) + "." + (keyLow & 0xFF);
+        }
+        if (keyHigh == HASHED_KEY_HIGH) {
+            return "h:" + Long.toHexString(keyLow);
+        }
+
+        // RFC 5952: the longest run of two or more zero groups becomes "::"
+        int bestStart = -1;
+        int bestLength = 1;
+        for (int i = 0; i < 8; ) {
+            if (group(keyHigh, keyLow, i) != 0) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < 8 && group(keyHigh, keyLow, i) == 0) {
+                i++;
+            }
+            if (i - start > bestLength) {
+                bestStart = start;
+                bestLength = i - start;
+            }
+        }
+
+        StringBuilder address = new StringBuilder(39);
+        for (int i = 0; i < 8; i++) {
+            if (i == bestStart) {
+                address.append("::");
+                i += bestLength - 1;
+                continue;
+            }
+            if (address.length() > 0 && address.charAt(address.length() - 1) != ':') {
+                address.append(':');
+            }
+            address.append(Integer.toHexString(group(keyHigh, keyLow, i)));
+        }
+        return address.toString();
+    }
+
+    long tryAcquire(long keyHigh, long keyLow, long nowMs) {
+        long hash = hash(keyHigh, keyLow);
+        Segment segment = segmentFor(hash);
+        synchronized (segment) {
+            int slot = segment.find(keyHigh, keyLow, hash);
+            if (slot < 0) {
+                slot = segment.insert(keyHigh, keyLow, hash, nowMs);
+            }
+            segment.flags[slot] = USED | REFERENCED;
+
+            long tat = Math.max(segment.tat[slot], nowMs);
+            long newTat = tat + emissionIntervalMs;
+            long allowAt = newTat - burstMs - toleranceMs;
+            if (nowMs < allowAt) {
+                return nowMs - allowAt;
+            }
+            segment.tat[slot] = newTat;
+            segment.pending[slot]++;
+            return newTat - nowMs;
+        }
+    }
+
+    /**
+     * Parse the address into the thread's scratch key; anything that is not an IP address is
+     * hashed into a reserved range instead
+     */
+    static long[] key(String ipAddress) {
+        long[] key = KEY_SCRATCH.get();
+        if (!parse(ipAddress, key)) {
+            long hash = 0xcbf29ce484222325L; // FNV-1a
+            for (int i = 0; i < ipAddress.length(); i++) {
+                hash = (hash ^ ipAddress.charAt(i)) * 0x100000001b3L;
+            }
+            key[0] = HASHED_KEY_HIGH;
+            key[1] = hash;
+        }
+        return key;
+    }
+
+    static boolean parse(String address, long[] key) {
+        int end = address.indexOf('%'); // drop an IPv6 zone id
+        if (end < 0) {
+            end = address.length();
+        }
+        if (end == 0) {
+            return false;
+        }
+
+        if (address.indexOf(':') < 0) {
+            long ipv4 = parseIpv4(address, 0, end);
+            if (ipv4 < 0) {
+                return false;
+            }
+            key[0] = 0;
+            key[1] = 0xFFFF00000000L | ipv4;
+            return true;
+        }
+
+        int groups = 0;
+        int gap = -1;
+        int i = 0;
+        if (address.charAt(0) == ':') {
+            if (end < 2 || address.charAt(1) != ':') {
+                return false;
+            }
+            gap = 0;
+            i = 2;
+        }
+        while (i < end) {
+            int j = i;
+            boolean dotted = false;
+            while (j < end && address.charAt(j) != ':') {
+                dotted |= address.charAt(j) == '.';
+                j++;
+            }
+            if (dotted) {
+                // Embedded IPv4 must be the last two groups
+                long ipv4 = j == end && groups <= 6 ? parseIpv4(address, i, end) : -1;
+                if (ipv4 < 0) {
+                    return false;
+                }
+                key[2 + groups++] = ipv4 >>> 16;
+                key[2 + groups++] = ipv4 & 0xFFFF;
+                break;
+            }
+            int group = parseHexGroup(address, i, j);
+            if (group < 0 || groups == 8) {
+                return false;
+            }
+            key[2 + groups++] = group;
+
+            if (j == end) {
+                break;
+            }
+            i = j + 1;
+            if (i < end && address.charAt(i) == ':') {
+                if (gap >= 0) {
+                    return false;
+                }
+                gap = groups;
+                i++;
+            } else if (i == end) {
+                return false;
+            }
+        }
+        if (gap < 0 ? groups != 8 : groups > 7) {
+            return false;
+        }
+
+        long high = 0;
+        long low = 0;
+        int missing = 8 - groups;
+        for (int g = 0; g < 8; g++) {
+            long value;
+            if (gap < 0 || g < gap) {
+                value = key[2 + g];
+            } else if (g < gap + missing) {
+                value = 0;
+            } else {
+                value = key[2 + g - missing];
+            }
+            if (g < 4) {
+                high = (high << 16) | value;
+            } else {
+                low = (low << 16) | value;
+            }
+        }
+        key[0] = high;
+        key[1] = low;
+        return true;
+    }
+
+    private static long parseIpv4(String address, int start, int end) {
+        long value = 0;
+        int octets = 0;
+        int i = start;
+        while (i < end) {
+            int octet = 0;
+            int digits = 0;
+            while (i < end && address.charAt(i) != '.') {
+                char c = address.charAt(i++);
+                if (c < '0' || c > '9' || ++digits > 3) {
+                    return -1;
+                }
+                octet = octet * 10 + (c - '0');
+            }
+            if (digits == 0 || octet > 255 || ++octets > 4) {
+                return -1;
+            }
+            value = (value << 8) | octet;
+            if (i < end) {
+                i++; // skip '.'
+                if (i == end) {
+                    return -1;
+                }
+            }
+        }
+        return octets == 4 ? value : -1;
+    }
+
+    private static int parseHexGroup(String address, int start, int end) {
+        if (end <= start || end - start > 4) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = Character.digit(address.charAt(i), 16);
+            if (digit < 0) {
+                return -1;
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    private static int group(long keyHigh, long keyLow, int index) {
+        long half = index < 4 ? keyHigh : keyLow;
+        return (int) (half >>> (16 * (3 - (index & 3)))) & 0xFFFF;
+    }
+
+    private static long hash(long keyHigh, long keyLow) {
+        long h = keyHigh * 0x9E3779B97F4A7C15L ^ keyLow;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private Segment segmentFor(long hash) {
+        return segments[(int) (hash >>> (Long.SIZE - SEGMENT_BITS))];
+    }
+
+    /**
+     * Admissions for one address taken from the table but not yet pushed to the shared limiter
+     */
+    public record PendingEntry(long keyHigh, long keyLow, int count) {
+
+        public String address() {
+            return toAddress(keyHigh, keyLow);
+        }
+    }
+
+    /**
+     * Linear-probing table with backward-shift deletion, so no tombstones build up
+     */
+    private static final class Segment {
+        private final long[] keyHigh;
+        private final long[] keyLow;
+        private final long[] tat;
+        private final int[] pending;
+        private final byte[] flags;
+        private final int mask;
+        private final int maxSize;
+        private int size;
+        private int clockHand;
+
+        Segment(int capacity, int maxSize) {
+            this.keyHigh = new long[capacity];
+            this.keyLow = new long[capacity];
+            this.tat = new long[capacity];
+            this.pending = new int[capacity];
+            this.flags = new byte[capacity];
+            this.mask = capacity - 1;
+            this.maxSize = maxSize;
+        }
+
+        int find(long high, long low, long hash) {
+            int slot = (int) hash & mask;
+            while (flags[slot] != EMPTY) {
+                if (keyHigh[slot] == high && keyLow[slot] == low) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        int insert(long high, long low, long hash, long nowMs) {
+            if (size >= maxSize) {
+                evictOne(nowMs);
+            }
+            int slot = (int) hash & mask;
+            while (flags[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keyHigh[slot] = high;
+            keyLow[slot] = low;
+            tat[slot] = 0;
+            pending[slot] = 0;
+            flags[slot] = USED;
+            size++;
+            return slot;
+        }
+
+        /**
+         * Second-chance clock: an idle entry goes at once, a referenced one loses its bit and is
+         * passed over until the hand comes round again
+         */
+        private void evictOne(long nowMs) {
+            while (true) {
+                int slot = clockHand;
+                clockHand = (clockHand + 1) & mask;
+                if (flags[slot] == EMPTY) {
+                    continue;
+                }
+                boolean idle = pending[slot] == 0 && tat[slot] <= nowMs;
+                if (!idle && (flags[slot] & REFERENCED) != 0) {
+                    flags[slot] = USED;
+                    continue;
+                }
+                delete(slot);
+                return;
+            }
+        }
+
+        void delete(int slot) {
+            flags[slot] = EMPTY;
+            size--;
+            int hole = slot;
+            int next = (slot + 1) & mask;
+            while (flags[next] != EMPTY) {
+                int home = (int) hash(keyHigh[next], keyLow[next]) & mask;
+                // Move the entry back unless its home lies cyclically in (hole, next]
+                boolean homeBetween = hole <= next
+                        ? hole < home && home <= next
+                        : hole < home || home <= next;
+                if (!homeBetween) {
+                    keyHigh[hole] = keyHigh[next];
+                    keyLow[hole] = keyLow[next];
+                    tat[hole] = tat[next];
+                    pending[hole] = pending[next];
+                    flags[hole] = flags[next];
+                    flags[next] = EMPTY;
+                    hole = next;
+                }
+                next = (next + 1) & mask;
+            }
+        }
+    }
+}
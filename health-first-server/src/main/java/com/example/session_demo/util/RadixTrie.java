@@ -0,0 +1,260 @@
+package com.example.session_demo.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Radix tree (path-compressed trie) from string keys to values, answering "the best values with a
+ * key starting with this prefix". Every node caches the best values in its subtree, distinct and in
+ * comparator order, up to the configured limit, so a lookup costs one walk down the prefix however
+ * many keys share it. A value may be stored under several keys; it appears at most once in results.
+ *
+ * Insertion offers the value to the caches along its key's path; removal recomputes only the caches
+ * that held the value, from the node's own values and its children's caches. Keys are used as given;
+ * callers normalize them. Not thread-safe.
+ */
+public class RadixTrie<V> {
+
+    private static final Node<?>[] NO_CHILDREN = new Node<?>[0];
+
+    private final int limit;
+    private final Comparator<? super V> order;
+    private final Node<V> root = new Node<>("");
+
+    private static final class Node<V> {
+        private String label; // edge from the parent
+        @SuppressWarnings("unchecked")
+        private Node<V>[] children = (Node<V>[]) NO_CHILDREN; // sorted by the first char of their label
+        private List<V> values; // stored under exactly this node's key; null if none
+        private List<V> best = List.of(); // best values in the subtree, best first
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+
+    public RadixTrie(int limit, Comparator<? super V> order) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        this.limit = limit;
+        this.order = order;
+    }
+
+    public void put(String key, V value) {
+        Node<V> node = root;
+        List<Node<V>> path = new ArrayList<>();
+        path.add(node);
+        int position = 0;
+        while (position < key.length()) {
+            int index = childIndex(node, key.charAt(position));
+            if (index < 0) {
+                Node<V> leaf = new Node<>(key.substring(position));
+                insertChild(node, -index - 1, leaf);
+                node = leaf;
+                path.add(node);
+                break;
+            }
+            Node<V> child = node.children[index];
+            int common = commonPrefixLength(child.label, key, position);
+            if (common < child.label.length()) {
+                child = split(node, index, common);
+            }
+            node = child;
+            path.add(node);
+            position += common;
+        }
+
+        if (node.values == null) {
+            node.values = new ArrayList<>(1);
+        }
+        if (node.values.contains(value)) {
+            return;
+        }
+        node.values.add(value);
+        for (Node<V> onPath : path) {
+            offer(onPath, value);
+        }
+    }
+
+    public void remove(String key, V value) {
+        List<Node<V>> path = new ArrayList<>();
+        Node<V> node = root;
+        path.add(node);
+        int position = 0;
+        while (position < key.length()) {
+            int index = childIndex(node, key.charAt(position));
+            if (index < 0) {
+                return;
+            }
+            node = node.children[index];
+            if (!key.startsWith(node.label, position)) {
+                return;
+            }
+            path.add(node);
+            position += node.label.length();
+        }
+        if (node.values == null || !node.values.remove(value)) {
+            return;
+        }
+        if (node.values.isEmpty()) {
+            node.values = null;
+        }
+
+        // Bottom-up, so every recomputation sees its children's caches already corrected
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node<V> onPath = path.get(i);
+            if (i > 0) {
+                prune(path.get(i - 1), onPath);
+            }
+            if (onPath.best.contains(value)) {
+                recompute(onPath);
+            }
+        }
+    }
+
+    /**
+     * The best values, distinct and best first, with a key starting with the prefix; at most
+     * {@code max} of them, capped by the configured limit
+     */
+    public List<V> best(String prefix, int max) {
+        Node<V> node = root;
+        int position = 0;
+        while (position < prefix.length()) {
+            int index = childIndex(node, prefix.charAt(position));
+            if (index < 0) {
+                return List.of();
+            }
+            node = node.children[index];
+            int common = commonPrefixLength(node.label, prefix, position);
+            if (common < node.label.length() && position + common < prefix.length()) {
+                return List.of(); // diverges inside the edge
+            }
+            position += common;
+        }
+        List<V> best = node.best;
+        return best.size() <= max ? best : best.subList(0, max);
+    }
+
+    private void offer(Node<V> node, V value) {
+        List<V> best = node.best;
+        if (best.contains(value)) {
+            return;
+        }
+        int at = insertionPoint(best, value);
+        if (at >= limit) {
+            return;
+        }
+        List<V> updated = new ArrayList<>(Math.min(best.size() + 1, limit));
+        updated.addAll(best.subList(0, at));
+        updated.add(value);
+        updated.addAll(best.subList(at, Math.min(best.size(), limit - 1)));
+        node.best = List.copyOf(updated); // replaced, never mutated, so a returned list stays valid
+    }
+
+    private void recompute(Node<V> node) {
+        List<V> candidates = new ArrayList<>();
+        if (node.values != null) {
+            candidates.addAll(node.values);
+        }
+        for (Node<V> child : node.children) {
+            candidates.addAll(child.best);
+        }
+        candidates.sort(order);
+        List<V> best = new ArrayList<>(Math.min(candidates.size(), limit));
+        for (V candidate : candidates) {
+            if (best.size() == limit) {
+                break;
+            }
+            if (!best.contains(candidate)) {
+                best.add(candidate);
+            }
+        }
+        node.best = List.copyOf(best);
+    }
+
+    // Drops an emptied leaf and merges a value-less node into its only child, keeping the tree compact
+    private void prune(Node<V> parent, Node<V> node) {
+        if (node.values != null) {
+            return;
+        }
+        int index = childIndex(parent, node.label.charAt(0));
+        if (node.children.length == 0) {
+            removeChild(parent, index);
+        } else if (node.children.length == 1) {
+            Node<V> only = node.children[0];
+            only.label = node.label + only.label;
+            parent.children[index] = only;
+        }
+    }
+
+    private Node<V> split(Node<V> parent, int index, int at) {
+        Node<V> child = parent.children[index];
+        Node<V> middle = new Node<>(child.label.substring(0, at));
+        child.label = child.label.substring(at);
+        middle.children = newChildren(child);
+        middle.best = child.best;
+        parent.children[index] = middle;
+        return middle;
+    }
+
+    private int insertionPoint(List<V> best, V value) {
+        int low = 0;
+        int high = best.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (order.compare(best.get(mid), value) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static <V> int childIndex(Node<V> node, char first) {
+        int low = 0;
+        int high = node.children.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char c = node.children[mid].label.charAt(0);
+            if (c < first) {
+                low = mid + 1;
+            } else if (c > first) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static <V> void insertChild(Node<V> node, int at, Node<V> child) {
+        Node<V>[] children = Arrays.copyOf(node.children, node.children.length + 1);
+        System.arraycopy(children, at, children, at + 1, node.children.length - at);
+        children[at] = child;
+        node.children = children;
+    }
+
+    private static <V> void removeChild(Node<V> node, int at) {
+        Node<V>[] children = Arrays.copyOf(node.children, node.children.length - 1);
+        System.arraycopy(node.children, at + 1, children, at, node.children.length - at - 1);
+        node.children = children;
+    }
+
+    @SafeVarargs
+    private static <V> Node<V>[] newChildren(Node<V>... children) {
+        return children;
+    }
+
+    private static int commonPrefixLength(String label, String key, int from) {
+        int length = Math.min(label.length(), key.length() - from);
+        int i = 0;
+        while (i < length && label.charAt(i) == key.charAt(from + i)) {
+            i++;
+        }
+        return i;
+    }
+}
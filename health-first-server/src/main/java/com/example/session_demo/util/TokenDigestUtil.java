@@ -0,0 +1,73 @@
+package com.example.session_demo.util;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+/**
+ * Deterministic keyed digests (HMAC-SHA-256) for opaque bearer secrets such as refresh tokens.
+ * Unlike BCrypt the digest is stable for a given input, so it can be stored in a unique,
+ * indexed column and looked up with a single equality probe.
+ */
+@Component
+public class TokenDigestUtil {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final HexFormat HEX = HexFormat.of();
+
+    @Value("${security.token-digest.secret:${jwt.secret:defaultSecretKeyForDevelopmentOnly}}")
+    private String digestSecret;
+
+    private SecretKeySpec keySpec;
+
+    // Mac is not thread-safe; keep one initialized instance per thread
+    private final ThreadLocal<Mac> macHolder = ThreadLocal.withInitial(this::newMac);
+
+    @PostConstruct
+    void init() {
+        if (digestSecret == null || digestSecret.isEmpty()) {
+            throw new IllegalStateException("Token digest secret must be configured");
+        }
+        keySpec = new SecretKeySpec(digestSecret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+    }
+
+    /**
+     * Compute the hex encoded HMAC-SHA-256 digest of a token
+     */
+    public String digest(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("Token cannot be null or empty");
+        }
+        Mac mac = macHolder.get();
+        return HEX.formatHex(mac.doFinal(token.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Check a token against a stored digest using a constant-time comparison
+     */
+    public boolean matches(String token, String storedDigest) {
+        if (token == null || token.isEmpty() || storedDigest == null) {
+            return false;
+        }
+        byte[] computed = digest(token).getBytes(StandardCharsets.US_ASCII);
+        byte[] stored = storedDigest.getBytes(StandardCharsets.US_ASCII);
+        return MessageDigest.isEqual(computed, stored);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(keySpec);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to initialize token digest", e);
+        }
+    }
+}
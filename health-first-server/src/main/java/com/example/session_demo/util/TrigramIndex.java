@@ -0,0 +1,144 @@
+package com.example.session_demo.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted index from character trigrams to the ids of the documents containing them, for
+ * substring search. A document that contains a token contains every trigram of that token, so
+ * intersecting the token's posting lists yields a small superset of the matches; callers confirm
+ * each candidate against the text itself.
+ *
+ * Each field is indexed with a start marker, so tokens shorter than {@link #GRAM_LENGTH} are
+ * looked up as field prefixes. Text is indexed as given; callers normalize it. Document ids must be
+ * added in increasing order, which keeps every posting list sorted. Nothing is ever removed:
+ * callers retire ids and skip them, and rebuild to reclaim the space. Not thread-safe.
+ */
+public class TrigramIndex {
+
+    public static final int GRAM_LENGTH = 3;
+
+    private static final char FIELD_START = '\0';
+    private static final long PREFIX_BIGRAM = 1L << 48;
+
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private int lastDocId = -1;
+
+    private static class Postings {
+        private int[] ids = new int[2];
+        private int size;
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            ids[size++] = id;
+        }
+    }
+
+    public void add(int docId, String... fields) {
+        if (docId <= lastDocId) {
+            throw new IllegalArgumentException("Document ids must be added in increasing order");
+        }
+        lastDocId = docId;
+
+        Set<Long> grams = new HashSet<>();
+        for (String field : fields) {
+            if (field == null || field.isEmpty()) {
+                continue;
+            }
+            grams.add(PREFIX_BIGRAM | field.charAt(0));
+            char first = FIELD_START;
+            char second = field.charAt(0);
+            for (int i = 1; i < field.length(); i++) {
+                grams.add(trigram(first, second, field.charAt(i)));
+                first = second;
+                second = field.charAt(i);
+            }
+        }
+        for (Long gram : grams) {
+            postings.computeIfAbsent(gram, g -> new Postings()).add(docId);
+        }
+    }
+
+    /**
+     * Sorted ids of the documents that may contain every token: as a substring for tokens of
+     * {@link #GRAM_LENGTH} or more characters, as a field prefix for shorter ones
+     */
+    public int[] candidates(Collection<String> tokens) {
+        Set<Long> grams = new HashSet<>();
+        for (String token : tokens) {
+            grams.addAll(gramsOf(token));
+        }
+        if (grams.isEmpty()) {
+            return new int[0];
+        }
+
+        List<Postings> lists = new ArrayList<>(grams.size());
+        for (Long gram : grams) {
+            Postings list = postings.get(gram);
+            if (list == null) {
+                return new int[0];
+            }
+            lists.add(list);
+        }
+        // Start from the rarest gram so the working set only shrinks
+        lists.sort(Comparator.comparingInt(list -> list.size));
+
+        Postings rarest = lists.get(0);
+        int[] result = Arrays.copyOf(rarest.ids, rarest.size);
+        int size = result.length;
+        for (int i = 1; i < lists.size() && size > 0; i++) {
+            size = retainAll(result, size, lists.get(i));
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    public int gramCount() {
+        return postings.size();
+    }
+
+    private static List<Long> gramsOf(String token) {
+        if (token.isEmpty()) {
+            return List.of();
+        }
+        if (token.length() == 1) {
+            return List.of(PREFIX_BIGRAM | token.charAt(0));
+        }
+        if (token.length() == 2) {
+            return List.of(trigram(FIELD_START, token.charAt(0), token.charAt(1)));
+        }
+        List<Long> grams = new ArrayList<>(token.length() - 2);
+        for (int i = 0; i + 2 < token.length(); i++) {
+            grams.add(trigram(token.charAt(i), token.charAt(i + 1), token.charAt(i + 2)));
+        }
+        return grams;
+    }
+
+    // Keeps the ids in ids[0, size) that also appear in the (typically much longer) sorted list
+    private static int retainAll(int[] ids, int size, Postings list) {
+        int kept = 0;
+        int from = 0;
+        for (int i = 0; i < size && from < list.size; i++) {
+            int found = Arrays.binarySearch(list.ids, from, list.size, ids[i]);
+            if (found >= 0) {
+                ids[kept++] = ids[i];
+                from = found + 1;
+            } else {
+                from = -found - 1;
+            }
+        }
+        return kept;
+    }
+
+    private static long trigram(char a, char b, char c) {
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+}
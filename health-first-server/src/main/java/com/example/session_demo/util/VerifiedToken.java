@@ -0,0 +1,49 @@
+package com.example.session_demo.util;
+
+import io.jsonwebtoken.Claims;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A JWT whose signature has already been checked, with its claims decoded once into typed
+ * fields. Obtain one from {@link JwtUtil#verify(String)} or {@link EnhancedJwtUtil#verify(String)}
+ * and read everything needed for the request from it instead of re-parsing the token.
+ */
+@Value
+@Builder
+public class VerifiedToken {
+
+    UUID uuid;
+    String email;
+    String tokenId;
+    String tokenType;
+    String role;
+    Instant issuedAt;
+    Instant expiresAt;
+    Claims claims;
+
+    public static VerifiedToken from(Claims claims) {
+        String uuid = claims.get("uuid", String.class);
+        return VerifiedToken.builder()
+                .uuid(uuid != null ? UUID.fromString(uuid) : null)
+                .email(claims.getSubject())
+                .tokenId(claims.get("jti", String.class))
+                .tokenType(claims.get("type", String.class))
+                .role(claims.get("role", String.class))
+                .issuedAt(claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null)
+                .expiresAt(claims.getExpiration() != null ? claims.getExpiration().toInstant() : null)
+                .claims(claims)
+                .build();
+    }
+
+    public boolean isExpired() {
+        return expiresAt == null || expiresAt.isBefore(Instant.now());
+    }
+
+    public boolean isRefreshToken() {
+        return "refresh".equals(tokenType);
+    }
+}
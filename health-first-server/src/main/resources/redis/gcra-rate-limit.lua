@@ -0,0 +1,46 @@
+-- Generic Cell Rate Algorithm (GCRA) rate limiter.
+--
+-- KEYS[1]  limiter key; holds the theoretical arrival time (TAT) in milliseconds
+-- ARGV[1]  emission interval in milliseconds (window / limit)
+-- ARGV[2]  burst capacity in milliseconds (window, i.e. limit * emission interval)
+-- ARGV[3]  cost of this request (1 to consume, 0 to only inspect)
+--
+-- Returns { allowed (1/0), remaining, retry_after_ms (-1 if allowed), reset_after_ms }
+
+-- Redis < 5 needs effects replication before writing after TIME; newer versions always use it
+if redis.replicate_commands then
+    redis.replicate_commands()
+end
+
+local key = KEYS[1]
+local emission_interval = tonumber(ARGV[1])
+local burst = tonumber(ARGV[2])
+local cost = tonumber(ARGV[3])
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local tat = tonumber(redis.call('GET', key))
+if tat == nil or tat < now then
+    tat = now
+end
+
+local increment = math.max(cost, 1) * emission_interval
+local new_tat = tat + increment
+local allow_at = new_tat - burst
+local diff = now - allow_at
+
+if diff < 0 then
+    -- Not enough capacity for this request
+    return { 0, 0, allow_at - now, tat - now }
+end
+
+local remaining = math.floor(diff / emission_interval)
+
+if cost > 0 then
+    redis.call('SET', key, new_tat, 'PX', new_tat - now)
+    return { 1, remaining, -1, new_tat - now }
+end
+
+-- Inspect only: report what a request made now would see, without consuming it
+return { 1, remaining + 1, -1, tat - now }
@@ -0,0 +1,37 @@
+-- Merge locally admitted requests into the shared GCRA limiter state.
+--
+-- Nodes admit requests from their own near-cache and push the counts here in batches. The
+-- requests were already let through, so they are always applied; a node that over-admitted
+-- simply pushes the theoretical arrival time (TAT) further out for everyone.
+--
+-- KEYS[i]    limiter key; holds the TAT in milliseconds (same keys as gcra-rate-limit.lua)
+-- ARGV[1]    emission interval in milliseconds (window / limit)
+-- ARGV[1+i]  number of requests admitted locally for KEYS[i] since the last push (0 to only read)
+--
+-- Returns { reset_after_ms for KEYS[1], reset_after_ms for KEYS[2], ... }; 0 means idle
+
+if redis.replicate_commands then
+    redis.replicate_commands()
+end
+
+local emission_interval = tonumber(ARGV[1])
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local result = {}
+for i, key in ipairs(KEYS) do
+    local delta = tonumber(ARGV[i + 1])
+    local tat = tonumber(redis.call('GET', key))
+    if tat == nil or tat < now then
+        tat = now
+    end
+
+    if delta > 0 then
+        tat = tat + delta * emission_interval
+        redis.call('SET', key, tat, 'PX', tat - now)
+    end
+    result[i] = tat - now
+end
+
+return result
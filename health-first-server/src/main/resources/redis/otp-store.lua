@@ -0,0 +1,13 @@
+-- Store a one-time code, replacing any earlier code for the same subject.
+--
+-- KEYS[1]  OTP key; a hash of { digest, attempts, max_attempts }
+-- ARGV[1]  keyed digest of the code
+-- ARGV[2]  maximum verification attempts
+-- ARGV[3]  time to live in milliseconds
+--
+-- Returns 1
+
+redis.call('DEL', KEYS[1])
+redis.call('HSET', KEYS[1], 'digest', ARGV[1], 'attempts', 0, 'max_attempts', ARGV[2])
+redis.call('PEXPIRE', KEYS[1], ARGV[3])
+return 1
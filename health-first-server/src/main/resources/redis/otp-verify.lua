@@ -0,0 +1,30 @@
+-- Check a one-time code: compare, count the attempt and consume the code in one step.
+--
+-- KEYS[1]  OTP key; a hash of { digest, attempts, max_attempts }
+-- ARGV[1]  keyed digest of the submitted code
+--
+-- Returns { status, remaining_attempts } where status is
+--   1 verified (the code is consumed), 0 wrong code, -1 no code stored (expired or consumed),
+--   -2 no attempts left (the code is deleted)
+
+local stored = redis.call('HMGET', KEYS[1], 'digest', 'attempts', 'max_attempts')
+if not stored[1] then
+    return { -1, 0 }
+end
+
+local max_attempts = tonumber(stored[3])
+if tonumber(stored[2]) >= max_attempts then
+    redis.call('DEL', KEYS[1])
+    return { -2, 0 }
+end
+
+local attempts = redis.call('HINCRBY', KEYS[1], 'attempts', 1)
+if stored[1] == ARGV[1] then
+    redis.call('DEL', KEYS[1])
+    return { 1, max_attempts - attempts }
+end
+
+if attempts >= max_attempts then
+    redis.call('DEL', KEYS[1])
+end
+return { 0, max_attempts - attempts }
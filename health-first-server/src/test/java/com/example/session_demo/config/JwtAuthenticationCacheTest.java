@@ -0,0 +1,102 @@
+package com.example.session_demo.config;
+
+import com.example.session_demo.util.TokenDigestUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtAuthenticationCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private JwtAuthenticationCache cache;
+
+    @BeforeEach
+    void setUp() {
+        TokenDigestUtil tokenDigestUtil = new TokenDigestUtil();
+        ReflectionTestUtils.setField(tokenDigestUtil, "digestSecret", "test-digest-secret");
+        ReflectionTestUtils.invokeMethod(tokenDigestUtil, "init");
+
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new JwtAuthenticationCache(tokenDigestUtil, meterRegistry);
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxSize", 10);
+        ReflectionTestUtils.setField(cache, "maxTtlMs", 300000L);
+        cache.init();
+    }
+
+    @Test
+    void get_CachedToken_ReturnsSameAuthentication() {
+        // Arrange
+        UsernamePasswordAuthenticationToken authentication = authentication("john@test.com");
+        cache.put("token-a", authentication, UUID.randomUUID(), Instant.now().plusSeconds(3600));
+
+        // Act & Assert
+        assertSame(authentication, cache.get("token-a"));
+        assertNull(cache.get("token-b"));
+        assertEquals(1.0, meterRegistry.get("auth.jwt.cache.hits").counter().count());
+        assertEquals(1.0, meterRegistry.get("auth.jwt.cache.misses").counter().count());
+    }
+
+    @Test
+    void put_ExpiredToken_IsNotCached() {
+        // Act
+        cache.put("token-a", authentication("john@test.com"), UUID.randomUUID(), Instant.now().minusSeconds(1));
+
+        // Assert
+        assertNull(cache.get("token-a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void get_EntryPastTokenExpiry_IsEvicted() throws InterruptedException {
+        // Arrange
+        cache.put("token-a", authentication("john@test.com"), UUID.randomUUID(), Instant.now().plusMillis(20));
+        Thread.sleep(40);
+
+        // Act & Assert
+        assertNull(cache.get("token-a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void evictProvider_RemovesOnlyThatProvidersTokens() {
+        // Arrange
+        UUID provider = UUID.randomUUID();
+        cache.put("token-a", authentication("john@test.com"), provider, Instant.now().plusSeconds(3600));
+        cache.put("token-b", authentication("john@test.com"), provider, Instant.now().plusSeconds(3600));
+        cache.put("token-c", authentication("jane@test.com"), UUID.randomUUID(), Instant.now().plusSeconds(3600));
+
+        // Act
+        cache.evictProvider(provider);
+
+        // Assert
+        assertNull(cache.get("token-a"));
+        assertNull(cache.get("token-b"));
+        assertNotNull(cache.get("token-c"));
+    }
+
+    @Test
+    void put_CacheFull_StaysBounded() {
+        // Act
+        for (int i = 0; i < 50; i++) {
+            cache.put("token-" + i, authentication("user" + i + "@test.com"), UUID.randomUUID(),
+                Instant.now().plusSeconds(3600));
+        }
+
+        // Assert
+        assertTrue(cache.size() <= 10);
+        assertNotNull(cache.get("token-49"));
+    }
+
+    private UsernamePasswordAuthenticationToken authentication(String email) {
+        return new UsernamePasswordAuthenticationToken(email, null, Collections.emptyList());
+    }
+}
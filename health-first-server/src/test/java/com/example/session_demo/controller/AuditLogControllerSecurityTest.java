@@ -0,0 +1,110 @@
+package com.example.session_demo.controller;
+
+import com.example.session_demo.dto.AuditLogPageDTO;
+import com.example.session_demo.service.AuditLogQueryService;
+import com.example.session_demo.util.JwtUtil;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.Filter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AuditLogControllerSecurityTest {
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    @Qualifier("springSecurityFilterChain")
+    private Filter springSecurityFilterChain;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @MockitoBean
+    private AuditLogQueryService auditLogQueryService;
+
+    @Value("${jwt.secret}")
+    private String jwtSecret;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext)
+            .addFilters(springSecurityFilterChain)
+            .build();
+        when(auditLogQueryService.findPage(any(), any(), any(), anyBoolean()))
+            .thenReturn(new AuditLogPageDTO(List.of(), null));
+    }
+
+    @Test
+    void providerToken_IsForbidden() throws Exception {
+        // Arrange
+        String providerToken = jwtUtil.generateToken(UUID.randomUUID(), "jane.smith@clinic.com", "Jane", "Smith");
+
+        // Act & Assert - the token authenticates, but carries no audit role
+        mockMvc.perform(get("/api/v1/provider").header("Authorization", "Bearer " + providerToken))
+            .andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/audit-logs").header("Authorization", "Bearer " + providerToken))
+            .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/v1/audit-logs/export").header("Authorization", "Bearer " + providerToken))
+            .andExpect(status().isForbidden());
+        verifyNoInteractions(auditLogQueryService);
+    }
+
+    @Test
+    void adminToken_GetsMetadataButNotDetails() throws Exception {
+        // Arrange
+        String adminToken = tokenWithRole("ADMIN");
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/audit-logs").header("Authorization", "Bearer " + adminToken))
+            .andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/audit-logs").param("includeDetails", "true")
+                .header("Authorization", "Bearer " + adminToken))
+            .andExpect(status().isForbidden());
+        verify(auditLogQueryService).findPage(any(), any(), any(), eq(false));
+        verify(auditLogQueryService, never()).findPage(any(), any(), any(), eq(true));
+    }
+
+    @Test
+    void auditorToken_GetsDetails() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/audit-logs").param("includeDetails", "true")
+                .header("Authorization", "Bearer " + tokenWithRole("AUDITOR")))
+            .andExpect(status().isOk());
+        verify(auditLogQueryService).findPage(any(), any(), any(), eq(true));
+    }
+
+    private String tokenWithRole(String role) {
+        return Jwts.builder()
+            .claims(Map.of("uuid", UUID.randomUUID().toString(), "role", role))
+            .subject(role.toLowerCase() + "@clinic.com")
+            .issuedAt(new Date())
+            .expiration(new Date(System.currentTimeMillis() + 60_000))
+            .signWith(Keys.hmacShaKeyFor(jwtSecret.getBytes()), Jwts.SIG.HS256)
+            .compact();
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.session_demo.service;
+
+import com.example.session_demo.entity.AuditPatientSketch;
+import com.example.session_demo.entity.Patient;
+import com.example.session_demo.entity.PatientAuditLog;
+import com.example.session_demo.repository.AuditEventRollupRepository;
+import com.example.session_demo.repository.AuditIpRollupRepository;
+import com.example.session_demo.repository.AuditPatientSketchRepository;
+import com.example.session_demo.repository.PatientAuditLogRepository;
+import com.example.session_demo.util.HyperLogLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class AuditCounterServiceTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 3, 1, 12, 0);
+
+    @Autowired
+    private AuditCounterService auditCounterService;
+
+    @Autowired
+    private PatientAuditLogRepository auditLogRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        auditLogRepository.deleteAll();
+        // Two batches of events spread over four minutes, every 15 seconds
+        List<PatientAuditLog> first = new ArrayList<>();
+        List<PatientAuditLog> second = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            PatientAuditLog auditLog = new PatientAuditLog();
+            auditLog.setActionType(i % 4 == 0 ? PatientAuditLog.ActionType.MEDICAL_HISTORY_VIEW
+                : PatientAuditLog.ActionType.PATIENT_LOGIN);
+            auditLog.setSuccess(i % 3 != 0);
+            auditLog.setIpAddress(i % 2 == 0 ? "10.0.0.1" : "10.0.0.2");
+            auditLog.setCreatedAt(BASE.plusSeconds(15L * i));
+            (i < 8 ? first : second).add(auditLog);
+        }
+        for (List<PatientAuditLog> batch : List.of(first, second)) {
+            auditLogRepository.saveAll(batch);
+            auditCounterService.apply(batch);
+        }
+    }
+
+    @Test
+    void counts_MatchRangeScansForAlignedAndUnalignedStarts() {
+        for (LocalDateTime since : List.of(BASE, BASE.plusSeconds(50), BASE.plusMinutes(2), BASE.plusSeconds(200))) {
+            assertEquals(auditLogRepository.countByActionTypeSince(PatientAuditLog.ActionType.MEDICAL_HISTORY_VIEW, since),
+                auditCounterService.countByActionTypeSince(PatientAuditLog.ActionType.MEDICAL_HISTORY_VIEW, since), "since " + since);
+            assertEquals(auditLogRepository.countSensitiveDataAccessSince(since),
+                auditCounterService.countSensitiveDataAccessSince(since), "since " + since);
+            assertEquals(auditLogRepository.countFailedAttemptsSince(since),
+                auditCounterService.countFailedAttemptsSince(since), "since " + since);
+            assertEquals(auditLogRepository.countByIpAddressSince("10.0.0.2", since),
+                auditCounterService.countByIpAddressSince("10.0.0.2", since), "since " + since);
+        }
+        assertEquals(16, auditCounterService.countByIpAddressSince("10.0.0.1", BASE)
+            + auditCounterService.countByIpAddressSince("10.0.0.2", BASE));
+    }
+
+    @Test
+    void apply_LostInsertRace_AddsToTheWinnersBucketWithoutFailingTheBatch() {
+        // Arrange - another writer creates each bucket between our increment and our insert
+        AuditEventRollupRepository eventRollups = mock(AuditEventRollupRepository.class);
+        AuditIpRollupRepository ipRollups = mock(AuditIpRollupRepository.class);
+        AuditPatientSketchRepository sketches = mock(AuditPatientSketchRepository.class);
+        AuditCounterService racingService = new AuditCounterService(eventRollups, ipRollups, sketches,
+            auditLogRepository, jdbcTemplate);
+        LocalDateTime minute = BASE.plusHours(1);
+        jdbcTemplate.update("INSERT INTO audit_event_rollups (bucket_start, action_type, success, sensitive_data_accessed, " +
+            "event_count) VALUES (?, 'MEDICAL_HISTORY_VIEW', true, true, 5)", minute);
+        jdbcTemplate.update("INSERT INTO audit_ip_rollups (bucket_start, ip_address, event_count) VALUES (?, '10.0.0.9', 5)", minute);
+        AuditPatientSketch winner = new AuditPatientSketch(minute, new HyperLogLog().toByteArray());
+        jdbcTemplate.update("INSERT INTO audit_patient_sketches (bucket_start, sketch) VALUES (?, ?)", minute, winner.getSketch());
+        when(eventRollups.increment(eq(minute), any(), anyBoolean(), anyBoolean(), anyLong())).thenReturn(0, 1);
+        when(ipRollups.increment(eq(minute), anyString(), anyLong())).thenReturn(0, 1);
+        when(sketches.findForUpdate(minute)).thenReturn(Optional.empty(), Optional.of(winner));
+
+        Patient patient = new Patient();
+        patient.setId(42L);
+        PatientAuditLog auditLog = new PatientAuditLog();
+        auditLog.setActionType(PatientAuditLog.ActionType.MEDICAL_HISTORY_VIEW);
+        auditLog.setSuccess(true);
+        auditLog.setSensitiveDataAccessed(true);
+        auditLog.setIpAddress("10.0.0.9");
+        auditLog.setPatient(patient);
+        auditLog.setCreatedAt(minute);
+
+        // Act
+        racingService.apply(List.of(auditLog));
+
+        // Assert - the failed inserts were undone and the counts went to the existing rows
+        verify(eventRollups, times(2)).increment(minute, PatientAuditLog.ActionType.MEDICAL_HISTORY_VIEW, true, true, 1L);
+        verify(ipRollups, times(2)).increment(minute, "10.0.0.9", 1L);
+        assertEquals(1L, HyperLogLog.fromByteArray(winner.getSketch()).cardinality());
+        assertEquals(1, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM audit_event_rollups WHERE bucket_start = ?", Integer.class, minute));
+        assertEquals(1, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM audit_patient_sketches WHERE bucket_start = ?", Integer.class, minute));
+    }
+
+    @Test
+    void deleteBefore_DropsOldBuckets() {
+        // Act
+        auditCounterService.deleteBefore(BASE.plusMinutes(2));
+
+        // Assert - minutes 2 and 3 hold the second batch
+        assertEquals(8, auditCounterService.countByIpAddressSince("10.0.0.1", BASE)
+            + auditCounterService.countByIpAddressSince("10.0.0.2", BASE));
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.session_demo.service;
+
+import com.example.session_demo.dto.AuditLogEntryDTO;
+import com.example.session_demo.dto.AuditLogFilterDTO;
+import com.example.session_demo.dto.AuditLogPageDTO;
+import com.example.session_demo.entity.PatientAuditLog;
+import com.example.session_demo.repository.PatientAuditLogRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "patient.audit.export.chunk-size=2")
+@ActiveProfiles("test")
+@Transactional
+class AuditLogQueryServiceTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 3, 1, 12, 0);
+
+    @Autowired
+    private AuditLogQueryService auditLogQueryService;
+
+    @Autowired
+    private PatientAuditLogRepository auditLogRepository;
+
+    @Autowired
+    private EncryptionService encryptionService;
+
+    @BeforeEach
+    void setUp() {
+        auditLogRepository.deleteAll();
+        List<PatientAuditLog> auditLogs = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            // Pairs of rows share a timestamp so the id tie-breaker is exercised
+            auditLogs.add(auditLog(BASE.plusMinutes(i / 2), i % 3 != 0, "details" + i));
+        }
+        auditLogRepository.saveAll(auditLogs);
+    }
+
+    @Test
+    void findPage_WalksAllRowsNewestFirstWithoutGapsOrDuplicates() {
+        // Arrange
+        AuditLogFilterDTO filter = new AuditLogFilterDTO();
+        List<AuditLogEntryDTO> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+
+        // Act
+        do {
+            AuditLogPageDTO page = auditLogQueryService.findPage(filter, cursor, 3, false);
+            seen.addAll(page.getEntries());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        // Assert
+        assertEquals(3, pages);
+        assertEquals(7, seen.size());
+        Set<UUID> unique = new HashSet<>();
+        seen.forEach(entry -> unique.add(entry.getUuid()));
+        assertEquals(7, unique.size());
+        for (int i = 1; i < seen.size(); i++) {
+            assertFalse(seen.get(i).getCreatedAt().isAfter(seen.get(i - 1).getCreatedAt()));
+        }
+        assertNull(seen.get(0).getDetails());
+    }
+
+    @Test
+    void findPage_AppliesFiltersAndDecryptsDetailsOnRequest() {
+        // Arrange - failures are rows 0, 3 and 6; the range covers rows 2 to 5
+        AuditLogFilterDTO filter = AuditLogFilterDTO.builder()
+            .success(false)
+            .actionType(PatientAuditLog.ActionType.PATIENT_LOGIN_FAILED)
+            .from(BASE.plusMinutes(1))
+            .to(BASE.plusMinutes(3))
+            .build();
+
+        // Act
+        AuditLogPageDTO page = auditLogQueryService.findPage(filter, null, null, true);
+
+        // Assert
+        assertEquals(1, page.getEntries().size());
+        assertEquals("details3", page.getEntries().get(0).getDetails());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void findPage_MalformedCursor_Rejected() {
+        assertThrows(IllegalArgumentException.class,
+            () -> auditLogQueryService.findPage(new AuditLogFilterDTO(), "not-a-cursor", 10, false));
+    }
+
+    @Test
+    void export_WritesOneJsonLinePerRowAcrossChunks() throws Exception {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        long exported = auditLogQueryService.export(new AuditLogFilterDTO(), true, out);
+
+        // Assert
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(7, exported);
+        assertEquals(7, lines.length);
+        assertTrue(lines[0].startsWith("{") && lines[0].contains("\"details\":\"details6\""));
+    }
+
+    private PatientAuditLog auditLog(LocalDateTime createdAt, boolean success, String details) {
+        PatientAuditLog auditLog = new PatientAuditLog();
+        auditLog.setActionType(success ? PatientAuditLog.ActionType.PATIENT_LOGIN : PatientAuditLog.ActionType.PATIENT_LOGIN_FAILED);
+        auditLog.setSuccess(success);
+        auditLog.setIpAddress("10.0.0.1");
+        auditLog.setActorType("PATIENT");
+        auditLog.setActionDetailsEncrypted(encryptionService.encryptBinary(details));
+        auditLog.setCreatedAt(createdAt);
+        return auditLog;
+    }
+}
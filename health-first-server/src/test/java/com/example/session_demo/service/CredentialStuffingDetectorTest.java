@@ -0,0 +1,118 @@
+package com.example.session_demo.service;
+
+import com.example.session_demo.dto.SuspiciousActivityDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CredentialStuffingDetectorTest {
+
+    private static final long WINDOW_MS = 900_000L; // 15 minutes
+    private static final long NOW = 1_700_000_000_000L;
+
+    private ApplicationEventPublisher eventPublisher;
+    private SimpleMeterRegistry meterRegistry;
+    private CredentialStuffingDetector detector;
+
+    @BeforeEach
+    void setUp() {
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        detector = newDetector(10_000);
+    }
+
+    @Test
+    void recordFailure_IdentifierFromManyIps_FlaggedAndPublishedOnce() {
+        // Arrange
+        detector.recordFailure("john@test.com", "10.0.0.1", NOW);
+        detector.recordFailure("john@test.com", "10.0.0.2", NOW + 1_000);
+        detector.recordFailure("john@test.com", "10.0.0.2", NOW + 2_000);
+        assertTrue(detector.getSuspiciousActivity(null, 10, NOW + 3_000).isEmpty());
+
+        // Act
+        detector.recordFailure("john@test.com", "10.0.0.3", NOW + 4_000);
+        detector.recordFailure("john@test.com", "10.0.0.4", NOW + 5_000);
+
+        // Assert
+        List<SuspiciousActivityDTO> activity = detector.getSuspiciousActivity(SuspiciousActivityDTO.Type.IDENTIFIER, 10, NOW + 6_000);
+        assertEquals(1, activity.size());
+        assertEquals("john@test.com", activity.get(0).getKey());
+        assertEquals(4, activity.get(0).getDistinctCount());
+        assertEquals(5, activity.get(0).getFailedAttempts());
+        verify(eventPublisher, times(1)).publishEvent(any(SuspiciousActivityDTO.class));
+        assertEquals(1.0, meterRegistry.get("auth.credential_stuffing.detections").tag("type", "IDENTIFIER").counter().count());
+    }
+
+    @Test
+    void recordFailure_IpAgainstManyIdentifiers_FlaggedAsIpAddress() {
+        // Act
+        for (int i = 0; i < 20; i++) {
+            detector.recordFailure("user" + i + "@test.com", "203.0.113.9", NOW + i);
+        }
+
+        // Assert
+        List<SuspiciousActivityDTO> activity = detector.getSuspiciousActivity(null, 10, NOW + 1_000);
+        assertEquals(1, activity.size());
+        assertEquals(SuspiciousActivityDTO.Type.IP_ADDRESS, activity.get(0).getType());
+        assertEquals("203.0.113.9", activity.get(0).getKey());
+        assertEquals(20, activity.get(0).getDistinctCount(), 4); // about 9% standard error at p = 7
+    }
+
+    @Test
+    void recordFailure_OldAttemptsSlideOutOfWindow() {
+        // Arrange
+        detector.recordFailure("john@test.com", "10.0.0.1", NOW);
+        detector.recordFailure("john@test.com", "10.0.0.2", NOW);
+
+        // Act - the third IP arrives after the first two have left the window
+        detector.recordFailure("john@test.com", "10.0.0.3", NOW + WINDOW_MS + 200_000);
+
+        // Assert
+        assertTrue(detector.getSuspiciousActivity(null, 10, NOW + WINDOW_MS + 200_000).isEmpty());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void recordFailure_TrackingFull_HeavyHittersAreNotDisplaced() {
+        // Arrange - room for two tracked identifiers, both with repeated failures
+        detector = newDetector(2);
+        for (int i = 0; i < 3; i++) {
+            detector.recordFailure("alice@test.com", "10.0.0." + i, NOW + i);
+            detector.recordFailure("bob@test.com", "10.0.1." + i, NOW + i);
+        }
+
+        // Act - a flood of one-off identifiers
+        for (int i = 0; i < 100; i++) {
+            detector.recordFailure("noise" + i + "@test.com", "10.0.2." + (i % 2), NOW + 10 + i);
+        }
+        detector.recordFailure("alice@test.com", "10.0.0.9", NOW + 200);
+
+        // Assert
+        List<SuspiciousActivityDTO> activity = detector.getSuspiciousActivity(SuspiciousActivityDTO.Type.IDENTIFIER, 10, NOW + 300);
+        assertEquals(List.of("alice@test.com", "bob@test.com"), activity.stream().map(SuspiciousActivityDTO::getKey).toList());
+        assertEquals(4, activity.get(0).getDistinctCount());
+    }
+
+    private CredentialStuffingDetector newDetector(int maxTracked) {
+        meterRegistry = new SimpleMeterRegistry();
+        CredentialStuffingDetector newDetector = new CredentialStuffingDetector(eventPublisher, meterRegistry);
+        ReflectionTestUtils.setField(newDetector, "windowMs", WINDOW_MS);
+        ReflectionTestUtils.setField(newDetector, "sliceCount", 5);
+        ReflectionTestUtils.setField(newDetector, "identifierIpThreshold", 2L);
+        ReflectionTestUtils.setField(newDetector, "ipIdentifierThreshold", 10L);
+        ReflectionTestUtils.setField(newDetector, "maxTracked", maxTracked);
+        ReflectionTestUtils.setField(newDetector, "maxFlagged", 100);
+        ReflectionTestUtils.setField(newDetector, "sketchPrecision", 7);
+        ReflectionTestUtils.setField(newDetector, "countMinDepth", 4);
+        ReflectionTestUtils.setField(newDetector, "countMinWidth", 2048);
+        newDetector.init();
+        return newDetector;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.session_demo.service;
+
+import com.example.session_demo.util.PhoneNumberUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.ResultSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DuplicateContactFilterTest {
+
+    private static final DuplicateContactFilter.Registry PATIENTS = DuplicateContactFilter.Registry.PATIENTS;
+
+    private JdbcTemplate jdbcTemplate;
+    private DuplicateContactFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        filter = new DuplicateContactFilter(jdbcTemplate, mock(PlatformTransactionManager.class), new PhoneNumberUtil());
+        ReflectionTestUtils.setField(filter, "falsePositiveProbability", 0.01);
+        ReflectionTestUtils.setField(filter, "minExpectedInsertions", 1000L);
+        ReflectionTestUtils.setField(filter, "fetchSize", 100);
+    }
+
+    @Test
+    void mightContain_BeforeFirstBuild_EverythingFallsThrough() {
+        // Act & Assert
+        assertTrue(filter.mightContainEmail(PATIENTS, "anyone@test.com"));
+        assertTrue(filter.mightContainPhone(PATIENTS, "+14155552671"));
+    }
+
+    @Test
+    void rebuild_StreamsTableAndRulesOutUnknownValues() throws Exception {
+        // Arrange
+        stubRows("jane.doe@test.com", "4155552671");
+
+        // Act
+        filter.rebuild(PATIENTS);
+
+        // Assert - equal values match however they are written; unknown ones are ruled out
+        assertTrue(filter.mightContainEmail(PATIENTS, " Jane.Doe@test.com"));
+        assertTrue(filter.mightContainPhone(PATIENTS, "+14155552671"));
+        assertFalse(filter.mightContainEmail(PATIENTS, "someone.else@test.com"));
+        assertFalse(filter.mightContainPhone(PATIENTS, "+14155550000"));
+        verify(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void record_VisibleImmediatelyAfterBuild() throws Exception {
+        // Arrange
+        stubRows();
+        filter.rebuild(PATIENTS);
+        assertFalse(filter.mightContainEmail(PATIENTS, "new.patient@test.com"));
+
+        // Act
+        filter.record(PATIENTS, "new.patient@test.com", "+14155552672");
+
+        // Assert
+        assertTrue(filter.mightContainEmail(PATIENTS, "new.patient@test.com"));
+        assertTrue(filter.mightContainPhone(PATIENTS, "+14155552672"));
+    }
+
+    private void stubRows(String... emailPhonePairs) throws Exception {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn((long) emailPhonePairs.length / 2);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (int i = 0; i < emailPhonePairs.length; i += 2) {
+                ResultSet resultSet = mock(ResultSet.class);
+                when(resultSet.getString(1)).thenReturn(emailPhonePairs[i]);
+                when(resultSet.getString(2)).thenReturn(emailPhonePairs[i + 1]);
+                handler.processRow(resultSet);
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.session_demo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Field encryption throughput before and after caching the key, cipher and random source.
+ *
+ * The "legacy" benchmarks reproduce the old code path: SHA-256 key derivation, a new
+ * SecretKeySpec, Cipher and SecureRandom for every call, and intermediate IV and ciphertext arrays.
+ * The "record" benchmarks encrypt a patient's five sensitive fields field by field and in one pass.
+ *
+ * Run with:
+ *   mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.example.session_demo.service.EncryptionServiceBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class EncryptionServiceBenchmark {
+
+    private static final String KEY = "benchmarkEncryptionKey";
+    private static final String PLAIN_TEXT = "123 Main Street, Springfield, IL 62701";
+
+    private EncryptionServiceImpl encryptionService;
+    private String cipherText;
+    private List<Object> record;
+
+    @Setup
+    public void setUp() {
+        encryptionService = new EncryptionServiceImpl(new ObjectMapper());
+        ReflectionTestUtils.setField(encryptionService, "encryptionKey", KEY);
+        ReflectionTestUtils.setField(encryptionService, "algorithm", "AES");
+        ReflectionTestUtils.setField(encryptionService, "transformation", "AES/GCM/NoPadding");
+        ReflectionTestUtils.setField(encryptionService, "ivLength", 12);
+        ReflectionTestUtils.setField(encryptionService, "tagLength", 16);
+        ReflectionTestUtils.setField(encryptionService, "bulkParallelThreshold", 64);
+        ReflectionTestUtils.setField(encryptionService, "masterKeys", "");
+        ReflectionTestUtils.setField(encryptionService, "activeKeyId", "v1");
+        ReflectionTestUtils.setField(encryptionService, "compressionThreshold", 256);
+        encryptionService.init();
+        cipherText = encryptionService.encrypt(PLAIN_TEXT);
+        record = List.of(List.of("Asthma", "Hypertension"), List.of("Penicillin"),
+            List.of("Albuterol", "Lisinopril 10mg"), "POL-4471-2291", "MBR-0093321");
+    }
+
+    @TearDown
+    public void tearDown() {
+        encryptionService.shutdown();
+    }
+
+    @Benchmark
+    public String legacyEncrypt() throws Exception {
+        SecureRandom secureRandom = new SecureRandom();
+        byte[] iv = new byte[12];
+        secureRandom.nextBytes(iv);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(legacyKeyBytes(), "AES"), new GCMParameterSpec(128, iv));
+        byte[] encryptedData = cipher.doFinal(PLAIN_TEXT.getBytes(StandardCharsets.UTF_8));
+        byte[] combined = new byte[iv.length + encryptedData.length];
+        System.arraycopy(iv, 0, combined, 0, iv.length);
+        System.arraycopy(encryptedData, 0, combined, iv.length, encryptedData.length);
+        return Base64.getEncoder().encodeToString(combined);
+    }
+
+    @Benchmark
+    public String legacyDecrypt() throws Exception {
+        byte[] combined = Base64.getDecoder().decode(cipherText);
+        byte[] iv = new byte[12];
+        byte[] encryptedData = new byte[combined.length - 12];
+        System.arraycopy(combined, 0, iv, 0, 12);
+        System.arraycopy(combined, 12, encryptedData, 0, encryptedData.length);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(legacyKeyBytes(), "AES"), new GCMParameterSpec(128, iv));
+        return new String(cipher.doFinal(encryptedData), StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String cachedEncrypt() {
+        return encryptionService.encrypt(PLAIN_TEXT);
+    }
+
+    @Benchmark
+    public String cachedDecrypt() {
+        return encryptionService.decrypt(cipherText);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public List<String> recordFieldByField() {
+        return List.of(
+            encryptionService.encryptList((List<String>) record.get(0)),
+            encryptionService.encryptList((List<String>) record.get(1)),
+            encryptionService.encryptList((List<String>) record.get(2)),
+            encryptionService.encrypt((String) record.get(3)),
+            encryptionService.encrypt((String) record.get(4)));
+    }
+
+    @Benchmark
+    public List<String> recordOnePass() {
+        return encryptionService.encryptRecord(record);
+    }
+
+    private static byte[] legacyKeyBytes() throws Exception {
+        return MessageDigest.getInstance("SHA-256").digest(KEY.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EncryptionServiceBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
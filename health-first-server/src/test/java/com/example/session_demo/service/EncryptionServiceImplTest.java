@@ -0,0 +1,338 @@
+package com.example.session_demo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EncryptionServiceImplTest {
+
+    private static final String KEY = "testEncryptionKey";
+
+    private EncryptionServiceImpl encryptionService;
+
+    private final List<EncryptionServiceImpl> services = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        encryptionService = createService("", "v1");
+    }
+
+    @AfterEach
+    void tearDown() {
+        services.forEach(EncryptionServiceImpl::shutdown);
+    }
+
+    @Test
+    void encryptDecrypt_RoundTrip() {
+        // Arrange
+        String plainText = "Penicillin allergy – seen 2024-03-01 ✓";
+
+        // Act
+        String first = encryptionService.encrypt(plainText);
+        String second = encryptionService.encrypt(plainText);
+
+        // Assert
+        assertTrue(first.startsWith("v1:"));
+        assertNotEquals(first, second); // fresh data key and IV per call
+        assertEquals(plainText, encryptionService.decrypt(first));
+        assertEquals(plainText, encryptionService.decrypt(second));
+    }
+
+    @Test
+    void decrypt_ValueWrittenByPreviousImplementation_StillReadable() throws Exception {
+        // Arrange: the format is unchanged, so existing rows must decrypt
+        String stored = legacyEncrypt("555-12-3456");
+
+        // Act & Assert
+        assertEquals("555-12-3456", encryptionService.decrypt(stored));
+    }
+
+    @Test
+    void decrypt_TamperedCiphertext_Throws() {
+        // Arrange
+        byte[] combined = Base64.getDecoder().decode(encryptionService.encrypt("sensitive").substring(3));
+        combined[combined.length - 1] ^= 1;
+        String tampered = "v1:" + Base64.getEncoder().encodeToString(combined);
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> encryptionService.decrypt(tampered));
+        // The thread's cipher is still usable after a failed operation
+        assertEquals("sensitive", encryptionService.decrypt(encryptionService.encrypt("sensitive")));
+    }
+
+    @Test
+    void encryptDecrypt_ConcurrentCallers_EachRoundTrip() throws Exception {
+        // Arrange
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> results = new ArrayList<>();
+
+        try {
+            // Act
+            for (int i = 0; i < 64; i++) {
+                String value = "patient-" + i;
+                results.add(pool.submit(() -> {
+                    for (int j = 0; j < 50; j++) {
+                        if (!value.equals(encryptionService.decrypt(encryptionService.encrypt(value)))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+
+            // Assert
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void encryptRecord_MixedFields_EachDecryptsAndEmptyFieldsStayNull() {
+        // Act
+        List<String> encrypted = encryptionService.encryptRecord(Arrays.asList(
+            List.of("Asthma", "Hypertension"), List.of(), null, "POL-123", ""));
+
+        // Assert
+        assertEquals(5, encrypted.size());
+        assertEquals(List.of("Asthma", "Hypertension"), encryptionService.decryptList(encrypted.get(0)));
+        assertNull(encrypted.get(1));
+        assertNull(encrypted.get(2));
+        assertEquals("POL-123", encryptionService.decrypt(encrypted.get(3)));
+        assertNull(encrypted.get(4));
+    }
+
+    @Test
+    void encryptRecords_LargeBatch_KeepsOrderAndUsesDistinctDataKeys() {
+        // Arrange
+        List<List<String>> records = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            records.add(List.of("policy-" + i, "member-" + i));
+        }
+
+        // Act
+        List<List<String>> encrypted = encryptionService.encryptRecords(records);
+
+        // Assert
+        assertEquals(records.size(), encrypted.size());
+        Set<String> wrappedKeys = new HashSet<>();
+        for (int i = 0; i < records.size(); i++) {
+            assertEquals("policy-" + i, encryptionService.decrypt(encrypted.get(i).get(0)));
+            assertEquals("member-" + i, encryptionService.decrypt(encrypted.get(i).get(1)));
+            // Fields of one record share a wrapped data key; records never do
+            assertEquals(wrappedKey(encrypted.get(i).get(0)), wrappedKey(encrypted.get(i).get(1)));
+            wrappedKeys.add(wrappedKey(encrypted.get(i).get(0)));
+        }
+        assertEquals(records.size(), wrappedKeys.size());
+    }
+
+    @Test
+    void encryptRecord_UnsupportedFieldType_Throws() {
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> encryptionService.encryptRecord(List.of(42)));
+    }
+
+    @Test
+    void reencrypt_AfterRotation_RewrapsDataKeyOnly() {
+        // Arrange
+        String underV1 = encryptionService.encrypt("member-0042");
+        EncryptionServiceImpl rotated = createService("v2=rotatedMasterSecret", "v2");
+
+        // Act
+        String underV2 = rotated.reencrypt(underV1);
+
+        // Assert
+        assertTrue(rotated.needsReencryption(underV1));
+        assertTrue(underV2.startsWith("v2:"));
+        assertFalse(rotated.needsReencryption(underV2));
+        assertEquals("member-0042", rotated.decrypt(underV1));
+        assertEquals("member-0042", rotated.decrypt(underV2));
+        // IV, ciphertext and tag after the 60-byte key header are untouched
+        assertArrayEquals(Arrays.copyOfRange(Base64.getDecoder().decode(underV1.substring(3)), 60, 100),
+            Arrays.copyOfRange(Base64.getDecoder().decode(underV2.substring(3)), 60, 100));
+        assertSame(underV2, rotated.reencrypt(underV2));
+    }
+
+    @Test
+    void reencrypt_LegacyValue_MovedIntoEnvelope() throws Exception {
+        // Arrange
+        String legacy = legacyEncrypt("POL-123");
+
+        // Act
+        String reencrypted = encryptionService.reencrypt(legacy);
+
+        // Assert
+        assertTrue(encryptionService.needsReencryption(legacy));
+        assertTrue(reencrypted.startsWith("v1:"));
+        assertEquals("POL-123", encryptionService.decrypt(reencrypted));
+    }
+
+    @Test
+    void decrypt_UnknownKeyId_Throws() {
+        // Arrange
+        String underV2 = createService("v2=rotatedMasterSecret", "v2").encrypt("sensitive");
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> encryptionService.decrypt(underV2));
+    }
+
+    @Test
+    void init_ActiveKeyNotConfigured_Fails() {
+        assertThrows(IllegalStateException.class, () -> createService("v2=rotatedMasterSecret", "v3"));
+    }
+
+    @Test
+    void encryptBinary_LargePayload_DeflatedAndSmallerThanTextFormat() {
+        // Arrange
+        StringBuilder details = new StringBuilder("{\"events\":[");
+        for (int i = 0; i < 40; i++) {
+            details.append("{\"action\":\"PATIENT_LOGIN_SUCCESS\",\"ip\":\"10.0.0.").append(i).append("\"},");
+        }
+        String json = details.append("{}]}").toString();
+
+        // Act
+        byte[] binary = encryptionService.encryptBinary(json);
+        String text = encryptionService.encrypt(json);
+
+        // Assert
+        assertEquals(1, binary[0]); // format version
+        assertEquals(1, binary[1] & 1); // deflated
+        assertTrue(binary.length < text.length() / 4);
+        assertEquals(json, encryptionService.decryptBinary(binary));
+    }
+
+    @Test
+    void encryptBinary_SmallPayload_StoredWithoutCompressionOrBase64() {
+        // Act
+        byte[] binary = encryptionService.encryptBinary("[\"Asthma\"]");
+
+        // Assert
+        assertEquals(0, binary[1] & 1);
+        assertEquals(3 + 2 + 60 + 12 + 10 + 16, binary.length); // preamble, key header, IV, data, tag
+        assertEquals("[\"Asthma\"]", encryptionService.decryptBinary(binary));
+    }
+
+    @Test
+    void encryptRecordBinary_Lists_DecryptAsLists() {
+        // Act
+        List<byte[]> encrypted = encryptionService.encryptRecordBinary(Arrays.asList(
+            List.of("Asthma", "Hypertension"), null, List.of()));
+
+        // Assert
+        assertEquals(List.of("Asthma", "Hypertension"), encryptionService.decryptListBinary(encrypted.get(0)));
+        assertNull(encrypted.get(1));
+        assertNull(encrypted.get(2));
+    }
+
+    @Test
+    void decryptBinary_TextFormatCopiedIntoColumn_StillReadable() throws Exception {
+        // Arrange: what convert_to(column, 'UTF8') leaves behind for both older formats
+        byte[] envelope = encryptionService.encrypt("details").getBytes(StandardCharsets.US_ASCII);
+        byte[] legacy = legacyEncrypt("details").getBytes(StandardCharsets.US_ASCII);
+
+        // Act & Assert
+        assertEquals("details", encryptionService.decryptBinary(envelope));
+        assertEquals("details", encryptionService.decryptBinary(legacy));
+        assertTrue(encryptionService.needsReencryption(envelope));
+        byte[] migrated = encryptionService.reencrypt(legacy);
+        assertEquals(1, migrated[0]);
+        assertEquals("details", encryptionService.decryptBinary(migrated));
+    }
+
+    @Test
+    void decryptBinary_CompressionFlagTampered_Throws() {
+        // Arrange
+        byte[] binary = encryptionService.encryptBinary("[\"Asthma\"]");
+        binary[1] ^= 1;
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> encryptionService.decryptBinary(binary));
+    }
+
+    @Test
+    void reencryptBinary_AfterRotation_RewrapsDataKeyOnly() {
+        // Arrange
+        byte[] underV1 = encryptionService.encryptBinary("member-0042");
+        EncryptionServiceImpl rotated = createService("v2=rotatedMasterSecret", "v2");
+
+        // Act
+        byte[] underV2 = rotated.reencrypt(underV1);
+
+        // Assert
+        assertTrue(rotated.needsReencryption(underV1));
+        assertFalse(rotated.needsReencryption(underV2));
+        assertEquals('2', underV2[4]);
+        assertArrayEquals(Arrays.copyOfRange(underV1, 65, underV1.length), Arrays.copyOfRange(underV2, 65, underV2.length));
+        assertEquals("member-0042", rotated.decryptBinary(underV2));
+        assertSame(underV2, rotated.reencrypt(underV2));
+    }
+
+    @Test
+    void hash_UsesSharedRandomSalt() {
+        // Act
+        String first = encryptionService.generateHash("123456");
+        String second = encryptionService.generateHash("123456");
+
+        // Assert
+        assertNotEquals(first, second);
+        assertTrue(encryptionService.verifyHash("123456", first));
+        assertFalse(encryptionService.verifyHash("654321", second));
+    }
+
+    private EncryptionServiceImpl createService(String masterKeys, String activeKeyId) {
+        EncryptionServiceImpl service = new EncryptionServiceImpl(new ObjectMapper());
+        ReflectionTestUtils.setField(service, "encryptionKey", KEY);
+        ReflectionTestUtils.setField(service, "algorithm", "AES");
+        ReflectionTestUtils.setField(service, "transformation", "AES/GCM/NoPadding");
+        ReflectionTestUtils.setField(service, "ivLength", 12);
+        ReflectionTestUtils.setField(service, "tagLength", 16);
+        ReflectionTestUtils.setField(service, "bulkParallelism", 4);
+        ReflectionTestUtils.setField(service, "bulkParallelThreshold", 16);
+        ReflectionTestUtils.setField(service, "masterKeys", masterKeys);
+        ReflectionTestUtils.setField(service, "activeKeyId", activeKeyId);
+        ReflectionTestUtils.setField(service, "compressionThreshold", 256);
+        service.init();
+        services.add(service);
+        return service;
+    }
+
+    private static String wrappedKey(String encrypted) {
+        return Base64.getEncoder().encodeToString(
+            Arrays.copyOf(Base64.getDecoder().decode(encrypted.substring(3)), 60));
+    }
+
+    private static String legacyEncrypt(String plainText) throws Exception {
+        byte[] iv = new byte[12];
+        new SecureRandom().nextBytes(iv);
+        byte[] key = MessageDigest.getInstance("SHA-256").digest(KEY.getBytes(StandardCharsets.UTF_8));
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "AES"), new GCMParameterSpec(128, iv));
+        byte[] encrypted = cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8));
+        byte[] combined = new byte[iv.length + encrypted.length];
+        System.arraycopy(iv, 0, combined, 0, iv.length);
+        System.arraycopy(encrypted, 0, combined, iv.length, encrypted.length);
+        return Base64.getEncoder().encodeToString(combined);
+    }
+}
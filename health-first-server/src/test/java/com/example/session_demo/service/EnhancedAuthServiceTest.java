@@ -1,5 +1,6 @@
 package com.example.session_demo.service;
 
+import com.example.session_demo.config.JwtAuthenticationCache;
 import com.example.session_demo.dto.EnhancedLoginRequestDTO;
 import com.example.session_demo.dto.TokenRefreshRequestDTO;
 import com.example.session_demo.entity.LoginAttempt;
@@ -7,11 +8,11 @@ import com.example.session_demo.entity.Provider;
 import com.example.session_demo.entity.RefreshToken;
 import com.example.session_demo.enums.ProviderSpecialization;
 import com.example.session_demo.enums.VerificationStatus;
-import com.example.session_demo.repository.LoginAttemptRepository;
 import com.example.session_demo.repository.ProviderRepository;
 import com.example.session_demo.repository.RefreshTokenRepository;
 import com.example.session_demo.util.EnhancedJwtUtil;
-import com.example.session_demo.util.PasswordUtil;
+import com.example.session_demo.util.TokenDigestUtil;
+import com.example.session_demo.util.VerifiedToken;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -20,6 +21,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.UUID;
@@ -38,13 +40,28 @@ class EnhancedAuthServiceTest {
     private RefreshTokenRepository refreshTokenRepository;
 
     @Mock
-    private LoginAttemptRepository loginAttemptRepository;
+    private LoginAttemptRecorder loginAttemptRecorder;
 
     @Mock
     private EnhancedJwtUtil enhancedJwtUtil;
 
     @Mock
-    private PasswordUtil passwordUtil;
+    private PasswordHashingService passwordHashingService;
+
+    @Mock
+    private TokenDigestUtil tokenDigestUtil;
+
+    @Mock
+    private LoginFailureCounterService loginFailureCounterService;
+
+    @Mock
+    private CredentialStuffingDetector credentialStuffingDetector;
+
+    @Mock
+    private JwtAuthenticationCache jwtAuthenticationCache;
+
+    @Mock
+    private SessionRegistryService sessionRegistryService;
 
     @InjectMocks
     private EnhancedAuthService enhancedAuthService;
@@ -60,7 +77,6 @@ class EnhancedAuthServiceTest {
         ReflectionTestUtils.setField(enhancedAuthService, "maxLoginAttempts", 5);
         ReflectionTestUtils.setField(enhancedAuthService, "lockoutDuration", 1800000L);
         ReflectionTestUtils.setField(enhancedAuthService, "maxConcurrentSessions", 5);
-        ReflectionTestUtils.setField(enhancedAuthService, "rateLimitWindow", 900000L);
         ReflectionTestUtils.setField(enhancedAuthService, "rateLimitMaxAttempts", 5);
 
         // Create test provider
@@ -91,15 +107,15 @@ class EnhancedAuthServiceTest {
     @Test
     void testSuccessfulLogin() {
         // Arrange
-        when(loginAttemptRepository.countFailedAttemptsByIdentifier(anyString(), any(LocalDateTime.class)))
+        when(loginFailureCounterService.countFailuresByIdentifier(anyString()))
             .thenReturn(0L);
-        when(loginAttemptRepository.countFailedAttemptsByIp(anyString(), any(LocalDateTime.class)))
+        when(loginFailureCounterService.countFailuresByIp(anyString()))
             .thenReturn(0L);
         when(providerRepository.findByEmail(anyString()))
             .thenReturn(Optional.of(testProvider));
-        when(passwordUtil.verifyPassword(anyString(), anyString()))
+        when(passwordHashingService.verifyPassword(anyString(), anyString()))
             .thenReturn(true);
-        when(refreshTokenRepository.countActiveSessionsByProviderUuid(any(UUID.class), any(LocalDateTime.class)))
+        when(sessionRegistryService.countActiveSessions(any(UUID.class)))
             .thenReturn(0L);
         when(enhancedJwtUtil.generateAccessToken(any(), anyString(), anyString(), anyString(), anyString(), anyString()))
             .thenReturn("accessToken");
@@ -107,8 +123,8 @@ class EnhancedAuthServiceTest {
             .thenReturn("refreshToken");
         when(enhancedJwtUtil.getRefreshTokenExpiration(anyBoolean()))
             .thenReturn(604800000L);
-        when(passwordUtil.hashPassword(anyString()))
-            .thenReturn("hashedRefreshToken");
+        when(tokenDigestUtil.digest(anyString()))
+            .thenReturn("refreshTokenDigest");
 
         // Act
         var result = enhancedAuthService.login(loginRequest, TEST_IP, TEST_USER_AGENT);
@@ -124,19 +140,20 @@ class EnhancedAuthServiceTest {
         // Verify interactions
         verify(providerRepository).save(any(Provider.class));
         verify(refreshTokenRepository).save(any(RefreshToken.class));
-        verify(loginAttemptRepository).save(any(LoginAttempt.class));
+        verify(sessionRegistryService).registerSession(eq(testProvider.getUuid()), any(RefreshToken.class));
+        verify(loginAttemptRecorder).record(any(LoginAttempt.class));
     }
 
     @Test
     void testLoginWithInvalidCredentials() {
         // Arrange
-        when(loginAttemptRepository.countFailedAttemptsByIdentifier(anyString(), any(LocalDateTime.class)))
+        when(loginFailureCounterService.countFailuresByIdentifier(anyString()))
             .thenReturn(0L);
-        when(loginAttemptRepository.countFailedAttemptsByIp(anyString(), any(LocalDateTime.class)))
+        when(loginFailureCounterService.countFailuresByIp(anyString()))
             .thenReturn(0L);
         when(providerRepository.findByEmail(anyString()))
             .thenReturn(Optional.of(testProvider));
-        when(passwordUtil.verifyPassword(anyString(), anyString()))
+        when(passwordHashingService.verifyPassword(anyString(), anyString()))
             .thenReturn(false);
 
         // Act & Assert
@@ -144,8 +161,10 @@ class EnhancedAuthServiceTest {
             enhancedAuthService.login(loginRequest, TEST_IP, TEST_USER_AGENT);
         });
 
-        // Verify failed attempt was logged
-        verify(loginAttemptRepository).save(any(LoginAttempt.class));
+        // Verify failed attempt was logged and counted
+        verify(loginAttemptRecorder).record(any(LoginAttempt.class));
+        verify(loginFailureCounterService).recordFailure(loginRequest.getIdentifier(), TEST_IP);
+        verify(credentialStuffingDetector).recordFailure(loginRequest.getIdentifier(), TEST_IP);
         verify(providerRepository).save(any(Provider.class));
     }
 
@@ -153,9 +172,9 @@ class EnhancedAuthServiceTest {
     void testLoginWithAccountLocked() {
         // Arrange
         testProvider.setLockedUntil(LocalDateTime.now().plusMinutes(30));
-        when(loginAttemptRepository.countFailedAttemptsByIdentifier(anyString(), any(LocalDateTime.class)))
+        when(loginFailureCounterService.countFailuresByIdentifier(anyString()))
             .thenReturn(0L);
-        when(loginAttemptRepository.countFailedAttemptsByIp(anyString(), any(LocalDateTime.class)))
+        when(loginFailureCounterService.countFailuresByIp(anyString()))
             .thenReturn(0L);
         when(providerRepository.findByEmail(anyString()))
             .thenReturn(Optional.of(testProvider));
@@ -166,13 +185,13 @@ class EnhancedAuthServiceTest {
         });
 
         // Verify locked attempt was logged
-        verify(loginAttemptRepository).save(any(LoginAttempt.class));
+        verify(loginAttemptRecorder).record(any(LoginAttempt.class));
     }
 
     @Test
     void testLoginWithRateLimitExceeded() {
         // Arrange
-        when(loginAttemptRepository.countFailedAttemptsByIdentifier(anyString(), any(LocalDateTime.class)))
+        when(loginFailureCounterService.countFailuresByIdentifier(anyString()))
             .thenReturn(5L); // Max attempts reached
 
         // Act & Assert
@@ -188,9 +207,9 @@ class EnhancedAuthServiceTest {
     void testLoginWithInactiveAccount() {
         // Arrange
         testProvider.setIsActive(false);
-        when(loginAttemptRepository.countFailedAttemptsByIdentifier(anyString(), any(LocalDateTime.class)))
+        when(loginFailureCounterService.countFailuresByIdentifier(anyString()))
             .thenReturn(0L);
-        when(loginAttemptRepository.countFailedAttemptsByIp(anyString(), any(LocalDateTime.class)))
+        when(loginFailureCounterService.countFailuresByIp(anyString()))
             .thenReturn(0L);
         when(providerRepository.findByEmail(anyString()))
             .thenReturn(Optional.of(testProvider));
@@ -200,17 +219,18 @@ class EnhancedAuthServiceTest {
             enhancedAuthService.login(loginRequest, TEST_IP, TEST_USER_AGENT);
         });
 
-        // Verify disabled account attempt was logged
-        verify(loginAttemptRepository).save(any(LoginAttempt.class));
+        // Verify disabled account attempt was logged but not counted towards the rate limit
+        verify(loginAttemptRecorder).record(any(LoginAttempt.class));
+        verify(loginFailureCounterService, never()).recordFailure(anyString(), anyString());
     }
 
     @Test
     void testLoginWithUnverifiedEmail() {
         // Arrange
         testProvider.setEmailVerified(false);
-        when(loginAttemptRepository.countFailedAttemptsByIdentifier(anyString(), any(LocalDateTime.class)))
+        when(loginFailureCounterService.countFailuresByIdentifier(anyString()))
             .thenReturn(0L);
-        when(loginAttemptRepository.countFailedAttemptsByIp(anyString(), any(LocalDateTime.class)))
+        when(loginFailureCounterService.countFailuresByIp(anyString()))
             .thenReturn(0L);
         when(providerRepository.findByEmail(anyString()))
             .thenReturn(Optional.of(testProvider));
@@ -221,7 +241,7 @@ class EnhancedAuthServiceTest {
         });
 
         // Verify unverified email attempt was logged
-        verify(loginAttemptRepository).save(any(LoginAttempt.class));
+        verify(loginAttemptRecorder).record(any(LoginAttempt.class));
     }
 
     @Test
@@ -230,13 +250,14 @@ class EnhancedAuthServiceTest {
         TokenRefreshRequestDTO refreshRequest = new TokenRefreshRequestDTO();
         refreshRequest.setRefreshToken("validRefreshToken");
 
-        when(enhancedJwtUtil.isRefreshToken(anyString())).thenReturn(true);
-        when(enhancedJwtUtil.validateToken(anyString())).thenReturn(true);
-        when(enhancedJwtUtil.extractUuid(anyString())).thenReturn(testProvider.getUuid());
-        when(enhancedJwtUtil.extractEmail(anyString())).thenReturn(testProvider.getEmail());
+        when(enhancedJwtUtil.verify("validRefreshToken")).thenReturn(refreshTokenFor(testProvider));
         when(providerRepository.findByUuid(any(UUID.class))).thenReturn(Optional.of(testProvider));
-        when(passwordUtil.hashPassword(anyString())).thenReturn("hashedToken");
-        when(refreshTokenRepository.findByTokenHash(anyString())).thenReturn(Optional.of(new RefreshToken()));
+        RefreshToken storedToken = new RefreshToken();
+        storedToken.setTokenHash("tokenDigest");
+        storedToken.setExpiresAt(LocalDateTime.now().plusDays(1));
+        when(tokenDigestUtil.digest(anyString())).thenReturn("tokenDigest");
+        when(tokenDigestUtil.matches(anyString(), eq("tokenDigest"))).thenReturn(true);
+        when(refreshTokenRepository.findByTokenHash("tokenDigest")).thenReturn(Optional.of(storedToken));
         when(enhancedJwtUtil.generateAccessToken(any(), anyString(), anyString(), anyString(), anyString(), anyString()))
             .thenReturn("newAccessToken");
         when(enhancedJwtUtil.generateRefreshToken(any(), anyString(), anyBoolean()))
@@ -253,8 +274,10 @@ class EnhancedAuthServiceTest {
         assertEquals("Bearer", result.getTokenType());
 
         // Verify old token was revoked and new one was saved
-        verify(refreshTokenRepository).revokeTokenByHash(anyString());
+        verify(refreshTokenRepository).revokeTokenByHash("tokenDigest");
+        verify(sessionRegistryService).removeSession(testProvider.getUuid(), "tokenDigest");
         verify(refreshTokenRepository).save(any(RefreshToken.class));
+        verify(passwordHashingService, never()).hashPassword(anyString());
     }
 
     @Test
@@ -263,7 +286,11 @@ class EnhancedAuthServiceTest {
         TokenRefreshRequestDTO refreshRequest = new TokenRefreshRequestDTO();
         refreshRequest.setRefreshToken("invalidToken");
 
-        when(enhancedJwtUtil.isRefreshToken(anyString())).thenReturn(false);
+        when(enhancedJwtUtil.verify("invalidToken")).thenReturn(VerifiedToken.builder()
+            .uuid(testProvider.getUuid())
+            .email(testProvider.getEmail())
+            .expiresAt(Instant.now().plusSeconds(3600))
+            .build()); // an access token, not a refresh token
 
         // Act & Assert
         assertThrows(EnhancedAuthService.AuthenticationException.class, () -> {
@@ -275,9 +302,8 @@ class EnhancedAuthServiceTest {
     void testLogout() {
         // Arrange
         String refreshToken = "validRefreshToken";
-        when(enhancedJwtUtil.isRefreshToken(anyString())).thenReturn(true);
-        when(enhancedJwtUtil.validateToken(anyString())).thenReturn(true);
-        when(passwordUtil.hashPassword(anyString())).thenReturn("hashedToken");
+        when(enhancedJwtUtil.verify(refreshToken)).thenReturn(refreshTokenFor(testProvider));
+        when(tokenDigestUtil.digest(anyString())).thenReturn("tokenDigest");
 
         // Act
         assertDoesNotThrow(() -> {
@@ -300,5 +326,16 @@ class EnhancedAuthServiceTest {
 
         // Verify all tokens were revoked
         verify(refreshTokenRepository).revokeAllTokensByProviderUuid(providerUuid);
+        verify(jwtAuthenticationCache).evictProvider(providerUuid);
+        verify(sessionRegistryService).removeAllSessions(providerUuid);
+    }
+
+    private VerifiedToken refreshTokenFor(Provider provider) {
+        return VerifiedToken.builder()
+            .uuid(provider.getUuid())
+            .email(provider.getEmail())
+            .tokenType("refresh")
+            .expiresAt(Instant.now().plusSeconds(3600))
+            .build();
     }
-} 
\ No newline at end of file
+}
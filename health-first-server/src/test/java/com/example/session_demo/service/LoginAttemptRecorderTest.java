@@ -0,0 +1,127 @@
+package com.example.session_demo.service;
+
+import com.example.session_demo.entity.LoginAttempt;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LoginAttemptRecorderTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private List<Integer> batchSizes;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        batchSizes = new CopyOnWriteArrayList<>();
+    }
+
+    @Test
+    void record_FlushesInBatchesAndOnShutdown() {
+        // Arrange
+        stubBatchUpdate(null);
+        LoginAttemptRecorder recorder = newRecorder(100, 2, 50);
+
+        // Act
+        for (int i = 0; i < 5; i++) {
+            assertTrue(recorder.record(attempt("user" + i + "@test.com")));
+        }
+        recorder.shutdown();
+
+        // Assert
+        assertEquals(5, batchSizes.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(batchSizes.stream().allMatch(size -> size <= 2));
+        assertEquals(5.0, meterRegistry.get("auth.login.attempts.written").counter().count());
+        assertEquals(0, recorder.getQueueDepth());
+    }
+
+    @Test
+    void record_QueueFull_DropsAndCounts() throws Exception {
+        // Arrange - the writer blocks on its first batch so the queue backs up
+        CountDownLatch release = new CountDownLatch(1);
+        stubBatchUpdate(release);
+        LoginAttemptRecorder recorder = newRecorder(1, 1, 10);
+
+        try {
+            assertTrue(recorder.record(attempt("first@test.com")));
+            waitForQueueDepth(recorder, 0);
+            assertTrue(recorder.record(attempt("second@test.com")));
+
+            // Act
+            boolean accepted = recorder.record(attempt("third@test.com"));
+
+            // Assert
+            assertFalse(accepted);
+            assertEquals(1.0, meterRegistry.get("auth.login.attempts.dropped").counter().count());
+        } finally {
+            release.countDown();
+            recorder.shutdown();
+        }
+        assertEquals(2, batchSizes.stream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Test
+    void record_AfterShutdown_IsDropped() {
+        // Arrange
+        LoginAttemptRecorder recorder = newRecorder(10, 10, 10);
+        recorder.shutdown();
+
+        // Act & Assert
+        assertFalse(recorder.record(attempt("late@test.com")));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubBatchUpdate(CountDownLatch release) {
+        when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+            .thenAnswer(invocation -> {
+                if (release != null) {
+                    release.await(5, TimeUnit.SECONDS);
+                }
+                Collection<?> batch = invocation.getArgument(1);
+                batchSizes.add(batch.size());
+                return new int[0][];
+            });
+    }
+
+    private LoginAttemptRecorder newRecorder(int queueCapacity, int batchSize, long flushIntervalMs) {
+        LoginAttemptRecorder recorder = new LoginAttemptRecorder(jdbcTemplate, meterRegistry);
+        ReflectionTestUtils.setField(recorder, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(recorder, "batchSize", batchSize);
+        ReflectionTestUtils.setField(recorder, "flushIntervalMs", flushIntervalMs);
+        ReflectionTestUtils.setField(recorder, "shutdownTimeoutMs", 5000L);
+        recorder.init();
+        return recorder;
+    }
+
+    private LoginAttempt attempt(String identifier) {
+        LoginAttempt attempt = new LoginAttempt();
+        attempt.setIdentifier(identifier);
+        attempt.setIpAddress("127.0.0.1");
+        attempt.setAttemptType(LoginAttempt.AttemptType.FAILED);
+        attempt.setFailureReason(LoginAttempt.FailureReason.INVALID_PASSWORD.name());
+        return attempt;
+    }
+
+    private void waitForQueueDepth(LoginAttemptRecorder recorder, int depth) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (recorder.getQueueDepth() != depth && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+}
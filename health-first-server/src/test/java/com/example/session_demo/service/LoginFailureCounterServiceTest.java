@@ -0,0 +1,82 @@
+package com.example.session_demo.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoginFailureCounterServiceTest {
+
+    private static final long WINDOW_MS = 900_000L; // 15 minutes
+    private static final long NOW = 1_700_000_000_000L;
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    private LoginFailureCounterService counterService;
+
+    @BeforeEach
+    void setUp() {
+        counterService = new LoginFailureCounterService(redisTemplate);
+        ReflectionTestUtils.setField(counterService, "windowMs", WINDOW_MS);
+        ReflectionTestUtils.setField(counterService, "bucketCount", 15);
+        ReflectionTestUtils.setField(counterService, "redisEnabled", false);
+        counterService.init();
+    }
+
+    @Test
+    void recordFailure_CountsByIdentifierAndIp() {
+        // Arrange
+        counterService.recordFailure("john@test.com", "10.0.0.1", NOW);
+        counterService.recordFailure("john@test.com", "10.0.0.2", NOW + 1_000);
+        counterService.recordFailure("jane@test.com", "10.0.0.1", NOW + 2_000);
+
+        // Act & Assert
+        assertEquals(2, counterService.countFailuresByIdentifier("john@test.com", NOW + 3_000));
+        assertEquals(1, counterService.countFailuresByIdentifier("jane@test.com", NOW + 3_000));
+        assertEquals(2, counterService.countFailuresByIp("10.0.0.1", NOW + 3_000));
+        assertEquals(0, counterService.countFailuresByIp("10.0.0.3", NOW + 3_000));
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    void countFailures_OldBucketsSlideOutOfWindow() {
+        // Arrange
+        counterService.recordFailure("john@test.com", "10.0.0.1", NOW);
+        counterService.recordFailure("john@test.com", "10.0.0.1", NOW + 600_000);
+
+        // Act & Assert
+        assertEquals(2, counterService.countFailuresByIdentifier("john@test.com", NOW + 800_000));
+        assertEquals(1, counterService.countFailuresByIdentifier("john@test.com", NOW + WINDOW_MS + 60_000));
+        assertEquals(0, counterService.countFailuresByIdentifier("john@test.com", NOW + 600_000 + WINDOW_MS + 60_000));
+    }
+
+    @Test
+    void recordFailure_ReusesExpiredSlot() {
+        // Arrange - a full window later lands in the same ring slot
+        counterService.recordFailure("john@test.com", "10.0.0.1", NOW);
+        counterService.recordFailure("john@test.com", "10.0.0.1", NOW + WINDOW_MS);
+
+        // Act & Assert
+        assertEquals(1, counterService.countFailuresByIdentifier("john@test.com", NOW + WINDOW_MS));
+    }
+
+    @Test
+    void countFailures_RedisUnavailable_FallsBackToLocalCounters() {
+        // Arrange
+        ReflectionTestUtils.setField(counterService, "redisEnabled", true);
+        when(redisTemplate.opsForValue()).thenThrow(new RuntimeException("Connection refused"));
+        counterService.recordFailure("john@test.com", "10.0.0.1", NOW);
+
+        // Act & Assert
+        assertEquals(1, counterService.countFailuresByIdentifier("john@test.com", NOW));
+        assertEquals(1, counterService.countFailuresByIp("10.0.0.1", NOW));
+    }
+}
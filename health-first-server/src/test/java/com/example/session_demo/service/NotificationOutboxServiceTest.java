@@ -0,0 +1,183 @@
+package com.example.session_demo.service;
+
+import com.example.session_demo.entity.OutboxMessage;
+import com.example.session_demo.repository.OutboxMessageRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationOutboxServiceTest {
+
+    @Mock
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Mock
+    private EmailService emailService;
+
+    @Mock
+    private SmsService smsService;
+
+    @Mock
+    private EncryptionService encryptionService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private NotificationOutboxService outboxService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        outboxService = new NotificationOutboxService(outboxMessageRepository, emailService, smsService,
+            encryptionService, transactionManager, meterRegistry);
+        ReflectionTestUtils.setField(outboxService, "workers", 1);
+        ReflectionTestUtils.setField(outboxService, "queueCapacity", 10);
+        ReflectionTestUtils.setField(outboxService, "batchSize", 10);
+        ReflectionTestUtils.setField(outboxService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(outboxService, "initialBackoffMs", 1000L);
+        ReflectionTestUtils.setField(outboxService, "maxBackoffMs", 60000L);
+        ReflectionTestUtils.setField(outboxService, "leaseMs", 60000L);
+        ReflectionTestUtils.setField(outboxService, "shutdownTimeoutMs", 1000L);
+        outboxService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxService.shutdown();
+    }
+
+    @Test
+    void enqueue_InTransaction_StoresEncryptedPendingMessage() {
+        // Arrange
+        when(encryptionService.encrypt("123456")).thenReturn("encryptedOtp");
+        when(outboxMessageRepository.save(any(OutboxMessage.class))).thenAnswer(invocation -> {
+            OutboxMessage saved = invocation.getArgument(0);
+            saved.setId(1L);
+            return saved;
+        });
+        TransactionSynchronizationManager.initSynchronization();
+
+        try {
+            // Act
+            outboxService.enqueue(OutboxMessage.MessageType.PATIENT_VERIFICATION_SMS, "+14155550100", "Jane", "123456");
+
+            // Assert
+            ArgumentCaptor<OutboxMessage> captor = ArgumentCaptor.forClass(OutboxMessage.class);
+            verify(outboxMessageRepository).save(captor.capture());
+            assertEquals(OutboxMessage.Status.PENDING, captor.getValue().getStatus());
+            assertEquals("encryptedOtp", captor.getValue().getPayloadEncrypted());
+            assertEquals(1, TransactionSynchronizationManager.getSynchronizations().size());
+            verifyNoInteractions(smsService); // nothing is sent before commit
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void deliver_Success_SendsAndMarksSent() {
+        // Arrange
+        OutboxMessage message = claimedMessage(OutboxMessage.MessageType.PATIENT_VERIFICATION_EMAIL, 1);
+        when(encryptionService.decrypt("encryptedToken")).thenReturn("verificationToken");
+
+        // Act
+        outboxService.deliver(7L);
+
+        // Assert
+        verify(emailService).sendPatientVerificationEmail("jane@test.com", "Jane", "verificationToken");
+        verify(outboxMessageRepository).markSent(eq(7L), any(LocalDateTime.class));
+        assertEquals(1.0, meterRegistry.counter("notifications.outbox.sent",
+            "channel", "EMAIL", "type", message.getMessageType().name()).count());
+    }
+
+    @Test
+    void deliver_Failure_ReschedulesWithBackoff() {
+        // Arrange
+        claimedMessage(OutboxMessage.MessageType.PROVIDER_VERIFICATION_EMAIL, 1);
+        when(encryptionService.decrypt("encryptedToken")).thenReturn("verificationToken");
+        doThrow(new RuntimeException("Mail service error"))
+            .when(emailService).sendVerificationEmail(anyString(), anyString(), anyString());
+
+        // Act
+        outboxService.deliver(7L);
+
+        // Assert
+        ArgumentCaptor<LocalDateTime> nextAttempt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(outboxMessageRepository).reschedule(eq(7L), nextAttempt.capture(), eq("Mail service error"));
+        assertTrue(nextAttempt.getValue().isAfter(LocalDateTime.now()));
+        verify(outboxMessageRepository, never()).markSent(anyLong(), any());
+        verify(outboxMessageRepository, never()).markDead(anyLong(), anyString());
+    }
+
+    @Test
+    void deliver_LastAttemptFails_MarksDead() {
+        // Arrange
+        claimedMessage(OutboxMessage.MessageType.PROVIDER_VERIFICATION_EMAIL, 3);
+        when(encryptionService.decrypt("encryptedToken")).thenReturn("verificationToken");
+        doThrow(new RuntimeException("Mail service error"))
+            .when(emailService).sendVerificationEmail(anyString(), anyString(), anyString());
+
+        // Act
+        outboxService.deliver(7L);
+
+        // Assert
+        verify(outboxMessageRepository).markDead(7L, "Mail service error");
+        verify(outboxMessageRepository, never()).reschedule(anyLong(), any(), anyString());
+    }
+
+    @Test
+    void deliver_ClaimedElsewhere_DoesNothing() {
+        // Arrange
+        when(outboxMessageRepository.claim(eq(7L), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(0);
+
+        // Act
+        outboxService.deliver(7L);
+
+        // Assert
+        verify(outboxMessageRepository, never()).findById(anyLong());
+        verifyNoInteractions(emailService, smsService);
+    }
+
+    @Test
+    void backoffMs_GrowsExponentiallyWithinCap() {
+        for (int i = 0; i < 50; i++) {
+            long first = outboxService.backoffMs(1);
+            long third = outboxService.backoffMs(3);
+            long tenth = outboxService.backoffMs(10);
+            assertTrue(first >= 500 && first <= 1000);
+            assertTrue(third >= 2000 && third <= 4000);
+            assertTrue(tenth >= 30000 && tenth <= 60000);
+        }
+    }
+
+    private OutboxMessage claimedMessage(OutboxMessage.MessageType messageType, int attempts) {
+        OutboxMessage message = new OutboxMessage();
+        message.setId(7L);
+        message.setMessageType(messageType);
+        message.setRecipient("jane@test.com");
+        message.setRecipientName("Jane");
+        message.setPayloadEncrypted("encryptedToken");
+        message.setStatus(OutboxMessage.Status.PROCESSING);
+        message.setAttempts(attempts);
+        message.setCreatedAt(LocalDateTime.now().minusSeconds(1));
+        when(outboxMessageRepository.claim(eq(7L), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(1);
+        when(outboxMessageRepository.findById(7L)).thenReturn(Optional.of(message));
+        return message;
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.session_demo.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PartitionMaintenanceServiceTest {
+
+    private static final String TABLE = PartitionMaintenanceService.LOGIN_ATTEMPTS;
+
+    private JdbcTemplate jdbcTemplate;
+    private PartitionMaintenanceService service;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        service = new PartitionMaintenanceService(jdbcTemplate, mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(service, "premakeMonths", 2);
+        ReflectionTestUtils.setField(service, "retentionAction", "drop");
+        ReflectionTestUtils.setField(service, "historyDeleteBatchSize", 2);
+        ReflectionTestUtils.setField(service, "conversionLockTimeout", "5s");
+        ReflectionTestUtils.setField(service, "postgres", true);
+    }
+
+    @Test
+    void upperBound_ParsesRangeBoundsOnly() {
+        // Act & Assert
+        assertEquals(LocalDateTime.of(2026, 11, 1, 0, 0), PartitionMaintenanceService.upperBound(
+            "FOR VALUES FROM ('2026-10-01 00:00:00') TO ('2026-11-01 00:00:00')"));
+        assertEquals(LocalDateTime.of(2026, 11, 1, 0, 0), PartitionMaintenanceService.upperBound(
+            "FOR VALUES FROM (MINVALUE) TO ('2026-11-01 00:00:00')"));
+        assertNull(PartitionMaintenanceService.upperBound("FOR VALUES FROM ('2026-10-01 00:00:00') TO (MAXVALUE)"));
+        assertNull(PartitionMaintenanceService.upperBound("DEFAULT"));
+    }
+
+    @Test
+    void dropPartitionsBefore_DropsOnlyPartitionsEntirelyBeforeCutoff() {
+        // Arrange
+        stubPartitions(
+            partition("login_attempts_hist", "FOR VALUES FROM (MINVALUE) TO ('2026-02-01 00:00:00')"),
+            partition("login_attempts_p202602", "FOR VALUES FROM ('2026-02-01 00:00:00') TO ('2026-03-01 00:00:00')"),
+            partition("login_attempts_p202603", "FOR VALUES FROM ('2026-03-01 00:00:00') TO ('2026-04-01 00:00:00')"));
+
+        // Act
+        boolean handled = service.dropPartitionsBefore(TABLE, LocalDateTime.of(2026, 3, 15, 0, 0));
+
+        // Assert
+        assertTrue(handled);
+        verify(jdbcTemplate).execute("DROP TABLE login_attempts_hist");
+        verify(jdbcTemplate).execute("DROP TABLE login_attempts_p202602");
+        verify(jdbcTemplate, never()).execute("DROP TABLE login_attempts_p202603");
+        verify(jdbcTemplate).queryForList(contains("pg_advisory_xact_lock"));
+    }
+
+    @Test
+    void dropPartitionsBefore_HistoryStraddlingCutoff_DeletesExpiredRowsInBatches() {
+        // Arrange
+        LocalDateTime cutoff = LocalDateTime.of(2026, 3, 15, 0, 0);
+        stubPartitions(
+            partition("login_attempts_hist", "FOR VALUES FROM (MINVALUE) TO ('2026-11-01 00:00:00')"),
+            partition("login_attempts_p202611", "FOR VALUES FROM ('2026-11-01 00:00:00') TO ('2026-12-01 00:00:00')"));
+        when(jdbcTemplate.update(startsWith("DELETE FROM login_attempts_hist"), eq(cutoff), eq(2)))
+            .thenReturn(2, 2, 1);
+
+        // Act
+        boolean handled = service.dropPartitionsBefore(TABLE, cutoff);
+
+        // Assert - a short batch means nothing expired is left
+        assertTrue(handled);
+        verify(jdbcTemplate, times(3)).update(startsWith("DELETE FROM login_attempts_hist"), eq(cutoff), eq(2));
+        verify(jdbcTemplate, never()).execute(startsWith("DROP"));
+        verify(jdbcTemplate, times(4)).queryForList(contains("pg_advisory_xact_lock"));
+    }
+
+    @Test
+    void dropPartitionsBefore_DetachMode_KeepsTables() {
+        // Arrange
+        ReflectionTestUtils.setField(service, "retentionAction", "detach");
+        stubPartitions(
+            partition("login_attempts_p202602", "FOR VALUES FROM ('2026-02-01 00:00:00') TO ('2026-03-01 00:00:00')"));
+
+        // Act
+        service.dropPartitionsBefore(TABLE, LocalDateTime.of(2026, 3, 15, 0, 0));
+
+        // Assert
+        verify(jdbcTemplate).execute("ALTER TABLE login_attempts DETACH PARTITION login_attempts_p202602");
+        verify(jdbcTemplate, never()).execute(startsWith("DROP"));
+    }
+
+    @Test
+    void dropPartitionsBefore_NotPartitioned_LeavesCleanupToCaller() {
+        // Arrange
+        when(jdbcTemplate.queryForList(contains("relkind"), eq(String.class), eq(TABLE))).thenReturn(List.of("r"));
+
+        // Act & Assert
+        assertFalse(service.dropPartitionsBefore(TABLE, LocalDateTime.now()));
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void maintainPartitions_NeverConvertsPlainTables() {
+        // Arrange
+        when(jdbcTemplate.queryForList(contains("relkind"), eq(String.class), anyString())).thenReturn(List.of("r"));
+
+        // Act
+        service.maintainPartitions();
+
+        // Assert
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void convertToPartitioned_AlreadyPartitioned_ChangesNothing() {
+        // Arrange
+        stubPartitions();
+
+        // Act & Assert
+        assertFalse(service.convertToPartitioned(TABLE));
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void convertToPartitioned_RejectsOtherTablesAndDatabases() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> service.convertToPartitioned("providers"));
+        ReflectionTestUtils.setField(service, "postgres", false);
+        assertThrows(IllegalStateException.class, () -> service.convertToPartitioned(TABLE));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void createUpcomingPartitions_FillsMonthsUpToHorizon() {
+        // Arrange
+        stubPartitions(
+            partition("login_attempts_hist", "FOR VALUES FROM (MINVALUE) TO ('2026-11-01 00:00:00')"));
+
+        // Act
+        service.createUpcomingPartitions(TABLE, LocalDate.of(2026, 10, 17));
+
+        // Assert
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS login_attempts_p202611 PARTITION OF login_attempts " +
+            "FOR VALUES FROM ('2026-11-01') TO ('2026-12-01')");
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS login_attempts_p202612 PARTITION OF login_attempts " +
+            "FOR VALUES FROM ('2026-12-01') TO ('2027-01-01')");
+        verify(jdbcTemplate, times(2)).execute(anyString());
+    }
+
+    @SafeVarargs
+    private void stubPartitions(Map<String, Object>... partitions) {
+        when(jdbcTemplate.queryForList(contains("relkind"), eq(String.class), eq(TABLE))).thenReturn(List.of("p"));
+        when(jdbcTemplate.queryForList(contains("pg_inherits"), eq(TABLE))).thenReturn(List.of(partitions));
+    }
+
+    private Map<String, Object> partition(String name, String bound) {
+        return Map.of("name", name, "bound", bound);
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.session_demo.service;
+
+import com.example.session_demo.util.PasswordUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class PasswordHashingServiceTest {
+
+    private PasswordUtil passwordUtil;
+    private SimpleMeterRegistry meterRegistry;
+    private PasswordHashingService passwordHashingService;
+
+    @BeforeEach
+    void setUp() {
+        passwordUtil = new PasswordUtil();
+        ReflectionTestUtils.setField(passwordUtil, "saltRounds", 4);
+        meterRegistry = new SimpleMeterRegistry();
+        passwordHashingService = newService(passwordUtil, 2, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordHashingService.shutdown();
+    }
+
+    @Test
+    void hashPassword_ThenVerify_Success() {
+        // Act
+        String hash = passwordHashingService.hashPassword("SecurePassword123!");
+
+        // Assert
+        assertTrue(passwordHashingService.verifyPassword("SecurePassword123!", hash));
+        assertFalse(passwordHashingService.verifyPassword("WrongPassword123!", hash));
+        assertEquals(3, meterRegistry.get("auth.password.hashing.execution").timer().count());
+    }
+
+    @Test
+    void verifyPassword_NullInput_ReturnsFalse() {
+        // Act & Assert
+        assertFalse(passwordHashingService.verifyPassword(null, "hash"));
+        assertFalse(passwordHashingService.verifyPassword("password", null));
+    }
+
+    @Test
+    void hashPassword_QueueFull_ThrowsCapacityException() throws Exception {
+        // Arrange - one worker, one queue slot, and a hash that blocks until released
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordUtil blockingUtil = mock(PasswordUtil.class);
+        when(blockingUtil.hashPassword(anyString())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return "hash";
+        });
+        PasswordHashingService saturated = newService(blockingUtil, 1, 1);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+
+        try {
+            callers.submit(() -> saturated.hashPassword("password-1"));
+            callers.submit(() -> saturated.hashPassword("password-2"));
+            waitForQueueDepth(saturated, 1);
+
+            // Act & Assert
+            PasswordHashingService.HashingCapacityException exception = assertThrows(
+                PasswordHashingService.HashingCapacityException.class,
+                () -> saturated.hashPassword("password-3"));
+            assertEquals(2, exception.getRetryAfterSeconds());
+            assertEquals(1.0, meterRegistry.get("auth.password.hashing.rejected").counter().count());
+        } finally {
+            release.countDown();
+            callers.shutdown();
+            saturated.shutdown();
+        }
+    }
+
+    @Test
+    void hashPassword_DeadlineExceeded_ThrowsCapacityException() {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordUtil slowUtil = mock(PasswordUtil.class);
+        when(slowUtil.hashPassword(anyString())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return "hash";
+        });
+        PasswordHashingService slow = newService(slowUtil, 1, 1);
+
+        try {
+            // Act & Assert
+            assertThrows(PasswordHashingService.HashingCapacityException.class,
+                () -> slow.hashPassword("password", Duration.ofMillis(50)));
+            assertEquals(1.0, meterRegistry.get("auth.password.hashing.timeouts").counter().count());
+        } finally {
+            release.countDown();
+            slow.shutdown();
+        }
+    }
+
+    private PasswordHashingService newService(PasswordUtil util, int poolSize, int queueCapacity) {
+        PasswordHashingService service = new PasswordHashingService(util, meterRegistry);
+        ReflectionTestUtils.setField(service, "poolSize", poolSize);
+        ReflectionTestUtils.setField(service, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(service, "defaultTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(service, "retryAfterSeconds", 2L);
+        service.init();
+        return service;
+    }
+
+    private void waitForQueueDepth(PasswordHashingService service, int depth) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (service.getQueueDepth() < depth && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.session_demo.service;
+
+import com.example.session_demo.entity.Patient;
+import com.example.session_demo.entity.PatientAuditLog;
+import com.example.session_demo.repository.PatientAuditLogRepository;
+import com.example.session_demo.repository.PatientRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PatientAuditRecorderTest {
+
+    private PatientAuditLogRepository auditLogRepository;
+    private PatientRepository patientRepository;
+    private EncryptionService encryptionService;
+    private AuditCounterService auditCounterService;
+    private SimpleMeterRegistry meterRegistry;
+    private List<PatientAuditLog> saved;
+    private List<Integer> batchSizes;
+
+    @BeforeEach
+    void setUp() {
+        auditLogRepository = mock(PatientAuditLogRepository.class);
+        patientRepository = mock(PatientRepository.class);
+        encryptionService = mock(EncryptionService.class);
+        auditCounterService = mock(AuditCounterService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        saved = new CopyOnWriteArrayList<>();
+        batchSizes = new CopyOnWriteArrayList<>();
+        when(encryptionService.encryptBinary(anyString())).thenAnswer(invocation ->
+            ("enc:" + invocation.getArgument(0)).getBytes());
+    }
+
+    @Test
+    void record_WrittenInBatchesWithEncryptedDetailsAndFlushedOnShutdown() {
+        // Arrange
+        stubSaveAll(null);
+        Patient patient = patient(7L);
+        when(patientRepository.getReferenceById(7L)).thenReturn(patient);
+        PatientAuditRecorder recorder = newRecorder(100, 2);
+
+        // Act
+        for (int i = 0; i < 5; i++) {
+            recorder.record(event(patient), "details" + i);
+        }
+        recorder.shutdown();
+
+        // Assert
+        assertEquals(5, saved.size());
+        assertTrue(batchSizes.stream().allMatch(size -> size <= 2));
+        assertTrue(saved.stream().allMatch(auditLog -> auditLog.getPatient() == patient));
+        assertTrue(saved.stream().allMatch(auditLog -> auditLog.getCreatedAt() != null && auditLog.getUuid() != null));
+        assertArrayEquals("enc:details0".getBytes(), saved.get(0).getActionDetailsEncrypted());
+        assertEquals(5.0, meterRegistry.get("patient.audit.events.written").counter().count());
+        assertEquals(0, recorder.getQueueDepth());
+        verify(auditCounterService, times(batchSizes.size())).apply(anyList());
+    }
+
+    @Test
+    void record_InTransaction_QueuedOnCompletionWithoutLinkAfterRollback() {
+        // Arrange
+        stubSaveAll(null);
+        Patient patient = patient(7L);
+        PatientAuditRecorder recorder = newRecorder(100, 10);
+        TransactionSynchronizationManager.initSynchronization();
+
+        try {
+            // Act
+            recorder.record(event(patient), "rolled back");
+            assertEquals(0, recorder.getQueueDepth());
+            assertTrue(saved.isEmpty());
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        recorder.shutdown();
+
+        // Assert
+        assertEquals(1, saved.size());
+        assertNull(saved.get(0).getPatient());
+        assertEquals(patient.getUuid().toString(), saved.get(0).getActorId());
+        verify(patientRepository, never()).getReferenceById(any());
+    }
+
+    @Test
+    void record_QueueFull_WritesInlineInsteadOfDropping() throws Exception {
+        // Arrange - the writer blocks on its first batch so the queue backs up
+        CountDownLatch release = new CountDownLatch(1);
+        stubSaveAll(release);
+        PatientAuditRecorder recorder = newRecorder(1, 1);
+
+        try {
+            recorder.record(event(null), "first");
+            waitForQueueDepth(recorder, 0);
+            recorder.record(event(null), "second");
+
+            // Act
+            recorder.record(event(null), "third");
+
+            // Assert - written on this thread while the writer is still blocked
+            assertEquals(1, saved.size());
+            assertEquals(1.0, meterRegistry.get("patient.audit.events.inline").counter().count());
+        } finally {
+            release.countDown();
+            recorder.shutdown();
+        }
+        assertEquals(3, saved.size());
+        assertEquals(3.0, meterRegistry.get("patient.audit.events.written").counter().count());
+    }
+
+    @Test
+    void record_BatchKeepsFailing_RetriedRowByRow() {
+        // Arrange
+        when(auditLogRepository.saveAll(anyList())).thenThrow(new IllegalStateException("batch failed"));
+        when(auditLogRepository.save(any(PatientAuditLog.class))).thenAnswer(invocation -> {
+            PatientAuditLog auditLog = invocation.getArgument(0);
+            if (auditLog.getFailureReason() != null) {
+                throw new IllegalStateException("bad row");
+            }
+            saved.add(auditLog);
+            return auditLog;
+        });
+        PatientAuditRecorder recorder = newRecorder(100, 10);
+        PatientAuditLog bad = event(null);
+        bad.setFailureReason("x");
+
+        // Act
+        recorder.record(event(null), "good");
+        recorder.record(bad, "bad");
+        recorder.shutdown();
+
+        // Assert
+        assertEquals(1, saved.size());
+        assertEquals(1.0, meterRegistry.get("patient.audit.events.written").counter().count());
+        assertEquals(1.0, meterRegistry.get("patient.audit.events.failed").counter().count());
+    }
+
+    private void stubSaveAll(CountDownLatch release) {
+        when(auditLogRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            if (release != null && Thread.currentThread().getName().equals("patient-audit-writer")) {
+                release.await(5, TimeUnit.SECONDS);
+            }
+            List<PatientAuditLog> batch = new ArrayList<>(invocation.getArgument(0));
+            batchSizes.add(batch.size());
+            saved.addAll(batch);
+            return batch;
+        });
+    }
+
+    private PatientAuditRecorder newRecorder(int queueCapacity, int batchSize) {
+        PatientAuditRecorder recorder = new PatientAuditRecorder(auditLogRepository, patientRepository,
+            encryptionService, auditCounterService, mock(PlatformTransactionManager.class), meterRegistry);
+        ReflectionTestUtils.setField(recorder, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(recorder, "batchSize", batchSize);
+        ReflectionTestUtils.setField(recorder, "flushIntervalMs", 20L);
+        ReflectionTestUtils.setField(recorder, "offerTimeoutMs", 10L);
+        ReflectionTestUtils.setField(recorder, "maxRetries", 1);
+        ReflectionTestUtils.setField(recorder, "retryBackoffMs", 1L);
+        ReflectionTestUtils.setField(recorder, "shutdownTimeoutMs", 5000L);
+        recorder.init();
+        return recorder;
+    }
+
+    private Patient patient(Long id) {
+        Patient patient = new Patient();
+        patient.setId(id);
+        patient.setUuid(UUID.randomUUID());
+        return patient;
+    }
+
+    private PatientAuditLog event(Patient patient) {
+        PatientAuditLog auditLog = new PatientAuditLog();
+        auditLog.setPatient(patient);
+        auditLog.setActionType(PatientAuditLog.ActionType.PATIENT_REGISTRATION);
+        auditLog.setActorType("PATIENT");
+        auditLog.setActorId(patient != null ? patient.getUuid().toString() : null);
+        return auditLog;
+    }
+
+    private void waitForQueueDepth(PatientAuditRecorder recorder, int depth) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (recorder.getQueueDepth() != depth && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+}
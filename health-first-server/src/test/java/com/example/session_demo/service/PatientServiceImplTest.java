@@ -0,0 +1,218 @@
+package com.example.session_demo.service;
+
+import com.example.session_demo.dto.VerificationRequestDTO;
+import com.example.session_demo.dto.VerificationResponseDTO;
+import com.example.session_demo.entity.Patient;
+import com.example.session_demo.entity.VerificationToken;
+import com.example.session_demo.repository.PatientRepository;
+import com.example.session_demo.repository.VerificationTokenRepository;
+import com.example.session_demo.util.TokenDigestUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PatientServiceImplTest {
+
+    @Mock
+    private PatientRepository patientRepository;
+
+    @Mock
+    private VerificationTokenRepository verificationTokenRepository;
+
+    @Mock
+    private PatientAuditRecorder auditRecorder;
+
+    @Mock
+    private EncryptionService encryptionService;
+
+    @Mock
+    private PasswordHashingService passwordHashingService;
+
+    @Mock
+    private NotificationOutboxService notificationOutboxService;
+
+    @Mock
+    private PhoneOtpStore phoneOtpStore;
+
+    @Mock
+    private DuplicateContactFilter duplicateContactFilter;
+
+    private TokenDigestUtil tokenDigestUtil;
+    private PatientServiceImpl patientService;
+    private Patient patient;
+
+    @BeforeEach
+    void setUp() {
+        tokenDigestUtil = new TokenDigestUtil();
+        ReflectionTestUtils.setField(tokenDigestUtil, "digestSecret", "testDigestSecret");
+        ReflectionTestUtils.invokeMethod(tokenDigestUtil, "init");
+
+        patientService = new PatientServiceImpl(patientRepository, verificationTokenRepository, auditRecorder,
+            encryptionService, passwordHashingService, notificationOutboxService, tokenDigestUtil, phoneOtpStore,
+            duplicateContactFilter);
+
+        patient = new Patient();
+        patient.setUuid(UUID.randomUUID());
+    }
+
+    @Test
+    void verifyEmail_ValidToken_FoundWithOneLookupAndMarkedVerified() {
+        // Arrange
+        VerificationToken stored = emailToken("saltedVerifier");
+        when(verificationTokenRepository.findByLookupDigest(tokenDigestUtil.digest("emailToken")))
+            .thenReturn(Optional.of(stored));
+        when(encryptionService.verifyHash("emailToken", "saltedVerifier")).thenReturn(true);
+
+        // Act
+        VerificationResponseDTO response = patientService.verifyEmail("emailToken", "127.0.0.1");
+
+        // Assert
+        assertNotNull(response);
+        assertTrue(patient.getEmailVerified());
+        assertTrue(stored.getIsUsed());
+        verify(verificationTokenRepository).findByLookupDigest(anyString());
+        verify(verificationTokenRepository, never()).findByTokenHash(anyString());
+        verify(verificationTokenRepository, never()).findAll();
+    }
+
+    @Test
+    void verifyEmail_VerifierMismatch_Rejected() {
+        // Arrange
+        VerificationToken stored = emailToken("otherVerifier");
+        when(verificationTokenRepository.findByLookupDigest(tokenDigestUtil.digest("emailToken")))
+            .thenReturn(Optional.of(stored));
+        when(encryptionService.verifyHash("emailToken", "otherVerifier")).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> patientService.verifyEmail("emailToken", "127.0.0.1"));
+        assertFalse(patient.getEmailVerified());
+        verify(patientRepository, never()).save(any());
+    }
+
+    @Test
+    void verifyEmail_UnknownToken_Rejected() {
+        // Arrange
+        when(verificationTokenRepository.findByLookupDigest(anyString())).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> patientService.verifyEmail("unknownToken", "127.0.0.1"));
+        verifyNoInteractions(patientRepository);
+    }
+
+    @Test
+    void existsByEmail_AlwaysAsksDatabaseWhateverTheFilterSays() {
+        // Arrange - registered through another node, so this node's filter has not seen it
+        when(patientRepository.existsByEmail("jane.doe@test.com")).thenReturn(true);
+        when(patientRepository.existsByPhoneNumber("+14155552671")).thenReturn(true);
+
+        // Act & Assert
+        assertTrue(patientService.existsByEmail(" Jane.Doe@test.com"));
+        assertTrue(patientService.existsByPhoneNumber("+14155552671"));
+        verifyNoInteractions(duplicateContactFilter);
+    }
+
+    @Test
+    void isEmailTaken_FilterNegative_SkipsDatabase() {
+        // Arrange
+        when(duplicateContactFilter.mightContainEmail(DuplicateContactFilter.Registry.PATIENTS, "new.patient@test.com"))
+            .thenReturn(false);
+        when(duplicateContactFilter.mightContainPhone(DuplicateContactFilter.Registry.PATIENTS, "+14155552671"))
+            .thenReturn(true);
+        when(patientRepository.existsByPhoneNumber("+14155552671")).thenReturn(true);
+
+        // Act & Assert
+        assertFalse(patientService.isEmailTaken("New.Patient@test.com "));
+        assertTrue(patientService.isPhoneNumberTaken("+14155552671"));
+        verify(patientRepository, never()).existsByEmail(anyString());
+    }
+
+    @Test
+    void verifyPhone_ValidCode_VerifiedFromRedisWithoutTokenLookup() {
+        // Arrange
+        when(patientRepository.findByUuid(patient.getUuid())).thenReturn(Optional.of(patient));
+        when(phoneOtpStore.verify(patient.getUuid(), "123456"))
+            .thenReturn(new PhoneOtpStore.VerifyResult(PhoneOtpStore.Outcome.VERIFIED, 2));
+
+        // Act
+        VerificationResponseDTO response = patientService.verifyPhone(phoneRequest("123456"), "127.0.0.1");
+
+        // Assert
+        assertNotNull(response);
+        assertTrue(patient.getPhoneVerified());
+        verify(verificationTokenRepository).markAllTokensAsUsedForPatientAndType(patient, VerificationToken.TokenType.PHONE_VERIFICATION);
+        verify(verificationTokenRepository, never()).findActiveTokenByPatientAndType(any(), any(), any());
+        verify(verificationTokenRepository, never()).save(any());
+        verifyNoInteractions(encryptionService);
+    }
+
+    @Test
+    void verifyPhone_WrongCode_NoDatabaseWrites() {
+        // Arrange
+        when(patientRepository.findByUuid(patient.getUuid())).thenReturn(Optional.of(patient));
+        when(phoneOtpStore.verify(patient.getUuid(), "000000"))
+            .thenReturn(new PhoneOtpStore.VerifyResult(PhoneOtpStore.Outcome.INVALID, 1));
+
+        // Act
+        VerificationResponseDTO response = patientService.verifyPhone(phoneRequest("000000"), "127.0.0.1");
+
+        // Assert
+        assertNotNull(response);
+        assertFalse(patient.getPhoneVerified());
+        verifyNoInteractions(verificationTokenRepository);
+        verify(patientRepository, never()).save(any());
+    }
+
+    @Test
+    void verifyPhone_RedisUnavailable_FallsBackToEncryptedTokenRow() {
+        // Arrange
+        VerificationToken stored = new VerificationToken();
+        stored.setPatient(patient);
+        stored.setTokenType(VerificationToken.TokenType.PHONE_VERIFICATION);
+        stored.setTokenValueEncrypted("encryptedOtp");
+        stored.setExpiresAt(LocalDateTime.now().plusMinutes(5));
+        when(patientRepository.findByUuid(patient.getUuid())).thenReturn(Optional.of(patient));
+        when(phoneOtpStore.verify(patient.getUuid(), "123456"))
+            .thenReturn(new PhoneOtpStore.VerifyResult(PhoneOtpStore.Outcome.UNAVAILABLE, 0));
+        when(verificationTokenRepository.findActiveTokenByPatientAndType(eq(patient),
+            eq(VerificationToken.TokenType.PHONE_VERIFICATION), any())).thenReturn(Optional.of(stored));
+        when(encryptionService.decrypt("encryptedOtp")).thenReturn("123456");
+
+        // Act
+        patientService.verifyPhone(phoneRequest("123456"), "127.0.0.1");
+
+        // Assert
+        assertTrue(patient.getPhoneVerified());
+        assertTrue(stored.getIsUsed());
+        assertEquals(1, stored.getAttempts());
+    }
+
+    private VerificationToken emailToken(String verifier) {
+        VerificationToken token = new VerificationToken();
+        token.setPatient(patient);
+        token.setTokenType(VerificationToken.TokenType.EMAIL_VERIFICATION);
+        token.setTokenHash(verifier);
+        token.setLookupDigest(tokenDigestUtil.digest("emailToken"));
+        token.setExpiresAt(LocalDateTime.now().plusHours(24));
+        return token;
+    }
+
+    private VerificationRequestDTO phoneRequest(String code) {
+        VerificationRequestDTO request = new VerificationRequestDTO();
+        request.setPatientId(patient.getUuid());
+        request.setVerificationType("phone");
+        request.setVerificationCode(code);
+        return request;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.session_demo.service;
+
+import com.example.session_demo.util.TokenDigestUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PhoneOtpStoreTest {
+
+    private static final UUID PATIENT = UUID.fromString("6f1c2a8e-3b4d-4e5f-9a0b-1c2d3e4f5a6b");
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    private TokenDigestUtil tokenDigestUtil;
+    private PhoneOtpStore phoneOtpStore;
+
+    @BeforeEach
+    void setUp() {
+        tokenDigestUtil = new TokenDigestUtil();
+        ReflectionTestUtils.setField(tokenDigestUtil, "digestSecret", "testDigestSecret");
+        ReflectionTestUtils.invokeMethod(tokenDigestUtil, "init");
+
+        phoneOtpStore = new PhoneOtpStore(redisTemplate, tokenDigestUtil);
+        ReflectionTestUtils.setField(phoneOtpStore, "redisEnabled", true);
+        phoneOtpStore.init();
+    }
+
+    @Test
+    void store_WritesKeyedDigestWithTtlInOneScriptCall() {
+        // Act
+        boolean stored = phoneOtpStore.store(PATIENT, "123456", 3, Duration.ofMinutes(5));
+
+        // Assert - the plain code never reaches Redis
+        assertTrue(stored);
+        verify(redisTemplate, times(1)).execute(any(RedisScript.class), eq(List.of("otp:phone:" + PATIENT)),
+            eq(tokenDigestUtil.digest(PATIENT + ":123456")), eq("3"), eq("300000"));
+        verifyNoMoreInteractions(redisTemplate);
+    }
+
+    @Test
+    void verify_MapsScriptReply() {
+        // Arrange
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+            .thenReturn(List.of(1L, 2L), List.of(0L, 1L), List.of(-1L, 0L), List.of(-2L, 0L));
+
+        // Act & Assert
+        assertEquals(new PhoneOtpStore.VerifyResult(PhoneOtpStore.Outcome.VERIFIED, 2), phoneOtpStore.verify(PATIENT, "123456"));
+        assertEquals(new PhoneOtpStore.VerifyResult(PhoneOtpStore.Outcome.INVALID, 1), phoneOtpStore.verify(PATIENT, "000000"));
+        assertEquals(PhoneOtpStore.Outcome.NOT_FOUND, phoneOtpStore.verify(PATIENT, "123456").outcome());
+        assertEquals(PhoneOtpStore.Outcome.ATTEMPTS_EXCEEDED, phoneOtpStore.verify(PATIENT, "123456").outcome());
+        verify(redisTemplate, times(4)).execute(any(RedisScript.class), eq(List.of("otp:phone:" + PATIENT)), any(Object[].class));
+    }
+
+    @Test
+    void verify_RedisDown_ReportsUnavailable() {
+        // Arrange
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+            .thenThrow(new RedisConnectionFailureException("Connection refused"));
+
+        // Act & Assert
+        assertEquals(PhoneOtpStore.Outcome.UNAVAILABLE, phoneOtpStore.verify(PATIENT, "123456").outcome());
+        assertFalse(phoneOtpStore.store(PATIENT, "123456", 3, Duration.ofMinutes(5)));
+    }
+}
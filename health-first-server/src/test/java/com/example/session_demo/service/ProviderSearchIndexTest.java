@@ -0,0 +1,224 @@
+package com.example.session_demo.service;
+
+import com.example.session_demo.dto.ProviderSuggestionDTO;
+import com.example.session_demo.entity.Provider;
+import com.example.session_demo.enums.ProviderSpecialization;
+import com.example.session_demo.enums.VerificationStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ProviderSearchIndexTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private ProviderSearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        searchIndex = new ProviderSearchIndex(jdbcTemplate, mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(searchIndex, "fetchSize", 100);
+        ReflectionTestUtils.setField(searchIndex, "maxResultWindow", 1000);
+        ReflectionTestUtils.setField(searchIndex, "maxSuggestions", 5);
+        ReflectionTestUtils.setField(searchIndex, "syncOverlapMs", 120000L);
+    }
+
+    @Test
+    void search_BeforeFirstBuild_ReturnsNull() {
+        // Act & Assert
+        assertNull(searchIndex.search("smith", null, null, 0, 10));
+    }
+
+    @Test
+    void search_RanksWholeFieldThenPrefixThenSubstringAndPaginates() throws Exception {
+        // Arrange
+        UUID goldsmith = UUID.randomUUID();
+        UUID smithers = UUID.randomUUID();
+        UUID smith = UUID.randomUUID();
+        stubRows(
+            row(goldsmith, "Ann", "Goldsmith", "ann.goldsmith@clinic.com", ProviderSpecialization.CARDIOLOGY, VerificationStatus.VERIFIED),
+            row(smithers, "Jane", "Smithers", "jane.smithers@clinic.com", ProviderSpecialization.CARDIOLOGY, VerificationStatus.PENDING),
+            row(smith, "John", "Smith", "john.smith@clinic.com", ProviderSpecialization.NEUROLOGY, VerificationStatus.VERIFIED));
+        searchIndex.rebuild();
+
+        // Act
+        ProviderSearchIndex.Hits firstPage = searchIndex.search(" SMITH ", null, null, 0, 2);
+        ProviderSearchIndex.Hits secondPage = searchIndex.search("smith", null, null, 1, 2);
+
+        // Assert
+        assertEquals(List.of(smith, smithers), firstPage.uuids());
+        assertEquals(3, firstPage.total());
+        assertEquals(List.of(goldsmith), secondPage.uuids());
+        assertEquals(3, secondPage.total());
+    }
+
+    @Test
+    void search_AppliesFiltersAndRequiresEveryToken() throws Exception {
+        // Arrange
+        UUID goldsmith = UUID.randomUUID();
+        UUID smithers = UUID.randomUUID();
+        stubRows(
+            row(goldsmith, "Ann", "Goldsmith", "ann.goldsmith@clinic.com", ProviderSpecialization.CARDIOLOGY, VerificationStatus.VERIFIED),
+            row(smithers, "Jane", "Smithers", "jane.smithers@clinic.com", ProviderSpecialization.CARDIOLOGY, VerificationStatus.PENDING));
+        searchIndex.rebuild();
+
+        // Act & Assert
+        assertEquals(List.of(goldsmith),
+            searchIndex.search("smith", ProviderSpecialization.CARDIOLOGY, VerificationStatus.VERIFIED, 0, 10).uuids());
+        assertEquals(List.of(smithers), searchIndex.search("ja smith", null, null, 0, 10).uuids());
+        assertEquals(0, searchIndex.search("smith", ProviderSpecialization.NEUROLOGY, null, 0, 10).total());
+    }
+
+    @Test
+    void indexAndRemove_KeepIndexCurrentWithoutRebuild() throws Exception {
+        // Arrange
+        stubRows();
+        searchIndex.rebuild();
+        Provider provider = provider("Maria", "Lopez", "maria.lopez@clinic.com");
+
+        // Act & Assert
+        searchIndex.index(provider);
+        assertEquals(List.of(provider.getUuid()), searchIndex.search("lopez", null, null, 0, 10).uuids());
+
+        provider.setLastName("Garcia");
+        provider.setEmail("maria.garcia@clinic.com");
+        searchIndex.index(provider);
+        assertEquals(0, searchIndex.search("lopez", null, null, 0, 10).total());
+        assertEquals(List.of(provider.getUuid()), searchIndex.search("garcia", null, null, 0, 10).uuids());
+
+        searchIndex.remove(provider.getUuid());
+        assertEquals(0, searchIndex.search("garcia", null, null, 0, 10).total());
+    }
+
+    @Test
+    void sync_PicksUpProvidersChangedThroughOtherNodes() throws Exception {
+        // Arrange
+        stubRows();
+        searchIndex.rebuild();
+        UUID remote = UUID.randomUUID();
+        stubRows(row(remote, "Omar", "Haddad", "omar.haddad@clinic.com", ProviderSpecialization.NEUROLOGY, VerificationStatus.VERIFIED));
+
+        // Act
+        searchIndex.sync();
+        searchIndex.sync(); // the overlapping window reads the same row again
+
+        // Assert
+        assertEquals(List.of(remote), searchIndex.search("haddad", null, null, 0, 10).uuids());
+        assertEquals(List.of(remote), uuids(searchIndex.suggest("oma", 10)));
+        verify(jdbcTemplate, times(3)).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void search_NormalizesIndependentlyOfDefaultLocale() throws Exception {
+        // Arrange - Turkish lower-cases I to a dotless i
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+        try {
+            UUID irwin = UUID.randomUUID();
+            stubRows(row(irwin, "IVY", "IRWIN", "ivy.irwin@clinic.com", ProviderSpecialization.CARDIOLOGY, VerificationStatus.VERIFIED));
+            searchIndex.rebuild();
+
+            // Act & Assert
+            assertEquals(List.of(irwin), searchIndex.search("irwin", null, null, 0, 10).uuids());
+            assertEquals(List.of(irwin), searchIndex.search("IRWIN", null, null, 0, 10).uuids());
+            assertEquals(List.of(irwin), uuids(searchIndex.suggest("ivy i", 10)));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    @Test
+    void suggest_PrefixOfNameEmailOrLicenseVerifiedFirst() throws Exception {
+        // Arrange
+        UUID goldsmith = UUID.randomUUID();
+        UUID smithers = UUID.randomUUID();
+        UUID smith = UUID.randomUUID();
+        stubRows(
+            row(smithers, "Jane", "Smithers", "jane.smithers@clinic.com", ProviderSpecialization.CARDIOLOGY, VerificationStatus.PENDING),
+            row(smith, "John", "Smith", "john.smith@clinic.com", ProviderSpecialization.NEUROLOGY, VerificationStatus.VERIFIED),
+            row(goldsmith, "Ann", "Goldsmith", "ann.goldsmith@clinic.com", ProviderSpecialization.CARDIOLOGY, VerificationStatus.VERIFIED));
+        searchIndex.rebuild();
+
+        // Act & Assert
+        assertEquals(List.of(smith, smithers), uuids(searchIndex.suggest("Smi", 10)));
+        assertEquals(List.of(smith), uuids(searchIndex.suggest("john  s", 10)));
+        assertEquals(List.of(goldsmith), uuids(searchIndex.suggest("mdgold", 10)));
+        assertEquals(List.of(goldsmith), uuids(searchIndex.suggest("ann.g", 10)));
+        assertEquals("Smith", searchIndex.suggest("smith", 1).get(0).getLastName());
+        assertEquals(List.of(), searchIndex.suggest("doe", 10));
+    }
+
+    @Test
+    void suggest_FollowsUpdatesAndDeactivation() throws Exception {
+        // Arrange
+        stubRows();
+        searchIndex.rebuild();
+        Provider provider = provider("Maria", "Lopez", "maria.lopez@clinic.com");
+        searchIndex.index(provider);
+        assertEquals(List.of(provider.getUuid()), uuids(searchIndex.suggest("lop", 10)));
+
+        // Act
+        provider.setLastName("Garcia");
+        searchIndex.index(provider);
+        List<UUID> afterRename = uuids(searchIndex.suggest("maria g", 10));
+        provider.setIsActive(false);
+        searchIndex.index(provider);
+
+        // Assert
+        assertEquals(List.of(), searchIndex.suggest("lop", 10));
+        assertEquals(List.of(provider.getUuid()), afterRename);
+        assertEquals(List.of(), searchIndex.suggest("maria", 10));
+        assertEquals(List.of(provider.getUuid()), searchIndex.search("garcia", null, null, 0, 10).uuids());
+    }
+
+    private static List<UUID> uuids(List<ProviderSuggestionDTO> suggestions) {
+        return suggestions.stream().map(ProviderSuggestionDTO::getUuid).toList();
+    }
+
+    private static Provider provider(String firstName, String lastName, String email) {
+        Provider provider = new Provider();
+        provider.setUuid(UUID.randomUUID());
+        provider.setFirstName(firstName);
+        provider.setLastName(lastName);
+        provider.setEmail(email);
+        provider.setSpecialization(ProviderSpecialization.FAMILY_MEDICINE);
+        provider.setVerificationStatus(VerificationStatus.PENDING);
+        provider.setLicenseNumber("MD" + Math.abs(provider.getUuid().getLeastSignificantBits() % 1_000_000));
+        provider.setIsActive(true);
+        return provider;
+    }
+
+    private static String[] row(UUID uuid, String firstName, String lastName, String email,
+                                ProviderSpecialization specialization, VerificationStatus verificationStatus) {
+        return new String[] {uuid.toString(), firstName, lastName, email, "MD" + lastName.toUpperCase(),
+            specialization.name(), verificationStatus.name()};
+    }
+
+    private void stubRows(String[]... rows) throws Exception {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (String[] row : rows) {
+                ResultSet resultSet = mock(ResultSet.class);
+                for (int column = 0; column < row.length; column++) {
+                    when(resultSet.getString(column + 1)).thenReturn(row[column]);
+                }
+                when(resultSet.getBoolean(row.length + 1)).thenReturn(true);
+                handler.processRow(resultSet);
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+}
@@ -2,6 +2,8 @@ package com.example.session_demo.service;
 
 import com.example.session_demo.dto.ProviderRegisterDTO;
 import com.example.session_demo.dto.ProviderResponseDTO;
+import com.example.session_demo.dto.ProviderSuggestionDTO;
+import com.example.session_demo.entity.OutboxMessage;
 import com.example.session_demo.entity.Provider;
 import com.example.session_demo.enums.ProviderSpecialization;
 import com.example.session_demo.enums.VerificationStatus;
@@ -14,7 +16,12 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -31,11 +38,17 @@ class ProviderServiceTest {
     @Mock
     private PasswordUtil passwordUtil;
 
+    @Mock
+    private PasswordHashingService passwordHashingService;
+
     @Mock
     private PhoneNumberUtil phoneNumberUtil;
 
     @Mock
-    private EmailService emailService;
+    private NotificationOutboxService notificationOutboxService;
+
+    @Mock
+    private ProviderSearchIndex providerSearchIndex;
 
     @InjectMocks
     private ProviderService providerService;
@@ -45,6 +58,8 @@ class ProviderServiceTest {
 
     @BeforeEach
     void setUp() {
+        ReflectionTestUtils.setField(providerService, "maxSuggestions", 10);
+
         // Setup valid registration DTO
         validRegisterDTO = new ProviderRegisterDTO();
         validRegisterDTO.setFirstName("John");
@@ -88,7 +103,7 @@ class ProviderServiceTest {
         } catch (Exception e) {
             // This won't happen in our test, but needed for compilation
         }
-        when(passwordUtil.hashPassword(anyString())).thenReturn("hashedPassword");
+        when(passwordHashingService.hashPassword(anyString())).thenReturn("hashedPassword");
         when(passwordUtil.generateSecureToken()).thenReturn("verificationToken");
         
         when(providerRepository.existsByEmail(anyString())).thenReturn(false);
@@ -106,7 +121,7 @@ class ProviderServiceTest {
         assertFalse(result.getEmailVerified());
 
         verify(providerRepository).save(any(Provider.class));
-        verify(emailService).sendVerificationEmail(anyString(), anyString(), anyString());
+        verify(notificationOutboxService).enqueue(eq(OutboxMessage.MessageType.PROVIDER_VERIFICATION_EMAIL), anyString(), anyString(), anyString());
     }
 
     @Test
@@ -123,7 +138,7 @@ class ProviderServiceTest {
         });
 
         verify(providerRepository, never()).save(any(Provider.class));
-        verify(emailService, never()).sendVerificationEmail(anyString(), anyString(), anyString());
+        verify(notificationOutboxService, never()).enqueue(any(), anyString(), anyString(), anyString());
     }
 
     @Test
@@ -170,7 +185,7 @@ class ProviderServiceTest {
         // Assert
         assertTrue(result);
         verify(providerRepository).save(any(Provider.class));
-        verify(emailService).sendWelcomeEmail(anyString(), anyString());
+        verify(notificationOutboxService).enqueue(eq(OutboxMessage.MessageType.PROVIDER_WELCOME_EMAIL), anyString(), anyString(), isNull());
     }
 
     @Test
@@ -185,7 +200,7 @@ class ProviderServiceTest {
         // Assert
         assertFalse(result);
         verify(providerRepository, never()).save(any(Provider.class));
-        verify(emailService, never()).sendWelcomeEmail(anyString(), anyString());
+        verify(notificationOutboxService, never()).enqueue(any(), anyString(), anyString(), any());
     }
 
     @Test
@@ -214,4 +229,83 @@ class ProviderServiceTest {
         // Assert
         assertFalse(result.isPresent());
     }
-} 
\ No newline at end of file
+
+    @Test
+    void searchProviders_LoadsIndexPageInRankedOrder() {
+        // Arrange
+        Provider second = new Provider();
+        second.setUuid(UUID.randomUUID());
+        second.setFirstName("Jane");
+        second.setLastName("Doerr");
+        second.setEmail("jane.doerr@clinic.com");
+        when(providerSearchIndex.search("doe", null, null, 0, 2))
+            .thenReturn(new ProviderSearchIndex.Hits(List.of(mockProvider.getUuid(), second.getUuid()), 5));
+        when(providerRepository.findByUuidIn(anyCollection())).thenReturn(List.of(second, mockProvider));
+
+        // Act
+        Page<ProviderResponseDTO> result = providerService.searchProviders("doe", null, null, PageRequest.of(0, 2));
+
+        // Assert
+        assertEquals(List.of("john.doe@clinic.com", "jane.doerr@clinic.com"),
+            result.getContent().stream().map(ProviderResponseDTO::getEmail).toList());
+        assertEquals(5, result.getTotalElements());
+        verify(providerRepository, never()).findAll();
+    }
+
+    @Test
+    void searchProviders_IndexNotBuilt_QueriesDatabase() {
+        // Arrange
+        PageRequest pageable = PageRequest.of(0, 10);
+        when(providerSearchIndex.search(anyString(), any(), any(), anyInt(), anyInt())).thenReturn(null);
+        when(providerRepository.searchByTerm("doe", ProviderSpecialization.CARDIOLOGY, null, pageable))
+            .thenReturn(new PageImpl<>(List.of(mockProvider), pageable, 1));
+
+        // Act
+        Page<ProviderResponseDTO> result = providerService.searchProviders(" Doe", ProviderSpecialization.CARDIOLOGY, null, pageable);
+
+        // Assert
+        assertEquals(1, result.getTotalElements());
+        assertEquals("john.doe@clinic.com", result.getContent().get(0).getEmail());
+    }
+
+    @Test
+    void autocompleteProviders_IndexNotBuilt_QueriesDatabaseByPrefix() {
+        // Arrange
+        when(providerSearchIndex.suggest("Jo", 5)).thenReturn(null);
+        when(providerRepository.findActiveByPrefix(eq("jo"), any())).thenReturn(List.of(mockProvider));
+
+        // Act
+        List<ProviderSuggestionDTO> result = providerService.autocompleteProviders("Jo", 5);
+
+        // Assert
+        assertEquals(1, result.size());
+        assertEquals(mockProvider.getUuid(), result.get(0).getUuid());
+        assertEquals("Doe", result.get(0).getLastName());
+    }
+
+    @Test
+    void autocompleteProviders_LimitAboveMaxResults_CappedOnIndexedPath() {
+        // Arrange
+        when(providerSearchIndex.suggest("Jo", 10)).thenReturn(List.of());
+
+        // Act
+        providerService.autocompleteProviders("Jo", 20);
+
+        // Assert - the index caches only max-results suggestions per prefix
+        verify(providerSearchIndex).suggest("Jo", 10);
+        verifyNoInteractions(providerRepository);
+    }
+
+    @Test
+    void autocompleteProviders_LimitAboveMaxResults_CappedOnDatabaseFallback() {
+        // Arrange
+        when(providerSearchIndex.suggest("Jo", 10)).thenReturn(null);
+        when(providerRepository.findActiveByPrefix(eq("jo"), any())).thenReturn(List.of(mockProvider));
+
+        // Act
+        providerService.autocompleteProviders("Jo", 20);
+
+        // Assert - same cap as the index, so results do not depend on whether it is built
+        verify(providerRepository).findActiveByPrefix("jo", PageRequest.of(0, 10));
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.session_demo.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RateLimitingServiceTest {
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    private RateLimitingService rateLimitingService;
+
+    @BeforeEach
+    void setUp() {
+        rateLimitingService = new RateLimitingService(redisTemplate);
+        ReflectionTestUtils.setField(rateLimitingService, "windowSizeMs", 3600000L);
+        ReflectionTestUtils.setField(rateLimitingService, "maxRequests", 5);
+        ReflectionTestUtils.setField(rateLimitingService, "overAdmission", 1);
+        rateLimitingService.init();
+    }
+
+    @Test
+    void tryAcquire_Allowed_ConsumesInOneScriptCall() {
+        // Arrange
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+            .thenReturn(List.of(1L, 4L, -1L, 720000L));
+
+        // Act
+        RateLimitingService.RateLimitResult result = rateLimitingService.tryAcquire("10.0.0.1");
+
+        // Assert
+        assertTrue(result.allowed());
+        assertEquals(4, result.remaining());
+        assertEquals(1, result.currentCount());
+        assertEquals(0L, result.retryAfterMs());
+        assertEquals(720000L, result.resetAfterMs());
+        verify(redisTemplate, times(1)).execute(any(RedisScript.class),
+            eq(List.of("rate_limit:registration:10.0.0.1")), eq("720000"), eq("3600000"), eq("1"));
+        verifyNoMoreInteractions(redisTemplate);
+    }
+
+    @Test
+    void tryAcquire_Denied_ReturnsRetryAfter() {
+        // Arrange
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+            .thenReturn(List.of(0L, 0L, 120000L, 3480000L));
+
+        // Act
+        RateLimitingService.RateLimitResult result = rateLimitingService.tryAcquire("10.0.0.1");
+
+        // Assert
+        assertFalse(result.allowed());
+        assertEquals(0, result.remaining());
+        assertEquals(5, result.currentCount());
+        assertEquals(120000L, result.retryAfterMs());
+        assertEquals(3480000L, result.resetAfterMs());
+    }
+
+    @Test
+    void getStatus_InspectsWithoutConsuming() {
+        // Arrange
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+            .thenReturn(List.of(1L, 3L, -1L, 1440000L));
+
+        // Act
+        RateLimitingService.RateLimitResult result = rateLimitingService.getStatus("10.0.0.1");
+
+        // Assert
+        assertTrue(result.allowed());
+        assertEquals(3, result.remaining());
+        assertEquals(2, result.currentCount());
+        verify(redisTemplate).execute(any(RedisScript.class),
+            eq(List.of("rate_limit:registration:10.0.0.1")), eq("720000"), eq("3600000"), eq("0"));
+    }
+
+    @Test
+    void tryAcquire_RedisUnavailable_AllowsRequest() {
+        // Arrange
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+            .thenThrow(new RuntimeException("Connection refused"));
+
+        // Act
+        RateLimitingService.RateLimitResult result = rateLimitingService.tryAcquire("10.0.0.1");
+
+        // Assert
+        assertTrue(result.allowed());
+        assertEquals(5, result.remaining());
+    }
+
+    @Test
+    void acquireLocally_AdmitsLimitPlusToleranceWithoutRedis() {
+        // Arrange
+        enableNearCache();
+        long now = 1_000_000L;
+
+        // Act
+        int admitted = 0;
+        for (int i = 0; i < 10; i++) {
+            if (rateLimitingService.acquireLocally("10.0.0.1", now).allowed()) {
+                admitted++;
+            }
+        }
+        RateLimitingService.RateLimitResult status = rateLimitingService.statusLocally("10.0.0.1", now);
+
+        // Assert
+        assertEquals(6, admitted); // 5 allowed plus 1 request of over-admission tolerance
+        assertFalse(status.allowed());
+        assertEquals(0, status.remaining());
+        assertTrue(rateLimitingService.acquireLocally("10.0.0.1", now + 720000L).allowed());
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    void synchronizeNearCache_PushesPendingAndAdoptsSharedState() {
+        // Arrange
+        enableNearCache();
+        long now = System.currentTimeMillis();
+        rateLimitingService.acquireLocally("10.0.0.1", now);
+        rateLimitingService.acquireLocally("10.0.0.1", now);
+        // Other nodes admitted three more, so Redis reports five emission intervals outstanding
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+            .thenReturn(List.of(3600000L));
+
+        // Act
+        rateLimitingService.synchronizeNearCache(now);
+
+        // Assert
+        verify(redisTemplate).execute(any(RedisScript.class),
+            eq(List.of("rate_limit:registration:10.0.0.1")), eq("720000"), eq("2"));
+        assertEquals(0, rateLimitingService.statusLocally("10.0.0.1", now).remaining());
+    }
+
+    @Test
+    void synchronizeNearCache_RedisUnavailable_KeepsPendingForNextRound() {
+        // Arrange
+        enableNearCache();
+        long now = System.currentTimeMillis();
+        rateLimitingService.acquireLocally("10.0.0.1", now);
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+            .thenThrow(new RuntimeException("Connection refused"))
+            .thenReturn(List.of(720000L));
+
+        // Act
+        rateLimitingService.synchronizeNearCache(now);
+        rateLimitingService.synchronizeNearCache(now);
+
+        // Assert
+        verify(redisTemplate, times(2)).execute(any(RedisScript.class),
+            eq(List.of("rate_limit:registration:10.0.0.1")), eq("720000"), eq("1"));
+    }
+
+    private void enableNearCache() {
+        ReflectionTestUtils.setField(rateLimitingService, "nearCacheEnabled", true);
+        ReflectionTestUtils.setField(rateLimitingService, "nearCacheMaxEntries", 1024);
+        rateLimitingService.init();
+    }
+}
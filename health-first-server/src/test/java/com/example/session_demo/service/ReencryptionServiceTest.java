@@ -0,0 +1,161 @@
+package com.example.session_demo.service;
+
+import com.example.session_demo.entity.InsuranceInfo;
+import com.example.session_demo.entity.Patient;
+import com.example.session_demo.entity.ReencryptionCheckpoint;
+import com.example.session_demo.repository.PatientAuditLogRepository;
+import com.example.session_demo.repository.PatientRepository;
+import com.example.session_demo.repository.ReencryptionCheckpointRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReencryptionServiceTest {
+
+    @Mock
+    private PatientRepository patientRepository;
+
+    @Mock
+    private PatientAuditLogRepository auditLogRepository;
+
+    @Mock
+    private ReencryptionCheckpointRepository checkpointRepository;
+
+    @Mock
+    private EncryptionService encryptionService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private DataSource dataSource;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ReencryptionService reencryptionService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        reencryptionService = new ReencryptionService(patientRepository, auditLogRepository, checkpointRepository,
+            encryptionService, transactionManager, dataSource, meterRegistry);
+        ReflectionTestUtils.setField(reencryptionService, "chunkSize", 2);
+        ReflectionTestUtils.setField(reencryptionService, "pauseFactor", 0.0);
+        ReflectionTestUtils.setField(reencryptionService, "maxPoolUtilization", 0.75);
+        ReflectionTestUtils.setField(reencryptionService, "maxBackoffMs", 1000L);
+        reencryptionService.init();
+        lenient().when(encryptionService.getActiveKeyId()).thenReturn("v2");
+    }
+
+    @Test
+    void run_PatientsUnderOldKey_RewrappedAndCheckpointed() {
+        // Arrange
+        byte[] rewrappedHistory = {1, 0, 2, 'v', '2'};
+        Patient patient = patient(7L, new byte[] {1, 0, 2, 'v', '1'}, "v1:policy");
+        when(checkpointRepository.findById(anyString())).thenReturn(Optional.empty());
+        when(patientRepository.findChunkForUpdate(eq(0L), any(Pageable.class))).thenReturn(List.of(patient));
+        when(encryptionService.reencryptRecords(anyList())).thenReturn(
+            List.of(Arrays.<Object>asList(rewrappedHistory, null, null, "v2:policy", null)));
+        when(auditLogRepository.findChunkForUpdate(eq(0L), any(Pageable.class))).thenReturn(List.of());
+
+        // Act
+        assertTrue(reencryptionService.run());
+
+        // Assert
+        assertSame(rewrappedHistory, patient.getMedicalHistoryEncrypted());
+        assertEquals("v2:policy", patient.getInsuranceInfo().getPolicyNumberEncrypted());
+        ArgumentCaptor<ReencryptionCheckpoint> captor = ArgumentCaptor.forClass(ReencryptionCheckpoint.class);
+        verify(checkpointRepository, times(2)).save(captor.capture());
+        ReencryptionCheckpoint patients = captor.getAllValues().get(0);
+        assertEquals(ReencryptionService.PATIENTS, patients.getTableName());
+        assertEquals("v2", patients.getTargetKeyId());
+        assertEquals(7L, patients.getLastId());
+        assertEquals(1L, patients.getRowsReencrypted());
+        assertTrue(patients.getCompleted());
+        assertEquals(1.0, meterRegistry.counter("encryption.reencryption.rows", "table", "patients").count());
+    }
+
+    @Test
+    void run_FullChunk_ContinuesAfterLastIdOfChunk() {
+        // Arrange
+        byte[] history = {1, 0, 2, 'v', '2'};
+        List<Patient> firstChunk = List.of(patient(1L, history, null), patient(2L, history, null));
+        when(checkpointRepository.findById(anyString())).thenReturn(Optional.empty());
+        when(patientRepository.findChunkForUpdate(eq(0L), any(Pageable.class))).thenReturn(firstChunk);
+        when(patientRepository.findChunkForUpdate(eq(2L), any(Pageable.class))).thenReturn(List.of());
+        when(encryptionService.reencryptRecords(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(auditLogRepository.findChunkForUpdate(eq(0L), any(Pageable.class))).thenReturn(List.of());
+
+        // Act
+        reencryptionService.run();
+
+        // Assert
+        verify(patientRepository).findChunkForUpdate(eq(2L), any(Pageable.class));
+        assertSame(history, firstChunk.get(0).getMedicalHistoryEncrypted());
+    }
+
+    @Test
+    void run_CheckpointForActiveKey_ResumesFromLastId() {
+        // Arrange
+        ReencryptionCheckpoint checkpoint = new ReencryptionCheckpoint(ReencryptionService.PATIENTS, "v2");
+        checkpoint.setLastId(42L);
+        when(checkpointRepository.findById(ReencryptionService.PATIENTS)).thenReturn(Optional.of(checkpoint));
+        when(checkpointRepository.findById(ReencryptionService.PATIENT_AUDIT_LOGS)).thenReturn(Optional.empty());
+        when(patientRepository.findChunkForUpdate(eq(42L), any(Pageable.class))).thenReturn(List.of());
+        when(encryptionService.reencryptRecords(anyList())).thenReturn(List.of());
+        when(auditLogRepository.findChunkForUpdate(eq(0L), any(Pageable.class))).thenReturn(List.of());
+
+        // Act
+        reencryptionService.run();
+
+        // Assert
+        verify(patientRepository, never()).findChunkForUpdate(eq(0L), any(Pageable.class));
+    }
+
+    @Test
+    void run_CompletedForOlderKey_StartsNewPass() {
+        // Arrange
+        ReencryptionCheckpoint done = new ReencryptionCheckpoint(ReencryptionService.PATIENTS, "v1");
+        done.setLastId(99L);
+        done.setCompleted(true);
+        ReencryptionCheckpoint auditDone = new ReencryptionCheckpoint(ReencryptionService.PATIENT_AUDIT_LOGS, "v2");
+        auditDone.setCompleted(true);
+        when(checkpointRepository.findById(ReencryptionService.PATIENTS)).thenReturn(Optional.of(done));
+        when(checkpointRepository.findById(ReencryptionService.PATIENT_AUDIT_LOGS)).thenReturn(Optional.of(auditDone));
+        when(patientRepository.findChunkForUpdate(eq(0L), any(Pageable.class))).thenReturn(List.of());
+        when(encryptionService.reencryptRecords(anyList())).thenReturn(List.of());
+
+        // Act
+        reencryptionService.run();
+
+        // Assert
+        verify(patientRepository).findChunkForUpdate(eq(0L), any(Pageable.class));
+        verifyNoInteractions(auditLogRepository);
+    }
+
+    private Patient patient(Long id, byte[] medicalHistory, String policyNumber) {
+        Patient patient = new Patient();
+        patient.setId(id);
+        patient.setMedicalHistoryEncrypted(medicalHistory);
+        InsuranceInfo insuranceInfo = new InsuranceInfo();
+        insuranceInfo.setPolicyNumberEncrypted(policyNumber);
+        patient.setInsuranceInfo(insuranceInfo);
+        return patient;
+    }
+}
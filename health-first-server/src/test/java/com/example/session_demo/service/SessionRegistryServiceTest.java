@@ -0,0 +1,191 @@
+package com.example.session_demo.service;
+
+import com.example.session_demo.entity.RefreshToken;
+import com.example.session_demo.repository.RefreshTokenRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SessionRegistryServiceTest {
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private ZSetOperations<String, Object> zSetOperations;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    private SessionRegistryService sessionRegistryService;
+    private UUID providerUuid;
+    private String key;
+
+    @BeforeEach
+    void setUp() {
+        sessionRegistryService = new SessionRegistryService(redisTemplate, refreshTokenRepository,
+            new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(sessionRegistryService, "keyTtlSlackMs", 3600000L);
+        providerUuid = UUID.randomUUID();
+        key = "sessions:provider:" + providerUuid;
+    }
+
+    @Test
+    void registerSession_AddsMemberScoredByExpiry() {
+        // Arrange
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(redisTemplate.getExpire(key)).thenReturn(-1L);
+        RefreshToken token = refreshToken("a".repeat(64), LocalDateTime.now().plusDays(7));
+
+        // Act
+        sessionRegistryService.registerSession(providerUuid, token);
+
+        // Assert
+        double expectedScore = token.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        verify(zSetOperations).add(key, token.getTokenHash(), expectedScore);
+        verify(hashOperations).put(eq(key + ":devices"), eq(token.getTokenHash()), contains("\"deviceInfo\":\"Chrome on Windows\""));
+        verify(redisTemplate, times(2)).expire(anyString(), any(Duration.class));
+    }
+
+    @Test
+    void countActiveSessions_PrunesExpiredThenCounts() {
+        // Arrange
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(redisTemplate.hasKey(key)).thenReturn(true);
+        when(zSetOperations.rangeByScore(eq(key), eq(Double.NEGATIVE_INFINITY), anyDouble()))
+            .thenReturn(Set.of("expiredDigest"));
+        when(zSetOperations.zCard(key)).thenReturn(2L);
+
+        // Act
+        long count = sessionRegistryService.countActiveSessions(providerUuid);
+
+        // Assert
+        assertEquals(2L, count);
+        verify(zSetOperations).removeRangeByScore(eq(key), eq(Double.NEGATIVE_INFINITY), anyDouble());
+        verify(hashOperations).delete(key + ":devices", "expiredDigest");
+        verifyNoInteractions(refreshTokenRepository);
+    }
+
+    @Test
+    void countActiveSessions_KeyMissing_CountsFromDatabaseAndReseeds() {
+        // Arrange - e.g. Redis was flushed; the provider still has a session in the table
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(redisTemplate.hasKey(key)).thenReturn(false);
+        when(redisTemplate.getExpire(key)).thenReturn(-2L);
+        RefreshToken valid = refreshToken("c".repeat(64), LocalDateTime.now().plusDays(1));
+        when(refreshTokenRepository.findValidTokensByProviderUuid(eq(providerUuid), any(LocalDateTime.class)))
+            .thenReturn(List.of(valid));
+
+        // Act
+        long count = sessionRegistryService.countActiveSessions(providerUuid);
+
+        // Assert
+        assertEquals(1L, count);
+        verify(zSetOperations).add(eq(key), eq(valid.getTokenHash()), anyDouble());
+        verify(zSetOperations, never()).zCard(anyString());
+    }
+
+    @Test
+    void countActiveSessions_RedisUnavailable_FallsBackToDatabase() {
+        // Arrange
+        when(redisTemplate.hasKey(key)).thenThrow(new RuntimeException("Connection refused"));
+        when(refreshTokenRepository.countActiveSessionsByProviderUuid(eq(providerUuid), any(LocalDateTime.class)))
+            .thenReturn(3L);
+
+        // Act & Assert
+        assertEquals(3L, sessionRegistryService.countActiveSessions(providerUuid));
+    }
+
+    @Test
+    void reconcileProvider_RemovesStaleMembersAndAddsValidOnes() throws Exception {
+        // Arrange
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        RefreshToken valid = refreshToken("b".repeat(64), LocalDateTime.now().plusDays(1));
+        Set<Object> members = new LinkedHashSet<>(List.of(valid.getTokenHash(), "revokedDigest"));
+        when(zSetOperations.range(key, 0, -1)).thenReturn(members);
+        when(refreshTokenRepository.findValidTokenHashes(eq(List.of("revokedDigest")), any(LocalDateTime.class)))
+            .thenReturn(List.of());
+        when(redisTemplate.getExpire(key)).thenReturn(-1L);
+
+        // Act
+        sessionRegistryService.reconcileProvider(providerUuid, List.of(valid));
+
+        // Assert
+        verify(zSetOperations).remove(key, "revokedDigest");
+        verify(hashOperations).delete(key + ":devices", "revokedDigest");
+        verify(zSetOperations).add(eq(key), eq(valid.getTokenHash()), anyDouble());
+    }
+
+    @Test
+    void reconcileProvider_KeepsSessionRegisteredAfterSnapshot() throws Exception {
+        // Arrange - the member was added to Redis after the table snapshot was read
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.range(key, 0, -1)).thenReturn(new LinkedHashSet<>(List.of("newDigest")));
+        when(refreshTokenRepository.findValidTokenHashes(eq(List.of("newDigest")), any(LocalDateTime.class)))
+            .thenReturn(List.of("newDigest"));
+
+        // Act
+        sessionRegistryService.reconcileProvider(providerUuid, List.of());
+
+        // Assert
+        verify(zSetOperations, never()).remove(anyString(), any(Object[].class));
+        verifyNoInteractions(hashOperations);
+    }
+
+    @Test
+    void reconcile_FailureForOneProviderDoesNotStopTheRest() {
+        // Arrange
+        UUID otherProvider = UUID.randomUUID();
+        when(refreshTokenRepository.findProviderUuidsWithActiveSessions(any(LocalDateTime.class)))
+            .thenReturn(List.of(providerUuid, otherProvider));
+        when(refreshTokenRepository.findValidTokensByProviderUuid(eq(providerUuid), any(LocalDateTime.class)))
+            .thenThrow(new RuntimeException("Query timeout"));
+        when(refreshTokenRepository.findValidTokensByProviderUuid(eq(otherProvider), any(LocalDateTime.class)))
+            .thenReturn(List.of());
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+
+        // Act
+        sessionRegistryService.reconcile();
+
+        // Assert
+        verify(zSetOperations).range("sessions:provider:" + otherProvider, 0, -1);
+    }
+
+    private RefreshToken refreshToken(String tokenHash, LocalDateTime expiresAt) {
+        RefreshToken token = new RefreshToken();
+        token.setTokenHash(tokenHash);
+        token.setExpiresAt(expiresAt);
+        token.setDeviceInfo("Chrome on Windows");
+        token.setIpAddress("127.0.0.1");
+        token.setUserAgent("Mozilla/5.0");
+        token.setCreatedAt(LocalDateTime.now());
+        return token;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.session_demo.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    @Test
+    void mightContain_NoFalseNegatives() {
+        // Arrange
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+
+        // Act
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("email:patient" + i + "@test.com");
+        }
+
+        // Assert
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("email:patient" + i + "@test.com"));
+        }
+    }
+
+    @Test
+    void mightContain_FalsePositiveRateNearConfigured() {
+        // Arrange
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("email:patient" + i + "@test.com");
+        }
+
+        // Act
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("email:absent" + i + "@test.com")) {
+                falsePositives++;
+            }
+        }
+
+        // Assert - 1% expected; allow twice that
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+    }
+}
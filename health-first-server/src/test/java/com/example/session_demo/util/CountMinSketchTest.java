@@ -0,0 +1,41 @@
+package com.example.session_demo.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CountMinSketchTest {
+
+    @Test
+    void estimate_NeverBelowTrueCountAndCloseForHeavyKeys() {
+        // Arrange
+        CountMinSketch sketch = new CountMinSketch(4, 1024);
+
+        // Act
+        for (int i = 0; i < 10_000; i++) {
+            sketch.add(HyperLogLog.hash64("key-" + i), 1);
+        }
+        sketch.add(HyperLogLog.hash64("heavy"), 500);
+
+        // Assert - overcount is bounded by 2N / width with high probability
+        long heavy = sketch.estimate(HyperLogLog.hash64("heavy"));
+        assertTrue(heavy >= 500 && heavy <= 500 + 2 * 10_500 / 1024);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(sketch.estimate(HyperLogLog.hash64("key-" + i)) >= 1);
+        }
+        assertEquals(0, sketch.estimate(HyperLogLog.hash64("absent")), 2 * 10_500 / 1024);
+    }
+
+    @Test
+    void clear_ResetsAllCounts() {
+        // Arrange
+        CountMinSketch sketch = new CountMinSketch(2, 64);
+        sketch.add(HyperLogLog.hash64("key"), 3);
+
+        // Act
+        sketch.clear();
+
+        // Assert
+        assertEquals(0, sketch.estimate(HyperLogLog.hash64("key")));
+    }
+}
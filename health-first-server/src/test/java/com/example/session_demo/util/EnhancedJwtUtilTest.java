@@ -0,0 +1,83 @@
+package com.example.session_demo.util;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EnhancedJwtUtilTest {
+
+    private static final String SECRET = "testSecretKeyThatIsLongEnoughForHs256Signing";
+
+    private EnhancedJwtUtil enhancedJwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        enhancedJwtUtil = newJwtUtil(SECRET, 3600000L);
+    }
+
+    @Test
+    void verify_AccessToken_ExposesTypedClaims() {
+        // Arrange
+        UUID uuid = UUID.randomUUID();
+        String token = enhancedJwtUtil.generateAccessToken(uuid, "john.doe@test.com", "John", "Doe",
+            "CARDIOLOGY", "VERIFIED");
+
+        // Act
+        VerifiedToken verifiedToken = enhancedJwtUtil.verify(token);
+
+        // Assert
+        assertEquals(uuid, verifiedToken.getUuid());
+        assertEquals("john.doe@test.com", verifiedToken.getEmail());
+        assertEquals("healthcare_provider", verifiedToken.getRole());
+        assertNotNull(verifiedToken.getTokenId());
+        assertFalse(verifiedToken.isRefreshToken());
+        assertFalse(verifiedToken.isExpired());
+    }
+
+    @Test
+    void verify_RefreshToken_IsRecognised() {
+        // Arrange
+        String token = enhancedJwtUtil.generateRefreshToken(UUID.randomUUID(), "john.doe@test.com", false);
+
+        // Act & Assert
+        assertTrue(enhancedJwtUtil.verify(token).isRefreshToken());
+    }
+
+    @Test
+    void verify_TokenSignedWithOtherKey_ThrowsException() {
+        // Arrange
+        EnhancedJwtUtil otherUtil = newJwtUtil("anotherSecretKeyThatIsLongEnoughForHs256Signing", 3600000L);
+        String token = otherUtil.generateRefreshToken(UUID.randomUUID(), "john.doe@test.com", false);
+
+        // Act & Assert
+        assertThrows(JwtException.class, () -> enhancedJwtUtil.verify(token));
+    }
+
+    @Test
+    void verify_ExpiredToken_ThrowsException() {
+        // Arrange
+        EnhancedJwtUtil shortLivedUtil = newJwtUtil(SECRET, -1000L);
+        String token = shortLivedUtil.generateAccessToken(UUID.randomUUID(), "john.doe@test.com", "John", "Doe",
+            "CARDIOLOGY", "VERIFIED");
+
+        // Act & Assert
+        assertThrows(ExpiredJwtException.class, () -> enhancedJwtUtil.verify(token));
+        assertFalse(enhancedJwtUtil.validateToken(token));
+    }
+
+    private EnhancedJwtUtil newJwtUtil(String secret, long accessTokenExpiration) {
+        EnhancedJwtUtil util = new EnhancedJwtUtil();
+        ReflectionTestUtils.setField(util, "secret", secret);
+        ReflectionTestUtils.setField(util, "accessTokenExpiration", accessTokenExpiration);
+        ReflectionTestUtils.setField(util, "refreshTokenExpiration", 604800000L);
+        ReflectionTestUtils.setField(util, "rememberMeExpiration", 2592000000L);
+        util.init();
+        return util;
+    }
+}
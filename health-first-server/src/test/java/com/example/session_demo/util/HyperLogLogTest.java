@@ -0,0 +1,78 @@
+package com.example.session_demo.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HyperLogLogTest {
+
+    @Test
+    void cardinality_SmallSets_AreExactOrNearlySo() {
+        // Arrange
+        HyperLogLog sketch = new HyperLogLog();
+
+        // Act
+        for (long i = 0; i < 100; i++) {
+            sketch.offer(i);
+            sketch.offer(i); // duplicates do not count
+        }
+
+        // Assert
+        assertEquals(100, sketch.cardinality(), 2);
+    }
+
+    @Test
+    void cardinality_LargeSets_WithinExpectedError() {
+        // Arrange
+        HyperLogLog sketch = new HyperLogLog();
+
+        // Act
+        for (int i = 0; i < 200_000; i++) {
+            sketch.offer("identifier-" + i + "@test.com");
+        }
+
+        // Assert - standard error is 1.6% at p = 12; allow three of them
+        assertEquals(200_000, sketch.cardinality(), 200_000 * 0.05);
+    }
+
+    @Test
+    void merge_EqualsSketchOfUnion() {
+        // Arrange
+        HyperLogLog first = new HyperLogLog();
+        HyperLogLog second = new HyperLogLog();
+        HyperLogLog union = new HyperLogLog();
+        for (long i = 0; i < 50_000; i++) {
+            first.offer(i);
+            union.offer(i);
+        }
+        for (long i = 25_000; i < 75_000; i++) {
+            second.offer(i);
+            union.offer(i);
+        }
+
+        // Act
+        first.merge(second);
+
+        // Assert
+        assertEquals(union.cardinality(), first.cardinality());
+        assertEquals(75_000, first.cardinality(), 75_000 * 0.05);
+    }
+
+    @Test
+    void toByteArray_RoundTrips() {
+        // Arrange
+        HyperLogLog sketch = new HyperLogLog(10);
+        for (long i = 0; i < 1_000; i++) {
+            sketch.offer(i);
+        }
+
+        // Act
+        HyperLogLog restored = HyperLogLog.fromByteArray(sketch.toByteArray());
+
+        // Assert
+        assertEquals(sketch.cardinality(), restored.cardinality());
+        assertEquals(1 + 1024, sketch.toByteArray().length);
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromByteArray(new byte[] {12, 0, 0}));
+        assertThrows(IllegalArgumentException.class, () -> sketch.merge(new HyperLogLog(12)));
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.session_demo.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cost of one rate limit check for a client population the size of a distributed attack.
+ *
+ * "stringKeyedMap" reproduces the previous per-client layout: a prefixed key string built per
+ * request and a map of boxed state objects. "primitiveTable" is IpRateLimitTable. Add
+ * -prof gc to the command line to compare allocation rates.
+ *
+ * Run with:
+ *   mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.example.session_demo.util.IpRateLimitTableBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class IpRateLimitTableBenchmark {
+
+    private static final int CLIENTS = 1 << 20;
+    private static final long EMISSION_INTERVAL_MS = 720000L;
+    private static final long BURST_MS = 3600000L;
+
+    private String[] addresses;
+    private IpRateLimitTable table;
+    private Map<String, long[]> stringKeyedMap;
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        addresses = new String[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) {
+            addresses[i] = i % 4 == 0
+                ? String.format("2001:db8:%x:%x::%x", random.nextInt(0x10000), random.nextInt(0x10000), i)
+                : (random.nextInt(223) + 1) + "." + random.nextInt(256) + "." + random.nextInt(256) + "." + random.nextInt(256);
+        }
+        table = new IpRateLimitTable(CLIENTS, EMISSION_INTERVAL_MS, BURST_MS, 0);
+        stringKeyedMap = new ConcurrentHashMap<>(CLIENTS);
+    }
+
+    @Benchmark
+    public long stringKeyedMap() {
+        String key = "rate_limit:registration:" + nextAddress();
+        long now = System.currentTimeMillis();
+        long[] state = stringKeyedMap.computeIfAbsent(key, k -> new long[1]);
+        synchronized (state) {
+            long newTat = Math.max(state[0], now) + EMISSION_INTERVAL_MS;
+            if (newTat - BURST_MS > now) {
+                return now - (newTat - BURST_MS);
+            }
+            state[0] = newTat;
+            return newTat - now;
+        }
+    }
+
+    @Benchmark
+    public long primitiveTable() {
+        return table.tryAcquire(nextAddress(), System.currentTimeMillis());
+    }
+
+    private String nextAddress() {
+        return addresses[cursor.getAndIncrement() & (CLIENTS - 1)];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(IpRateLimitTableBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.session_demo.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IpRateLimitTableTest {
+
+    private static final long EMISSION_INTERVAL_MS = 1000L;
+    private static final long BURST_MS = 5000L;
+
+    private IpRateLimitTable table;
+
+    @BeforeEach
+    void setUp() {
+        table = new IpRateLimitTable(1024, EMISSION_INTERVAL_MS, BURST_MS, 0);
+    }
+
+    @Test
+    void canonicalize_NormalizesIpv4AndIpv6Forms() {
+        assertEquals("192.168.1.20", IpRateLimitTable.canonicalize("192.168.1.20"));
+        assertEquals("192.168.1.20", IpRateLimitTable.canonicalize("::ffff:192.168.1.20"));
+        assertEquals("2001:db8::1", IpRateLimitTable.canonicalize("2001:0DB8:0000:0000:0000:0000:0000:0001"));
+        assertEquals("2001:db8:0:1:1:1:1:1", IpRateLimitTable.canonicalize("2001:db8:0:1:1:1:1:1"));
+        assertEquals("::1", IpRateLimitTable.canonicalize("::1"));
+        assertEquals("fe80::1", IpRateLimitTable.canonicalize("fe80::1%eth0"));
+        assertEquals("1::", IpRateLimitTable.canonicalize("1::"));
+    }
+
+    @Test
+    void canonicalize_NonAddressIsHashedIntoReservedRange() {
+        assertTrue(IpRateLimitTable.canonicalize("unknown").startsWith("h:"));
+        assertTrue(IpRateLimitTable.canonicalize("1.2.3").startsWith("h:"));
+        assertTrue(IpRateLimitTable.canonicalize("1:2:3:4:5:6:7:8:9").startsWith("h:"));
+        assertTrue(IpRateLimitTable.canonicalize("1::2::3").startsWith("h:"));
+    }
+
+    @Test
+    void tryAcquire_AdmitsBurstThenRejectsWithRetryAfter() {
+        // Arrange
+        long now = 1_000_000L;
+        for (int i = 0; i < 5; i++) {
+            assertTrue(table.tryAcquire("10.0.0.1", now) >= 0);
+        }
+
+        // Act
+        long rejected = table.tryAcquire("10.0.0.1", now);
+
+        // Assert
+        assertEquals(-EMISSION_INTERVAL_MS, rejected);
+        assertEquals(BURST_MS, table.resetAfter("10.0.0.1", now));
+        assertTrue(table.tryAcquire("10.0.0.1", now + EMISSION_INTERVAL_MS) >= 0);
+        assertTrue(table.tryAcquire("10.0.0.2", now) >= 0);
+    }
+
+    @Test
+    void tryAcquire_EquivalentAddressFormsShareOneEntry() {
+        // Arrange
+        long now = 1_000_000L;
+
+        // Act
+        table.tryAcquire("2001:db8::1", now);
+        table.tryAcquire("2001:0db8:0:0:0:0:0:1", now);
+
+        // Assert
+        assertEquals(1, table.size());
+        assertEquals(2 * EMISSION_INTERVAL_MS, table.resetAfter("2001:DB8::1", now));
+    }
+
+    @Test
+    void tryAcquire_FullTableEvictsInsteadOfGrowing() {
+        // Arrange
+        long now = 1_000_000L;
+
+        // Act
+        for (int i = 0; i < 10_000; i++) {
+            table.tryAcquire("10.0." + (i >> 8) + "." + (i & 0xFF), now);
+        }
+
+        // Assert
+        assertTrue(table.size() <= 1024);
+        assertTrue(table.size() > 512);
+    }
+
+    @Test
+    void drainPending_RemovesIdleEntriesAndTakesCounts() {
+        // Arrange
+        long now = 1_000_000L;
+        table.tryAcquire("10.0.0.2", now - 10_000L);
+        table.drainPending(now - 10_000L);
+        table.tryAcquire("10.0.0.1", now);
+        table.tryAcquire("10.0.0.1", now);
+
+        // Act
+        List<IpRateLimitTable.PendingEntry> drained = table.drainPending(now);
+
+        // Assert
+        assertEquals(1, drained.size());
+        assertEquals("10.0.0.1", drained.get(0).address());
+        assertEquals(2, drained.get(0).count());
+        assertEquals(1, table.size());
+        assertEquals(0, table.drainPending(now).get(0).count());
+    }
+
+    @Test
+    void applyShared_AdoptsSharedStatePlusNewAdmissions() {
+        // Arrange
+        long now = 1_000_000L;
+        table.tryAcquire("10.0.0.1", now);
+        IpRateLimitTable.PendingEntry entry = table.drainPending(now).get(0);
+        table.tryAcquire("10.0.0.1", now);
+
+        // Act
+        table.applyShared(entry, now, 3 * EMISSION_INTERVAL_MS);
+
+        // Assert
+        assertEquals(4 * EMISSION_INTERVAL_MS, table.resetAfter("10.0.0.1", now));
+    }
+
+    @Test
+    void tryAcquire_AllocatesNothingPerCheck() {
+        // Arrange
+        com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        String[] addresses = new String[512];
+        for (int i = 0; i < addresses.length; i++) {
+            addresses[i] = i % 2 == 0
+                ? "10." + (i >> 8) + "." + ((i >> 4) & 0xF) + "." + (i & 0xF)
+                : "2001:db8::" + Integer.toHexString(i);
+        }
+        long threadId = Thread.currentThread().getId();
+        long sink = 0;
+        // Warm up until the checks are compiled, so the interpreter and JIT are not measured
+        for (int i = 0; i < 200_000; i++) {
+            sink += table.tryAcquire(addresses[i % addresses.length], i);
+        }
+
+        // Act - a compilation or safepoint landing inside one batch can allocate on this thread,
+        // so several batches are measured and the quietest one must allocate nothing
+        long fewestAllocated = Long.MAX_VALUE;
+        for (int batch = 0; batch < 5; batch++) {
+            long now = 200_000L + batch * 100_000L;
+            long before = threadBean.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < 100_000; i++) {
+                sink += table.tryAcquire(addresses[i % addresses.length], now + i);
+                sink += table.resetAfter(addresses[(i + 7) % addresses.length], now + i);
+            }
+            fewestAllocated = Math.min(fewestAllocated, threadBean.getThreadAllocatedBytes(threadId) - before);
+        }
+
+        // Assert
+        assertNotEquals(Long.MIN_VALUE, sink);
+        assertEquals(0, fewestAllocated, "Allocated " + fewestAllocated + " bytes over 200000 checks");
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.session_demo.util;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request JWT cost before and after parse-once verification.
+ *
+ * The "legacy" benchmarks reproduce the old code paths: a fresh signing key and parser for
+ * every claim lookup, four parses for a token refresh and two for an authenticated request.
+ *
+ * Run with:
+ *   mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.example.session_demo.util.JwtVerificationBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "benchmarkSecretKeyThatIsLongEnoughForHs256Signing";
+
+    private EnhancedJwtUtil enhancedJwtUtil;
+    private String accessToken;
+    private String refreshToken;
+
+    @Setup
+    public void setUp() {
+        enhancedJwtUtil = new EnhancedJwtUtil();
+        ReflectionTestUtils.setField(enhancedJwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(enhancedJwtUtil, "accessTokenExpiration", 3600000L);
+        ReflectionTestUtils.setField(enhancedJwtUtil, "refreshTokenExpiration", 604800000L);
+        ReflectionTestUtils.setField(enhancedJwtUtil, "rememberMeExpiration", 2592000000L);
+        enhancedJwtUtil.init();
+
+        UUID uuid = UUID.randomUUID();
+        accessToken = enhancedJwtUtil.generateAccessToken(uuid, "john.doe@test.com", "John", "Doe",
+            "CARDIOLOGY", "VERIFIED");
+        refreshToken = enhancedJwtUtil.generateRefreshToken(uuid, "john.doe@test.com", false);
+    }
+
+    @Benchmark
+    public void legacyRefreshPath(Blackhole blackhole) {
+        // isRefreshToken, validateToken, extractUuid, extractEmail
+        blackhole.consume("refresh".equals(legacyParse(refreshToken).get("type", String.class)));
+        blackhole.consume(legacyParse(refreshToken).getExpiration().before(new Date()));
+        blackhole.consume(UUID.fromString(legacyParse(refreshToken).get("uuid", String.class)));
+        blackhole.consume(legacyParse(refreshToken).getSubject());
+    }
+
+    @Benchmark
+    public void verifiedRefreshPath(Blackhole blackhole) {
+        VerifiedToken token = enhancedJwtUtil.verify(refreshToken);
+        blackhole.consume(token.isRefreshToken());
+        blackhole.consume(token.isExpired());
+        blackhole.consume(token.getUuid());
+        blackhole.consume(token.getEmail());
+    }
+
+    @Benchmark
+    public void legacyFilterPath(Blackhole blackhole) {
+        // validateToken followed by extractAllClaims
+        blackhole.consume(legacyParse(accessToken).getExpiration().before(new Date()));
+        Claims claims = legacyParse(accessToken);
+        blackhole.consume(claims.getSubject());
+        blackhole.consume(UUID.fromString(claims.get("uuid", String.class)));
+        blackhole.consume(claims.get("role", String.class));
+    }
+
+    @Benchmark
+    public void verifiedFilterPath(Blackhole blackhole) {
+        VerifiedToken token = enhancedJwtUtil.verify(accessToken);
+        blackhole.consume(token.getEmail());
+        blackhole.consume(token.getUuid());
+        blackhole.consume(token.getRole());
+    }
+
+    private static Claims legacyParse(String token) {
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtVerificationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.session_demo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RadixTrieTest {
+
+    @Test
+    void best_ReturnsDistinctValuesInOrderUnderPrefix() {
+        // Arrange
+        RadixTrie<String> trie = new RadixTrie<>(3, Comparator.naturalOrder());
+        trie.put("john smith", "smith");
+        trie.put("smith", "smith");
+        trie.put("smithers", "smithers");
+        trie.put("jane smithers", "smithers");
+        trie.put("johanna lee", "lee");
+        trie.put("joe adams", "adams");
+
+        // Act & Assert
+        assertEquals(List.of("smith", "smithers"), trie.best("smi", 10));
+        assertEquals(List.of("adams", "lee", "smith"), trie.best("jo", 10));
+        assertEquals(List.of("lee", "smith"), trie.best("joh", 10));
+        assertEquals(List.of("adams"), trie.best("j", 1));
+        assertEquals(List.of("adams", "lee", "smith"), trie.best("", 10));
+        assertEquals(List.of(), trie.best("smz", 10));
+        assertEquals(List.of(), trie.best("john smith jr", 10));
+    }
+
+    @Test
+    void remove_RecomputesCachedBestAndKeepsOtherKeys() {
+        // Arrange
+        RadixTrie<String> trie = new RadixTrie<>(2, Comparator.naturalOrder());
+        trie.put("ann", "a");
+        trie.put("anna", "b");
+        trie.put("annabel", "c");
+        trie.put("b-ann", "a");
+
+        // Act
+        trie.remove("ann", "a");
+
+        // Assert - the next best value moves up; "a" is still reachable under its other key
+        assertEquals(List.of("b", "c"), trie.best("an", 10));
+        assertEquals(List.of("a"), trie.best("b", 10));
+        trie.remove("anna", "b");
+        assertEquals(List.of("c"), trie.best("ann", 10));
+        assertEquals(List.of("c"), trie.best("annab", 10));
+    }
+
+    @Test
+    void putAndRemove_MatchBruteForceOverRandomKeys() {
+        // Arrange
+        RadixTrie<Integer> trie = new RadixTrie<>(5, Comparator.naturalOrder());
+        TreeMap<String, Integer> expected = new TreeMap<>();
+        Random random = new Random(42);
+
+        // Act - random keys over a tiny alphabet force plenty of edge splits and merges
+        for (int i = 0; i < 2_000; i++) {
+            String key = randomKey(random);
+            if (expected.containsKey(key) && random.nextBoolean()) {
+                trie.remove(key, expected.remove(key));
+            } else if (!expected.containsKey(key)) {
+                expected.put(key, i);
+                trie.put(key, i);
+            }
+        }
+
+        // Assert
+        for (int i = 0; i < 200; i++) {
+            String prefix = randomKey(random).substring(0, 1 + random.nextInt(2));
+            List<Integer> bruteForce = expected.entrySet().stream()
+                .filter(entry -> entry.getKey().startsWith(prefix))
+                .map(Map.Entry::getValue)
+                .sorted()
+                .limit(5)
+                .toList();
+            assertEquals(bruteForce, trie.best(prefix, 5), "prefix " + prefix);
+        }
+    }
+
+    private static String randomKey(Random random) {
+        StringBuilder key = new StringBuilder();
+        int length = 2 + random.nextInt(5);
+        for (int i = 0; i < length; i++) {
+            key.append((char) ('a' + random.nextInt(3)));
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.session_demo.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenDigestUtilTest {
+
+    private TokenDigestUtil tokenDigestUtil;
+
+    @BeforeEach
+    void setUp() {
+        tokenDigestUtil = new TokenDigestUtil();
+        ReflectionTestUtils.setField(tokenDigestUtil, "digestSecret", "test-digest-secret");
+        tokenDigestUtil.init();
+    }
+
+    @Test
+    void digest_SameToken_ReturnsSameDigest() {
+        // Act
+        String first = tokenDigestUtil.digest("refresh-token-value");
+        String second = tokenDigestUtil.digest("refresh-token-value");
+
+        // Assert
+        assertEquals(first, second);
+        assertEquals(64, first.length()); // 32 bytes * 2 hex chars per byte
+    }
+
+    @Test
+    void digest_DifferentTokens_ReturnsDifferentDigests() {
+        // Act & Assert
+        assertNotEquals(tokenDigestUtil.digest("token-a"), tokenDigestUtil.digest("token-b"));
+    }
+
+    @Test
+    void digest_DifferentSecret_ReturnsDifferentDigest() {
+        // Arrange
+        TokenDigestUtil otherUtil = new TokenDigestUtil();
+        ReflectionTestUtils.setField(otherUtil, "digestSecret", "another-secret");
+        otherUtil.init();
+
+        // Act & Assert
+        assertNotEquals(tokenDigestUtil.digest("token"), otherUtil.digest("token"));
+    }
+
+    @Test
+    void digest_NullToken_ThrowsException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> tokenDigestUtil.digest(null));
+    }
+
+    @Test
+    void matches_CorrectToken_ReturnsTrue() {
+        // Arrange
+        String storedDigest = tokenDigestUtil.digest("refresh-token-value");
+
+        // Act & Assert
+        assertTrue(tokenDigestUtil.matches("refresh-token-value", storedDigest));
+    }
+
+    @Test
+    void matches_WrongToken_ReturnsFalse() {
+        // Arrange
+        String storedDigest = tokenDigestUtil.digest("refresh-token-value");
+
+        // Act & Assert
+        assertFalse(tokenDigestUtil.matches("other-token-value", storedDigest));
+        assertFalse(tokenDigestUtil.matches(null, storedDigest));
+        assertFalse(tokenDigestUtil.matches("refresh-token-value", null));
+    }
+}
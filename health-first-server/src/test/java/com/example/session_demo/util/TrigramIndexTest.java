@@ -0,0 +1,39 @@
+package com.example.session_demo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrigramIndexTest {
+
+    @Test
+    void candidates_IntersectsPostingsOfEveryToken() {
+        // Arrange
+        TrigramIndex index = new TrigramIndex();
+        index.add(0, "john", "smith", "john.smith@clinic.com");
+        index.add(1, "jane", "smithers", "jane.smithers@clinic.com");
+        index.add(2, "ann", "jones", "ann.jones@hospital.org");
+
+        // Act & Assert
+        assertArrayEquals(new int[] {0, 1}, index.candidates(List.of("smith")));
+        assertArrayEquals(new int[] {1}, index.candidates(List.of("smith", "jane")));
+        assertArrayEquals(new int[] {2}, index.candidates(List.of("hospital")));
+        assertArrayEquals(new int[0], index.candidates(List.of("brown")));
+    }
+
+    @Test
+    void candidates_ShortTokensMatchFieldPrefixes() {
+        // Arrange
+        TrigramIndex index = new TrigramIndex();
+        index.add(0, "john", "smith");
+        index.add(1, "ann", "jones");
+
+        // Act & Assert
+        assertArrayEquals(new int[] {0, 1}, index.candidates(List.of("j")));
+        assertArrayEquals(new int[] {0}, index.candidates(List.of("sm")));
+        assertArrayEquals(new int[0], index.candidates(List.of("mi")));
+        assertThrows(IllegalArgumentException.class, () -> index.add(1, "late"));
+    }
+}